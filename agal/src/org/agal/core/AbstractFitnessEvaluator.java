@@ -71,14 +71,30 @@ public abstract class AbstractFitnessEvaluator<S> implements Comparator<S>
 	@Override
 	public int compare( S first, S second )
 	{
-		Integer firstFitness = fitness( first );
-		Integer secondFitness = fitness( second );
-
-		return fieldFitnessComparator.compare( firstFitness, secondFitness );
+		return compareFitness( fitness( first ), fitness( second ) );
 
 	} // compare
 
 
+	/**
+	 * Compares two raw fitness values according to the fitness scale of this evaluator.
+	 * This is the primitive equivalent of {@link #getFitnessComparator()}, and is
+	 * preferred by algorithms which compare many fitness values at a time (such as
+	 * truncation selection), as it involves no boxing.
+	 * @param first an {@code int} fitness value.
+	 * @param second an {@code int} fitness value.
+	 * @return a positive {@code int} if {@code first} is more fit than {@code second}, a
+	 *         negative {@code int} if it is less fit, or {@code 0} if they are equally
+	 *         fit.
+	 */
+	public int compareFitness( int first, int second )
+	{
+		return fieldInverseFitness ? Integer.compare( second, first ) : Integer.compare(
+				first, second );
+
+	} // compareFitness
+
+
 	/**
 	 * Calculates the "fitness" of a state. Fitness values are generally only relevant
 	 * within the context of the search being performed, primarily as a way of objectively
@@ -0,0 +1,26 @@
+/*
+ * ContentionReporting.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+/**
+ * ContentionReporting may be implemented by a {@code Population} (or anything else
+ * shared by a search's workers) which can tell when workers get in each other's way, for
+ * instance by counting failed compare-and-set operations. A
+ * {@link WorkerCountController} uses it to tell when adding workers has stopped paying.
+ * @author David Schmidt
+ */
+public interface ContentionReporting
+{
+
+	/**
+	 * @return a {@code long} indicating the number of times an operation had to be
+	 *         retried (or waited) because of another thread, since this object was
+	 *         created. It only ever increases.
+	 */
+	public long getContentionCount( );
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Crossover.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Crossover defines a recombination operator on genomes of type {@code G}, such as
+ * {@code int[]}: it fills a child genome with some combination of two parents' genes.
+ * Where a {@link StateManager} owns the whole life cycle of a problem's states, a
+ * Crossover is only the recombination step, so that the standard operators (see
+ * {@code org.agal.impl.Crossovers}) can be shared between problems whose states hold
+ * the same kind of genome, and chosen independently of them.
+ * <p>
+ * The child is supplied by the caller, preallocated to the parents' size, so that a
+ * Crossover needn't allocate anything itself.
+ * <p>
+ * Crossovers are generally singleton within an EA, so implementations must be
+ * thread-safe.
+ * @author David Schmidt
+ */
+public interface Crossover<G>
+{
+	/**
+	 * Fills the child with a combination of the parents. The parents must not be
+	 * changed, and the child must not be either of them.
+	 * @param mother a {@code G} genome to be used as one of the child's parents.
+	 * @param father a {@code G} genome to be used as the other parent, of the same size.
+	 * @param child a {@code G} genome of the same size, to be overwritten.
+	 * @param random the calling thread's RandomGenerator.
+	 */
+	public void cross( G mother, G father, G child, RandomGenerator random );
+
+}
@@ -10,7 +10,7 @@ package org.agal.core;
  * DefaultSolutionListener
  * @author Dave
  */
-public class DefaultSolutionListener<S> implements EvolutionListener
+public class DefaultSolutionListener<S> implements TypedEvolutionListener<S>
 {
 	// Data members.
 	private final SearchContext<S> fieldSearchContext;
@@ -24,13 +24,20 @@ public class DefaultSolutionListener<S> implements EvolutionListener
 
 
 	@Override
-	@SuppressWarnings( "unchecked" )
-	public void onEvent( String eventId, Object eventObject )
+	public int getEventMask( )
 	{
-		if ( EvolutionListener.EVENT_ID_MEMBER_ADDED_TO_POPULATION.equals( eventId ) )
-			{
-			fieldSearchContext.tryUpdateBestResult( ( S ) eventObject );
-			}
+		return EVENT_MEMBER_ADDED;
+
+	} // getEventMask
+
+
+	@Override
+	public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		if ( fitnessKnown )
+			fieldSearchContext.tryUpdateBestResult( member, fitness );
+		else
+			fieldSearchContext.tryUpdateBestResult( member );
 
 	} // onEvent
 
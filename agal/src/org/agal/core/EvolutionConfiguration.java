@@ -14,7 +14,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 
+import org.agal.impl.AsyncEvolutionListener;
+import org.agal.impl.AsyncEvolutionListener.OverflowPolicy;
 import org.agal.impl.CompoundBiasSource;
+import org.agal.impl.CounterRandomSource;
+import org.agal.impl.SeededRandomSource;
 
 /**
  * EvolutionConfiguration is designed to handle the details of instantiating and hooking
@@ -30,9 +34,16 @@ public class EvolutionConfiguration<S>
 {
 	// TODO - To Hell with all this mess! Let's just use dependency injection (via Guice).
 
+	// Class constants.
+	/**
+	 * The default number of evaluations allowed each local search.
+	 */
+	public static final int DEFAULT_LOCAL_SEARCH_EVALUATIONS = 1000;
+
 	// Data members.
 	private Map<Class, Class> fieldClassMap = new HashMap<>( );
 	private int fieldPopulationSize;
+	private Long fieldSeed;
 
 	// LAM - Sorta duplicates the CompoundBiasSource API...
 	// LAM - Do we even need bias sources anymore?
@@ -40,11 +51,19 @@ public class EvolutionConfiguration<S>
 	private BiasSource fieldDefaultBiasSource;
 
 	private List<EvolutionListener> fieldListeners = new ArrayList<>( );
+	private OverflowPolicy fieldAsyncOverflowPolicy;
+	private int fieldAsyncCapacity;
+	private int fieldAsyncConsumerThreads;
 
 	private AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
 	private StateManager<S> fieldStateManager;
 	private Mutator<S> fieldMutator;
 
+	private LocalSearch<S> fieldLocalSearch;
+	private double fieldLocalSearchRate;
+	private int fieldLocalSearchEvaluations = DEFAULT_LOCAL_SEARCH_EVALUATIONS;
+	private long fieldLocalSearchNanos = 0;
+
 
 	/**
 	 * EvolutionConfiguration constructor.
@@ -90,7 +109,9 @@ public class EvolutionConfiguration<S>
 			selector = constructor.newInstance( fieldFitnessEvaluator );
 			}
 
-		// Create an instance of the requested algorithm.
+		// Create an instance of the requested algorithm. Some create their initial
+		// generation here, so they get a stream of their own.
+		searchContext.selectRandomStream( RandomSource.SETUP_GENERATION, 1 );
 		EvolutionAlgorithm algorithm;
 			{
 			Class<? extends EvolutionAlgorithm> algorithmClass = fieldClassMap
@@ -100,14 +121,28 @@ public class EvolutionConfiguration<S>
 			algorithm = constructor.newInstance( searchContext, selector, fieldMutator );
 			}
 
-		// Register all the requested listeners.
-		for ( EvolutionListener listener : fieldListeners )
-			algorithm.registerListener( listener );
+		searchContext.setLocalSearch( fieldLocalSearch, fieldLocalSearchRate,
+				fieldLocalSearchEvaluations, fieldLocalSearchNanos );
 
+		// Register all the requested listeners, along with a default "solution" listener,
+		// either directly or behind an asynchronous dispatcher.
 		// TODO - Better solution listener configuration.
-		// Register a default "solution" listener.
-		DefaultSolutionListener solutionListener = new DefaultSolutionListener<>( searchContext );
-		algorithm.registerListener( solutionListener );
+		List<EvolutionListener> listeners = new ArrayList<>( fieldListeners );
+		listeners.add( new DefaultSolutionListener<>( searchContext ) );
+
+		if ( fieldAsyncOverflowPolicy != null )
+			{
+			AsyncEvolutionListener<S> asyncListener = new AsyncEvolutionListener<>(
+					fieldAsyncCapacity, fieldAsyncOverflowPolicy, fieldAsyncConsumerThreads );
+			for ( EvolutionListener listener : listeners )
+				asyncListener.register( listener );
+			algorithm.registerListener( asyncListener );
+			}
+		else
+			{
+			for ( EvolutionListener listener : listeners )
+				algorithm.registerListener( listener );
+			}
 
 		return algorithm;
 
@@ -127,22 +162,42 @@ public class EvolutionConfiguration<S>
 		for ( Entry<String, BiasSource> entry : fieldBiasSources.entrySet( ) )
 			biasSource.setBiasSource( entry.getKey( ), entry.getValue( ) );
 
-		// Instantiate the RandomSource.
+		// Instantiate the RandomSource. Seeded searches use a SeededRandomSource unless a
+		// CounterRandomSource, which is keyed by the seed directly, was asked for.
 		RandomSource randomSource;
 			{
+			Class<? extends Random> randomClass = fieldClassMap.get( Random.class );
 			Class<? extends RandomSource> randomSourceClass = fieldClassMap
 					.get( RandomSource.class );
-			Class<? extends Random> randomClass = fieldClassMap.get( Random.class );
-			Constructor<? extends RandomSource> constructor = randomSourceClass
-					.getConstructor( Class.class );
-			randomSource = constructor.newInstance( randomClass );
+			if ( fieldSeed != null && randomSourceClass != null
+					&& CounterRandomSource.class.isAssignableFrom( randomSourceClass ) )
+				{
+				randomSource = new CounterRandomSource( fieldSeed.longValue( ) );
+				}
+			else if ( fieldSeed != null )
+				{
+				randomSource = new SeededRandomSource( randomClass, fieldSeed.longValue( ) );
+				}
+			else
+				{
+				Constructor<? extends RandomSource> constructor = randomSourceClass
+						.getConstructor( Class.class );
+				randomSource = constructor.newInstance( randomClass );
+				}
 			}
 
-		// Create and initialize the population.
+		// Create and initialize the population, first handing out the RandomSource to
+		// anyone who needs it before there's a SearchContext to get it from.
 		Population population;
 			{
 			Class<? extends Population> populationClass = fieldClassMap.get( Population.class );
 			population = populationClass.newInstance( );
+
+			supplyRandomSource( fieldStateManager, randomSource );
+			supplyRandomSource( fieldFitnessEvaluator, randomSource );
+			supplyRandomSource( population, randomSource );
+
+			randomSource.selectStream( RandomSource.SETUP_GENERATION, 0 );
 			population.initialize( fieldFitnessEvaluator, fieldStateManager, fieldPopulationSize );
 			}
 
@@ -167,6 +222,28 @@ public class EvolutionConfiguration<S>
 	} // setAlgorithmClass
 
 
+	/**
+	 * Delivers the configured listeners' events (and the default solution listener's)
+	 * asynchronously, via an {@link AsyncEvolutionListener}, so they don't hold up the
+	 * evolution. Stop conditions given to a search are still called synchronously. The
+	 * dispatcher's threads only run while the algorithm is evolving, and a listener which
+	 * throws doesn't stop delivery to the others.
+	 * @param capacity an {@code int} indicating the number of events which may be waiting
+	 *            for delivery.
+	 * @param overflowPolicy the OverflowPolicy for member events when they can't keep up.
+	 * @param consumerThreads an {@code int} indicating the number of delivery threads.
+	 */
+	public EvolutionConfiguration<S> setAsyncListeners( int capacity,
+			OverflowPolicy overflowPolicy, int consumerThreads )
+	{
+		fieldAsyncCapacity = capacity;
+		fieldAsyncOverflowPolicy = overflowPolicy;
+		fieldAsyncConsumerThreads = consumerThreads;
+		return this;
+
+	} // setAsyncListeners
+
+
 	public EvolutionConfiguration<S> setDefaultBiasSource( BiasSource defaultBiasSource )
 	{
 		fieldDefaultBiasSource = defaultBiasSource;
@@ -184,6 +261,48 @@ public class EvolutionConfiguration<S>
 	} // setFitnessEvaluator
 
 
+	/**
+	 * Makes the search memetic: a fraction of newly bred children will be improved by the
+	 * given local search before they're evaluated. Its budget is set by
+	 * {@link #setLocalSearchBudget(int, long)}. Must be called before the search is
+	 * created.
+	 * @param localSearch a LocalSearch to apply, or {@code null} for none.
+	 * @param rate a {@code double} between 0 and 1 indicating the probability of
+	 *            improving each child.
+	 */
+	public EvolutionConfiguration<S> setLocalSearch( LocalSearch<S> localSearch, double rate )
+	{
+		if ( rate < 0 || rate > 1 )
+			throw new IllegalArgumentException( "The local search rate must be between 0 and 1." );
+
+		fieldLocalSearch = localSearch;
+		fieldLocalSearchRate = rate;
+		return this;
+
+	} // setLocalSearch
+
+
+	/**
+	 * Sets the budget given each local search (see {@link LocalSearch}). Defaults to
+	 * {@link #DEFAULT_LOCAL_SEARCH_EVALUATIONS} and no time limit. Seeded searches
+	 * should not set a time limit, as it makes them timing dependent.
+	 * @param maxEvaluations an {@code int} indicating the number of evaluations allowed
+	 *            each local search.
+	 * @param maxMillis a {@code long} indicating how many milliseconds each local search
+	 *            may take, or {@code 0} for no limit.
+	 */
+	public EvolutionConfiguration<S> setLocalSearchBudget( int maxEvaluations, long maxMillis )
+	{
+		if ( maxEvaluations < 1 || maxMillis < 0 )
+			throw new IllegalArgumentException( "The local search budget must be positive." );
+
+		fieldLocalSearchEvaluations = maxEvaluations;
+		fieldLocalSearchNanos = maxMillis * 1000000;
+		return this;
+
+	} // setLocalSearchBudget
+
+
 	public EvolutionConfiguration<S> setMutator( Mutator<S> mutator )
 	{
 		// TODO - Make this class-based somehow?
@@ -226,6 +345,26 @@ public class EvolutionConfiguration<S>
 	} // setRandomSourceClass
 
 
+	/**
+	 * Puts the search into deterministic mode: every random number is drawn from streams
+	 * derived from the given master seed by a {@link SeededRandomSource}, which is used
+	 * in place of the configured RandomSource class (the configured Random class is still
+	 * honored). With a generational algorithm such as {@code EvolutionStrategy} or
+	 * {@code ForkJoinEugenicAlgorithm}, a seeded search produces bit-identical results
+	 * with any number of threads; see {@link SeededRandomSource} for the caveats. This
+	 * is useful for bisecting regressions and for comparing tuning changes fairly. If the
+	 * RandomSource class is {@link CounterRandomSource}, it's used instead, keyed by the
+	 * seed, so that every random number is also addressable.
+	 * @param seed a {@code long} master seed.
+	 */
+	public EvolutionConfiguration<S> setSeed( long seed )
+	{
+		fieldSeed = Long.valueOf( seed );
+		return this;
+
+	} // setSeed
+
+
 	public EvolutionConfiguration<S> setSelectorClass( Class<? extends Selector> selectorClass )
 	{
 		fieldClassMap.put( Selector.class, selectorClass );
@@ -241,4 +380,12 @@ public class EvolutionConfiguration<S>
 
 	} // setStateManager
 
+
+	private static void supplyRandomSource( Object target, RandomSource randomSource )
+	{
+		if ( target instanceof RandomSourceAware )
+			( ( RandomSourceAware ) target ).setRandomSource( randomSource );
+
+	} // supplyRandomSource
+
 }
@@ -0,0 +1,211 @@
+/*
+ * EvolutionEventBus.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.Arrays;
+
+/**
+ * EvolutionEventBus dispatches an algorithm's events to its listeners. Each event type
+ * has its own array of subscribers, so publishing an event touches only the listeners
+ * which asked for it (according to {@link TypedEvolutionListener#getEventMask()}) and
+ * allocates nothing. Plain {@link EvolutionListener}s are subscribed to every type and
+ * receive the usual String ids.
+ * <p>
+ * Registration is copy-on-write, so it's relatively expensive, while publishing reads a
+ * single volatile array.
+ * <p>
+ * EvolutionEventBus is thread safe.
+ * @author David Schmidt
+ */
+public class EvolutionEventBus<S>
+{
+	/**
+	 * Adapts a plain EvolutionListener, which wants everything by String id.
+	 */
+	private static class StringEventAdapter<S> implements TypedEvolutionListener<S>
+	{
+		// Data members.
+		private final EvolutionListener fieldListener;
+
+
+		public StringEventAdapter( EvolutionListener listener )
+		{
+			fieldListener = listener;
+
+		} // StringEventAdapter
+
+
+		@Override
+		public int getEventMask( )
+		{
+			return EVENT_ALL;
+
+		} // getEventMask
+
+
+		@Override
+		public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+		{
+			fieldListener.onEvent( getEventId( eventType ), member );
+
+		} // onEvent
+
+	} // StringEventAdapter
+
+	// Class constants.
+	private static final String[ ] EVENT_IDS = {
+			EvolutionListener.EVENT_ID_BEGIN_EVOLUTION, EvolutionListener.EVENT_ID_END_EVOLUTION,
+			EvolutionListener.EVENT_ID_NEW_GENERATION,
+			EvolutionListener.EVENT_ID_MEMBER_ADDED_TO_POPULATION,
+			EvolutionListener.EVENT_ID_MEMBER_REMOVED_FROM_POPULATION };
+
+	// Data members.
+	/**
+	 * Subscribers, indexed by the bit number of the event type. Replaced wholesale on
+	 * registration.
+	 */
+	private volatile TypedEvolutionListener<S>[ ][ ] fieldSubscribers;
+
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public EvolutionEventBus( )
+	{
+		fieldSubscribers = new TypedEvolutionListener[ EVENT_IDS.length ][ 0 ];
+
+	} // EvolutionEventBus
+
+
+	/**
+	 * @return the String id used by {@link EvolutionListener} for the given event type.
+	 */
+	public static String getEventId( int eventType )
+	{
+		return EVENT_IDS[ Integer.numberOfTrailingZeros( eventType ) ];
+
+	} // getEventId
+
+
+	/**
+	 * @return an {@code int} indicating the {@code TypedEvolutionListener.EVENT_*} type
+	 *         for the given String event id, or {@code 0} if it isn't a known id.
+	 */
+	public static int getEventType( String eventId )
+	{
+		for ( int index = 0; index < EVENT_IDS.length; index++ )
+			if ( EVENT_IDS[ index ].equals( eventId ) )
+				return 1 << index;
+
+		return 0;
+
+	} // getEventType
+
+
+	/**
+	 * @return a {@code boolean} indicating whether anyone has subscribed to the given
+	 *         event type. Publishers may use this to skip preparing an event's payload.
+	 */
+	public boolean hasSubscribers( int eventType )
+	{
+		return fieldSubscribers[ Integer.numberOfTrailingZeros( eventType ) ].length > 0;
+
+	} // hasSubscribers
+
+
+	/**
+	 * Dispatches an event which concerns no member to the listeners subscribed to its
+	 * type.
+	 */
+	public void publish( int eventType )
+	{
+		publish( eventType, null, 0, false );
+
+	} // publish
+
+
+	/**
+	 * Dispatches an event concerning a member whose fitness isn't known to the listeners
+	 * subscribed to its type.
+	 */
+	public void publish( int eventType, S member )
+	{
+		publish( eventType, member, 0, false );
+
+	} // publish
+
+
+	/**
+	 * Dispatches an event concerning a member whose fitness is known to the listeners
+	 * subscribed to its type.
+	 */
+	public void publish( int eventType, S member, int fitness )
+	{
+		publish( eventType, member, fitness, true );
+
+	} // publish
+
+
+	/**
+	 * Dispatches an event to the listeners subscribed to its type.
+	 * @param eventType an {@code int} indicating the event's type; a single
+	 *            {@code TypedEvolutionListener.EVENT_*} constant.
+	 * @param member the population member the event concerns, or {@code null}.
+	 * @param fitness an {@code int} indicating the fitness of {@code member}, if
+	 *            {@code fitnessKnown}.
+	 * @param fitnessKnown a {@code boolean} indicating whether {@code fitness} is
+	 *            meaningful.
+	 */
+	public void publish( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		for ( TypedEvolutionListener<S> subscriber : fieldSubscribers[ Integer
+				.numberOfTrailingZeros( eventType ) ] )
+			subscriber.onEvent( eventType, member, fitness, fitnessKnown );
+
+	} // publish
+
+
+	/**
+	 * Publishes an event identified by its String id, for the benefit of code written
+	 * against {@link EvolutionListener}. Unknown ids are ignored.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public void publish( String eventId, Object eventObject )
+	{
+		int eventType = getEventType( eventId );
+
+		if ( eventType != 0 )
+			publish( eventType, ( S ) eventObject );
+
+	} // publish
+
+
+	/**
+	 * Subscribes a listener. A {@link TypedEvolutionListener} is subscribed to the types
+	 * in its mask; any other listener is subscribed to all of them.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public synchronized void register( EvolutionListener listener )
+	{
+		TypedEvolutionListener<S> subscriber = ( listener instanceof TypedEvolutionListener ) ? ( TypedEvolutionListener<S> ) listener
+				: new StringEventAdapter<S>( listener );
+		int mask = subscriber.getEventMask( );
+
+		TypedEvolutionListener<S>[ ][ ] subscribers = fieldSubscribers.clone( );
+		for ( int index = 0; index < subscribers.length; index++ )
+			{
+			if ( ( mask & ( 1 << index ) ) == 0 )
+				continue;
+
+			subscribers[ index ] = Arrays.copyOf( subscribers[ index ],
+					subscribers[ index ].length + 1 );
+			subscribers[ index ][ subscribers[ index ].length - 1 ] = subscriber;
+			}
+
+		fieldSubscribers = subscribers;
+
+	} // register
+
+}
@@ -0,0 +1,645 @@
+/*
+ * EvolutionSearch.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * EvolutionSearch is a managed alternative to {@link EvolutionControlThread}. Rather than
+ * running until a {@link StopCondition} interrupts it, a search may be started, paused,
+ * resumed, single-stepped a given number of generations, resized to a different number of
+ * worker threads, and stopped, all while it is running. Its workers are run on an
+ * {@code ExecutorService}, which may be supplied by the caller (for instance, a job
+ * scheduler's) or created and owned by the search.
+ * <p>
+ * Control is cooperative. Algorithms call {@link SearchContext#checkpoint()} between units
+ * of work (for instance, after each child is sown), and it is only there that workers
+ * park while the search is paused, retire when the search is shrunk, or leave when it is
+ * stopped. As a result, no work is thrown away: children already being bred when a
+ * pause, resize, or stop is requested are completed and added to the population first.
+ * The bundled algorithms all call {@code checkpoint}; custom algorithms which don't can
+ * only be stopped via {@link #stopNow()}.
+ * <p>
+ * Generations are counted from the algorithm's {@code EVENT_NEW_GENERATION} events, so
+ * {@link #step(long)} is exact for generational algorithms. For steady-state algorithms
+ * such as {@code EugenicAlgorithm}, each event marks a generation's worth of children
+ * bred by one worker, and a step may overrun slightly by the children in flight.
+ * <p>
+ * Requests ({@code pause}, {@code step}, {@code resize}, {@code stop}) return
+ * immediately; {@link #awaitPaused()} and {@link #awaitTermination()} may be used to wait
+ * for them to take effect. StopConditions given to a search request a graceful
+ * {@code stop} rather than interrupting anything.
+ * <p>
+ * Should the algorithm throw on any worker, the search records the first such failure
+ * (see {@link #getFailure()}) and stops: the remaining workers leave at their next
+ * checkpoint, and the search terminates once they have.
+ * <p>
+ * EvolutionSearch is thread safe.
+ * @author David Schmidt
+ */
+public class EvolutionSearch<S>
+{
+	/**
+	 * The lifecycle states of an EvolutionSearch.
+	 */
+	public enum State
+	{
+		/** Not yet started. */
+		NEW,
+		/** Evolving, either indefinitely or for a requested number of steps. */
+		RUNNING,
+		/** Paused, or pausing; workers park at their next checkpoint. */
+		PAUSED,
+		/** Stopped, but some workers are still draining their work in flight. */
+		STOPPING,
+		/** All workers have left. The search may not be restarted. */
+		TERMINATED
+	}
+
+	/**
+	 * Counts generations for {@code step}.
+	 */
+	private class GenerationListener implements TypedEvolutionListener<S>
+	{
+
+		@Override
+		public int getEventMask( )
+		{
+			return EVENT_NEW_GENERATION;
+
+		} // getEventMask
+
+
+		@Override
+		public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+		{
+			synchronized ( fieldLock )
+				{
+				fieldGenerationCount++;
+				if ( fieldStepsRemaining > 0 && --fieldStepsRemaining == 0 )
+					{
+					fieldPaused = true;
+					updateAttention( );
+					}
+				}
+
+		} // onEvent
+
+	} // GenerationListener
+
+	private class Worker implements Runnable
+	{
+		// Guarded by fieldLock.
+		Thread fieldThread;
+		boolean fieldRetiring = false;
+
+
+		@Override
+		public void run( )
+		{
+			synchronized ( fieldLock )
+				{
+				fieldThread = Thread.currentThread( );
+				}
+			fieldCurrentWorker.set( this );
+
+			try
+				{
+				fieldEvolver.evolve( );
+				}
+			catch ( RuntimeException | Error exception )
+				{
+				workerFailed( exception );
+				}
+			finally
+				{
+				fieldCurrentWorker.remove( );
+				workerExited( this );
+
+				// Don't hand the thread back with an interrupt meant for this worker.
+				Thread.interrupted( );
+				}
+
+		} // run
+
+	} // Worker
+
+	// Data members.
+	private final SearchContext<S> fieldSearchContext;
+	private final EvolutionAlgorithm fieldEvolver;
+	private final ExecutorService fieldExecutor;
+	private final boolean fieldOwnsExecutor;
+	private final ThreadLocal<Worker> fieldCurrentWorker = new ThreadLocal<>( );
+	private final Object fieldLock = new Object( );
+
+	/**
+	 * Whether checkpoints need to take the lock at all. Lets workers pass through
+	 * checkpoints with a single volatile read while the search is simply running.
+	 */
+	private volatile boolean fieldAttention = false;
+
+	// Guarded by fieldLock.
+	private final Set<Worker> fieldWorkers = new HashSet<>( );
+	private boolean fieldStarted = false;
+	private boolean fieldPaused = false;
+	private boolean fieldStopping = false;
+	private boolean fieldTerminated = false;
+	private int fieldTargetWorkers = 0;
+	private int fieldRetiringWorkers = 0;
+	private int fieldParkedWorkers = 0;
+	private long fieldStepsRemaining = 0;
+	private long fieldGenerationCount = 0;
+	private Throwable fieldFailure = null;
+
+
+	/**
+	 * Constructs an EvolutionSearch which runs its workers on its own thread pool. The
+	 * pool is shut down once the search terminates.
+	 * @see #EvolutionSearch(SearchContext, ExecutorService, StopCondition...)
+	 */
+	public EvolutionSearch( SearchContext<S> searchContext, StopCondition... stopConditions )
+			throws Exception
+	{
+		this( searchContext, Executors.newCachedThreadPool( ), true, stopConditions );
+
+	} // EvolutionSearch
+
+
+	/**
+	 * EvolutionSearch constructor.
+	 * @param searchContext the SearchContext to evolve. Its configuration is used to
+	 *            instantiate the algorithm. A SearchContext may only be managed by one
+	 *            search.
+	 * @param executor an ExecutorService on which to run the worker threads. It must be
+	 *            able to run as many tasks concurrently as there will be workers. It is
+	 *            not shut down by the search.
+	 * @param stopConditions an array of StopCondition which will observe the evolution and
+	 *            decide when it is ready to be stopped. Any one of them may stop the
+	 *            search.
+	 * @throws Exception if the algorithm cannot be instantiated.
+	 */
+	public EvolutionSearch( SearchContext<S> searchContext, ExecutorService executor,
+			StopCondition... stopConditions )
+			throws Exception
+	{
+		this( searchContext, executor, false, stopConditions );
+
+	} // EvolutionSearch
+
+
+	@SuppressWarnings( "unchecked" )
+	private EvolutionSearch( SearchContext<S> searchContext, ExecutorService executor,
+			boolean ownsExecutor, StopCondition... stopConditions )
+			throws Exception
+	{
+		fieldSearchContext = searchContext;
+		fieldExecutor = executor;
+		fieldOwnsExecutor = ownsExecutor;
+
+		// Instantiate the evolution algorithm via the configuration.
+		fieldEvolver = searchContext.getConfiguration( ).createAlgorithm( searchContext );
+		fieldEvolver.registerListener( new GenerationListener( ) );
+
+		// Register the stop conditions with the evolver.
+		for ( StopCondition stopCondition : stopConditions )
+			{
+			stopCondition.setEvolutionSearch( this );
+			if ( stopCondition instanceof EvolutionListener )
+				fieldEvolver.registerListener( ( EvolutionListener ) stopCondition );
+			}
+
+		searchContext.setSearch( this );
+
+	} // EvolutionSearch
+
+
+	/**
+	 * Sets the number of workers for a {@link SearchHost}, starting the search if need be.
+	 * Unlike {@link #resize(int)}, this may be zero: the workers all retire and give
+	 * their threads back to the host, but the search carries on (or stays paused) as if
+	 * they were still there, and picks up where it left off when workers are allotted
+	 * again.
+	 * @param workerCount an {@code int} indicating the number of workers.
+	 */
+	void allot( int workerCount )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldStopping || fieldTerminated )
+				return;
+
+			fieldStarted = true;
+			fieldTargetWorkers = workerCount;
+			while ( fieldWorkers.size( ) - fieldRetiringWorkers < fieldTargetWorkers )
+				{
+				Worker worker = new Worker( );
+				fieldWorkers.add( worker );
+				fieldExecutor.execute( worker );
+				}
+
+			updateAttention( );
+			fieldLock.notifyAll( );
+			}
+
+	} // allot
+
+
+	/**
+	 * Blocks until every worker is parked in a pause (or the search has terminated).
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void awaitPaused( )
+			throws InterruptedException
+	{
+		synchronized ( fieldLock )
+			{
+			while ( !fieldTerminated
+					&& !( fieldPaused && fieldParkedWorkers == fieldWorkers.size( ) ) )
+				fieldLock.wait( );
+			}
+
+	} // awaitPaused
+
+
+	/**
+	 * Blocks until every worker has left and the search has terminated. A search whose
+	 * algorithm failed terminates too; check {@link #getFailure()}.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void awaitTermination( )
+			throws InterruptedException
+	{
+		synchronized ( fieldLock )
+			{
+			while ( !fieldTerminated )
+				fieldLock.wait( );
+			}
+
+	} // awaitTermination
+
+
+	/**
+	 * Called by workers (via {@link SearchContext#checkpoint()}) between units of work.
+	 * Parks while paused.
+	 * @return {@code false} if the calling worker should stop evolving, either because
+	 *         the search is stopping or because it has been shrunk.
+	 */
+	boolean checkpoint( )
+	{
+		// Fast path: nothing has been requested of anyone.
+		if ( !fieldAttention )
+			return true;
+
+		Worker worker = fieldCurrentWorker.get( );
+
+		synchronized ( fieldLock )
+			{
+			while ( true )
+				{
+				if ( fieldStopping )
+					return false;
+
+				// Shrink by retiring whichever workers reach a checkpoint first.
+				if ( isExcess( worker ) )
+					{
+					worker.fieldRetiring = true;
+					fieldRetiringWorkers++;
+					updateAttention( );
+					return false;
+					}
+
+				if ( !fieldPaused )
+					return true;
+
+				// Announce parking once (for awaitPaused), then wait for something which
+				// concerns this worker. Parked workers mustn't wake each other, or they'll
+				// keep the lock busy forever.
+				fieldParkedWorkers++;
+				fieldLock.notifyAll( );
+				try
+					{
+					while ( fieldPaused && !fieldStopping && !isExcess( worker ) )
+						fieldLock.wait( );
+					}
+				catch ( InterruptedException exception )
+					{
+					// Someone wants this worker gone right now; leave the interrupt for
+					// the algorithm to see too.
+					Thread.currentThread( ).interrupt( );
+					return false;
+					}
+				finally
+					{
+					fieldParkedWorkers--;
+					}
+				}
+			}
+
+	} // checkpoint
+
+
+	/**
+	 * @return the EvolutionAlgorithm being run by this search.
+	 */
+	public EvolutionAlgorithm getEvolutionAlgorithm( )
+	{
+		return fieldEvolver;
+
+	} // getEvolutionAlgorithm
+
+
+	/**
+	 * @return the first exception (or error) thrown by the algorithm on any worker, which
+	 *         stopped the search, or {@code null} if there's been none.
+	 */
+	public Throwable getFailure( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldFailure;
+			}
+
+	} // getFailure
+
+
+	/**
+	 * @return a {@code long} indicating the number of generations counted so far.
+	 */
+	public long getGenerationCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldGenerationCount;
+			}
+
+	} // getGenerationCount
+
+
+	public SearchContext<S> getSearchContext( )
+	{
+		return fieldSearchContext;
+
+	} // getSearchContext
+
+
+	public State getState( )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldTerminated )
+				return State.TERMINATED;
+			if ( fieldStopping )
+				return State.STOPPING;
+			if ( !fieldStarted )
+				return State.NEW;
+			return fieldPaused ? State.PAUSED : State.RUNNING;
+			}
+
+	} // getState
+
+
+	/**
+	 * @return an {@code int} indicating the number of workers that are currently
+	 *         evolving, including any which are parked or have yet to retire.
+	 */
+	public int getWorkerCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldWorkers.size( );
+			}
+
+	} // getWorkerCount
+
+
+	// Must hold fieldLock.
+	private boolean isExcess( Worker worker )
+	{
+		return worker != null && !worker.fieldRetiring
+				&& fieldWorkers.size( ) - fieldRetiringWorkers > fieldTargetWorkers;
+
+	} // isExcess
+
+
+	/**
+	 * Requests that all workers park at their next checkpoint. Work in flight is
+	 * completed first. Use {@link #awaitPaused()} to wait for the workers to park.
+	 */
+	public void pause( )
+	{
+		synchronized ( fieldLock )
+			{
+			requireActive( );
+			fieldPaused = true;
+			fieldStepsRemaining = 0;
+			updateAttention( );
+			}
+
+	} // pause
+
+
+	private void requireActive( )
+	{
+		if ( fieldStopping || fieldTerminated )
+			throw new IllegalStateException( "The search has been stopped." );
+
+	} // requireActive
+
+
+	/**
+	 * Changes the number of worker threads. New workers are started immediately; excess
+	 * workers retire at their next checkpoint, after finishing their work in flight. The
+	 * search must have been started.
+	 * @param workerCount an {@code int} indicating the desired number of workers. Must be
+	 *            at least 1.
+	 */
+	public void resize( int workerCount )
+	{
+		if ( workerCount < 1 )
+			throw new IllegalArgumentException( "A search requires at least one worker." );
+
+		synchronized ( fieldLock )
+			{
+			requireActive( );
+			if ( !fieldStarted )
+				throw new IllegalStateException( "The search has not been started." );
+
+			allot( workerCount );
+			}
+
+	} // resize
+
+
+	/**
+	 * Releases paused workers to evolve indefinitely.
+	 */
+	public void resume( )
+	{
+		synchronized ( fieldLock )
+			{
+			requireActive( );
+			fieldPaused = false;
+			fieldStepsRemaining = 0;
+			updateAttention( );
+			fieldLock.notifyAll( );
+			}
+
+	} // resume
+
+
+	/**
+	 * Starts the search with the given number of workers.
+	 * @param workerCount an {@code int} indicating how many workers to start.
+	 * @throws IllegalStateException if the search has already been started.
+	 */
+	public void start( int workerCount )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldStarted || fieldTerminated )
+				throw new IllegalStateException( "The search has already been started." );
+			fieldStarted = true;
+			}
+
+		resize( workerCount );
+
+	} // start
+
+
+	/**
+	 * Releases paused workers to evolve for the given number of generations, after which
+	 * the search pauses again. Use {@link #awaitPaused()} to wait for the steps to
+	 * complete.
+	 * @param generations a {@code long} indicating how many generations to evolve. Must
+	 *            be at least 1.
+	 */
+	public void step( long generations )
+	{
+		if ( generations < 1 )
+			throw new IllegalArgumentException( "Must step at least one generation." );
+
+		synchronized ( fieldLock )
+			{
+			requireActive( );
+			fieldPaused = false;
+			fieldStepsRemaining = generations;
+			updateAttention( );
+			fieldLock.notifyAll( );
+			}
+
+	} // step
+
+
+	/**
+	 * Requests a graceful stop: each worker finishes its work in flight and leaves at its
+	 * next checkpoint. Paused workers leave immediately. Has no effect if the search is
+	 * already stopping. Use {@link #awaitTermination()} to wait for the workers to leave.
+	 */
+	public void stop( )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldStopping || fieldTerminated )
+				return;
+
+			fieldStopping = true;
+			fieldPaused = false;
+			updateAttention( );
+			fieldLock.notifyAll( );
+
+			if ( fieldWorkers.isEmpty( ) )
+				terminate( );
+			}
+
+	} // stop
+
+
+	/**
+	 * Requests a stop and additionally interrupts every worker, abandoning any work in
+	 * flight. This is the equivalent of interrupting an {@code EvolutionControlThread},
+	 * and is intended for algorithms which don't call checkpoints, or emergencies.
+	 */
+	public void stopNow( )
+	{
+		synchronized ( fieldLock )
+			{
+			stop( );
+
+			// Workers clear their threads under the lock as they leave, so none of these
+			// has been handed back to the executor yet.
+			List<Thread> threads = new ArrayList<>( fieldWorkers.size( ) );
+			for ( Worker worker : fieldWorkers )
+				if ( worker.fieldThread != null )
+					threads.add( worker.fieldThread );
+
+			for ( Thread thread : threads )
+				thread.interrupt( );
+			}
+
+	} // stopNow
+
+
+	private void terminate( )
+	{
+		fieldTerminated = true;
+		fieldLock.notifyAll( );
+
+		if ( fieldOwnsExecutor )
+			fieldExecutor.shutdown( );
+
+	} // terminate
+
+
+	private void updateAttention( )
+	{
+		fieldAttention = fieldPaused || fieldStopping
+				|| fieldWorkers.size( ) - fieldRetiringWorkers > fieldTargetWorkers;
+
+	} // updateAttention
+
+
+	private void workerExited( Worker worker )
+	{
+		synchronized ( fieldLock )
+			{
+			worker.fieldThread = null;
+			fieldWorkers.remove( worker );
+			if ( worker.fieldRetiring )
+				fieldRetiringWorkers--;
+
+			updateAttention( );
+			fieldLock.notifyAll( );
+
+			if ( fieldStopping && fieldWorkers.isEmpty( ) )
+				terminate( );
+			}
+
+	} // workerExited
+
+
+	/**
+	 * Records the first failure and stops the search, which terminates once the other
+	 * workers have left.
+	 */
+	private void workerFailed( Throwable exception )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldFailure == null )
+				fieldFailure = exception;
+
+			stop( );
+			}
+
+	} // workerFailed
+
+}
@@ -0,0 +1,219 @@
+/*
+ * RandomBuffer.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * RandomBuffer is a per-thread store of pre-generated random numbers, for operators which
+ * draw many small values (positions, coin flips, single bytes) in their inner loops. It
+ * refills its arrays in bulk from its {@link RandomSource}'s generator, so the thread
+ * lookup and virtual dispatch of {@code getGenerator()} are paid once per refill rather
+ * than once per value, and no value allocates. Every uniform value is carved out of a
+ * buffered 64-bit word: doubles take 53 bits, bounded ints use Lemire's multiply-shift
+ * method (rejecting only the rare biased draw), and booleans are handed out one bit at a
+ * time. Gaussian values have a buffer of their own, refilled with the generator's
+ * {@code nextGaussian()}.
+ * <p>
+ * A RandomBuffer is obtained from {@link RandomSource#getRandomBuffer()} or
+ * {@link SearchContext#getRandomBuffer()} and belongs to the calling thread; it must not
+ * be kept in a field or handed to another thread. Deterministic RandomSources discard the
+ * buffered values whenever a thread selects a new stream, so seeded searches stay
+ * reproducible.
+ * <p>
+ * RandomBuffer is not thread safe.
+ * @author David Schmidt
+ */
+public final class RandomBuffer
+{
+	// Class constants.
+	/**
+	 * The number of 64-bit words generated per refill.
+	 */
+	public static final int WORD_COUNT = 64;
+
+	/**
+	 * The number of Gaussian values generated per refill.
+	 */
+	public static final int GAUSSIAN_COUNT = 32;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	// Data members.
+	private final RandomSource fieldRandomSource;
+	private final long[ ] fieldWords = new long[ WORD_COUNT ];
+	private int fieldWordPosition = WORD_COUNT;
+	private final double[ ] fieldGaussians = new double[ GAUSSIAN_COUNT ];
+	private int fieldGaussianPosition = GAUSSIAN_COUNT;
+
+	// Bits left over from the last word used for booleans, lowest first.
+	private long fieldBits;
+	private int fieldBitCount;
+
+
+	RandomBuffer( RandomSource randomSource )
+	{
+		fieldRandomSource = randomSource;
+
+	} // RandomBuffer
+
+
+	/**
+	 * Discards every buffered value, so the next draw refills from the generator.
+	 */
+	public void clear( )
+	{
+		fieldWordPosition = WORD_COUNT;
+		fieldGaussianPosition = GAUSSIAN_COUNT;
+		fieldBitCount = 0;
+
+	} // clear
+
+
+	/**
+	 * Fills the given array with uniform doubles in {@code [0, 1)}.
+	 */
+	public void fill( double[ ] values )
+	{
+		for ( int index = 0; index < values.length; index++ )
+			values[ index ] = nextDouble( );
+
+	} // fill
+
+
+	/**
+	 * Fills the given array with uniform ints in {@code [0, bound)}.
+	 * @throws IllegalArgumentException if the bound isn't positive.
+	 */
+	public void fill( int[ ] values, int bound )
+	{
+		for ( int index = 0; index < values.length; index++ )
+			values[ index ] = nextInt( bound );
+
+	} // fill
+
+
+	/**
+	 * Fills the given array with standard normal values.
+	 */
+	public void fillGaussian( double[ ] values )
+	{
+		for ( int index = 0; index < values.length; index++ )
+			values[ index ] = nextGaussian( );
+
+	} // fillGaussian
+
+
+	public boolean nextBoolean( )
+	{
+		if ( fieldBitCount == 0 )
+			{
+			fieldBits = nextLong( );
+			fieldBitCount = Long.SIZE;
+			}
+
+		boolean bit = ( fieldBits & 1 ) != 0;
+		fieldBits >>>= 1;
+		fieldBitCount--;
+
+		return bit;
+
+	} // nextBoolean
+
+
+	public byte nextByte( )
+	{
+		return ( byte ) ( nextLong( ) >>> 56 );
+
+	} // nextByte
+
+
+	/**
+	 * @return a uniform {@code double} in {@code [0, 1)}.
+	 */
+	public double nextDouble( )
+	{
+		return ( nextLong( ) >>> 11 ) * DOUBLE_UNIT;
+
+	} // nextDouble
+
+
+	/**
+	 * @return a uniform {@code float} in {@code [0, 1)}.
+	 */
+	public float nextFloat( )
+	{
+		return ( nextLong( ) >>> 40 ) * FLOAT_UNIT;
+
+	} // nextFloat
+
+
+	/**
+	 * @return a standard normal {@code double}.
+	 */
+	public double nextGaussian( )
+	{
+		if ( fieldGaussianPosition == GAUSSIAN_COUNT )
+			{
+			RandomGenerator generator = fieldRandomSource.getGenerator( );
+			for ( int index = 0; index < GAUSSIAN_COUNT; index++ )
+				fieldGaussians[ index ] = generator.nextGaussian( );
+			fieldGaussianPosition = 0;
+			}
+
+		return fieldGaussians[ fieldGaussianPosition++ ];
+
+	} // nextGaussian
+
+
+	public int nextInt( )
+	{
+		return ( int ) ( nextLong( ) >>> 32 );
+
+	} // nextInt
+
+
+	/**
+	 * @return a uniform {@code int} in {@code [0, bound)}.
+	 * @throws IllegalArgumentException if the bound isn't positive.
+	 */
+	public int nextInt( int bound )
+	{
+		if ( bound <= 0 )
+			throw new IllegalArgumentException( "The bound must be positive." );
+
+		// The high word of a 32-bit value times the bound is in [0, bound). It's biased only
+		// when the low word falls below 2^32 mod bound, which is rare for small bounds.
+		long product = ( nextLong( ) >>> 32 ) * bound;
+		if ( ( product & 0xFFFFFFFFL ) < bound )
+			{
+			long threshold = ( 0x100000000L - bound ) % bound;
+			while ( ( product & 0xFFFFFFFFL ) < threshold )
+				product = ( nextLong( ) >>> 32 ) * bound;
+			}
+
+		return ( int ) ( product >>> 32 );
+
+	} // nextInt
+
+
+	public long nextLong( )
+	{
+		if ( fieldWordPosition == WORD_COUNT )
+			{
+			RandomGenerator generator = fieldRandomSource.getGenerator( );
+			for ( int index = 0; index < WORD_COUNT; index++ )
+				fieldWords[ index ] = generator.nextLong( );
+			fieldWordPosition = 0;
+			}
+
+		return fieldWords[ fieldWordPosition++ ];
+
+	} // nextLong
+
+}
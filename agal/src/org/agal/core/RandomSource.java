@@ -7,6 +7,8 @@
 package org.agal.core;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * RandomSource specifies a thread-safe way to tie a Random or an arbitrary set of Random
@@ -22,8 +24,16 @@ import java.util.Random;
  */
 public abstract class RandomSource
 {
+	// Class constants.
+	/**
+	 * The generation number used with {@link #selectStream(long, long)} for work done
+	 * while setting up a search, before its first generation.
+	 */
+	public static final long SETUP_GENERATION = -1;
+
 	// Data members.
 	private final Class<? extends Random> fieldRandomClass;
+	private final ThreadLocal<RandomBuffer> fieldRandomBuffer = new ThreadLocal<RandomBuffer>( );
 
 
 	/**
@@ -56,12 +66,71 @@ public abstract class RandomSource
 	} // ThreadLocalRandomSource
 
 
+	/**
+	 * Discards the calling thread's buffered random numbers, if it has any. Deterministic
+	 * RandomSources must call this whenever they reseed a thread's generator, so that the
+	 * buffer doesn't serve up values from the previous stream.
+	 */
+	protected void discardRandomBuffer( )
+	{
+		RandomBuffer buffer = fieldRandomBuffer.get( );
+		if ( buffer != null )
+			buffer.clear( );
+
+	} // discardRandomBuffer
+
+
+	/**
+	 * @param randomSource the RandomSource of a search, or {@code null} when the caller is
+	 *            being used outside of a configured search.
+	 * @return the {@link #getGenerator() generator} of the given {@code randomSource}, or
+	 *         the calling thread's {@code ThreadLocalRandom} if it's {@code null}.
+	 */
+	public static RandomGenerator generatorOf( RandomSource randomSource )
+	{
+		return ( randomSource != null ) ? randomSource.getGenerator( ) : ThreadLocalRandom.current( );
+
+	} // generatorOf
+
+
+	/**
+	 * @return a {@code RandomGenerator} to be used to generate entropy, under the same
+	 *         threading policy as {@link #getRandom()}. Hot paths should prefer this, as
+	 *         it lets RandomSources hand out faster generators which aren't
+	 *         {@code Random}s. By default, it's simply the {@code Random}.
+	 */
+	public RandomGenerator getGenerator( )
+	{
+		return getRandom( );
+
+	} // getGenerator
+
+
 	/**
 	 * @return a {@code Random} instance to be used to generate entropy.
 	 */
 	public abstract Random getRandom( );
 
 
+	/**
+	 * @return the calling thread's {@link RandomBuffer}, which draws from
+	 *         {@link #getGenerator()} in bulk. It must not be shared with other threads.
+	 */
+	public RandomBuffer getRandomBuffer( )
+	{
+		RandomBuffer buffer = fieldRandomBuffer.get( );
+
+		if ( buffer == null )
+			{
+			buffer = new RandomBuffer( this );
+			fieldRandomBuffer.set( buffer );
+			}
+
+		return buffer;
+
+	} // getRandomBuffer
+
+
 	public Class<? extends Random> getRandomClass( )
 	{
 		return fieldRandomClass;
@@ -101,4 +170,53 @@ public abstract class RandomSource
 
 	} // newRandom
 
+
+	/**
+	 * @param randomSource the RandomSource of a search, or {@code null} when the caller is
+	 *            being used outside of a configured search.
+	 * @return the {@link #getRandom() Random} of the given {@code randomSource}, or the
+	 *         calling thread's {@code ThreadLocalRandom} if it's {@code null}.
+	 */
+	public static Random randomOf( RandomSource randomSource )
+	{
+		return ( randomSource != null ) ? randomSource.getRandom( ) : ThreadLocalRandom.current( );
+
+	} // randomOf
+
+
+	/**
+	 * Moves the calling thread to the random numbers for one locus (such as one gene) of
+	 * the unit of work it last selected with {@link #selectStream(long, long)}, for
+	 * operators which want each locus's random decisions to depend only on its address.
+	 * Only counter-based RandomSources (see {@code CounterRandomSource}) can do this; the
+	 * default implementation does nothing.
+	 * @param locus a {@code long} identifying the locus within the unit of work.
+	 */
+	public void selectLocus( long locus )
+	{
+		// Nothing to do for stream-based sources.
+
+	} // selectLocus
+
+
+	/**
+	 * Binds the calling thread to the random stream for one unit of work, such as one
+	 * batch of one generation. Deterministic RandomSources (see
+	 * {@code SeededRandomSource}) reseed the thread's Random, so that the random numbers
+	 * drawn for a unit depend only on the master seed and the unit, and not on which
+	 * thread performs it or when. Other RandomSources ignore this; the default
+	 * implementation does nothing.
+	 * <p>
+	 * Algorithms which divide their work into units independently of the number of
+	 * threads should select a stream at the start of each unit.
+	 * @param generation a {@code long} indicating the generation the work belongs to, or
+	 *            {@link #SETUP_GENERATION}.
+	 * @param unit a {@code long} identifying the unit of work within its generation.
+	 */
+	public void selectStream( long generation, long unit )
+	{
+		// Nothing to do for non-deterministic sources.
+
+	} // selectStream
+
 }
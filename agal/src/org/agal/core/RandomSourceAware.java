@@ -0,0 +1,28 @@
+/*
+ * RandomSourceAware.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+/**
+ * RandomSourceAware may be implemented by the {@code StateManager}, fitness evaluator, or
+ * {@code Population} of a search, all of which are created before the search's
+ * {@code SearchContext} and so can't ask it for a {@code Random}. Before the population
+ * is initialized, {@link EvolutionConfiguration} hands each of them that implements this
+ * interface the search's {@link RandomSource}, which they should use for all random
+ * numbers rather than creating their own {@code Random}s; otherwise, seeded searches
+ * can't be reproduced.
+ * @author David Schmidt
+ */
+public interface RandomSourceAware
+{
+
+	/**
+	 * Supplies the RandomSource of the search this object belongs to.
+	 * @param randomSource the search's RandomSource.
+	 */
+	public void setRandomSource( RandomSource randomSource );
+
+}
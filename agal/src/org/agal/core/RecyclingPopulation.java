@@ -0,0 +1,48 @@
+/*
+ * RecyclingPopulation.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+/**
+ * RecyclingPopulation may be implemented by a {@link Population} which can hand the
+ * states it evicts back to its workers for reuse (see {@link RecyclingStateManager}).
+ * An evicted state may still be in use by other threads which sampled it before it was
+ * replaced, so it's only handed back once every such thread has said it's done with the
+ * states it took, by calling {@link #release()}.
+ * <p>
+ * Recycling is off until {@link #enableRecycling()} is called. From then on, every
+ * thread which samples or sows members must call {@code release()} at some point when
+ * it holds no members it has sampled or sown, such as between children; a thread which
+ * never does only keeps states from being reused. The same goes for anything else which
+ * keeps members: listeners which hold on to members after their events (including
+ * asynchronous delivery) mustn't be used with recycling, and the search's best result
+ * must not be reused.
+ * @author David Schmidt
+ */
+public interface RecyclingPopulation<S>
+{
+
+	/**
+	 * Turns recycling on. It can't be turned off again.
+	 */
+	public void enableRecycling( );
+
+
+	/**
+	 * @return a state which has been evicted from the population and which no thread can
+	 *         still be using, for the calling thread to overwrite; or {@code null} if
+	 *         there's none, or recycling isn't enabled.
+	 */
+	public S recycle( );
+
+
+	/**
+	 * Declares that the calling thread holds none of the states it has sampled or sown
+	 * since its last release.
+	 */
+	public void release( );
+
+}
@@ -0,0 +1,31 @@
+/*
+ * RecyclingStateManager.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+/**
+ * RecyclingStateManager may be implemented by a {@link StateManager} whose states can be
+ * overwritten, so that a child can be bred into the storage of a state which has left the
+ * population instead of into a fresh one. With a {@link RecyclingPopulation}, that lets
+ * a steady-state search run without allocating a state per child.
+ * @author David Schmidt
+ */
+public interface RecyclingStateManager<S> extends StateManager<S>
+{
+
+	/**
+	 * Combines parts of two states into the given target, as
+	 * {@link StateManager#reproduce(Object, Object)} would into a new state. The target was
+	 * made by this StateManager and is no longer in use by anyone; every part of it
+	 * must be overwritten, since its contents are those of some unrelated state.
+	 * @param mother a {@code S} state to be used as one of the child's parents.
+	 * @param father a {@code S} state to be used as one of the child's parents.
+	 * @param target a {@code S} state, neither of the parents, to be overwritten with the
+	 *            child.
+	 */
+	public void reproduceInto( S mother, S father, S target );
+
+}
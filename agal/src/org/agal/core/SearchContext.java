@@ -10,6 +10,9 @@ import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+import org.agal.impl.CompoundBiasSource;
 
 /**
  * SearchContext provides a single unified lookup facility throughout the Genetic search.
@@ -26,6 +29,26 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class SearchContext<S>
 {
+	/**
+	 * The best result, with its fitness, so that candidates needn't be compared by
+	 * evaluating it again. Replaced as a whole.
+	 */
+	private static final class BestResult<S>
+	{
+		// Data members.
+		final S fieldMember;
+		final int fieldFitness;
+
+
+		BestResult( S member, int fitness )
+		{
+			fieldMember = member;
+			fieldFitness = fitness;
+
+		} // BestResult
+
+	} // BestResult
+
 	// Data members.
 	private final ConcurrentHashMap<String, Object> fieldContextMap = new ConcurrentHashMap<>( );
 	private final EvolutionConfiguration fieldConfiguration;
@@ -34,7 +57,14 @@ public class SearchContext<S>
 	private final BiasSource fieldBiasSource;
 	private final RandomSource fieldRandomSource;
 	private final AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
-	private final AtomicReference<S> fieldBestResult = new AtomicReference<>( null );
+	private final AtomicReference<BestResult<S>> fieldBestResult = new AtomicReference<>( null );
+	private volatile EvolutionSearch<S> fieldSearch;
+
+	// Set by the configuration when the algorithm is created.
+	private volatile LocalSearch<S> fieldLocalSearch;
+	private double fieldLocalSearchRate;
+	private int fieldLocalSearchEvaluations;
+	private long fieldLocalSearchNanos;
 
 
 	protected SearchContext( EvolutionConfiguration configuration,
@@ -51,9 +81,30 @@ public class SearchContext<S>
 	} // SearchContext
 
 
+	/**
+	 * Gives the search managing this context (if any) a chance to pause, shrink, or stop
+	 * the calling worker. Algorithms should call this between units of work, such as after
+	 * sowing each child, at points where no work would be lost by stopping. Unless the
+	 * search has requested something of its workers, this costs a single volatile read.
+	 * @return {@code true} if the calling worker should carry on evolving, or
+	 *         {@code false} if it should stop and return from
+	 *         {@link EvolutionAlgorithm#evolve()}. If the context is not managed by an
+	 *         {@link EvolutionSearch}, always {@code true}.
+	 */
+	public boolean checkpoint( )
+	{
+		EvolutionSearch<S> search = fieldSearch;
+
+		return ( search == null ) || search.checkpoint( );
+
+	} // checkpoint
+
+
 	public S getBestResult( )
 	{
-		return fieldBestResult.get( );
+		BestResult<S> bestResult = fieldBestResult.get( );
+
+		return ( bestResult != null ) ? bestResult.fieldMember : null;
 
 	} // getBestResult
 
@@ -65,6 +116,22 @@ public class SearchContext<S>
 	} // getBias
 
 
+	/**
+	 * Resolves the BiasSource which supplies the given bias, so that hot paths can query
+	 * it directly (see {@link CompoundBiasSource#getBiasSource(String)}).
+	 * @return the BiasSource for the given {@code biasKey}, or {@code null} if none will
+	 *         supply it.
+	 */
+	public BiasSource getBiasSource( String biasKey )
+	{
+		if ( fieldBiasSource instanceof CompoundBiasSource )
+			return ( ( CompoundBiasSource ) fieldBiasSource ).getBiasSource( biasKey );
+
+		return fieldBiasSource;
+
+	} // getBiasSource
+
+
 	public EvolutionConfiguration getConfiguration( )
 	{
 		return fieldConfiguration;
@@ -79,6 +146,21 @@ public class SearchContext<S>
 	} // getContextMap
 
 
+	/**
+	 * Looks up an optional numeric setting in the context map.
+	 * @param key a String key whose value, if present, should be a {@code Number}.
+	 * @param defaultValue an {@code int} to return if no number is mapped to the key.
+	 * @return the {@code int} value mapped to the key, or the {@code defaultValue}.
+	 */
+	public int getContextInt( String key, int defaultValue )
+	{
+		Object value = fieldContextMap.get( key );
+
+		return ( value instanceof Number ) ? ( ( Number ) value ).intValue( ) : defaultValue;
+
+	} // getContextInt
+
+
 	public AbstractFitnessEvaluator<S> getFitnessEvaluator( )
 	{
 		return fieldFitnessEvaluator;
@@ -86,6 +168,18 @@ public class SearchContext<S>
 	} // getFitnessEvaluator
 
 
+	/**
+	 * @return the calling thread's RandomGenerator. Hot paths should prefer this to
+	 *         {@link #getRandom()}.
+	 * @see RandomSource#getGenerator()
+	 */
+	public RandomGenerator getGenerator( )
+	{
+		return fieldRandomSource.getGenerator( );
+
+	} // getGenerator
+
+
 	public Population<S> getPopulation( )
 	{
 		return fieldPopulation;
@@ -100,6 +194,17 @@ public class SearchContext<S>
 	} // getRandom
 
 
+	/**
+	 * @return the calling thread's RandomBuffer, for operators which draw many values.
+	 * @see RandomSource#getRandomBuffer()
+	 */
+	public RandomBuffer getRandomBuffer( )
+	{
+		return fieldRandomSource.getRandomBuffer( );
+
+	} // getRandomBuffer
+
+
 	public StateManager<S> getStateManager( )
 	{
 		return fieldStateManager;
@@ -107,22 +212,113 @@ public class SearchContext<S>
 	} // getStateManager
 
 
+	/**
+	 * Gives a newly bred child a quick local search, if one is configured and the child
+	 * is chosen for one (see {@link LocalSearch}). Algorithms should call this on each
+	 * child after mutating it and before evaluating or sowing it.
+	 * @param child an {@code S} newly bred child, which may be changed in place.
+	 * @return {@code true} if the child was given a local search, or {@code false} if not.
+	 */
+	public boolean improve( S child )
+	{
+		LocalSearch<S> localSearch = fieldLocalSearch;
+		if ( localSearch == null )
+			return false;
+
+		RandomGenerator random = getGenerator( );
+		if ( fieldLocalSearchRate < 1 && random.nextDouble( ) >= fieldLocalSearchRate )
+			return false;
+
+		long deadline = ( fieldLocalSearchNanos > 0 ) ? System.nanoTime( ) + fieldLocalSearchNanos
+				: Long.MAX_VALUE;
+		localSearch.improve( child, random, fieldLocalSearchEvaluations, deadline );
+
+		return true;
+
+	} // improve
+
+
+	/**
+	 * Moves the calling thread to the random numbers for one locus of its unit of work.
+	 * @see RandomSource#selectLocus(long)
+	 */
+	public void selectRandomLocus( long locus )
+	{
+		fieldRandomSource.selectLocus( locus );
+
+	} // selectRandomLocus
+
+
+	/**
+	 * Binds the calling thread to the random stream for one unit of work.
+	 * @see RandomSource#selectStream(long, long)
+	 */
+	public void selectRandomStream( long generation, long unit )
+	{
+		fieldRandomSource.selectStream( generation, unit );
+
+	} // selectRandomStream
+
+
+	void setLocalSearch( LocalSearch<S> localSearch, double rate, int maxEvaluations,
+			long maxNanos )
+	{
+		fieldLocalSearchRate = rate;
+		fieldLocalSearchEvaluations = maxEvaluations;
+		fieldLocalSearchNanos = maxNanos;
+
+		// Publish the rest with the volatile write.
+		fieldLocalSearch = localSearch;
+
+	} // setLocalSearch
+
+
+	void setSearch( EvolutionSearch<S> search )
+	{
+		if ( fieldSearch != null )
+			throw new IllegalStateException( "This SearchContext is already managed by a search." );
+
+		fieldSearch = search;
+
+	} // setSearch
+
+
+	/**
+	 * Makes the given candidate the best result if it's fitter than the current one,
+	 * evaluating its fitness to compare them.
+	 */
 	protected void tryUpdateBestResult( S candidate )
+	{
+		tryUpdateBestResult( candidate, fieldFitnessEvaluator.fitness( candidate ) );
+
+	} // tryUpdateBestResult
+
+
+	/**
+	 * Makes the given candidate the best result if its already known {@code fitness} is
+	 * better than the current one's.
+	 */
+	protected void tryUpdateBestResult( S candidate, int fitness )
 	{
 		// FIXME - This interface puts the work of comparing results on the SearchContext,
 		// which is inappropriate. However, exposing the atomic CAS interface and
 		// requiring clients to use it properly would be both inappropriate and dangerous.
 		// A new solution for sifting and tracking results through the SearchContext must
 		// be created... but this will do for many cases until then.
-		S current = fieldBestResult.get( );
-		while ( current == null || ( fieldFitnessEvaluator.compare( candidate, current ) > 0 ) )
+		BestResult<S> current = fieldBestResult.get( );
+		BestResult<S> replacement = null;
+		while ( current == null
+				|| fieldFitnessEvaluator.compareFitness( fitness, current.fieldFitness ) > 0 )
 			{
-			if ( fieldBestResult.compareAndSet( current, candidate ) )
+			if ( replacement == null )
+				replacement = new BestResult<>( candidate, fitness );
+
+			if ( fieldBestResult.compareAndSet( current, replacement ) )
 				break;
 			else
 				current = fieldBestResult.get( );
 			}
 
-	} // updateBestResult
+	} // tryUpdateBestResult
 
 }
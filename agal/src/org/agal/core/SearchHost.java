@@ -0,0 +1,707 @@
+/*
+ * SearchHost.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SearchHost runs many {@link EvolutionSearch}es in one VM on a single, fixed number of
+ * worker threads, rather than letting each search start threads of its own. Every
+ * scheduling quantum, the host divides its threads among the searches it has admitted
+ * according to its {@link Policy} and each search's weight, priority, and quota, and
+ * resizes the searches to match. When there are more searches than threads, searches
+ * take turns: those which have had the least of their share so far go first.
+ * <p>
+ * Searches are submitted with {@link #submit(SearchContext, StopCondition...)}, and
+ * controlled through the returned {@link HostedSearch}. A search given no threads for a
+ * while isn't paused as such; its workers simply retire at their next checkpoint (so no
+ * work is thrown away) and new ones pick up where they left off when it's next scheduled.
+ * The search's own controls ({@code pause}, {@code step}, {@code stop}) still work, and a
+ * paused search is given no threads at all. Searches should not be resized directly.
+ * <p>
+ * Admission control limits the number of searches being scheduled at once (see
+ * {@link #setMaxActiveSearches(int)}); any more wait in a queue, and are admitted in the
+ * order they were submitted as others terminate. Once the queue is full too, submissions
+ * are rejected.
+ * <p>
+ * Note that workers leave and rejoin a search's algorithm as it's scheduled, so stop
+ * conditions which time the evolution from when workers begin (like
+ * {@code TimedStopCondition}) aren't suitable for hosted searches; use
+ * {@link HostedSearch#setWorkerTimeBudget(long)} instead.
+ * <p>
+ * SearchHost is thread safe.
+ * @author David Schmidt
+ */
+public class SearchHost
+{
+	/**
+	 * How threads are divided among searches.
+	 */
+	public enum Policy
+	{
+		/**
+		 * Every search gets a share of the threads in proportion to its weight.
+		 */
+		FAIR_SHARE,
+
+		/**
+		 * Searches with a higher priority get all the threads they can use before those
+		 * with a lower one get any. Searches of equal priority share fairly, by weight.
+		 */
+		PRIORITY;
+
+	} // Policy
+
+	/**
+	 * A search running on a SearchHost, along with its scheduling parameters. The
+	 * parameters may be changed at any time, and take effect in the next quantum.
+	 */
+	public static class HostedSearch<S>
+	{
+		// Data members.
+		private final EvolutionSearch<S> fieldSearch;
+		private volatile double fieldWeight = 1;
+		private volatile int fieldPriority = 0;
+		private volatile int fieldMaxWorkers = Integer.MAX_VALUE;
+		private volatile long fieldWorkerTimeBudgetMillis = 0;
+		private volatile boolean fieldAdmitted = false;
+		private volatile int fieldAllottedWorkers = 0;
+		private volatile long fieldConsumedWorkerNanos = 0;
+
+		// Scheduler bookkeeping: worker time consumed, divided by weight.
+		private double fieldVirtualTime = 0;
+
+
+		HostedSearch( EvolutionSearch<S> search )
+		{
+			fieldSearch = search;
+
+		} // HostedSearch
+
+
+		/**
+		 * Blocks until the search has terminated.
+		 * @throws InterruptedException if interrupted while waiting.
+		 */
+		public void awaitTermination( )
+				throws InterruptedException
+		{
+			fieldSearch.awaitTermination( );
+
+		} // awaitTermination
+
+
+		/**
+		 * @return an {@code int} indicating the number of workers the search was given
+		 *         in the latest quantum.
+		 */
+		public int getAllottedWorkers( )
+		{
+			return fieldAllottedWorkers;
+
+		} // getAllottedWorkers
+
+
+		/**
+		 * @return a {@code long} indicating the total time the search's workers have
+		 *         spent on it, in milliseconds.
+		 */
+		public long getConsumedWorkerMillis( )
+		{
+			return fieldConsumedWorkerNanos / 1000000;
+
+		} // getConsumedWorkerMillis
+
+
+		public int getMaxWorkers( )
+		{
+			return fieldMaxWorkers;
+
+		} // getMaxWorkers
+
+
+		public int getPriority( )
+		{
+			return fieldPriority;
+
+		} // getPriority
+
+
+		public EvolutionSearch<S> getSearch( )
+		{
+			return fieldSearch;
+
+		} // getSearch
+
+
+		public double getWeight( )
+		{
+			return fieldWeight;
+
+		} // getWeight
+
+
+		public long getWorkerTimeBudget( )
+		{
+			return fieldWorkerTimeBudgetMillis;
+
+		} // getWorkerTimeBudget
+
+
+		/**
+		 * @return a {@code boolean} indicating whether the search has been admitted to
+		 *         scheduling, or {@code false} if it's still waiting in the queue.
+		 */
+		public boolean isAdmitted( )
+		{
+			return fieldAdmitted;
+
+		} // isAdmitted
+
+
+		/**
+		 * Sets the most workers the search may be given at once, however many threads
+		 * are idle. Defaults to no limit.
+		 */
+		public HostedSearch<S> setMaxWorkers( int maxWorkers )
+		{
+			if ( maxWorkers < 1 )
+				throw new IllegalArgumentException( "A search may use at least one worker." );
+
+			fieldMaxWorkers = maxWorkers;
+			return this;
+
+		} // setMaxWorkers
+
+
+		/**
+		 * Sets the search's priority, for {@link Policy#PRIORITY}. Higher priorities are
+		 * served first. Defaults to {@code 0}.
+		 */
+		public HostedSearch<S> setPriority( int priority )
+		{
+			fieldPriority = priority;
+			return this;
+
+		} // setPriority
+
+
+		/**
+		 * Sets the search's share of the threads relative to the other searches (of the
+		 * same priority). Defaults to {@code 1}.
+		 */
+		public HostedSearch<S> setWeight( double weight )
+		{
+			if ( !( weight > 0 ) )
+				throw new IllegalArgumentException( "Weights must be positive." );
+
+			fieldWeight = weight;
+			return this;
+
+		} // setWeight
+
+
+		/**
+		 * Sets the total worker time the search may consume before it's stopped, in
+		 * milliseconds. A search with two workers for one second consumes two seconds.
+		 * Defaults to {@code 0}, for no limit.
+		 */
+		public HostedSearch<S> setWorkerTimeBudget( long millis )
+		{
+			fieldWorkerTimeBudgetMillis = millis;
+			return this;
+
+		} // setWorkerTimeBudget
+
+	} // HostedSearch
+
+	// Class constants.
+	public static final long DEFAULT_QUANTUM_MILLIS = 100;
+
+	private static final Comparator<HostedSearch<?>> BY_VIRTUAL_TIME = new Comparator<HostedSearch<?>>( )
+	{
+		@Override
+		public int compare( HostedSearch<?> first, HostedSearch<?> second )
+		{
+			return Double.compare( first.fieldVirtualTime, second.fieldVirtualTime );
+
+		} // compare
+
+	};
+
+	private static final Comparator<HostedSearch<?>> BY_PRIORITY = new Comparator<HostedSearch<?>>( )
+	{
+		@Override
+		public int compare( HostedSearch<?> first, HostedSearch<?> second )
+		{
+			return Integer.compare( second.getPriority( ), first.getPriority( ) );
+
+		} // compare
+
+	};
+
+	// Data members.
+	private final int fieldThreadCount;
+	private final Policy fieldPolicy;
+	private final ExecutorService fieldExecutor;
+	private final Thread fieldScheduler;
+	private final Object fieldLock = new Object( );
+
+	// Guarded by fieldLock.
+	private final List<HostedSearch<?>> fieldActive = new ArrayList<>( );
+	private final Deque<HostedSearch<?>> fieldWaiting = new ArrayDeque<>( );
+	private int fieldMaxActiveSearches = Integer.MAX_VALUE;
+	private int fieldMaxQueuedSearches = Integer.MAX_VALUE;
+	private long fieldQuantumMillis = DEFAULT_QUANTUM_MILLIS;
+	private boolean fieldShutdown = false;
+	private long fieldLastTick = System.nanoTime( );
+
+
+	/**
+	 * Constructs a fair-share SearchHost with a thread per available processor.
+	 */
+	public SearchHost( )
+	{
+		this( Runtime.getRuntime( ).availableProcessors( ), Policy.FAIR_SHARE );
+
+	} // SearchHost
+
+
+	/**
+	 * SearchHost constructor. The scheduler is started immediately.
+	 * @param threadCount an {@code int} indicating the number of worker threads to share
+	 *            among the searches.
+	 * @param policy the Policy by which to share them.
+	 */
+	public SearchHost( int threadCount, Policy policy )
+	{
+		if ( threadCount < 1 )
+			throw new IllegalArgumentException( "A host requires at least one thread." );
+
+		fieldThreadCount = threadCount;
+		fieldPolicy = policy;
+		fieldExecutor = Executors.newCachedThreadPool( new ThreadFactory( )
+		{
+			private final AtomicInteger fieldCount = new AtomicInteger( 0 );
+
+
+			@Override
+			public Thread newThread( Runnable runnable )
+			{
+				Thread thread = new Thread( runnable, "SearchHost-worker-"
+						+ fieldCount.getAndIncrement( ) );
+				thread.setDaemon( true );
+				return thread;
+
+			} // newThread
+
+		} );
+
+		fieldScheduler = new Thread( new Runnable( )
+		{
+			@Override
+			public void run( )
+			{
+				schedule( );
+
+			} // run
+
+		}, "SearchHost-scheduler" );
+		fieldScheduler.setDaemon( true );
+		fieldScheduler.start( );
+
+	} // SearchHost
+
+
+	/**
+	 * Divides the threads among the given searches: in proportion to their weights, but
+	 * no more than each one's maximum, with the remainders going to those with the least
+	 * virtual time.
+	 * @return an {@code int} indicating the number of threads given out.
+	 */
+	private static int allot( List<HostedSearch<?>> searches, int[ ] allotments, int offset,
+			int threads )
+	{
+		int count = searches.size( );
+		double[ ] shares = new double[ count ];
+		boolean[ ] capped = new boolean[ count ];
+
+		// Fill up to the maximums, handing out again whatever the capped ones can't use.
+		double remaining = threads;
+		boolean cappedAny = true;
+		while ( cappedAny && remaining > 0 )
+			{
+			cappedAny = false;
+			double totalWeight = 0;
+			for ( int index = 0; index < count; index++ )
+				if ( !capped[ index ] )
+					totalWeight += searches.get( index ).getWeight( );
+
+			double available = remaining;
+			for ( int index = 0; index < count; index++ )
+				{
+				if ( capped[ index ] )
+					continue;
+
+				HostedSearch<?> search = searches.get( index );
+				shares[ index ] = available * search.getWeight( ) / totalWeight;
+				if ( shares[ index ] >= search.getMaxWorkers( ) )
+					{
+					shares[ index ] = search.getMaxWorkers( );
+					capped[ index ] = true;
+					cappedAny = true;
+					remaining -= shares[ index ];
+					}
+				}
+			}
+
+		// Whole threads first, then the leftovers by virtual time.
+		int given = 0;
+		long capacity = 0;
+		for ( int index = 0; index < count; index++ )
+			{
+			allotments[ offset + index ] = ( int ) shares[ index ];
+			given += allotments[ offset + index ];
+			capacity += searches.get( index ).getMaxWorkers( );
+			}
+
+		int total = ( int ) Math.min( threads, capacity );
+		List<Integer> order = new ArrayList<>( count );
+		for ( int index = 0; index < count; index++ )
+			order.add( index );
+		Collections.sort( order, new Comparator<Integer>( )
+		{
+			@Override
+			public int compare( Integer first, Integer second )
+			{
+				return BY_VIRTUAL_TIME.compare( searches.get( first ), searches.get( second ) );
+
+			} // compare
+
+		} );
+
+		while ( given < total )
+			{
+			for ( int index : order )
+				{
+				if ( given < total
+						&& allotments[ offset + index ] < searches.get( index ).getMaxWorkers( ) )
+					{
+					allotments[ offset + index ]++;
+					given++;
+					}
+				}
+			}
+
+		return given;
+
+	} // allot
+
+
+	/**
+	 * Blocks until the host has been shut down and all its searches have terminated.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void awaitTermination( )
+			throws InterruptedException
+	{
+		List<HostedSearch<?>> searches = new ArrayList<>( );
+		synchronized ( fieldLock )
+			{
+			while ( !fieldShutdown )
+				fieldLock.wait( );
+
+			searches.addAll( fieldActive );
+			searches.addAll( fieldWaiting );
+			}
+
+		for ( HostedSearch<?> search : searches )
+			search.awaitTermination( );
+
+	} // awaitTermination
+
+
+	/**
+	 * @return an {@code int} indicating the number of searches admitted and not yet
+	 *         terminated.
+	 */
+	public int getActiveCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldActive.size( );
+			}
+
+	} // getActiveCount
+
+
+	public Policy getPolicy( )
+	{
+		return fieldPolicy;
+
+	} // getPolicy
+
+
+	/**
+	 * @return an {@code int} indicating the number of searches waiting to be admitted.
+	 */
+	public int getQueuedCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldWaiting.size( );
+			}
+
+	} // getQueuedCount
+
+
+	public int getThreadCount( )
+	{
+		return fieldThreadCount;
+
+	} // getThreadCount
+
+
+	/**
+	 * Runs the scheduler until shut down.
+	 */
+	private void schedule( )
+	{
+		synchronized ( fieldLock )
+			{
+			while ( !fieldShutdown )
+				{
+				tick( );
+				try
+					{
+					fieldLock.wait( fieldQuantumMillis );
+					}
+				catch ( InterruptedException exception )
+					{
+					// Only shutdown interrupts us.
+					}
+				}
+			}
+
+	} // schedule
+
+
+	/**
+	 * Sets the number of searches which may be scheduled at once. Defaults to no limit.
+	 */
+	public SearchHost setMaxActiveSearches( int maxActiveSearches )
+	{
+		synchronized ( fieldLock )
+			{
+			fieldMaxActiveSearches = maxActiveSearches;
+			fieldLock.notifyAll( );
+			}
+		return this;
+
+	} // setMaxActiveSearches
+
+
+	/**
+	 * Sets the number of searches which may wait for admission. Defaults to no limit.
+	 */
+	public SearchHost setMaxQueuedSearches( int maxQueuedSearches )
+	{
+		synchronized ( fieldLock )
+			{
+			fieldMaxQueuedSearches = maxQueuedSearches;
+			}
+		return this;
+
+	} // setMaxQueuedSearches
+
+
+	/**
+	 * Sets how often threads are redistributed, in milliseconds. Shorter quanta share
+	 * more smoothly among many searches; longer ones spend less time moving workers
+	 * around. Defaults to {@link #DEFAULT_QUANTUM_MILLIS}.
+	 */
+	public SearchHost setQuantumMillis( long quantumMillis )
+	{
+		if ( quantumMillis < 1 )
+			throw new IllegalArgumentException( "The quantum must be at least 1ms." );
+
+		synchronized ( fieldLock )
+			{
+			fieldQuantumMillis = quantumMillis;
+			}
+		return this;
+
+	} // setQuantumMillis
+
+
+	/**
+	 * Stops every search, running or waiting, and the scheduler. Searches finish their
+	 * work in flight first; use {@link #awaitTermination()} to wait for them.
+	 */
+	public void shutdown( )
+	{
+		List<HostedSearch<?>> searches = new ArrayList<>( );
+		synchronized ( fieldLock )
+			{
+			if ( fieldShutdown )
+				return;
+
+			fieldShutdown = true;
+			searches.addAll( fieldActive );
+			searches.addAll( fieldWaiting );
+			fieldLock.notifyAll( );
+			}
+
+		for ( HostedSearch<?> search : searches )
+			search.getSearch( ).stop( );
+
+		// Idle pool threads die off; those still draining finish first.
+		fieldExecutor.shutdown( );
+
+	} // shutdown
+
+
+	/**
+	 * Submits a search to be run on the host. Its algorithm is instantiated immediately,
+	 * but it isn't started until it has been admitted and scheduled.
+	 * @param searchContext the SearchContext to evolve.
+	 * @param stopConditions an array of StopCondition which may stop the search.
+	 * @return a HostedSearch through which to control the search and set its scheduling
+	 *         parameters.
+	 * @throws RejectedExecutionException if the host has been shut down, or too many
+	 *             searches are already waiting.
+	 * @throws Exception if the algorithm cannot be instantiated.
+	 */
+	public <S> HostedSearch<S> submit( SearchContext<S> searchContext,
+			StopCondition... stopConditions )
+			throws Exception
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldShutdown )
+				throw new RejectedExecutionException( "The host has been shut down." );
+			if ( fieldActive.size( ) >= fieldMaxActiveSearches
+					&& fieldWaiting.size( ) >= fieldMaxQueuedSearches )
+				throw new RejectedExecutionException( "Too many searches are waiting." );
+			}
+
+		HostedSearch<S> search = new HostedSearch<>( new EvolutionSearch<>( searchContext,
+				fieldExecutor, stopConditions ) );
+
+		synchronized ( fieldLock )
+			{
+			fieldWaiting.add( search );
+			fieldLock.notifyAll( );
+			}
+
+		return search;
+
+	} // submit
+
+
+	// Must hold fieldLock.
+	private void tick( )
+	{
+		long now = System.nanoTime( );
+		long elapsed = now - fieldLastTick;
+		fieldLastTick = now;
+
+		// Charge everyone for the time their workers have spent, and enforce budgets.
+		for ( Iterator<HostedSearch<?>> iterator = fieldActive.iterator( ); iterator.hasNext( ); )
+			{
+			HostedSearch<?> search = iterator.next( );
+			long workerNanos = search.getSearch( ).getWorkerCount( ) * elapsed;
+			search.fieldConsumedWorkerNanos += workerNanos;
+			search.fieldVirtualTime += workerNanos / search.getWeight( );
+
+			long budget = search.getWorkerTimeBudget( );
+			if ( budget > 0 && search.fieldConsumedWorkerNanos >= budget * 1000000 )
+				search.getSearch( ).stop( );
+
+			if ( search.getSearch( ).getState( ) == EvolutionSearch.State.TERMINATED )
+				{
+				search.fieldAllottedWorkers = 0;
+				iterator.remove( );
+				}
+			}
+
+		// Admit whoever fits, dropping any stopped while they waited. Newcomers start
+		// level with the most deserving, so they neither starve nor are starved.
+		double minimumVirtualTime = Double.MAX_VALUE;
+		for ( HostedSearch<?> search : fieldActive )
+			minimumVirtualTime = Math.min( minimumVirtualTime, search.fieldVirtualTime );
+		if ( fieldActive.isEmpty( ) )
+			minimumVirtualTime = 0;
+
+		while ( !fieldWaiting.isEmpty( ) && fieldActive.size( ) < fieldMaxActiveSearches )
+			{
+			HostedSearch<?> search = fieldWaiting.poll( );
+			if ( search.getSearch( ).getState( ) == EvolutionSearch.State.TERMINATED )
+				continue;
+
+			search.fieldVirtualTime = minimumVirtualTime;
+			search.fieldAdmitted = true;
+			fieldActive.add( search );
+			}
+
+		// Only running searches need threads; paused ones would only park them.
+		List<HostedSearch<?>> runnable = new ArrayList<>( );
+		for ( HostedSearch<?> search : fieldActive )
+			{
+			EvolutionSearch.State state = search.getSearch( ).getState( );
+			if ( state == EvolutionSearch.State.NEW || state == EvolutionSearch.State.RUNNING )
+				runnable.add( search );
+			}
+
+		if ( fieldPolicy == Policy.PRIORITY )
+			Collections.sort( runnable, BY_PRIORITY );
+
+		// Share the threads among each priority level in turn. (Fair sharing is just one
+		// level.)
+		int[ ] allotments = new int[ runnable.size( ) ];
+		int threads = fieldThreadCount;
+		for ( int start = 0; start < runnable.size( ); )
+			{
+			int end = start + 1;
+			if ( fieldPolicy == Policy.PRIORITY )
+				while ( end < runnable.size( )
+						&& runnable.get( end ).getPriority( ) == runnable.get( start ).getPriority( ) )
+					end++;
+			else
+				end = runnable.size( );
+
+			threads -= allot( runnable.subList( start, end ), allotments, start, threads );
+			start = end;
+			}
+
+		// Apply the new allotments. Searches that aren't runnable give up their threads.
+		for ( HostedSearch<?> search : fieldActive )
+			{
+			int index = runnable.indexOf( search );
+			int allotment = ( index < 0 ) ? 0 : allotments[ index ];
+
+			if ( allotment != search.fieldAllottedWorkers )
+				{
+				search.getSearch( ).allot( allotment );
+				search.fieldAllottedWorkers = allotment;
+				}
+			}
+
+	} // tick
+
+}
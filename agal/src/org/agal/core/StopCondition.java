@@ -7,13 +7,13 @@
 package org.agal.core;
 
 /**
- * StopCondition is used by {@code EvolutionControlThread} to decide when the evolution
- * should stop. Whether it bases this decision on the state of the evolution while
- * listening in (for example, a solution has been found) or its own private knowledge (for
- * example, a length of time has elapsed) is up to the implementation. To notify the
- * control thread that evolution is complete, the implementation need only call
- * {@code Object.notify()}. Concrete subclasses which also implement
- * {@code EvolutionListener} will automatically be registered with the
+ * StopCondition is used by {@code EvolutionControlThread} or {@code EvolutionSearch} to
+ * decide when the evolution should stop. Whether it bases this decision on the state of
+ * the evolution while listening in (for example, a solution has been found) or its own
+ * private knowledge (for example, a length of time has elapsed) is up to the
+ * implementation. To notify the control thread that evolution is complete, the
+ * implementation need only call {@code Object.notify()}. Concrete subclasses which also
+ * implement {@code EvolutionListener} will automatically be registered with the
  * {@code EvolutionAlgorithm} by the control thread before evolution begins.
  * @author David Schmidt
  */
@@ -22,6 +22,9 @@ public abstract class StopCondition
 	// Control thread to interrupt.
 	private EvolutionControlThread fieldEvolutionControlThread;
 
+	// Or search to stop.
+	private EvolutionSearch<?> fieldEvolutionSearch;
+
 
 	synchronized final void setEvolutionControlThread( EvolutionControlThread evolutionControlThread )
 	{
@@ -33,16 +36,26 @@ public abstract class StopCondition
 	} // setEvolutionControlThread
 
 
+	synchronized final void setEvolutionSearch( EvolutionSearch<?> evolutionSearch )
+	{
+		fieldEvolutionSearch = evolutionSearch;
+
+	} // setEvolutionSearch
+
+
 	/**
-	 * Notifies the associated EvolutionControlThread that it's time to stop the evolution
-	 * process. Does nothing if the StopCondition has not been used with an
-	 * EvolutionControlThread.
+	 * Notifies the associated EvolutionControlThread or EvolutionSearch that it's time to
+	 * stop the evolution process. A search is stopped gracefully, while a control thread
+	 * is interrupted. Does nothing if the StopCondition has not been used with either.
 	 */
 	public synchronized final void stopEvolution( )
 	{
 		if ( fieldEvolutionControlThread != null )
 			fieldEvolutionControlThread.interrupt( );
 
+		if ( fieldEvolutionSearch != null )
+			fieldEvolutionSearch.stop( );
+
 	} // stop
 
 }
@@ -0,0 +1,75 @@
+/*
+ * TypedEvolutionListener.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+/**
+ * TypedEvolutionListener is the typed, allocation-free form of {@link EvolutionListener}.
+ * Instead of receiving every event and comparing its String id, a TypedEvolutionListener
+ * declares the event types it wants with a bitmask ({@link #getEventMask()}), and an
+ * {@link EvolutionEventBus} only calls it for those. Member events carry the member's
+ * fitness as a primitive where the algorithm already knows it, so listeners needn't
+ * evaluate it again.
+ * <p>
+ * TypedEvolutionListeners are registered like any other EvolutionListener. Algorithms
+ * which still dispatch String events reach them through {@link #onEvent(String, Object)},
+ * which translates and filters them.
+ * <p>
+ * Like all listeners, implementations may be called concurrently from many threads.
+ * @author David Schmidt
+ */
+public interface TypedEvolutionListener<S> extends EvolutionListener
+{
+	// Event types. Each is a single bit, so that they may be combined into masks.
+	public static final int EVENT_BEGIN_EVOLUTION = 1 << 0;
+	public static final int EVENT_END_EVOLUTION = 1 << 1;
+	public static final int EVENT_NEW_GENERATION = 1 << 2;
+	public static final int EVENT_MEMBER_ADDED = 1 << 3;
+	public static final int EVENT_MEMBER_REMOVED = 1 << 4;
+
+	/**
+	 * A mask of every event type.
+	 */
+	public static final int EVENT_ALL = ( 1 << 5 ) - 1;
+
+
+	/**
+	 * @return an {@code int} mask of the {@code EVENT_*} types this listener wants. It's
+	 *         read once, when the listener is registered.
+	 */
+	public int getEventMask( );
+
+
+	/**
+	 * Translates a String event into a typed one, if this listener wants it.
+	 */
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public default void onEvent( String eventKey, Object eventObject )
+	{
+		int eventType = EvolutionEventBus.getEventType( eventKey );
+
+		if ( ( getEventMask( ) & eventType ) != 0 )
+			onEvent( eventType, ( S ) eventObject, 0, false );
+
+	} // onEvent
+
+
+	/**
+	 * Called for each event of a type in this listener's mask.
+	 * @param eventType an {@code int} indicating the event's type; one of the
+	 *            {@code EVENT_*} constants.
+	 * @param member the population member the event concerns, or {@code null} if it
+	 *            doesn't concern one.
+	 * @param fitness an {@code int} indicating the fitness of {@code member}, if
+	 *            {@code fitnessKnown}; otherwise meaningless.
+	 * @param fitnessKnown a {@code boolean} indicating whether the algorithm knew the
+	 *            fitness of {@code member} and passed it as {@code fitness}. It's always
+	 *            {@code false} for events which have no member.
+	 */
+	public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown );
+
+}
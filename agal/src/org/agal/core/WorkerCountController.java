@@ -0,0 +1,436 @@
+/*
+ * WorkerCountController.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.core;
+
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WorkerCountController tunes the number of workers of an {@link EvolutionSearch} while
+ * it runs, so the thread count needn't be tuned by hand for each problem. Past a point,
+ * adding workers to a search stops paying: they contend for the shared population, and
+ * throughput levels off or falls. The controller measures the search's throughput (new
+ * members per second) at its current worker count, and climbs towards whichever
+ * neighbouring count does better: it keeps moving in one direction while throughput
+ * improves, and turns back (holding there for a few samples) once it gets worse. If the
+ * population implements {@link ContentionReporting} and its contention rate passes
+ * {@link #setMaxContentionRate(double) a limit}, the controller backs off regardless.
+ * <p>
+ * The measurements are kept, smoothed, per worker count, and may be read back with
+ * {@link #getThroughputCurve()} and {@link #getContentionCurve()}. Samples are only
+ * taken while the search is running, and the first after each change is discarded
+ * while the workers settle.
+ * <p>
+ * The controller counts new members by listening to the search's algorithm, so it must
+ * be created before the algorithm starts publishing. It resizes the search itself; the
+ * search shouldn't be resized by anyone else meanwhile (nor hosted on a
+ * {@link SearchHost}, which does its own resizing).
+ * <p>
+ * WorkerCountController is thread safe.
+ * @author David Schmidt
+ */
+public class WorkerCountController
+{
+	/**
+	 * Counts new members.
+	 */
+	private class MemberCounter implements TypedEvolutionListener<Object>
+	{
+
+		@Override
+		public int getEventMask( )
+		{
+			return EVENT_MEMBER_ADDED;
+
+		} // getEventMask
+
+
+		@Override
+		public void onEvent( int eventType, Object member, int fitness, boolean fitnessKnown )
+		{
+			fieldMemberCount.increment( );
+
+		} // onEvent
+
+	} // MemberCounter
+
+	// Class constants.
+	public static final long DEFAULT_SAMPLE_MILLIS = 250;
+	public static final double DEFAULT_MAX_CONTENTION_RATE = 0.5;
+
+	/**
+	 * The fraction by which throughput must fall before the controller turns back, so
+	 * that noise doesn't send it back and forth.
+	 */
+	private static final double TOLERANCE = 0.03;
+
+	/**
+	 * The number of samples to stay at a count after turning back to it. Each time the
+	 * controller turns back to the same count, it stays twice as long (up to
+	 * {@code MAX_HOLD_SAMPLES}), so a search which has found its best count probes less
+	 * and less often.
+	 */
+	private static final int HOLD_SAMPLES = 4;
+	private static final int MAX_HOLD_SAMPLES = 64;
+
+	/**
+	 * The weight of each new sample in the smoothed curves.
+	 */
+	private static final double SMOOTHING = 0.5;
+
+	// Data members.
+	private final EvolutionSearch<?> fieldSearch;
+	private final ContentionReporting fieldContentionReporting;
+	private final LongAdder fieldMemberCount = new LongAdder( );
+	private final Object fieldLock = new Object( );
+
+	// Guarded by fieldLock.
+	private final SortedMap<Integer, Double> fieldThroughputCurve = new TreeMap<>( );
+	private final SortedMap<Integer, Double> fieldContentionCurve = new TreeMap<>( );
+	private int fieldMinWorkers = 1;
+	private int fieldMaxWorkers = 2 * Runtime.getRuntime( ).availableProcessors( );
+	private long fieldSampleMillis = DEFAULT_SAMPLE_MILLIS;
+	private double fieldMaxContentionRate = DEFAULT_MAX_CONTENTION_RATE;
+	private int fieldWorkerCount = Runtime.getRuntime( ).availableProcessors( );
+	private Thread fieldThread;
+
+	// Used only by the controller thread.
+	private int fieldPreviousCount = 0;
+	private int fieldDirection = 1;
+	private int fieldHoldSamples = 0;
+	private int fieldHoldLength = HOLD_SAMPLES;
+	private int fieldLastReturn = 0;
+
+
+	/**
+	 * WorkerCountController constructor.
+	 * @param search the EvolutionSearch to control. It may already have been started;
+	 *            otherwise, {@link #start()} starts it.
+	 */
+	public WorkerCountController( EvolutionSearch<?> search )
+	{
+		fieldSearch = search;
+
+		Object population = search.getSearchContext( ).getPopulation( );
+		fieldContentionReporting = ( population instanceof ContentionReporting ) ? ( ContentionReporting ) population
+				: null;
+
+		search.getEvolutionAlgorithm( ).registerListener( new MemberCounter( ) );
+
+	} // WorkerCountController
+
+
+	/**
+	 * Runs the controller until stopped or the search terminates.
+	 */
+	private void control( )
+	{
+		long lastTime = System.nanoTime( );
+		long lastMembers = fieldMemberCount.sum( );
+		long lastContention = getContentionCount( );
+		boolean settled = false;
+
+		try
+			{
+			while ( fieldSearch.getState( ) != EvolutionSearch.State.TERMINATED )
+				{
+				long sampleMillis;
+				synchronized ( fieldLock )
+					{
+					sampleMillis = fieldSampleMillis;
+					}
+				Thread.sleep( sampleMillis );
+
+				long time = System.nanoTime( );
+				long members = fieldMemberCount.sum( );
+				long contention = getContentionCount( );
+				double seconds = ( time - lastTime ) / 1e9;
+				long newMembers = members - lastMembers;
+				long newContention = contention - lastContention;
+				lastTime = time;
+				lastMembers = members;
+				lastContention = contention;
+
+				// Only measure a running search, and not right after a change.
+				if ( fieldSearch.getState( ) != EvolutionSearch.State.RUNNING || !settled )
+					{
+					settled = true;
+					continue;
+					}
+
+				int next = sample( newMembers / seconds, ( double ) newContention
+						/ Math.max( 1, newMembers ) );
+				if ( next != fieldWorkerCount )
+					{
+					synchronized ( fieldLock )
+						{
+						fieldWorkerCount = next;
+						}
+					try
+						{
+						fieldSearch.resize( next );
+						}
+					catch ( IllegalStateException exception )
+						{
+						// The search is stopping.
+						break;
+						}
+					settled = false;
+					}
+				}
+			}
+		catch ( InterruptedException exception )
+			{
+			// Stopped.
+			}
+
+	} // control
+
+
+	/**
+	 * @return an {@code int} indicating the worker count with the best throughput
+	 *         measured so far, or the current count if none has been measured.
+	 */
+	public int getBestWorkerCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			int best = fieldWorkerCount;
+			double bestThroughput = -1;
+			for ( Entry<Integer, Double> entry : fieldThroughputCurve.entrySet( ) )
+				{
+				if ( entry.getValue( ) > bestThroughput )
+					{
+					best = entry.getKey( );
+					bestThroughput = entry.getValue( );
+					}
+				}
+			return best;
+			}
+
+	} // getBestWorkerCount
+
+
+	private long getContentionCount( )
+	{
+		return ( fieldContentionReporting != null ) ? fieldContentionReporting
+				.getContentionCount( ) : 0;
+
+	} // getContentionCount
+
+
+	/**
+	 * @return the curve of the average number of contended operations per new member,
+	 *         by worker count. Empty if the population doesn't implement
+	 *         {@link ContentionReporting}.
+	 */
+	public SortedMap<Integer, Double> getContentionCurve( )
+	{
+		synchronized ( fieldLock )
+			{
+			return new TreeMap<>( fieldContentionCurve );
+			}
+
+	} // getContentionCurve
+
+
+	/**
+	 * @return the curve of the number of new members per second, by worker count.
+	 */
+	public SortedMap<Integer, Double> getThroughputCurve( )
+	{
+		synchronized ( fieldLock )
+			{
+			return new TreeMap<>( fieldThroughputCurve );
+			}
+
+	} // getThroughputCurve
+
+
+	/**
+	 * @return an {@code int} indicating the number of workers the controller has chosen
+	 *         for now. This may be a count it's trying out; see
+	 *         {@link #getBestWorkerCount()}.
+	 */
+	public int getWorkerCount( )
+	{
+		synchronized ( fieldLock )
+			{
+			return fieldWorkerCount;
+			}
+
+	} // getWorkerCount
+
+
+	/**
+	 * Records a sample at the current count and decides on the next.
+	 */
+	private int sample( double throughput, double contentionRate )
+	{
+		synchronized ( fieldLock )
+			{
+			int current = fieldWorkerCount;
+
+			Double previous = fieldThroughputCurve.get( current );
+			fieldThroughputCurve.put( current, ( previous == null ) ? throughput : previous
+					+ SMOOTHING * ( throughput - previous ) );
+			if ( fieldContentionReporting != null )
+				{
+				previous = fieldContentionCurve.get( current );
+				fieldContentionCurve.put( current, ( previous == null ) ? contentionRate
+						: previous + SMOOTHING * ( contentionRate - previous ) );
+				}
+
+			if ( fieldHoldSamples > 0 )
+				{
+				fieldHoldSamples--;
+				return current;
+				}
+
+			int next;
+			Double from = fieldThroughputCurve.get( fieldPreviousCount );
+			if ( contentionRate > fieldMaxContentionRate && current > fieldMinWorkers )
+				{
+				// Too much contention; more workers would only make it worse.
+				fieldDirection = -1;
+				next = current - 1;
+				}
+			else if ( from != null && fieldPreviousCount != current
+					&& fieldThroughputCurve.get( current ) < from * ( 1 - TOLERANCE ) )
+				{
+				// That move was a mistake. Go back and stay a while, then try the other way.
+				next = fieldPreviousCount;
+				fieldDirection = Integer.signum( next - current );
+				fieldHoldLength = ( next == fieldLastReturn ) ? Math.min( 2 * fieldHoldLength,
+						MAX_HOLD_SAMPLES ) : HOLD_SAMPLES;
+				fieldHoldSamples = fieldHoldLength;
+				fieldLastReturn = next;
+				}
+			else
+				{
+				next = current + fieldDirection;
+				}
+
+			// Turn around at the limits.
+			if ( next < fieldMinWorkers || next > fieldMaxWorkers )
+				{
+				fieldDirection = -fieldDirection;
+				next = Math.max( fieldMinWorkers, Math.min( fieldMaxWorkers, current
+						+ fieldDirection ) );
+				}
+
+			fieldPreviousCount = current;
+			return next;
+			}
+
+	} // sample
+
+
+	/**
+	 * Sets the contention rate (contended operations per new member) above which the
+	 * controller sheds workers. Defaults to {@link #DEFAULT_MAX_CONTENTION_RATE}.
+	 */
+	public WorkerCountController setMaxContentionRate( double maxContentionRate )
+	{
+		synchronized ( fieldLock )
+			{
+			fieldMaxContentionRate = maxContentionRate;
+			}
+		return this;
+
+	} // setMaxContentionRate
+
+
+	/**
+	 * Sets how long to measure each worker count for, in milliseconds. Defaults to
+	 * {@link #DEFAULT_SAMPLE_MILLIS}.
+	 */
+	public WorkerCountController setSampleMillis( long sampleMillis )
+	{
+		if ( sampleMillis < 1 )
+			throw new IllegalArgumentException( "Samples must be at least 1ms long." );
+
+		synchronized ( fieldLock )
+			{
+			fieldSampleMillis = sampleMillis;
+			}
+		return this;
+
+	} // setSampleMillis
+
+
+	/**
+	 * Sets the range of worker counts to try. Defaults to between 1 and twice the number
+	 * of available processors.
+	 */
+	public WorkerCountController setWorkerRange( int minWorkers, int maxWorkers )
+	{
+		if ( minWorkers < 1 || maxWorkers < minWorkers )
+			throw new IllegalArgumentException( "Invalid worker range: " + minWorkers + "-"
+					+ maxWorkers );
+
+		synchronized ( fieldLock )
+			{
+			fieldMinWorkers = minWorkers;
+			fieldMaxWorkers = maxWorkers;
+			fieldWorkerCount = Math.max( minWorkers, Math.min( maxWorkers, fieldWorkerCount ) );
+			}
+		return this;
+
+	} // setWorkerRange
+
+
+	/**
+	 * Starts controlling the search, starting it too (with the initial worker count, the
+	 * number of available processors) if it hasn't been already.
+	 * @throws IllegalStateException if the controller has already been started.
+	 */
+	public void start( )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldThread != null )
+				throw new IllegalStateException( "The controller has already been started." );
+
+			if ( fieldSearch.getState( ) == EvolutionSearch.State.NEW )
+				fieldSearch.start( fieldWorkerCount );
+			else
+				fieldSearch.resize( fieldWorkerCount );
+
+			fieldThread = new Thread( new Runnable( )
+			{
+				@Override
+				public void run( )
+				{
+					control( );
+
+				} // run
+
+			}, "WorkerCountController" );
+			fieldThread.setDaemon( true );
+			fieldThread.start( );
+			}
+
+	} // start
+
+
+	/**
+	 * Stops controlling the search, leaving it with its current number of workers.
+	 */
+	public void stop( )
+	{
+		synchronized ( fieldLock )
+			{
+			if ( fieldThread != null )
+				fieldThread.interrupt( );
+			}
+
+	} // stop
+
+}
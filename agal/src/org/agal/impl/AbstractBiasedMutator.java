@@ -6,15 +6,17 @@
  */
 package org.agal.impl;
 
-import java.util.Random;
-
+import org.agal.core.BiasSource;
 import org.agal.core.Mutator;
 import org.agal.core.SearchContext;
 
 /**
  * AbstractBiasedMutator is a base {@link Mutator} implementation which relies on the bias
  * named by {@code BIAS_KEY_MUTATION_RATE} and random numbers provided by the
- * {@code SearchContext}'s Random to determine how frequently to mutate.
+ * {@code SearchContext}'s Random to determine how frequently to mutate. The bias's
+ * source is resolved when the mutator is constructed (see
+ * {@link SearchContext#getBiasSource(String)}), so sources registered afterwards aren't
+ * seen.
  * <p>
  * AbstractBiasedMutator is thread safe.
  * @author David Schmidt
@@ -37,11 +39,13 @@ public abstract class AbstractBiasedMutator<S> implements Mutator<S>
 
 	// Data members.
 	private final SearchContext<S> fieldSearchContext;
+	private final BiasSource fieldMutationRateSource;
 
 
 	public AbstractBiasedMutator( SearchContext<S> searchContext )
 	{
 		fieldSearchContext = searchContext;
+		fieldMutationRateSource = resolveBiasSource( BIAS_KEY_MUTATION_RATE );
 
 	} // AbstractBiasedMutator
 
@@ -56,12 +60,10 @@ public abstract class AbstractBiasedMutator<S> implements Mutator<S>
 	@Override
 	public int mutateCount( S state )
 	{
-		Random random = fieldSearchContext.getRandom( );
-
-		double chance = random.nextDouble( );
+		double chance = fieldSearchContext.getRandomBuffer( ).nextDouble( );
 
 		// For a bias of 3.5: hardBias = 3, softBias = 0.5.
-		double softBias = fieldSearchContext.getBias( BIAS_KEY_MUTATION_RATE );
+		double softBias = readBias( fieldMutationRateSource, BIAS_KEY_MUTATION_RATE );
 		int hardBias = ( int ) softBias;
 		softBias -= ( int ) softBias;
 
@@ -72,4 +74,30 @@ public abstract class AbstractBiasedMutator<S> implements Mutator<S>
 
 	} // mutateCount
 
+
+	/**
+	 * Reads a bias from a source resolved with {@link #resolveBiasSource(String)}, going
+	 * through the {@code SearchContext} (which will report the missing bias) if there was
+	 * none.
+	 */
+	protected final double readBias( BiasSource biasSource, String biasKey )
+	{
+		if ( biasSource != null )
+			return biasSource.getBias( biasKey );
+
+		return fieldSearchContext.getBias( biasKey );
+
+	} // readBias
+
+
+	/**
+	 * @return the BiasSource which supplies the given bias, or {@code null} if there's
+	 *         none.
+	 */
+	protected final BiasSource resolveBiasSource( String biasKey )
+	{
+		return ( fieldSearchContext != null ) ? fieldSearchContext.getBiasSource( biasKey ) : null;
+
+	} // resolveBiasSource
+
 }
@@ -0,0 +1,321 @@
+/*
+ * AbstractGenerationalAlgorithm.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.agal.core.EvolutionAlgorithm;
+import org.agal.core.EvolutionEventBus;
+import org.agal.core.EvolutionListener;
+import org.agal.core.SearchContext;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * AbstractGenerationalAlgorithm is a base {@link EvolutionAlgorithm} for algorithms with
+ * discrete generations, such as evolution strategies. Each generation is divided into a
+ * fixed number of independent "batches" of work. Every thread which calls
+ * {@link #evolve()} cooperates on the current generation by claiming unprocessed batches
+ * until none remain; the thread which completes the final batch of a generation then
+ * performs the replacement step via {@link #completeGeneration()} and releases the
+ * others into the next generation. No thread ever leaves a claimed batch unfinished, so a
+ * generation can always be completed as long as at least one thread is still evolving,
+ * and the generation count is exact regardless of the number of threads.
+ * <p>
+ * Subclasses need only describe a generation's work via {@link #getBatchCount()},
+ * {@link #processBatch(int)}, and {@link #completeGeneration()}. They are guaranteed that
+ * {@code completeGeneration} never runs concurrently with {@code processBatch}, and that
+ * all writes made while processing the batches of a generation are visible to it (and
+ * vice versa), so the arrays they share need no further synchronization.
+ * <p>
+ * Before each batch, the processing thread selects the random stream for that batch
+ * (and likewise before {@code completeGeneration}), so with a seeded
+ * {@code SearchContext} the results depend only on the seed and not on how the batches
+ * were shared out among threads.
+ * <p>
+ * Should {@code processBatch} or {@code completeGeneration} throw, the generation can
+ * never be completed, so the algorithm fails: the first exception is recorded and thrown
+ * from {@code evolve} on every thread evolving, then and afterwards.
+ * <p>
+ * AbstractGenerationalAlgorithm is thread safe.
+ * @author David Schmidt
+ */
+public abstract class AbstractGenerationalAlgorithm<S> implements EvolutionAlgorithm
+{
+	/**
+	 * A generation whose batches are being handed out. Its batch count is fixed when it's
+	 * created, so a thread holding a claim on it is never confused by the subclass
+	 * changing the count (in {@link #completeGeneration()}) for the next generation.
+	 */
+	private static final class Generation
+	{
+		// Data members.
+		final int fieldNumber;
+		final int fieldBatchCount;
+		final AtomicInteger fieldClaimedBatches = new AtomicInteger( 0 );
+		final AtomicInteger fieldCompletedBatches = new AtomicInteger( 0 );
+
+
+		Generation( int number, int batchCount )
+		{
+			fieldNumber = number;
+			fieldBatchCount = batchCount;
+
+		} // Generation
+
+	} // Generation
+
+	// Class constants.
+	// How long a thread waiting on a generation sleeps between checkpoints.
+	private static final long AWAIT_MILLIS = 10;
+
+	// Data members.
+	private final EvolutionEventBus<S> fieldEventBus = new EvolutionEventBus<>( );
+	private final SearchContext<S> fieldSearchContext;
+	private final Object fieldGenerationLock = new Object( );
+	private volatile int fieldGenerationCount = 0;
+
+	// The first exception thrown by a batch or a replacement step.
+	private final AtomicReference<RuntimeException> fieldFailure = new AtomicReference<>( );
+
+	// The generation whose batches are being handed out; created by the first thread to
+	// evolve, and replaced (under fieldGenerationLock) as each one is completed.
+	private volatile Generation fieldGeneration;
+
+
+	/**
+	 * AbstractGenerationalAlgorithm constructor.
+	 * @param searchContext the SearchContext in use.
+	 */
+	public AbstractGenerationalAlgorithm( SearchContext<S> searchContext )
+	{
+		fieldSearchContext = searchContext;
+
+	} // AbstractGenerationalAlgorithm
+
+
+	/**
+	 * Completes the current generation once all its batches have been processed. Called
+	 * exactly once per generation by exactly one thread. This is typically where
+	 * survivors are selected.
+	 */
+	protected abstract void completeGeneration( );
+
+
+	/**
+	 * Cooperatively processes generations with any other threads currently evolving until
+	 * interrupted.
+	 * @throws RuntimeException the first exception thrown by a batch or a replacement
+	 *             step, on this or any other thread.
+	 */
+	@Override
+	public void evolve( )
+	{
+		notifyListeners( TypedEvolutionListener.EVENT_BEGIN_EVOLUTION );
+
+		try
+			{
+			// Allow interruption (or a managed search) to cancel the thread. It's only
+			// checked between batches, so we never abandon a claimed batch and stall the
+			// generation for everyone else.
+			while ( !Thread.interrupted( ) && fieldSearchContext.checkpoint( ) )
+				{
+				RuntimeException failure = fieldFailure.get( );
+				if ( failure != null )
+					throw failure;
+
+				Generation generation = getGeneration( );
+				int batch = generation.fieldClaimedBatches.getAndIncrement( );
+
+				if ( batch < generation.fieldBatchCount )
+					{
+					try
+						{
+						fieldSearchContext.selectRandomStream( generation.fieldNumber, batch );
+						processBatch( batch );
+
+						int completed = generation.fieldCompletedBatches.incrementAndGet( );
+						if ( completed == generation.fieldBatchCount )
+							advanceGeneration( generation );
+						}
+					catch ( RuntimeException exception )
+						{
+						fail( exception );
+						throw exception;
+						}
+					}
+				else
+					{
+					// Nothing left to claim; wait for whoever finishes the last batch.
+					if ( !awaitGeneration( generation ) )
+						break;
+					}
+				}
+			}
+		catch ( InterruptedException exception )
+			{
+			// We were canceled while waiting on the generation. We hold no batches, so
+			// there's nothing to clean up.
+			}
+		finally
+			{
+			notifyListeners( TypedEvolutionListener.EVENT_END_EVOLUTION );
+			}
+
+	} // evolve
+
+
+	private void advanceGeneration( Generation generation )
+	{
+		fieldSearchContext.selectRandomStream( generation.fieldNumber, generation.fieldBatchCount );
+		completeGeneration( );
+
+		// Announce the generation before releasing the next one's batches, so that
+		// listeners (such as a search counting steps) can act on the boundary before
+		// anyone starts on the next generation.
+		fieldGenerationCount++;
+		notifyListeners( TypedEvolutionListener.EVENT_NEW_GENERATION );
+
+		Generation next = new Generation( generation.fieldNumber + 1, getBatchCount( ) );
+		synchronized ( fieldGenerationLock )
+			{
+			fieldGeneration = next;
+			fieldGenerationLock.notifyAll( );
+			}
+
+	} // advanceGeneration
+
+
+	/**
+	 * Waits for the given generation to be completed, or for the algorithm to fail.
+	 * Checkpoints are passed while waiting (outside the lock, since they may park), so a
+	 * stop or a shrink reaches waiting threads too.
+	 * @return {@code false} if a checkpoint said the calling thread should stop evolving.
+	 */
+	private boolean awaitGeneration( Generation generation )
+			throws InterruptedException
+	{
+		while ( true )
+			{
+			synchronized ( fieldGenerationLock )
+				{
+				if ( isWaiting( generation ) )
+					fieldGenerationLock.wait( AWAIT_MILLIS );
+				if ( !isWaiting( generation ) )
+					return true;
+				}
+
+			if ( !fieldSearchContext.checkpoint( ) )
+				return false;
+			}
+
+	} // awaitGeneration
+
+
+	/**
+	 * Records the first failure and wakes the threads waiting on the generation, which
+	 * can now never be completed.
+	 */
+	private void fail( RuntimeException exception )
+	{
+		fieldFailure.compareAndSet( null, exception );
+
+		synchronized ( fieldGenerationLock )
+			{
+			fieldGenerationLock.notifyAll( );
+			}
+
+	} // fail
+
+
+	/**
+	 * @return an {@code int} indicating the number of batches which make up the current
+	 *         generation. It's read once per generation, when the generation begins, so
+	 *         it may only change during {@link #completeGeneration()}, which then sets the
+	 *         count for the next one.
+	 */
+	protected abstract int getBatchCount( );
+
+
+	/**
+	 * @return the Generation whose batches are being handed out, creating the first one
+	 *         if need be.
+	 */
+	private Generation getGeneration( )
+	{
+		Generation generation = fieldGeneration;
+		if ( generation != null )
+			return generation;
+
+		synchronized ( fieldGenerationLock )
+			{
+			if ( fieldGeneration == null )
+				fieldGeneration = new Generation( 0, getBatchCount( ) );
+
+			return fieldGeneration;
+			}
+
+	} // getGeneration
+
+
+	/**
+	 * @return an {@code int} indicating the number of generations completed so far.
+	 */
+	public int getGenerationCount( )
+	{
+		return fieldGenerationCount;
+
+	} // getGenerationCount
+
+
+	protected final SearchContext<S> getSearchContext( )
+	{
+		return fieldSearchContext;
+
+	} // getSearchContext
+
+
+	private boolean isWaiting( Generation generation )
+	{
+		return fieldGeneration == generation && fieldFailure.get( ) == null;
+
+	} // isWaiting
+
+
+	protected void notifyListeners( int eventType )
+	{
+		fieldEventBus.publish( eventType );
+
+	} // notifyListeners
+
+
+	protected void notifyListeners( int eventType, S member, int fitness )
+	{
+		fieldEventBus.publish( eventType, member, fitness );
+
+	} // notifyListeners
+
+
+	/**
+	 * Performs one batch of the current generation's work, such as breeding and
+	 * evaluating a slice of the offspring. Batches of the same generation may be
+	 * processed concurrently by different threads, so implementations must only write to
+	 * data belonging to the given batch.
+	 * @param batch an {@code int} between {@code 0} (inclusive) and
+	 *            {@link #getBatchCount()} (exclusive) identifying the batch to process.
+	 */
+	protected abstract void processBatch( int batch );
+
+
+	@Override
+	public void registerListener( EvolutionListener listener )
+	{
+		fieldEventBus.register( listener );
+
+	} // registerListener
+
+}
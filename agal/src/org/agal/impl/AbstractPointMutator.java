@@ -7,9 +7,10 @@
 package org.agal.impl;
 
 import java.lang.reflect.Array;
-import java.util.Random;
 
+import org.agal.core.BiasSource;
 import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
 import org.agal.core.SearchContext;
 
 /**
@@ -22,7 +23,19 @@ import org.agal.core.SearchContext;
  * In addition to randomizing the position to mutate, this class also uses the array
  * length and {@link #BIAS_KEY_ELEMENTS_PER_MUTATION} to provides a mechanism to
  * dynamically scale the number of mutations performed. Use of this feature is optional;
- * to use it, one must define a {@code BiasSource} for the aforementioned key.
+ * to use it, one must define a {@code BiasSource} for the aforementioned key. The bias
+ * sources are resolved once, at construction, and the array length is read reflectively
+ * unless a subclass overrides {@link #getLength(Object)}, as those in
+ * {@link PointMutators} do.
+ * <p>
+ * Alternatively, an AbstractPointMutator may be constructed in per-locus mode, in which
+ * each element of the state mutates independently with the probability given by
+ * {@link #BIAS_KEY_LOCUS_MUTATION_RATE}. Rather than rolling for every element, it jumps
+ * from one mutated element to the next with geometrically distributed skips, so the cost
+ * of a mutation is proportional to the number of elements changed rather than to the
+ * length of the state; that makes low per-locus rates on very long genomes cheap. In
+ * this mode, {@code mutateCount} is always 1, and that one {@code mutate} call performs
+ * every element's mutation (possibly none).
  * <p>
  * AbstractPointMutator is thread safe.
  * @author David Schmidt
@@ -46,28 +59,85 @@ public abstract class AbstractPointMutator<S> extends AbstractBiasedMutator<S>
 	public static final String BIAS_KEY_ELEMENTS_PER_MUTATION = AbstractPointMutator.class
 			.getName( ) + ".elementsPerMutation";
 
+	/**
+	 * In per-locus mode, the bias retrieved by this key is the probability with which each
+	 * element mutates, such as {@code 1e-4} or {@code 1 / length}. It must be defined for
+	 * per-locus mutators; it's ignored otherwise.
+	 */
+	public static final String BIAS_KEY_LOCUS_MUTATION_RATE = AbstractPointMutator.class
+			.getName( ) + ".locusMutationRate";
+
+	// Data members.
+	private final boolean fieldPerLocus;
+	private final BiasSource fieldElementsPerMutationSource;
+	private final BiasSource fieldLocusMutationRateSource;
+
 
 	public AbstractPointMutator( SearchContext<S> searchContext )
+	{
+		this( searchContext, false );
+
+	} // AbstractPointMutator
+
+
+	/**
+	 * AbstractPointMutator constructor.
+	 * @param searchContext the SearchContext in use.
+	 * @param perLocus a boolean indicating whether to mutate each element independently
+	 *            with the probability {@link #BIAS_KEY_LOCUS_MUTATION_RATE}, rather than
+	 *            mutating {@code mutateCount} random positions.
+	 */
+	protected AbstractPointMutator( SearchContext<S> searchContext, boolean perLocus )
 	{
 		super( searchContext );
 
+		fieldPerLocus = perLocus;
+		fieldElementsPerMutationSource = resolveBiasSource( BIAS_KEY_ELEMENTS_PER_MUTATION );
+		fieldLocusMutationRateSource = perLocus ? resolveBiasSource( BIAS_KEY_LOCUS_MUTATION_RATE )
+				: null;
+
 	} // AbstractPointMutator
 
 
-	@Override
-	public void mutate( S state )
+	/**
+	 * @return the length of the state array. The default implementation uses reflection;
+	 *         subclasses for a specific array type should override it to read the length
+	 *         directly.
+	 */
+	protected int getLength( S state )
 	{
 		// This may throw an IllegalArgumentException. We're placing a lot of trust in the
 		// client to hook it up correctly.
-		int length = Array.getLength( state );
+		return Array.getLength( state );
+
+	} // getLength
+
+
+	public boolean isPerLocus( )
+	{
+		return fieldPerLocus;
+
+	} // isPerLocus
+
+
+	@Override
+	public void mutate( S state )
+	{
+		int length = getLength( state );
 
 		// Using the SearchContext to get a random so clients don't have to know too
 		// much about the framework out of the box is half the point of this class.
-		Random random = getSearchContext( ).getRandom( );
+		RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+
+		if ( fieldPerLocus )
+			{
+			mutateLoci( state, length, random );
+			return;
+			}
 
 		// Determine a point to mutate, and mutate!
 		int mutatePosition = random.nextInt( length );
-		updatePoint( state, mutatePosition );
+		updatePoint( state, mutatePosition, random );
 
 	} // mutate
 
@@ -75,12 +145,16 @@ public abstract class AbstractPointMutator<S> extends AbstractBiasedMutator<S>
 	/**
 	 * Obtains the {@code mutateCount} from {@link AbstractBiasedMutator} and, if
 	 * necessary, modifies it based on the length of the state array according to
-	 * {@link #BIAS_KEY_ELEMENTS_PER_MUTATION}.
+	 * {@link #BIAS_KEY_ELEMENTS_PER_MUTATION}. In per-locus mode, it's always 1.
 	 * @see org.agal.impl.AbstractBiasedMutator#mutateCount(java.lang.Object)
 	 */
 	@Override
 	public int mutateCount( S state )
 	{
+		// Per-locus mutation makes all of its decisions in one pass.
+		if ( fieldPerLocus )
+			return 1;
+
 		int count = super.mutateCount( state );
 
 		// LAM - Perhaps a better way of calculating this would be to include the base
@@ -88,31 +162,54 @@ public abstract class AbstractPointMutator<S> extends AbstractBiasedMutator<S>
 		// per 1000 loci and a state with 5000 loci, it might always mutate exactly once.
 		// The end result is the same, but the mutations would be spread out consistently
 		// rather than coming in bursts as they would now.
-		// Shortcut for infrequently mutating evolutions.
-		if ( count == 0 )
-			return 0;
+		// Shortcut for infrequently mutating evolutions, and for those which don't scale.
+		if ( count == 0 || fieldElementsPerMutationSource == null )
+			return count;
 
-		// This may also throw an IllegalArgumentException if the client doesn't use
-		// array-based states.
-		int arrayLength = Array.getLength( state );
+		// Values below 1 (such as a catch-all default bias) disable scaling.
+		int elementsPerMutation = ( int ) fieldElementsPerMutationSource
+				.getBias( BIAS_KEY_ELEMENTS_PER_MUTATION );
+		if ( elementsPerMutation < 1 )
+			return count;
+
+		return count * ( 1 + getLength( state ) / elementsPerMutation );
+
+	} // mutateCount
+
+
+	/**
+	 * Mutates each element of the state with the per-locus probability, visiting only the
+	 * mutated elements.
+	 */
+	private void mutateLoci( S state, int length, RandomBuffer random )
+	{
+		double rate = readBias( fieldLocusMutationRateSource, BIAS_KEY_LOCUS_MUTATION_RATE );
+		if ( !( rate > 0 ) )
+			return;
 
-		int multiplier = 1;
-		try
+		if ( rate >= 1 )
 			{
-			int elementsPerMutation = ( int ) getSearchContext( ).getBias(
-					BIAS_KEY_ELEMENTS_PER_MUTATION );
-			multiplier += arrayLength / elementsPerMutation;
+			for ( int position = 0; position < length; position++ )
+				updatePoint( state, position, random );
+			return;
 			}
-		catch ( Exception ignored )
+
+		// The number of unmutated elements before the next mutated one is geometric:
+		// floor(ln(U) / ln(1 - rate)) for uniform U in (0, 1].
+		double scale = 1 / Math.log1p( -rate );
+		int position = -1;
+		while ( true )
 			{
-			// FIXME - This makes the exception policy of CompoundBiasSource seem broken.
-			// This is to account for the possibility of a CompoundBiasSource with no key
-			// mapping and no default.
-			}
+			// Compared as a double, since very low rates can make the skip enormous.
+			double skip = Math.log( 1 - random.nextDouble( ) ) * scale;
+			if ( skip >= length - 1 - position )
+				break;
 
-		return ( count * multiplier );
+			position += 1 + ( int ) skip;
+			updatePoint( state, position, random );
+			}
 
-	} // mutateCount
+	} // mutateLoci
 
 
 	/**
@@ -124,4 +221,17 @@ public abstract class AbstractPointMutator<S> extends AbstractBiasedMutator<S>
 	 */
 	protected abstract void updatePoint( S state, int position );
 
+
+	/**
+	 * Mutates the array at the given position, drawing any random numbers needed from
+	 * the given buffer, which belongs to the calling thread. The default implementation
+	 * ignores the buffer and calls {@link #updatePoint(Object, int)}; subclasses may
+	 * override this instead, to save fetching the buffer again.
+	 */
+	protected void updatePoint( S state, int position, RandomBuffer random )
+	{
+		updatePoint( state, position );
+
+	} // updatePoint
+
 }
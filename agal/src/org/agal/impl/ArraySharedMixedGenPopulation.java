@@ -6,25 +6,37 @@
  */
 package org.agal.impl;
 
-import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 
 import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.ContentionReporting;
 import org.agal.core.Population;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.RecyclingPopulation;
 import org.agal.core.StateManager;
 
 /**
  * ArraySharedMixedGenPopulation
+ * <p>
+ * Once recycling is enabled, evicted members are handed back for reuse through an
+ * {@link EpochRecycler}.
  * @author Dave
  */
-public class ArraySharedMixedGenPopulation<S> implements Population<S>
+public class ArraySharedMixedGenPopulation<S> implements Population<S>, RandomSourceAware,
+		ContentionReporting, RecyclingPopulation<S>
 {
 	// Data members.
 	private AtomicReferenceArray<S> fieldArray;
 	private AtomicInteger fieldGenerationCount = new AtomicInteger( 1 );
 	private AtomicInteger fieldStateCount = new AtomicInteger( 0 );
 	private AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
+	private RandomSource fieldRandomSource;
+	private final LongAdder fieldContentionCount = new LongAdder( );
+	private volatile EpochRecycler<S> fieldRecycler;
 
 
 	public ArraySharedMixedGenPopulation( )
@@ -40,6 +52,27 @@ public class ArraySharedMixedGenPopulation<S> implements Population<S>
 	} // destroy
 
 
+	@Override
+	public synchronized void enableRecycling( )
+	{
+		if ( fieldRecycler == null )
+			fieldRecycler = new EpochRecycler<>( );
+
+	} // enableRecycling
+
+
+	/**
+	 * @return a {@code long} indicating the number of compare-and-set operations which
+	 *         failed (and had to be retried) because another thread got there first.
+	 */
+	@Override
+	public long getContentionCount( )
+	{
+		return fieldContentionCount.sum( );
+
+	} // getContentionCount
+
+
 	@Override
 	public int getGenerationCount( )
 	{
@@ -86,19 +119,47 @@ public class ArraySharedMixedGenPopulation<S> implements Population<S>
 	} // reap
 
 
+	@Override
+	public S recycle( )
+	{
+		EpochRecycler<S> recycler = fieldRecycler;
+		return ( recycler != null ) ? recycler.reclaim( ) : null;
+
+	} // recycle
+
+
+	@Override
+	public void release( )
+	{
+		EpochRecycler<S> recycler = fieldRecycler;
+		if ( recycler != null )
+			recycler.exit( );
+
+	} // release
+
+
 	@Override
 	public S sample( )
 	{
-		// FIXME - Get a random instance from the searchcontext (??!)
-		Random random = new Random( );
+		EpochRecycler<S> recycler = fieldRecycler;
+		if ( recycler != null )
+			recycler.enter( );
 
-		int index = random.nextInt( fieldArray.length( ) );
+		int index = RandomSource.generatorOf( fieldRandomSource ).nextInt( fieldArray.length( ) );
 
 		return fieldArray.get( index );
 
 	} // sample
 
 
+	@Override
+	public void setRandomSource( RandomSource randomSource )
+	{
+		fieldRandomSource = randomSource;
+
+	} // setRandomSource
+
+
 	@Override
 	public int size( )
 	{
@@ -110,8 +171,12 @@ public class ArraySharedMixedGenPopulation<S> implements Population<S>
 	@Override
 	public void sow( S member )
 	{
-		// FIXME - Get a random instance from the searchcontext (??!)
-		Random random = new Random( );
+		RandomGenerator random = RandomSource.generatorOf( fieldRandomSource );
+
+		// We read the members we compare against, so they mustn't be reused under us.
+		EpochRecycler<S> recycler = fieldRecycler;
+		if ( recycler != null )
+			recycler.enter( );
 
 		// Non-blocking way to replace a random lower-fitness state with this better one.
 		int retryLimit = 3;
@@ -124,7 +189,13 @@ public class ArraySharedMixedGenPopulation<S> implements Population<S>
 				continue;
 
 			if ( fieldArray.compareAndSet( index, previousMember, member ) )
+				{
+				if ( recycler != null )
+					recycler.retire( previousMember );
 				break;
+				}
+
+			fieldContentionCount.increment( );
 			}
 
 		// Non-blocking way to count generations by rolling over the count of the number
@@ -141,6 +212,8 @@ public class ArraySharedMixedGenPopulation<S> implements Population<S>
 				fieldGenerationCount.incrementAndGet( );
 				break;
 				}
+
+			fieldContentionCount.increment( );
 			}
 
 	} // sow
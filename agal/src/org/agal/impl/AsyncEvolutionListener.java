@@ -0,0 +1,609 @@
+/*
+ * AsyncEvolutionListener.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.agal.core.EvolutionEventBus;
+import org.agal.core.EvolutionListener;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * AsyncEvolutionListener delivers events to other listeners on threads of its own, so that
+ * slow listeners (such as monitoring code) don't hold up the threads doing the evolving.
+ * Events are copied into preallocated slots on a bounded ring buffer (a
+ * {@link BoundedConcurrentQueue}) by the publishing threads, and drained in batches by
+ * one or more consumer threads, which hand them to the listeners given to
+ * {@link #register(EvolutionListener)}. Publishing allocates nothing, and events no target
+ * has subscribed to are never queued at all.
+ * <p>
+ * When the ring is full, member events are handled according to the
+ * {@link OverflowPolicy}. Other events (beginning and ending evolution, and new
+ * generations) are rare and often counted, so they're never dropped or coalesced; the
+ * publisher always waits for room for them.
+ * <p>
+ * When the last thread evolving ends its evolution, it waits for everything it published
+ * to be delivered, so that when a search has terminated its listeners (like the
+ * {@link org.agal.core.DefaultSolutionListener}) have seen all of it. The consumer
+ * threads are daemons. They're started when the first event is queued, and stopped once
+ * the last thread evolving has ended its evolution and everything has been delivered, so
+ * they're only about while there's evolving going on; events queued later (say, when a
+ * search is resumed) start them again. {@link #shutdown()} stops them for good.
+ * <p>
+ * A listener which throws an exception doesn't stop delivery to the others: the
+ * exception is passed to the consumer thread's {@code UncaughtExceptionHandler} (which
+ * by default prints it), counted by {@link #getFailedCount()}, and delivery goes on.
+ * <p>
+ * With a single consumer thread, events are delivered in the order they were queued.
+ * With more, targets may be called concurrently and out of order. Stop conditions should
+ * generally not be delivered to asynchronously, lest they stop the search late.
+ * <p>
+ * AsyncEvolutionListener is thread safe.
+ * @author David Schmidt
+ */
+public class AsyncEvolutionListener<S> implements TypedEvolutionListener<S>
+{
+	/**
+	 * What to do with a member event when the ring is full.
+	 */
+	public enum OverflowPolicy
+	{
+		/**
+		 * Discard the event. Publishers never wait.
+		 */
+		DROP,
+
+		/**
+		 * Wait for room. No events are lost, but a listener which can't keep up will
+		 * slow the evolution down to its pace.
+		 */
+		BLOCK,
+
+		/**
+		 * Keep only the latest overflowing event of each type, to be delivered once the
+		 * consumers catch up. Publishers never wait, and listeners which only care about
+		 * the most recent state (like progress displays) still hear about it.
+		 */
+		COALESCE;
+
+	} // OverflowPolicy
+
+	/**
+	 * A preallocated event slot. Slots cycle between the free and pending queues.
+	 */
+	private static class Event<S>
+	{
+		// Data members.
+		int fieldType;
+		S fieldMember;
+		int fieldFitness;
+		boolean fieldFitnessKnown;
+
+	} // Event
+
+	private class Consumer implements Runnable
+	{
+
+		@Override
+		public void run( )
+		{
+			try
+				{
+				for ( int attempt = 0; !Thread.currentThread( ).isInterrupted( ); )
+					{
+					if ( drain( ) )
+						attempt = 0;
+					else
+						waitForQueue( attempt++ );
+					}
+				}
+			catch ( InterruptedException exception )
+				{
+				// Shut down.
+				}
+
+		} // run
+
+	} // Consumer
+
+	/**
+	 * Wraps each registered listener, so that one which throws can't take a consumer
+	 * thread (and the other listeners' deliveries) down with it.
+	 */
+	private class GuardedTarget implements TypedEvolutionListener<S>
+	{
+		// Data members.
+		private final EvolutionListener fieldListener;
+		private final TypedEvolutionListener<S> fieldTypedListener;
+
+
+		@SuppressWarnings( "unchecked" )
+		GuardedTarget( EvolutionListener listener )
+		{
+			fieldListener = listener;
+			fieldTypedListener = ( listener instanceof TypedEvolutionListener )
+					? ( TypedEvolutionListener<S> ) listener : null;
+
+		} // GuardedTarget
+
+
+		@Override
+		public int getEventMask( )
+		{
+			return ( fieldTypedListener != null ) ? fieldTypedListener.getEventMask( )
+					: EVENT_ALL;
+
+		} // getEventMask
+
+
+		@Override
+		public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+		{
+			try
+				{
+				if ( fieldTypedListener != null )
+					fieldTypedListener.onEvent( eventType, member, fitness, fitnessKnown );
+				else
+					fieldListener.onEvent( EvolutionEventBus.getEventId( eventType ),
+							member );
+				}
+			catch ( RuntimeException exception )
+				{
+				fieldFailedCount.incrementAndGet( );
+
+				Thread thread = Thread.currentThread( );
+				thread.getUncaughtExceptionHandler( )
+						.uncaughtException( thread, exception );
+				}
+
+		} // onEvent
+
+	} // GuardedTarget
+
+	// Class constants.
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The most events a consumer delivers before checking for coalesced ones.
+	 */
+	private static final int DRAIN_BATCH = 64;
+
+	private static final int YIELD_LIMIT = 64;
+	private static final long PARK_NANOS = 50000;
+
+	private static final int MEMBER_EVENTS = EVENT_MEMBER_ADDED | EVENT_MEMBER_REMOVED;
+	private static final int EVENT_TYPE_COUNT = Integer.bitCount( EVENT_ALL );
+
+	// Data members.
+	private final EvolutionEventBus<S> fieldTargets = new EvolutionEventBus<>( );
+	private final OverflowPolicy fieldOverflowPolicy;
+	private final BoundedConcurrentQueue<Event<S>> fieldFreeEvents;
+	private final BoundedConcurrentQueue<Event<S>> fieldPendingEvents;
+	private final int fieldConsumerCount;
+	private final AtomicInteger fieldActivePublishers = new AtomicInteger( 0 );
+	private final AtomicLong fieldQueuedCount = new AtomicLong( 0 );
+	private final AtomicLong fieldDeliveredCount = new AtomicLong( 0 );
+	private final AtomicLong fieldDroppedCount = new AtomicLong( 0 );
+	private final AtomicLong fieldCoalescedCount = new AtomicLong( 0 );
+	private final AtomicLong fieldFailedCount = new AtomicLong( 0 );
+	private volatile boolean fieldShutdown = false;
+
+	// The running consumer threads, or null when they're stopped. Guarded by
+	// fieldConsumerLock; fieldConsumersRunning lets publishers check without it.
+	private final Object fieldConsumerLock = new Object( );
+	private Thread[ ] fieldConsumers;
+	private volatile boolean fieldConsumersRunning = false;
+
+	// Latest overflowing event of each type, by bit number. Guarded by themselves.
+	private final S[ ] fieldCoalescedMembers;
+	private final int[ ] fieldCoalescedFitnesses = new int[ EVENT_TYPE_COUNT ];
+	private final boolean[ ] fieldCoalescedFitnessesKnown = new boolean[ EVENT_TYPE_COUNT ];
+	private final boolean[ ] fieldCoalesced = new boolean[ EVENT_TYPE_COUNT ];
+	private volatile boolean fieldCoalescedPending = false;
+
+
+	/**
+	 * Constructs an AsyncEvolutionListener with a single consumer thread and the default
+	 * capacity.
+	 */
+	public AsyncEvolutionListener( OverflowPolicy overflowPolicy )
+	{
+		this( DEFAULT_CAPACITY, overflowPolicy, 1 );
+
+	} // AsyncEvolutionListener
+
+
+	/**
+	 * AsyncEvolutionListener constructor. The consumer threads are started when the first
+	 * event is queued.
+	 * @param capacity an {@code int} indicating the number of events which may be waiting
+	 *            for delivery before the overflow policy applies. It's rounded up to a
+	 *            power of two.
+	 * @param overflowPolicy the OverflowPolicy for member events when the ring is full.
+	 * @param consumerThreads an {@code int} indicating the number of threads delivering
+	 *            events.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public AsyncEvolutionListener( int capacity, OverflowPolicy overflowPolicy,
+			int consumerThreads )
+	{
+		if ( consumerThreads < 1 )
+			throw new IllegalArgumentException( "At least one consumer thread is required." );
+
+		fieldOverflowPolicy = overflowPolicy;
+		fieldPendingEvents = new BoundedConcurrentQueue<>( capacity );
+		fieldFreeEvents = new BoundedConcurrentQueue<>( capacity );
+		for ( int index = 0; index < fieldFreeEvents.getCapacity( ); index++ )
+			fieldFreeEvents.offer( new Event<S>( ) );
+		fieldCoalescedMembers = ( S[ ] ) new Object[ EVENT_TYPE_COUNT ];
+		fieldConsumerCount = consumerThreads;
+
+	} // AsyncEvolutionListener
+
+
+	private void coalesce( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		int index = Integer.numberOfTrailingZeros( eventType );
+
+		synchronized ( fieldCoalesced )
+			{
+			if ( fieldCoalesced[ index ] )
+				fieldCoalescedCount.incrementAndGet( );
+
+			fieldCoalescedMembers[ index ] = member;
+			fieldCoalescedFitnesses[ index ] = fitness;
+			fieldCoalescedFitnessesKnown[ index ] = fitnessKnown;
+			fieldCoalesced[ index ] = true;
+			fieldCoalescedPending = true;
+			}
+
+	} // coalesce
+
+
+	/**
+	 * Delivers up to a batch of queued events, then any coalesced ones.
+	 * @return a {@code boolean} indicating whether there was anything to deliver.
+	 */
+	private boolean drain( )
+	{
+		int delivered = 0;
+		Event<S> event;
+		while ( delivered < DRAIN_BATCH && ( event = fieldPendingEvents.poll( ) ) != null )
+			{
+			int eventType = event.fieldType;
+			S member = event.fieldMember;
+			int fitness = event.fieldFitness;
+			boolean fitnessKnown = event.fieldFitnessKnown;
+
+			event.fieldMember = null;
+			fieldFreeEvents.offer( event );
+
+			try
+				{
+				fieldTargets.publish( eventType, member, fitness, fitnessKnown );
+				}
+			finally
+				{
+				fieldDeliveredCount.incrementAndGet( );
+				}
+			delivered++;
+			}
+
+		if ( fieldCoalescedPending )
+			{
+			for ( int index = 0; index < EVENT_TYPE_COUNT; index++ )
+				{
+				S member;
+				int fitness;
+				boolean fitnessKnown;
+				synchronized ( fieldCoalesced )
+					{
+					if ( !fieldCoalesced[ index ] )
+						continue;
+
+					member = fieldCoalescedMembers[ index ];
+					fitness = fieldCoalescedFitnesses[ index ];
+					fitnessKnown = fieldCoalescedFitnessesKnown[ index ];
+					fieldCoalescedMembers[ index ] = null;
+					fieldCoalesced[ index ] = false;
+					}
+
+				fieldTargets.publish( 1 << index, member, fitness, fitnessKnown );
+				delivered++;
+				}
+
+			synchronized ( fieldCoalesced )
+				{
+				boolean pending = false;
+				for ( boolean coalesced : fieldCoalesced )
+					pending |= coalesced;
+				fieldCoalescedPending = pending;
+				}
+			}
+
+		return delivered > 0;
+
+	} // drain
+
+
+	/**
+	 * Waits until every event queued (or coalesced) so far has been delivered. Returns
+	 * early if the listener has been shut down.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void flush( )
+			throws InterruptedException
+	{
+		long queued = fieldQueuedCount.get( );
+
+		for ( int attempt = 0; !fieldShutdown
+				&& ( fieldDeliveredCount.get( ) < queued || fieldCoalescedPending ); attempt++ )
+			waitForQueue( attempt );
+
+	} // flush
+
+
+	/**
+	 * @return a {@code long} indicating the number of member events coalesced away, that
+	 *         is, replaced by a later event before they could be delivered.
+	 */
+	public long getCoalescedCount( )
+	{
+		return fieldCoalescedCount.get( );
+
+	} // getCoalescedCount
+
+
+	/**
+	 * @return a {@code long} indicating the number of deliveries to a listener which threw
+	 *         an exception.
+	 */
+	public long getFailedCount( )
+	{
+		return fieldFailedCount.get( );
+
+	} // getFailedCount
+
+
+	/**
+	 * @return a {@code long} indicating the number of member events dropped because the
+	 *         ring was full.
+	 */
+	public long getDroppedCount( )
+	{
+		return fieldDroppedCount.get( );
+
+	} // getDroppedCount
+
+
+	/**
+	 * Listens to everything; events no target wants are discarded on publication.
+	 */
+	@Override
+	public int getEventMask( )
+	{
+		return EVENT_ALL;
+
+	} // getEventMask
+
+
+	public OverflowPolicy getOverflowPolicy( )
+	{
+		return fieldOverflowPolicy;
+
+	} // getOverflowPolicy
+
+
+	/**
+	 * @return an {@code int} indicating the approximate number of events waiting to be
+	 *         delivered.
+	 */
+	public int getQueueDepth( )
+	{
+		return fieldPendingEvents.size( );
+
+	} // getQueueDepth
+
+
+	@Override
+	public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		if ( eventType == EVENT_BEGIN_EVOLUTION )
+			fieldActivePublishers.incrementAndGet( );
+
+		if ( fieldTargets.hasSubscribers( eventType ) && !fieldShutdown )
+			publish( eventType, member, fitness, fitnessKnown );
+
+		if ( eventType == EVENT_END_EVOLUTION && fieldActivePublishers.decrementAndGet( ) == 0 )
+			{
+			try
+				{
+				flush( );
+				}
+			catch ( InterruptedException exception )
+				{
+				// Don't make an impatient caller wait; just pass on the interrupt. The
+				// consumers are left to finish delivering.
+				Thread.currentThread( ).interrupt( );
+				return;
+				}
+
+			stopConsumers( );
+			}
+
+	} // onEvent
+
+
+	private void publish( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		Event<S> event = fieldFreeEvents.poll( );
+		if ( event == null )
+			{
+			boolean memberEvent = ( eventType & MEMBER_EVENTS ) != 0;
+			if ( memberEvent && fieldOverflowPolicy == OverflowPolicy.DROP )
+				{
+				fieldDroppedCount.incrementAndGet( );
+				return;
+				}
+			if ( memberEvent && fieldOverflowPolicy == OverflowPolicy.COALESCE )
+				{
+				coalesce( eventType, member, fitness, fitnessKnown );
+				return;
+				}
+
+			try
+				{
+				for ( int attempt = 0; ( event = fieldFreeEvents.poll( ) ) == null; attempt++ )
+					waitForQueue( attempt );
+				}
+			catch ( InterruptedException exception )
+				{
+				// The publisher is being stopped and can't wait. Rather than lose the
+				// event, deliver it here.
+				Thread.currentThread( ).interrupt( );
+				fieldTargets.publish( eventType, member, fitness, fitnessKnown );
+				return;
+				}
+			}
+
+		event.fieldType = eventType;
+		event.fieldMember = member;
+		event.fieldFitness = fitness;
+		event.fieldFitnessKnown = fitnessKnown;
+
+		// Count it first, so a flush can never miss it. There's always room in the
+		// pending queue for a slot we hold.
+		fieldQueuedCount.incrementAndGet( );
+		fieldPendingEvents.offer( event );
+
+		if ( !fieldConsumersRunning )
+			startConsumers( );
+
+	} // publish
+
+
+	/**
+	 * Adds a listener to deliver events to. Listeners may be added at any time, but only
+	 * see events published after they're added.
+	 */
+	public void register( EvolutionListener listener )
+	{
+		fieldTargets.register( new GuardedTarget( listener ) );
+
+	} // register
+
+
+	/**
+	 * Stops the consumer threads. Events still waiting are not delivered, and later
+	 * events are discarded.
+	 */
+	public void shutdown( )
+	{
+		fieldShutdown = true;
+
+		synchronized ( fieldConsumerLock )
+			{
+			if ( fieldConsumers != null )
+				for ( Thread consumer : fieldConsumers )
+					consumer.interrupt( );
+
+			fieldConsumers = null;
+			fieldConsumersRunning = false;
+			}
+
+	} // shutdown
+
+
+	/**
+	 * Starts the consumer threads, unless they're running or the listener has been shut
+	 * down.
+	 */
+	private void startConsumers( )
+	{
+		synchronized ( fieldConsumerLock )
+			{
+			if ( fieldConsumers != null || fieldShutdown )
+				return;
+
+			fieldConsumers = new Thread[ fieldConsumerCount ];
+			for ( int index = 0; index < fieldConsumerCount; index++ )
+				{
+				fieldConsumers[ index ] = new Thread( new Consumer( ),
+						"AsyncEvolutionListener-" + index );
+				fieldConsumers[ index ].setDaemon( true );
+				fieldConsumers[ index ].start( );
+				}
+			fieldConsumersRunning = true;
+			}
+
+	} // startConsumers
+
+
+	/**
+	 * Stops the consumer threads once nobody is evolving. They're idle by then, since
+	 * everything has been flushed, so this waits for them to leave; should anything have
+	 * been queued in the meantime, they're started again to deliver it.
+	 */
+	private void stopConsumers( )
+	{
+		synchronized ( fieldConsumerLock )
+			{
+			if ( fieldConsumers == null || fieldActivePublishers.get( ) > 0 )
+				return;
+
+			for ( Thread consumer : fieldConsumers )
+				consumer.interrupt( );
+
+			boolean interrupted = false;
+			for ( Thread consumer : fieldConsumers )
+				{
+				while ( consumer.isAlive( ) )
+					{
+					try
+						{
+						consumer.join( );
+						}
+					catch ( InterruptedException exception )
+						{
+						interrupted = true;
+						}
+					}
+				}
+
+			fieldConsumers = null;
+			fieldConsumersRunning = false;
+
+			if ( fieldPendingEvents.size( ) > 0 || fieldCoalescedPending )
+				startConsumers( );
+
+			if ( interrupted )
+				Thread.currentThread( ).interrupt( );
+			}
+
+	} // stopConsumers
+
+
+	/**
+	 * Backs off while there's nothing to deliver (or no room): yields for a while, then
+	 * sleeps briefly, so that idle consumers cost next to nothing.
+	 */
+	private static void waitForQueue( int attempt )
+			throws InterruptedException
+	{
+		if ( attempt < YIELD_LIMIT )
+			Thread.yield( );
+		else
+			LockSupport.parkNanos( PARK_NANOS );
+
+		if ( Thread.interrupted( ) )
+			throw new InterruptedException( );
+
+	} // waitForQueue
+
+}
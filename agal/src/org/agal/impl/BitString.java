@@ -0,0 +1,203 @@
+/*
+ * BitString.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+
+/**
+ * BitString is a fixed-length bitstring genome, packed 64 bits to a {@code long}. Compared
+ * to a {@code boolean[ ]}, which spends a byte on every bit, it takes an eighth of the
+ * memory, and its operators (see {@link BitStrings}) work on a whole word of bits at a
+ * time: crossover and mutation combine words under random masks, and counting and
+ * comparing bits use {@link Long#bitCount(long)}, which the JIT compiles to a single
+ * population count instruction.
+ * <p>
+ * Bit {@code i} is bit {@code i % 64} of word {@code i / 64}. The bits of the last word
+ * beyond the length are always clear; code which writes the words directly (see
+ * {@link #getWords()}) must keep them so, or {@link #cardinality()} and the comparisons
+ * will be wrong.
+ * <p>
+ * Operators provided by this library only modify freshly reproduced children, never a
+ * state which may already be shared with other threads; custom operators should do the
+ * same.
+ * @author David Schmidt
+ */
+public final class BitString
+{
+	// Data members.
+	private final long[ ] fieldWords;
+	private final int fieldLength;
+
+
+	/**
+	 * Constructs a BitString with every bit clear.
+	 * @param length a non-negative int indicating the number of bits.
+	 */
+	public BitString( int length )
+	{
+		if ( length < 0 )
+			throw new IllegalArgumentException( "The length mustn't be negative." );
+
+		fieldWords = new long[ wordCount( length ) ];
+		fieldLength = length;
+
+	} // BitString
+
+
+	/**
+	 * @return the number of set bits: the fitness of the state in the OneMax problem.
+	 */
+	public int cardinality( )
+	{
+		int count = 0;
+		for ( long word : fieldWords )
+			count += Long.bitCount( word );
+
+		return count;
+
+	} // cardinality
+
+
+	private void checkIndex( int index )
+	{
+		if ( index < 0 || index >= fieldLength )
+			throw new IndexOutOfBoundsException( "Bit " + index + " of " + fieldLength );
+
+	} // checkIndex
+
+
+	/**
+	 * @return a new BitString with the same bits as this one.
+	 */
+	public BitString copy( )
+	{
+		BitString copy = new BitString( fieldLength );
+		System.arraycopy( fieldWords, 0, copy.fieldWords, 0, fieldWords.length );
+
+		return copy;
+
+	} // copy
+
+
+	@Override
+	public boolean equals( Object other )
+	{
+		if ( !( other instanceof BitString ) )
+			return false;
+
+		BitString bits = ( BitString ) other;
+		return fieldLength == bits.fieldLength && Arrays.equals( fieldWords, bits.fieldWords );
+
+	} // equals
+
+
+	public void flip( int index )
+	{
+		checkIndex( index );
+		fieldWords[ index >>> 6 ] ^= 1L << index;
+
+	} // flip
+
+
+	public boolean get( int index )
+	{
+		checkIndex( index );
+		return ( fieldWords[ index >>> 6 ] & ( 1L << index ) ) != 0;
+
+	} // get
+
+
+	public int getLength( )
+	{
+		return fieldLength;
+
+	} // getLength
+
+
+	/**
+	 * @return the words holding the bits, exposed directly for efficiency.
+	 */
+	public long[ ] getWords( )
+	{
+		return fieldWords;
+
+	} // getWords
+
+
+	/**
+	 * @return the number of bits in which this BitString differs from the other one.
+	 * @throws IllegalArgumentException if they aren't the same length.
+	 */
+	public int hammingDistance( BitString other )
+	{
+		if ( other.fieldLength != fieldLength )
+			throw new IllegalArgumentException( "The bitstrings must be the same length." );
+
+		long[ ] otherWords = other.fieldWords;
+		int distance = 0;
+		for ( int index = 0; index < fieldWords.length; index++ )
+			distance += Long.bitCount( fieldWords[ index ] ^ otherWords[ index ] );
+
+		return distance;
+
+	} // hammingDistance
+
+
+	@Override
+	public int hashCode( )
+	{
+		return Arrays.hashCode( fieldWords );
+
+	} // hashCode
+
+
+	public void set( int index, boolean value )
+	{
+		checkIndex( index );
+		if ( value )
+			fieldWords[ index >>> 6 ] |= 1L << index;
+		else
+			fieldWords[ index >>> 6 ] &= ~( 1L << index );
+
+	} // set
+
+
+	/**
+	 * @return a mask of the bits of the last word which are within the length.
+	 */
+	long tailMask( )
+	{
+		return -1L >>> ( -fieldLength & 63 );
+
+	} // tailMask
+
+
+	/**
+	 * @return the bits as a string of 0s and 1s, first bit first.
+	 */
+	@Override
+	public String toString( )
+	{
+		StringBuilder builder = new StringBuilder( fieldLength );
+		for ( int index = 0; index < fieldLength; index++ )
+			builder.append( get( index ) ? '1' : '0' );
+
+		return builder.toString( );
+
+	} // toString
+
+
+	/**
+	 * @return the number of words needed to hold the given number of bits.
+	 */
+	static int wordCount( int length )
+	{
+		return ( length + 63 ) >>> 6;
+
+	} // wordCount
+
+}
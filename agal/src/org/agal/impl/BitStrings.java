@@ -0,0 +1,481 @@
+/*
+ * BitStrings.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.random.RandomGenerator;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.BiasSource;
+import org.agal.core.Crossover;
+import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.RecyclingStateManager;
+import org.agal.core.SearchContext;
+import org.agal.core.StateManager;
+
+/**
+ * BitStrings is a static utility class which provides the standard operators for
+ * {@link BitString} genomes. They all work a word (64 bits) at a time:
+ * <ul>
+ * <li>uniform crossover takes each word from the parents under a random mask, so one
+ * random {@code long} decides 64 genes;</li>
+ * <li>k-point crossover builds each word's mask from the cuts falling in it, and copies
+ * the words between cuts whole;</li>
+ * <li>the bit flip mutator flips each bit independently with the per-locus rate
+ * {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE}. Rather than rolling for
+ * every bit, it XORs each word with a random mask whose bits are set with that
+ * probability, composed from a few random words (for a rate of 2^-k, exactly k of
+ * them); at low rates, where even that would be wasteful, it jumps from one flipped bit
+ * to the next with geometric skips instead.</li>
+ * </ul>
+ * There's also a classic point mutator, which flips {@code mutateCount} random bits, and
+ * fitness evaluators for OneMax (the number of set bits) and for matching a target
+ * bitstring, both counted with {@link Long#bitCount(long)}.
+ * <p>
+ * All operators acquired herein are thread-safe.
+ * @author David Schmidt
+ */
+public class BitStrings
+{
+	/**
+	 * Flips each bit with the per-locus rate, a word at a time.
+	 */
+	private static final class BitFlipMutator extends AbstractBiasedMutator<BitString>
+	{
+		// Data members.
+		private final BiasSource fieldRateSource;
+
+
+		public BitFlipMutator( SearchContext<BitString> searchContext )
+		{
+			super( searchContext );
+
+			fieldRateSource = resolveBiasSource( AbstractPointMutator.BIAS_KEY_LOCUS_MUTATION_RATE );
+
+		} // BitFlipMutator
+
+
+		@Override
+		public void mutate( BitString state )
+		{
+			double rate = readBias( fieldRateSource,
+					AbstractPointMutator.BIAS_KEY_LOCUS_MUTATION_RATE );
+			long[ ] words = state.getWords( );
+			if ( !( rate > 0 ) || words.length == 0 )
+				return;
+
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+
+			if ( rate >= 1 )
+				{
+				for ( int index = 0; index < words.length; index++ )
+					words[ index ] = ~words[ index ];
+				words[ words.length - 1 ] &= state.tailMask( );
+				return;
+				}
+
+			// A mask for the rate q / 2^16 is built from q's bits, lowest first: each set
+			// bit ORs in a random word, taking the chance p that a mask bit is set to
+			// (p + 1) / 2, and each clear bit ANDs one, taking it to p / 2. Bits below q's
+			// lowest set bit would only AND zero with something, so they're skipped.
+			int threshold = ( int ) Math.min( Math.round( rate * ( 1 << MASK_PRECISION ) ),
+					( 1 << MASK_PRECISION ) - 1 );
+			int firstBit = Integer.numberOfTrailingZeros( threshold );
+
+			// That costs MASK_PRECISION - firstBit words per 64 bits, against roughly one
+			// per flipped bit for skipping. Skipping also keeps tiny rates exact.
+			if ( threshold == 0 || rate * Long.SIZE < MASK_PRECISION - firstBit )
+				{
+				mutateLoci( words, state.getLength( ), rate, random );
+				return;
+				}
+
+			for ( int index = 0; index < words.length; index++ )
+				{
+				long mask = 0;
+				for ( int bit = firstBit; bit < MASK_PRECISION; bit++ )
+					{
+					long draw = random.nextLong( );
+					mask = ( ( threshold & ( 1 << bit ) ) != 0 ) ? mask | draw : mask & draw;
+					}
+				words[ index ] ^= mask;
+				}
+			words[ words.length - 1 ] &= state.tailMask( );
+
+		} // mutate
+
+
+		/**
+		 * Every bit's mutation is made in one pass.
+		 */
+		@Override
+		public int mutateCount( BitString state )
+		{
+			return 1;
+
+		} // mutateCount
+
+
+		/**
+		 * Flips each bit with the given probability, visiting only the flipped bits, as in
+		 * {@link AbstractPointMutator}'s per-locus mode.
+		 */
+		private static void mutateLoci( long[ ] words, int length, double rate,
+				RandomBuffer random )
+		{
+			double scale = 1 / Math.log1p( -rate );
+			int position = -1;
+			while ( true )
+				{
+				double skip = Math.log( 1 - random.nextDouble( ) ) * scale;
+				if ( skip >= length - 1 - position )
+					break;
+
+				position += 1 + ( int ) skip;
+				words[ position >>> 6 ] ^= 1L << position;
+				}
+
+		} // mutateLoci
+
+	} // BitFlipMutator
+
+	/**
+	 * Flips a random bit per mutation.
+	 */
+	private static final class BitPointMutator extends AbstractPointMutator<BitString>
+	{
+		public BitPointMutator( SearchContext<BitString> searchContext )
+		{
+			super( searchContext );
+
+		} // BitPointMutator
+
+
+		@Override
+		protected int getLength( BitString state )
+		{
+			return state.getLength( );
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( BitString state, int position )
+		{
+			state.getWords( )[ position >>> 6 ] ^= 1L << position;
+
+		} // updatePoint
+
+	} // BitPointMutator
+
+	/**
+	 * Randomizes uniformly, and reproduces with a Crossover.
+	 */
+	private static final class BitStringStateManager implements
+			RecyclingStateManager<BitString>, RandomSourceAware
+	{
+		// Data members.
+		private final Crossover<BitString> fieldCrossover;
+		private final int fieldLength;
+		private RandomSource fieldRandomSource;
+
+
+		public BitStringStateManager( Crossover<BitString> crossover, int length )
+		{
+			if ( length < 1 )
+				throw new IllegalArgumentException( "The length must be positive." );
+
+			fieldCrossover = crossover;
+			fieldLength = length;
+
+		} // BitStringStateManager
+
+
+		@Override
+		public BitString randomize( )
+		{
+			RandomGenerator random = RandomSource.generatorOf( fieldRandomSource );
+			BitString state = new BitString( fieldLength );
+			long[ ] words = state.getWords( );
+
+			for ( int index = 0; index < words.length; index++ )
+				words[ index ] = random.nextLong( );
+			words[ words.length - 1 ] &= state.tailMask( );
+
+			return state;
+
+		} // randomize
+
+
+		@Override
+		public BitString reproduce( BitString mother, BitString father )
+		{
+			BitString child = new BitString( mother.getLength( ) );
+			fieldCrossover.cross( mother, father, child, RandomSource.generatorOf( fieldRandomSource ) );
+
+			return child;
+
+		} // reproduce
+
+
+		@Override
+		public void reproduceInto( BitString mother, BitString father, BitString target )
+		{
+			fieldCrossover.cross( mother, father, target, RandomSource.generatorOf( fieldRandomSource ) );
+
+		} // reproduceInto
+
+
+		@Override
+		public void setRandomSource( RandomSource randomSource )
+		{
+			fieldRandomSource = randomSource;
+
+		} // setRandomSource
+
+	} // BitStringStateManager
+
+	/**
+	 * Alternates between the parents at k distinct cut points.
+	 */
+	private static final class KPointCrossover implements Crossover<BitString>
+	{
+		// Data members.
+		private final int fieldCutCount;
+		private final ThreadLocal<int[ ]> fieldCuts;
+
+
+		public KPointCrossover( int cutCount )
+		{
+			fieldCutCount = cutCount;
+			fieldCuts = ThreadLocal.withInitial( ( ) -> new int[ cutCount ] );
+
+		} // KPointCrossover
+
+
+		@Override
+		public void cross( BitString mother, BitString father, BitString child,
+				RandomGenerator random )
+		{
+			int n = mother.getLength( );
+			if ( n == 0 )
+				return;
+
+			// Choose distinct cuts in [0, n), and sort them. There are only a few.
+			int cutCount = Math.min( fieldCutCount, n );
+			int[ ] cuts = fieldCuts.get( );
+			for ( int index = 0; index < cutCount; index++ )
+				{
+				int cut;
+				boolean taken;
+				do
+					{
+					cut = random.nextInt( n );
+					taken = false;
+					for ( int other = 0; other < index && !taken; other++ )
+						taken = cuts[ other ] == cut;
+					}
+				while ( taken );
+
+				int insert = index;
+				for ( ; insert > 0 && cuts[ insert - 1 ] > cut; insert-- )
+					cuts[ insert ] = cuts[ insert - 1 ];
+				cuts[ insert ] = cut;
+				}
+
+			// A word's mask selects the father's bits: all of them if an odd number of cuts
+			// came before it, and flipping from each cut within it onward.
+			long[ ] motherWords = mother.getWords( );
+			long[ ] fatherWords = father.getWords( );
+			long[ ] childWords = child.getWords( );
+			int nextCut = 0;
+			boolean fromFather = false;
+			for ( int index = 0; index < childWords.length; index++ )
+				{
+				int wordEnd = ( index + 1 ) << 6;
+				if ( nextCut == cutCount || cuts[ nextCut ] >= wordEnd )
+					{
+					childWords[ index ] = fromFather ? fatherWords[ index ] : motherWords[ index ];
+					continue;
+					}
+
+				long mask = fromFather ? -1L : 0L;
+				for ( ; nextCut < cutCount && cuts[ nextCut ] < wordEnd; nextCut++ )
+					{
+					mask ^= -1L << cuts[ nextCut ];
+					fromFather = !fromFather;
+					}
+				childWords[ index ] = ( motherWords[ index ] & ~mask )
+						| ( fatherWords[ index ] & mask );
+				}
+
+		} // cross
+
+	} // KPointCrossover
+
+	/**
+	 * Counts the bits matching a target.
+	 */
+	private static final class TargetEvaluator extends AbstractFitnessEvaluator<BitString>
+	{
+		// Data members.
+		private final BitString fieldTarget;
+
+
+		public TargetEvaluator( BitString target )
+		{
+			super( false );
+
+			fieldTarget = target.copy( );
+
+		} // TargetEvaluator
+
+
+		@Override
+		public Integer fitness( BitString state )
+		{
+			return state.getLength( ) - state.hammingDistance( fieldTarget );
+
+		} // fitness
+
+	} // TargetEvaluator
+
+	// Class constants.
+	// The bit flip mutator's rates are rounded to multiples of 2^-MASK_PRECISION.
+	private static final int MASK_PRECISION = 16;
+
+	private static final AbstractFitnessEvaluator<BitString> ONE_MAX = new AbstractFitnessEvaluator<BitString>(
+			false )
+	{
+		@Override
+		public Integer fitness( BitString state )
+		{
+			return state.cardinality( );
+
+		} // fitness
+	};
+
+	private static final Crossover<BitString> UNIFORM = new Crossover<BitString>( )
+	{
+		@Override
+		public void cross( BitString mother, BitString father, BitString child,
+				RandomGenerator random )
+		{
+			long[ ] motherWords = mother.getWords( );
+			long[ ] fatherWords = father.getWords( );
+			long[ ] childWords = child.getWords( );
+
+			// Each set bit of the mask takes the mother's gene. The tails are clear in both
+			// parents, so they're clear in the child.
+			for ( int index = 0; index < childWords.length; index++ )
+				{
+				long mask = random.nextLong( );
+				childWords[ index ] = ( motherWords[ index ] & mask )
+						| ( fatherWords[ index ] & ~mask );
+				}
+
+		} // cross
+	};
+
+
+	/**
+	 * Creates and returns a Mutator which flips each bit of a BitString independently,
+	 * with the probability given by {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE}
+	 * (which must be defined), using random masks a word at a time. Its
+	 * {@code mutateCount} is always 1. Rates above 1/64 or so are rounded to a multiple of
+	 * 2^-16.
+	 * @param searchContext the SearchContext in use.
+	 */
+	public static Mutator<BitString> getBitFlipMutator( SearchContext<BitString> searchContext )
+	{
+		return new BitFlipMutator( searchContext );
+
+	} // getBitFlipMutator
+
+
+	/**
+	 * @param cutCount a positive int indicating how many cut points to use. The child
+	 *            takes the bits before the first cut from the mother, and alternates
+	 *            parents at each cut.
+	 * @return a k-point crossover for BitStrings.
+	 * @throws IllegalArgumentException if the cut count isn't positive.
+	 */
+	public static Crossover<BitString> getKPointCrossover( int cutCount )
+			throws IllegalArgumentException
+	{
+		if ( cutCount < 1 )
+			throw new IllegalArgumentException( "There must be at least one cut." );
+
+		return new KPointCrossover( cutCount );
+
+	} // getKPointCrossover
+
+
+	/**
+	 * @return a fitness evaluator for the OneMax problem, whose fitness is the number of
+	 *         set bits.
+	 */
+	public static AbstractFitnessEvaluator<BitString> getOneMaxEvaluator( )
+	{
+		return ONE_MAX;
+
+	} // getOneMaxEvaluator
+
+
+	/**
+	 * Creates and returns a point Mutator for BitStrings, which flips one random bit per
+	 * mutation, as the array mutators in {@link PointMutators} do.
+	 * @param searchContext the SearchContext in use.
+	 */
+	public static Mutator<BitString> getPointMutator( SearchContext<BitString> searchContext )
+	{
+		return new BitPointMutator( searchContext );
+
+	} // getPointMutator
+
+
+	/**
+	 * Creates and returns a StateManager for BitStrings of fixed length, which randomizes
+	 * uniformly and reproduces with the given Crossover.
+	 * @param crossover a BitString Crossover, such as {@link #getUniformCrossover()}.
+	 * @param length an int indicating the number of bits.
+	 * @throws IllegalArgumentException if the length isn't positive.
+	 */
+	public static StateManager<BitString> getStateManager( Crossover<BitString> crossover,
+			int length )
+			throws IllegalArgumentException
+	{
+		return new BitStringStateManager( crossover, length );
+
+	} // getStateManager
+
+
+	/**
+	 * Creates and returns a fitness evaluator whose fitness is the number of bits in which
+	 * a state matches the given target.
+	 * @param target a BitString, which is copied.
+	 */
+	public static AbstractFitnessEvaluator<BitString> getTargetEvaluator( BitString target )
+	{
+		return new TargetEvaluator( target );
+
+	} // getTargetEvaluator
+
+
+	/**
+	 * @return a uniform crossover for BitStrings, which takes each bit from either parent
+	 *         with equal probability.
+	 */
+	public static Crossover<BitString> getUniformCrossover( )
+	{
+		return UNIFORM;
+
+	} // getUniformCrossover
+
+}
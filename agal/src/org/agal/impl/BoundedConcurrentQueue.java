@@ -0,0 +1,164 @@
+/*
+ * BoundedConcurrentQueue.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BoundedConcurrentQueue is a fixed-capacity, lock-free, multi-producer multi-consumer
+ * FIFO queue over a ring buffer (after Dmitry Vyukov's bounded MPMC queue). Each slot
+ * carries a sequence number which tells producers when it's free and consumers when it's
+ * full, so producers and consumers only ever contend on their own end of the queue, and
+ * never on a lock.
+ * <p>
+ * {@link #offer(Object)} and {@link #poll()} never block: a full queue refuses elements
+ * and an empty one returns {@code null}. That is the back-pressure; callers decide how
+ * to wait. Capacities are rounded up to a power of two.
+ * <p>
+ * BoundedConcurrentQueue is thread safe.
+ * @author David Schmidt
+ */
+public class BoundedConcurrentQueue<E>
+{
+	// Data members.
+	private final Object[ ] fieldElements;
+	private final AtomicLongArray fieldSequences;
+	private final int fieldMask;
+	private final AtomicLong fieldHead = new AtomicLong( 0 );
+	private final AtomicLong fieldTail = new AtomicLong( 0 );
+
+
+	/**
+	 * BoundedConcurrentQueue constructor.
+	 * @param capacity an {@code int} indicating the minimum number of elements the queue
+	 *            must be able to hold. It will be rounded up to a power of two.
+	 */
+	public BoundedConcurrentQueue( int capacity )
+	{
+		if ( capacity < 1 || capacity > ( 1 << 30 ) )
+			throw new IllegalArgumentException( "Capacity out of range: " + capacity );
+
+		int size = Integer.highestOneBit( capacity );
+		if ( size < capacity )
+			size <<= 1;
+
+		fieldElements = new Object[ size ];
+		fieldSequences = new AtomicLongArray( size );
+		fieldMask = size - 1;
+
+		for ( int index = 0; index < size; index++ )
+			fieldSequences.set( index, index );
+
+	} // BoundedConcurrentQueue
+
+
+	public int getCapacity( )
+	{
+		return fieldElements.length;
+
+	} // getCapacity
+
+
+	/**
+	 * Adds an element to the tail of the queue, if there's room.
+	 * @param element a non-null {@code E} to add.
+	 * @return {@code true} if the element was added, or {@code false} if the queue was
+	 *         full.
+	 */
+	public boolean offer( E element )
+	{
+		if ( element == null )
+			throw new NullPointerException( "Null elements aren't supported." );
+
+		long tail = fieldTail.get( );
+		while ( true )
+			{
+			int index = ( int ) tail & fieldMask;
+			long difference = fieldSequences.get( index ) - tail;
+
+			if ( difference == 0 )
+				{
+				if ( fieldTail.compareAndSet( tail, tail + 1 ) )
+					{
+					// The sequence write publishes the element to consumers.
+					fieldElements[ index ] = element;
+					fieldSequences.set( index, tail + 1 );
+					return true;
+					}
+				tail = fieldTail.get( );
+				}
+			else if ( difference < 0 )
+				{
+				// The slot still holds an element from a lap ago: we're full.
+				return false;
+				}
+			else
+				{
+				// Another producer got here first.
+				tail = fieldTail.get( );
+				}
+			}
+
+	} // offer
+
+
+	/**
+	 * Removes the element at the head of the queue, if there is one.
+	 * @return the {@code E} at the head of the queue, or {@code null} if it was empty.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public E poll( )
+	{
+		long head = fieldHead.get( );
+		while ( true )
+			{
+			int index = ( int ) head & fieldMask;
+			long difference = fieldSequences.get( index ) - ( head + 1 );
+
+			if ( difference == 0 )
+				{
+				if ( fieldHead.compareAndSet( head, head + 1 ) )
+					{
+					E element = ( E ) fieldElements[ index ];
+					fieldElements[ index ] = null;
+
+					// Free the slot for the producer one lap ahead.
+					fieldSequences.set( index, head + fieldElements.length );
+					return element;
+					}
+				head = fieldHead.get( );
+				}
+			else if ( difference < 0 )
+				{
+				// Nothing has been published to this slot yet: we're empty.
+				return null;
+				}
+			else
+				{
+				// Another consumer got here first.
+				head = fieldHead.get( );
+				}
+			}
+
+	} // poll
+
+
+	/**
+	 * @return an {@code int} indicating the approximate number of elements in the queue.
+	 *         It is only a snapshot, and may be off by the number of operations in
+	 *         progress.
+	 */
+	public int size( )
+	{
+		long size = fieldTail.get( ) - fieldHead.get( );
+
+		return ( int ) Math.max( 0, Math.min( size, fieldElements.length ) );
+
+	} // size
+
+}
@@ -0,0 +1,774 @@
+/*
+ * CmaEvolutionStrategy.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * CmaEvolutionStrategy implements Hansen's covariance matrix adaptation evolution strategy
+ * ({@code CMA-ES}) for continuous problems whose states are {@code double[ ]} vectors.
+ * Rather than a population, it evolves a multivariate normal distribution: each
+ * generation, {@code lambda} offspring are sampled from it and evaluated, and the
+ * distribution's mean, step size, and covariance matrix are then moved towards the
+ * {@code mu} best of them. On medium-dimensional problems this learns the problem's scale
+ * and correlations, and converges far faster than point mutation.
+ * <p>
+ * Offspring are sampled and evaluated in batches shared out among all evolving threads
+ * (see {@link AbstractGenerationalAlgorithm}), with one call per batch to the bulk
+ * {@link AbstractFitnessEvaluator#fitness(Object[])}. The covariance update touches only
+ * half of the symmetric matrix, and its eigendecomposition (which sampling needs) is
+ * computed lazily, only every few generations, as the covariance matrix changes slowly;
+ * by default the interval grows with the dimension as Hansen recommends.
+ * <p>
+ * If {@link #CONTEXT_KEY_MAX_RESTARTS} is set, the strategy restarts from a new random
+ * mean with twice as many offspring whenever it stalls (the {@code IPOP-CMA-ES} scheme of
+ * Auger and Hansen), which makes it far more robust on multimodal problems. A run has
+ * stalled when its step size has collapsed, its covariance matrix has become
+ * ill-conditioned, or its best fitness hasn't improved for a long time.
+ * <p>
+ * The initial mean is generated with the {@code StateManager}. Unless
+ * {@link #CONTEXT_KEY_INITIAL_STEP_SIZE} is given, the initial step size is the spread
+ * of a sample of states from the {@code StateManager}, so that the first generations
+ * cover its whole domain. The population, {@code Selector}, and {@code Mutator} are
+ * unused. Offspring are preallocated and reused, so listeners are only told of a copy of
+ * each generation's best offspring.
+ * <p>
+ * CmaEvolutionStrategy is thread safe.
+ * @author David Schmidt
+ */
+public class CmaEvolutionStrategy extends AbstractGenerationalAlgorithm<double[ ]>
+{
+	// Class constants.
+	/**
+	 * Context map key for an {@code Integer} {@code lambda}, the number of offspring
+	 * sampled per generation (before any restarts). Defaults to
+	 * {@code 4 + floor(3 ln n)} for dimension {@code n}.
+	 */
+	public static final String CONTEXT_KEY_OFFSPRING_COUNT = CmaEvolutionStrategy.class
+			.getName( ) + ".offspringCount";
+
+	/**
+	 * Context map key for a {@code Number} giving the initial step size, {@code sigma}.
+	 * Defaults to the spread of the {@code StateManager}'s random states.
+	 */
+	public static final String CONTEXT_KEY_INITIAL_STEP_SIZE = CmaEvolutionStrategy.class
+			.getName( ) + ".initialStepSize";
+
+	/**
+	 * Context map key for an {@code Integer} number of generations between
+	 * eigendecompositions of the covariance matrix. Defaults to Hansen's recommendation,
+	 * which grows in proportion to the dimension.
+	 */
+	public static final String CONTEXT_KEY_EIGEN_INTERVAL = CmaEvolutionStrategy.class
+			.getName( ) + ".eigenInterval";
+
+	/**
+	 * Context map key for an {@code Integer} maximum number of IPOP restarts. Defaults to
+	 * {@code 0}, for a single run.
+	 */
+	public static final String CONTEXT_KEY_MAX_RESTARTS = CmaEvolutionStrategy.class
+			.getName( ) + ".maxRestarts";
+
+	/**
+	 * Context map key for an {@code Integer} number of offspring to sample and evaluate
+	 * per batch. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public static final String CONTEXT_KEY_BATCH_SIZE = CmaEvolutionStrategy.class.getName( )
+			+ ".batchSize";
+
+	public static final int DEFAULT_BATCH_SIZE = 4;
+
+	// Restart criteria, as published.
+	private static final double TOLERANCE_STEP_SIZE = 1e-12;
+	private static final double TOLERANCE_CONDITION = 1e14;
+	private static final int RESTART_GROWTH = 2;
+
+	// Data members.
+	private final AbstractFitnessEvaluator<double[ ]> fieldFitnessEvaluator;
+	private final StateManager<double[ ]> fieldStateManager;
+	private final int fieldDimension;
+	private final int fieldBatchSize;
+	private final int fieldMaxRestarts;
+	private final int fieldConfiguredEigenInterval;
+	private final double fieldInitialStepSize;
+	private final double fieldExpectedNorm;
+
+	// The distribution. The covariance matrix's upper triangle is authoritative; its
+	// eigenvectors are the columns of fieldBasis, and the square roots of its eigenvalues
+	// are fieldScales.
+	private final double[ ] fieldMean;
+	private final double[ ] fieldConjugatePath;
+	private final double[ ] fieldCovariancePath;
+	private final double[ ][ ] fieldCovariance;
+	private final double[ ][ ] fieldBasis;
+	private final double[ ] fieldScales;
+	private double fieldSigma;
+
+	// Replacement scratch space; only touched by completeGeneration.
+	private final double[ ] fieldWeightedStep;
+	private final double[ ] fieldTemp;
+
+	// Per-run parameters and storage, replaced on restart.
+	private int fieldLambda;
+	private int fieldMu;
+	private double[ ] fieldWeights;
+	private double fieldMuEffective;
+	private double fieldCumulation;
+	private double fieldConjugateCumulation;
+	private double fieldRankOneRate;
+	private double fieldRankMuRate;
+	private double fieldDamping;
+	private int fieldEigenInterval;
+	private int fieldBatchCount;
+	private double[ ][ ] fieldOffspring;
+	private double[ ][ ] fieldSteps;
+	private int[ ] fieldFitness;
+	private int[ ] fieldIndices;
+	private double[ ][ ][ ] fieldBatches;
+	private double[ ][ ] fieldSampleScratch;
+
+	// Progress of the current run.
+	private int fieldIteration;
+	private int fieldLastImprovement;
+	private int fieldRunBestFitness;
+
+	// For monitoring.
+	private volatile int fieldRestartCount = 0;
+	private volatile int fieldOffspringCount;
+	private volatile double fieldStepSize;
+
+
+	public CmaEvolutionStrategy( SearchContext<double[ ]> searchContext,
+			Selector<double[ ]> selector, Mutator<double[ ]> mutator )
+	{
+		super( searchContext );
+
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+		fieldStateManager = searchContext.getStateManager( );
+		fieldBatchSize = searchContext.getContextInt( CONTEXT_KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+		fieldMaxRestarts = searchContext.getContextInt( CONTEXT_KEY_MAX_RESTARTS, 0 );
+		fieldConfiguredEigenInterval = searchContext.getContextInt( CONTEXT_KEY_EIGEN_INTERVAL, 0 );
+
+		if ( fieldBatchSize < 1 )
+			throw new IllegalArgumentException( "The batch size must be positive." );
+
+		double[ ] initialMean = fieldStateManager.randomize( );
+		fieldDimension = initialMean.length;
+		int n = fieldDimension;
+
+		int lambda = searchContext.getContextInt( CONTEXT_KEY_OFFSPRING_COUNT, 4 + ( int ) ( 3 * Math
+				.log( n ) ) );
+		if ( lambda < 2 )
+			throw new IllegalArgumentException( "CMA-ES needs at least 2 offspring." );
+
+		Object initialStepSize = searchContext.getContextMap( ).get( CONTEXT_KEY_INITIAL_STEP_SIZE );
+		fieldInitialStepSize = ( initialStepSize instanceof Number ) ? ( ( Number ) initialStepSize )
+				.doubleValue( ) : estimateSpread( Math.max( lambda, 10 ) );
+		if ( !( fieldInitialStepSize > 0 ) )
+			throw new IllegalArgumentException( "The initial step size must be positive." );
+
+		fieldExpectedNorm = Math.sqrt( n ) * ( 1 - 1.0 / ( 4 * n ) + 1.0 / ( 21.0 * n * n ) );
+
+		fieldMean = new double[ n ];
+		fieldConjugatePath = new double[ n ];
+		fieldCovariancePath = new double[ n ];
+		fieldCovariance = new double[ n ][ n ];
+		fieldBasis = new double[ n ][ n ];
+		fieldScales = new double[ n ];
+		fieldWeightedStep = new double[ n ];
+		fieldTemp = new double[ n ];
+
+		restart( lambda, initialMean );
+
+	} // CmaEvolutionStrategy
+
+
+	/**
+	 * Moves the distribution towards the best offspring, and restarts if the run has
+	 * stalled.
+	 */
+	@Override
+	protected void completeGeneration( )
+	{
+		int n = fieldDimension;
+
+		// Rank the mu best offspring, fittest first.
+		for ( int index = 0; index < fieldLambda; index++ )
+			fieldIndices[ index ] = index;
+		TruncationSelection.selectBest( fieldFitness, fieldIndices, fieldLambda, fieldMu,
+				fieldFitnessEvaluator );
+		for ( int rank = 1; rank < fieldMu; rank++ )
+			{
+			int index = fieldIndices[ rank ];
+			int position = rank;
+			for ( ; position > 0
+					&& fieldFitnessEvaluator.compareFitness( fieldFitness[ index ],
+							fieldFitness[ fieldIndices[ position - 1 ] ] ) > 0; position-- )
+				fieldIndices[ position ] = fieldIndices[ position - 1 ];
+			fieldIndices[ position ] = index;
+			}
+
+		int best = fieldIndices[ 0 ];
+		notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, fieldOffspring[ best ].clone( ),
+				fieldFitness[ best ] );
+		if ( fieldFitnessEvaluator.compareFitness( fieldFitness[ best ], fieldRunBestFitness ) > 0
+				|| fieldIteration == 0 )
+			{
+			fieldRunBestFitness = fieldFitness[ best ];
+			fieldLastImprovement = fieldIteration;
+			}
+
+		// Move the mean by the weighted average of the best steps.
+		double[ ] weightedStep = fieldWeightedStep;
+		Arrays.fill( weightedStep, 0 );
+		for ( int rank = 0; rank < fieldMu; rank++ )
+			{
+			double weight = fieldWeights[ rank ];
+			double[ ] step = fieldSteps[ fieldIndices[ rank ] ];
+			for ( int index = 0; index < n; index++ )
+				weightedStep[ index ] += weight * step[ index ];
+			}
+		for ( int index = 0; index < n; index++ )
+			fieldMean[ index ] += fieldSigma * weightedStep[ index ];
+
+		// Update the evolution paths. The conjugate path needs C^-1/2 times the step,
+		// which is B D^-1 B^T.
+		for ( int column = 0; column < n; column++ )
+			{
+			double sum = 0;
+			for ( int row = 0; row < n; row++ )
+				sum += fieldBasis[ row ][ column ] * weightedStep[ row ];
+			fieldTemp[ column ] = sum / fieldScales[ column ];
+			}
+
+		double conjugateRate = Math.sqrt( fieldConjugateCumulation
+				* ( 2 - fieldConjugateCumulation ) * fieldMuEffective );
+		double conjugateNormSquared = 0;
+		for ( int row = 0; row < n; row++ )
+			{
+			double[ ] basisRow = fieldBasis[ row ];
+			double sum = 0;
+			for ( int column = 0; column < n; column++ )
+				sum += basisRow[ column ] * fieldTemp[ column ];
+			fieldConjugatePath[ row ] = ( 1 - fieldConjugateCumulation ) * fieldConjugatePath[ row ]
+					+ conjugateRate * sum;
+			conjugateNormSquared += fieldConjugatePath[ row ] * fieldConjugatePath[ row ];
+			}
+		double conjugateNorm = Math.sqrt( conjugateNormSquared );
+
+		// Stall the covariance path while the step size is growing fast.
+		boolean pathStalled = conjugateNorm
+				/ Math.sqrt( 1 - Math.pow( 1 - fieldConjugateCumulation, 2 * ( fieldIteration + 1 ) ) )
+				/ fieldExpectedNorm >= 1.4 + 2.0 / ( n + 1 );
+		double covarianceRate = pathStalled ? 0 : Math.sqrt( fieldCumulation * ( 2 - fieldCumulation )
+				* fieldMuEffective );
+		for ( int index = 0; index < n; index++ )
+			fieldCovariancePath[ index ] = ( 1 - fieldCumulation ) * fieldCovariancePath[ index ]
+					+ covarianceRate * weightedStep[ index ];
+
+		updateCovariance( pathStalled );
+
+		// Adapt the step size, escaping flat fitness.
+		fieldSigma *= Math.exp( Math.min( 1, ( fieldConjugateCumulation / fieldDamping )
+				* ( conjugateNorm / fieldExpectedNorm - 1 ) ) );
+		if ( fieldFitness[ best ] == fieldFitness[ fieldIndices[ Math.min( fieldMu - 1,
+				fieldLambda / 4 ) ] ] )
+			fieldSigma *= Math.exp( 0.2 + fieldConjugateCumulation / fieldDamping );
+
+		fieldIteration++;
+		if ( fieldIteration % fieldEigenInterval == 0 )
+			decompose( );
+
+		if ( fieldRestartCount < fieldMaxRestarts && isStalled( ) )
+			{
+			fieldRestartCount++;
+			restart( fieldLambda * RESTART_GROWTH, fieldStateManager.randomize( ) );
+			}
+
+		fieldStepSize = fieldSigma;
+
+	} // completeGeneration
+
+
+	/**
+	 * Recomputes the eigendecomposition of the covariance matrix used for sampling.
+	 */
+	private void decompose( )
+	{
+		int n = fieldDimension;
+
+		for ( int row = 0; row < n; row++ )
+			for ( int column = row; column < n; column++ )
+				fieldBasis[ row ][ column ] = fieldBasis[ column ][ row ] = fieldCovariance[ row ][ column ];
+
+		eigen( fieldBasis, fieldScales, fieldTemp );
+
+		// Rounding can leave tiny negative eigenvalues; the stall check will catch the
+		// resulting conditioning.
+		for ( int index = 0; index < n; index++ )
+			fieldScales[ index ] = Math.sqrt( Math.max( fieldScales[ index ], Double.MIN_NORMAL ) );
+
+	} // decompose
+
+
+	/**
+	 * Diagonalizes a symmetric matrix in place, by Householder reduction to tridiagonal
+	 * form followed by the implicit QL method (after the public domain JAMA routines
+	 * {@code tred2} and {@code tql2}).
+	 * @param matrix a symmetric {@code double[ ][ ]}, which is replaced by its
+	 *            eigenvectors, one per column.
+	 * @param values a {@code double[ ]} to fill with the eigenvalues.
+	 * @param scratch a {@code double[ ]} of the same length for working space.
+	 */
+	static void eigen( double[ ][ ] matrix, double[ ] values, double[ ] scratch )
+	{
+		int n = values.length;
+		double[ ][ ] v = matrix;
+		double[ ] d = values;
+		double[ ] e = scratch;
+
+		// Householder reduction.
+		for ( int j = 0; j < n; j++ )
+			d[ j ] = v[ n - 1 ][ j ];
+
+		for ( int i = n - 1; i > 0; i-- )
+			{
+			double scale = 0;
+			double h = 0;
+			for ( int k = 0; k < i; k++ )
+				scale += Math.abs( d[ k ] );
+
+			if ( scale == 0 )
+				{
+				e[ i ] = d[ i - 1 ];
+				for ( int j = 0; j < i; j++ )
+					{
+					d[ j ] = v[ i - 1 ][ j ];
+					v[ i ][ j ] = 0;
+					v[ j ][ i ] = 0;
+					}
+				}
+			else
+				{
+				for ( int k = 0; k < i; k++ )
+					{
+					d[ k ] /= scale;
+					h += d[ k ] * d[ k ];
+					}
+				double f = d[ i - 1 ];
+				double g = Math.sqrt( h );
+				if ( f > 0 )
+					g = -g;
+				e[ i ] = scale * g;
+				h = h - f * g;
+				d[ i - 1 ] = f - g;
+				for ( int j = 0; j < i; j++ )
+					e[ j ] = 0;
+
+				for ( int j = 0; j < i; j++ )
+					{
+					f = d[ j ];
+					v[ j ][ i ] = f;
+					g = e[ j ] + v[ j ][ j ] * f;
+					for ( int k = j + 1; k <= i - 1; k++ )
+						{
+						g += v[ k ][ j ] * d[ k ];
+						e[ k ] += v[ k ][ j ] * f;
+						}
+					e[ j ] = g;
+					}
+				f = 0;
+				for ( int j = 0; j < i; j++ )
+					{
+					e[ j ] /= h;
+					f += e[ j ] * d[ j ];
+					}
+				double hh = f / ( h + h );
+				for ( int j = 0; j < i; j++ )
+					e[ j ] -= hh * d[ j ];
+				for ( int j = 0; j < i; j++ )
+					{
+					f = d[ j ];
+					g = e[ j ];
+					for ( int k = j; k <= i - 1; k++ )
+						v[ k ][ j ] -= ( f * e[ k ] + g * d[ k ] );
+					d[ j ] = v[ i - 1 ][ j ];
+					v[ i ][ j ] = 0;
+					}
+				}
+			d[ i ] = h;
+			}
+
+		// Accumulate the transformations.
+		for ( int i = 0; i < n - 1; i++ )
+			{
+			v[ n - 1 ][ i ] = v[ i ][ i ];
+			v[ i ][ i ] = 1;
+			double h = d[ i + 1 ];
+			if ( h != 0 )
+				{
+				for ( int k = 0; k <= i; k++ )
+					d[ k ] = v[ k ][ i + 1 ] / h;
+				for ( int j = 0; j <= i; j++ )
+					{
+					double g = 0;
+					for ( int k = 0; k <= i; k++ )
+						g += v[ k ][ i + 1 ] * v[ k ][ j ];
+					for ( int k = 0; k <= i; k++ )
+						v[ k ][ j ] -= g * d[ k ];
+					}
+				}
+			for ( int k = 0; k <= i; k++ )
+				v[ k ][ i + 1 ] = 0;
+			}
+		for ( int j = 0; j < n; j++ )
+			{
+			d[ j ] = v[ n - 1 ][ j ];
+			v[ n - 1 ][ j ] = 0;
+			}
+		v[ n - 1 ][ n - 1 ] = 1;
+		e[ 0 ] = 0;
+
+		// QL iterations on the tridiagonal matrix.
+		for ( int i = 1; i < n; i++ )
+			e[ i - 1 ] = e[ i ];
+		e[ n - 1 ] = 0;
+
+		double f = 0;
+		double largest = 0;
+		double epsilon = Math.ulp( 1.0 );
+		for ( int l = 0; l < n; l++ )
+			{
+			largest = Math.max( largest, Math.abs( d[ l ] ) + Math.abs( e[ l ] ) );
+			int m = l;
+			while ( m < n - 1 && Math.abs( e[ m ] ) > epsilon * largest )
+				m++;
+
+			if ( m > l )
+				{
+				do
+					{
+					double g = d[ l ];
+					double p = ( d[ l + 1 ] - g ) / ( 2 * e[ l ] );
+					double r = Math.sqrt( p * p + 1 );
+					if ( p < 0 )
+						r = -r;
+					d[ l ] = e[ l ] / ( p + r );
+					d[ l + 1 ] = e[ l ] * ( p + r );
+					double dl1 = d[ l + 1 ];
+					double h = g - d[ l ];
+					for ( int i = l + 2; i < n; i++ )
+						d[ i ] -= h;
+					f += h;
+
+					p = d[ m ];
+					double c = 1;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[ l + 1 ];
+					double s = 0;
+					double s2 = 0;
+					for ( int i = m - 1; i >= l; i-- )
+						{
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[ i ];
+						h = c * p;
+						r = Math.sqrt( p * p + e[ i ] * e[ i ] );
+						e[ i + 1 ] = s * r;
+						s = e[ i ] / r;
+						c = p / r;
+						p = c * d[ i ] - s * g;
+						d[ i + 1 ] = h + s * ( c * g + s * d[ i ] );
+
+						for ( int k = 0; k < n; k++ )
+							{
+							h = v[ k ][ i + 1 ];
+							v[ k ][ i + 1 ] = s * v[ k ][ i ] + c * h;
+							v[ k ][ i ] = c * v[ k ][ i ] - s * h;
+							}
+						}
+					p = -s * s2 * c3 * el1 * e[ l ] / dl1;
+					e[ l ] = s * p;
+					d[ l ] = c * p;
+					}
+				while ( Math.abs( e[ l ] ) > epsilon * largest );
+				}
+			d[ l ] = d[ l ] + f;
+			e[ l ] = 0;
+			}
+
+	} // eigen
+
+
+	/**
+	 * @return a {@code double} indicating the root mean square, over all elements, of the
+	 *         standard deviation of a sample of random states.
+	 */
+	private double estimateSpread( int sampleCount )
+	{
+		int n = fieldDimension;
+		double[ ] sum = new double[ n ];
+		double[ ] sumOfSquares = new double[ n ];
+
+		for ( int sample = 0; sample < sampleCount; sample++ )
+			{
+			double[ ] state = fieldStateManager.randomize( );
+			for ( int index = 0; index < n; index++ )
+				{
+				sum[ index ] += state[ index ];
+				sumOfSquares[ index ] += state[ index ] * state[ index ];
+				}
+			}
+
+		double variance = 0;
+		for ( int index = 0; index < n; index++ )
+			{
+			double mean = sum[ index ] / sampleCount;
+			variance += Math.max( 0, sumOfSquares[ index ] / sampleCount - mean * mean );
+			}
+		variance /= n;
+
+		return ( variance > 0 ) ? Math.sqrt( variance ) : 1;
+
+	} // estimateSpread
+
+
+	/**
+	 * The count changes when a restart grows the population, which happens during
+	 * {@link #completeGeneration()}, so it only applies to the following generation.
+	 */
+	@Override
+	protected int getBatchCount( )
+	{
+		return fieldBatchCount;
+
+	} // getBatchCount
+
+
+	/**
+	 * @return an {@code int} indicating the number of elements in each vector.
+	 */
+	public int getDimension( )
+	{
+		return fieldDimension;
+
+	} // getDimension
+
+
+	/**
+	 * @return an {@code int} indicating the number of offspring ({@code lambda}) sampled
+	 *         per generation in the current run.
+	 */
+	public int getOffspringCount( )
+	{
+		return fieldOffspringCount;
+
+	} // getOffspringCount
+
+
+	/**
+	 * @return an {@code int} indicating the number of IPOP restarts so far.
+	 */
+	public int getRestartCount( )
+	{
+		return fieldRestartCount;
+
+	} // getRestartCount
+
+
+	/**
+	 * @return a {@code double} indicating the step size, {@code sigma}, as of the last
+	 *         completed generation.
+	 */
+	public double getStepSize( )
+	{
+		return fieldStepSize;
+
+	} // getStepSize
+
+
+	private boolean isStalled( )
+	{
+		double largest = 0;
+		double smallest = Double.MAX_VALUE;
+		for ( double scale : fieldScales )
+			{
+			largest = Math.max( largest, scale );
+			smallest = Math.min( smallest, scale );
+			}
+
+		int patience = 120 + ( 30 * fieldDimension ) / fieldLambda;
+
+		return fieldSigma * largest < TOLERANCE_STEP_SIZE * fieldInitialStepSize
+				|| ( largest / smallest ) * ( largest / smallest ) > TOLERANCE_CONDITION
+				|| fieldIteration - fieldLastImprovement > patience;
+
+	} // isStalled
+
+
+	/**
+	 * Samples and bulk-evaluates one batch of offspring.
+	 */
+	@Override
+	protected void processBatch( int batch )
+	{
+		RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+		double[ ][ ] states = fieldBatches[ batch ];
+		double[ ] scaled = fieldSampleScratch[ batch ];
+		int offset = batch * fieldBatchSize;
+		int n = fieldDimension;
+
+		for ( int slot = 0; slot < states.length; slot++ )
+			{
+			// step = B D z for standard normal z; offspring = mean + sigma step.
+			random.fillGaussian( scaled );
+			for ( int index = 0; index < n; index++ )
+				scaled[ index ] *= fieldScales[ index ];
+
+			double[ ] step = fieldSteps[ offset + slot ];
+			double[ ] offspring = states[ slot ];
+			for ( int row = 0; row < n; row++ )
+				{
+				double[ ] basisRow = fieldBasis[ row ];
+				double sum = 0;
+				for ( int column = 0; column < n; column++ )
+					sum += basisRow[ column ] * scaled[ column ];
+				step[ row ] = sum;
+				offspring[ row ] = fieldMean[ row ] + fieldSigma * sum;
+				}
+			}
+
+		Integer[ ] fitnesses = fieldFitnessEvaluator.fitness( states );
+		for ( int slot = 0; slot < states.length; slot++ )
+			fieldFitness[ offset + slot ] = fitnesses[ slot ];
+
+	} // processBatch
+
+
+	/**
+	 * Starts a new run with the given number of offspring and mean, resetting the
+	 * distribution to a sphere of the initial step size.
+	 */
+	private void restart( int lambda, double[ ] mean )
+	{
+		int n = fieldDimension;
+
+		// Strategy parameters, per Hansen's tutorial.
+		fieldLambda = lambda;
+		fieldMu = lambda / 2;
+		fieldWeights = new double[ fieldMu ];
+		double weightSum = 0;
+		for ( int rank = 0; rank < fieldMu; rank++ )
+			{
+			fieldWeights[ rank ] = Math.log( fieldMu + 0.5 ) - Math.log( rank + 1 );
+			weightSum += fieldWeights[ rank ];
+			}
+		double weightSquareSum = 0;
+		for ( int rank = 0; rank < fieldMu; rank++ )
+			{
+			fieldWeights[ rank ] /= weightSum;
+			weightSquareSum += fieldWeights[ rank ] * fieldWeights[ rank ];
+			}
+		fieldMuEffective = 1 / weightSquareSum;
+
+		double muEffective = fieldMuEffective;
+		fieldCumulation = ( 4 + muEffective / n ) / ( n + 4 + 2 * muEffective / n );
+		fieldConjugateCumulation = ( muEffective + 2 ) / ( n + muEffective + 5 );
+		fieldRankOneRate = 2 / ( ( n + 1.3 ) * ( n + 1.3 ) + muEffective );
+		fieldRankMuRate = Math.min( 1 - fieldRankOneRate, 2 * ( muEffective - 2 + 1 / muEffective )
+				/ ( ( n + 2 ) * ( n + 2 ) + muEffective ) );
+		fieldDamping = 1 + 2 * Math.max( 0, Math.sqrt( ( muEffective - 1 ) / ( n + 1 ) ) - 1 )
+				+ fieldConjugateCumulation;
+		fieldEigenInterval = ( fieldConfiguredEigenInterval > 0 ) ? fieldConfiguredEigenInterval
+				: Math.max( 1, ( int ) ( 1 / ( ( fieldRankOneRate + fieldRankMuRate ) * n * 10 ) ) );
+
+		// Storage.
+		fieldOffspring = new double[ lambda ][ n ];
+		fieldSteps = new double[ lambda ][ n ];
+		fieldFitness = new int[ lambda ];
+		fieldIndices = new int[ lambda ];
+		fieldBatchCount = ( lambda + fieldBatchSize - 1 ) / fieldBatchSize;
+		fieldBatches = new double[ fieldBatchCount ][ ][ ];
+		fieldSampleScratch = new double[ fieldBatchCount ][ n ];
+		for ( int batch = 0; batch < fieldBatchCount; batch++ )
+			{
+			int offset = batch * fieldBatchSize;
+			fieldBatches[ batch ] = new double[ Math.min( fieldBatchSize, lambda - offset ) ][ ];
+			for ( int slot = 0; slot < fieldBatches[ batch ].length; slot++ )
+				fieldBatches[ batch ][ slot ] = fieldOffspring[ offset + slot ];
+			}
+
+		// The distribution.
+		System.arraycopy( mean, 0, fieldMean, 0, n );
+		Arrays.fill( fieldConjugatePath, 0 );
+		Arrays.fill( fieldCovariancePath, 0 );
+		for ( int row = 0; row < n; row++ )
+			{
+			Arrays.fill( fieldCovariance[ row ], 0 );
+			Arrays.fill( fieldBasis[ row ], 0 );
+			fieldCovariance[ row ][ row ] = 1;
+			fieldBasis[ row ][ row ] = 1;
+			fieldScales[ row ] = 1;
+			}
+		fieldSigma = fieldInitialStepSize;
+
+		fieldIteration = 0;
+		fieldLastImprovement = 0;
+		fieldOffspringCount = lambda;
+		fieldStepSize = fieldSigma;
+
+	} // restart
+
+
+	/**
+	 * Applies the rank-one and rank-mu updates to the upper triangle of the covariance
+	 * matrix.
+	 */
+	private void updateCovariance( boolean pathStalled )
+	{
+		int n = fieldDimension;
+		double decay = 1 - fieldRankOneRate - fieldRankMuRate;
+
+		// A stalled path loses a little variance, which we put back.
+		if ( pathStalled )
+			decay += fieldRankOneRate * fieldCumulation * ( 2 - fieldCumulation );
+
+		for ( int row = 0; row < n; row++ )
+			{
+			double[ ] covarianceRow = fieldCovariance[ row ];
+			double rankOne = fieldRankOneRate * fieldCovariancePath[ row ];
+			for ( int column = row; column < n; column++ )
+				covarianceRow[ column ] = decay * covarianceRow[ column ] + rankOne
+						* fieldCovariancePath[ column ];
+			}
+
+		for ( int rank = 0; rank < fieldMu; rank++ )
+			{
+			double[ ] step = fieldSteps[ fieldIndices[ rank ] ];
+			double rate = fieldRankMuRate * fieldWeights[ rank ];
+			for ( int row = 0; row < n; row++ )
+				{
+				double[ ] covarianceRow = fieldCovariance[ row ];
+				double scaled = rate * step[ row ];
+				for ( int column = row; column < n; column++ )
+					covarianceRow[ column ] += scaled * step[ column ];
+				}
+			}
+
+	} // updateCovariance
+
+}
@@ -75,6 +75,23 @@ public class CompoundBiasSource implements BiasSource
 	} // getBias
 
 
+	/**
+	 * Finds the BiasSource which handles the given {@code biasKey}: the one registered to
+	 * it, or else the default. Components which read a bias very often may resolve its
+	 * source once and query it directly, skipping the lookup; they won't see sources
+	 * registered or removed afterwards.
+	 * @return the BiasSource for the given {@code biasKey}, or {@code null} if there is
+	 *         none.
+	 */
+	public BiasSource getBiasSource( String biasKey )
+	{
+		BiasSource registeredSource = fieldBiasSources.get( biasKey );
+
+		return ( registeredSource != null ) ? registeredSource : fieldDefaultBiasSource;
+
+	} // getBiasSource
+
+
 	/**
 	 * Unregisters the BiasSource associated with the given {@code biasKey}, if one was
 	 * registered. It will no longer be used to handle bias requests for that key.
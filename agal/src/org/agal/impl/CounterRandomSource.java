@@ -0,0 +1,365 @@
+/*
+ * CounterRandomSource.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.agal.core.RandomSource;
+
+/**
+ * CounterRandomSource is a deterministic RandomSource built on the Philox4x32-10
+ * counter-based generator (Salmon et al., "Parallel Random Numbers: As Easy as 1, 2, 3").
+ * Rather than stepping a hidden state, Philox encrypts a 128-bit counter under a 64-bit
+ * key, so any random number can be computed directly from its address. Here the key is
+ * the master seed and the counter is the address {@code (generation, unit, locus, block)}:
+ * the random numbers behind any unit of work, or any locus within it, can be regenerated
+ * by any thread on any machine which knows the seed, with no coordination and without
+ * replaying anything which came before. That allows lineage records to store addresses
+ * instead of children, and lets distributed workers agree on random decisions without
+ * talking to one another.
+ * <p>
+ * Each thread has its own {@link CounterRandom}. {@link #selectStream(long, long)} moves
+ * it to the start of a unit's stream, as with {@link SeededRandomSource}, so the usual
+ * generational algorithms are reproducible with any number of threads; operators may go
+ * further and call {@link #selectLocus(long)} (or
+ * {@code SearchContext.selectRandomLocus(long)}) to key their decisions for one locus by
+ * its position alone. {@link #getGenerator(long, long, long)} returns a fresh generator at
+ * any address, for reconstructing a child away from the search. Threads which draw
+ * random numbers without selecting a stream are given one of their own, in the order
+ * they first ask.
+ * <p>
+ * The generation, unit, and locus each occupy 32 bits of the counter; larger values wrap,
+ * and generation {@code 0x80000000} is reserved for the threads' own streams. Each locus
+ * addresses 2^32 blocks of 128 bits, far more than any operator will draw.
+ * <p>
+ * The Random class given to the constructor is not used. The generators can't be
+ * reseeded.
+ * <p>
+ * CounterRandomSource is thread safe.
+ * @author David Schmidt
+ */
+public class CounterRandomSource extends RandomSource
+{
+	/**
+	 * A Random positioned at an address of its CounterRandomSource's stream, and drawing
+	 * the numbers from there on. It isn't thread safe.
+	 */
+	public static class CounterRandom extends Random
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final int fieldKey0;
+		private final int fieldKey1;
+		private final int[ ] fieldCounter = new int[ 4 ];
+		private final int[ ] fieldOutput = new int[ 4 ];
+		private int fieldPosition;
+
+
+		CounterRandom( long seed )
+		{
+			fieldKey0 = ( int ) seed;
+			fieldKey1 = ( int ) ( seed >>> 32 );
+			fieldPosition = fieldOutput.length;
+
+		} // CounterRandom
+
+
+		/**
+		 * @return the current address's locus.
+		 */
+		public long getLocus( )
+		{
+			return fieldCounter[ 1 ] & 0xFFFFFFFFL;
+
+		} // getLocus
+
+
+		@Override
+		protected int next( int bits )
+		{
+			return nextWord( ) >>> ( 32 - bits );
+
+		} // next
+
+
+		@Override
+		public boolean nextBoolean( )
+		{
+			return nextWord( ) < 0;
+
+		} // nextBoolean
+
+
+		@Override
+		public double nextDouble( )
+		{
+			return ( nextLong( ) >>> 11 ) * 0x1.0p-53;
+
+		} // nextDouble
+
+
+		@Override
+		public float nextFloat( )
+		{
+			return ( nextWord( ) >>> 8 ) * 0x1.0p-24f;
+
+		} // nextFloat
+
+
+		/**
+		 * Draws a Gaussian with the polar method. Unlike {@code Random}, it keeps no spare
+		 * value, so that the numbers drawn depend only on the address.
+		 */
+		@Override
+		public double nextGaussian( )
+		{
+			double first;
+			double second;
+			double radius;
+			do
+				{
+				first = 2 * nextDouble( ) - 1;
+				second = 2 * nextDouble( ) - 1;
+				radius = first * first + second * second;
+				}
+			while ( radius >= 1 || radius == 0 );
+
+			return first * StrictMath.sqrt( -2 * StrictMath.log( radius ) / radius );
+
+		} // nextGaussian
+
+
+		@Override
+		public int nextInt( )
+		{
+			return nextWord( );
+
+		} // nextInt
+
+
+		@Override
+		public long nextLong( )
+		{
+			return ( ( long ) nextWord( ) << 32 ) | ( nextWord( ) & 0xFFFFFFFFL );
+
+		} // nextLong
+
+
+		private int nextWord( )
+		{
+			if ( fieldPosition == fieldOutput.length )
+				{
+				philox( fieldCounter, fieldKey0, fieldKey1, fieldOutput );
+				fieldCounter[ 0 ]++;
+				fieldPosition = 0;
+				}
+
+			return fieldOutput[ fieldPosition++ ];
+
+		} // nextWord
+
+
+		/**
+		 * Moves to the start of the numbers at the given address.
+		 */
+		public void seek( long generation, long unit, long locus )
+		{
+			fieldCounter[ 0 ] = 0;
+			fieldCounter[ 1 ] = ( int ) locus;
+			fieldCounter[ 2 ] = ( int ) unit;
+			fieldCounter[ 3 ] = ( int ) generation;
+			fieldPosition = fieldOutput.length;
+
+		} // seek
+
+
+		/**
+		 * Moves to the start of the given locus within the current unit.
+		 */
+		public void seekLocus( long locus )
+		{
+			fieldCounter[ 0 ] = 0;
+			fieldCounter[ 1 ] = ( int ) locus;
+			fieldPosition = fieldOutput.length;
+
+		} // seekLocus
+
+
+		@Override
+		public void setSeed( long seed )
+		{
+			// Random's constructor calls this before we have a counter.
+			if ( fieldCounter != null )
+				throw new UnsupportedOperationException( "Counter generators can't be reseeded." );
+
+		} // setSeed
+
+	} // CounterRandom
+
+	// Class constants.
+	private static final int MULTIPLIER_0 = 0xD2511F53;
+	private static final int MULTIPLIER_1 = 0xCD9E8D57;
+	private static final int WEYL_0 = 0x9E3779B9;
+	private static final int WEYL_1 = 0xBB67AE85;
+	private static final int ROUNDS = 10;
+
+	// Generation number for the streams of threads which never select one.
+	private static final long THREAD_STREAMS = 0x80000000L;
+
+	// Data members.
+	private final long fieldSeed;
+	private final AtomicLong fieldThreadCount = new AtomicLong( 0 );
+	private final ThreadLocal<CounterRandom> fieldRandom = new ThreadLocal<CounterRandom>( );
+
+
+	/**
+	 * Constructs a CounterRandomSource with a random seed (see {@link #getSeed()}), with
+	 * the constructor signature required by {@code EvolutionConfiguration}.
+	 * @param randomClass ignored.
+	 */
+	public CounterRandomSource( Class<? extends Random> randomClass )
+	{
+		this( ThreadLocalRandom.current( ).nextLong( ) );
+
+	} // CounterRandomSource
+
+
+	/**
+	 * CounterRandomSource constructor.
+	 * @param seed a {@code long} master seed, used as the Philox key.
+	 */
+	public CounterRandomSource( long seed )
+	{
+		super( null );
+
+		fieldSeed = seed;
+
+	} // CounterRandomSource
+
+
+	/**
+	 * @return a new {@link CounterRandom} positioned at the given address, independent of
+	 *         every thread's generator.
+	 */
+	public CounterRandom getGenerator( long generation, long unit, long locus )
+	{
+		CounterRandom random = new CounterRandom( fieldSeed );
+		random.seek( generation, unit, locus );
+
+		return random;
+
+	} // getGenerator
+
+
+	@Override
+	public Random getRandom( )
+	{
+		return getThreadRandom( );
+
+	} // getRandom
+
+
+	/**
+	 * @return a {@code long} indicating the master seed; with it, every random number the
+	 *         source hands out can be regenerated.
+	 */
+	public long getSeed( )
+	{
+		return fieldSeed;
+
+	} // getSeed
+
+
+	private CounterRandom getThreadRandom( )
+	{
+		CounterRandom random = fieldRandom.get( );
+
+		if ( random == null )
+			{
+			random = new CounterRandom( fieldSeed );
+			random.seek( THREAD_STREAMS, fieldThreadCount.getAndIncrement( ), 0 );
+			fieldRandom.set( random );
+			}
+
+		return random;
+
+	} // getThreadRandom
+
+
+	/**
+	 * Computes one block of Philox4x32-10.
+	 * @param counter an {@code int[4]} counter, which isn't changed.
+	 * @param key0 the low word of the key.
+	 * @param key1 the high word of the key.
+	 * @param output an {@code int[4]} to receive the block.
+	 */
+	static void philox( int[ ] counter, int key0, int key1, int[ ] output )
+	{
+		int c0 = counter[ 0 ];
+		int c1 = counter[ 1 ];
+		int c2 = counter[ 2 ];
+		int c3 = counter[ 3 ];
+
+		for ( int round = 0; round < ROUNDS; round++ )
+			{
+			long product0 = ( MULTIPLIER_0 & 0xFFFFFFFFL ) * ( c0 & 0xFFFFFFFFL );
+			long product1 = ( MULTIPLIER_1 & 0xFFFFFFFFL ) * ( c2 & 0xFFFFFFFFL );
+
+			c0 = ( int ) ( product1 >>> 32 ) ^ c1 ^ key0;
+			c1 = ( int ) product1;
+			c2 = ( int ) ( product0 >>> 32 ) ^ c3 ^ key1;
+			c3 = ( int ) product0;
+
+			key0 += WEYL_0;
+			key1 += WEYL_1;
+			}
+
+		output[ 0 ] = c0;
+		output[ 1 ] = c1;
+		output[ 2 ] = c2;
+		output[ 3 ] = c3;
+
+	} // philox
+
+
+	/**
+	 * Moves the calling thread's generator to the start of the given locus within the
+	 * unit of work it last selected, so that the numbers drawn for the locus depend only
+	 * on its address.
+	 */
+	@Override
+	public void selectLocus( long locus )
+	{
+		getThreadRandom( ).seekLocus( locus );
+		discardRandomBuffer( );
+
+	} // selectLocus
+
+
+	/**
+	 * Moves the calling thread's generator to the start of the given unit of work.
+	 */
+	@Override
+	public void selectStream( long generation, long unit )
+	{
+		// Don't go through getThreadRandom; that would use up a thread stream.
+		CounterRandom random = fieldRandom.get( );
+		if ( random == null )
+			{
+			random = new CounterRandom( fieldSeed );
+			fieldRandom.set( random );
+			}
+
+		random.seek( generation, unit, 0 );
+		discardRandomBuffer( );
+
+	} // selectStream
+
+}
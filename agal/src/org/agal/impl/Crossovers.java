@@ -0,0 +1,656 @@
+/*
+ * Crossovers.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import org.agal.core.Crossover;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.RecyclingStateManager;
+import org.agal.core.StateManager;
+
+/**
+ * Crossovers is a static utility class which provides the standard {@link Crossover}
+ * operators for {@code int[]} genomes, and {@link StateManager} adapters for them.
+ * <p>
+ * The permutation operators require each genome to be a permutation of
+ * {@code 0 .. n - 1}, as in ordering problems like the travelling salesman, and always
+ * produce one:
+ * <ul>
+ * <li>order crossover (OX), which keeps a slice of the mother and fills in the rest in
+ * the father's relative order;</li>
+ * <li>partially mapped crossover (PMX), which keeps a slice of the mother and the
+ * father's absolute positions elsewhere, repairing conflicts through the slice's
+ * mapping;</li>
+ * <li>cycle crossover (CX), which takes every gene from the same position in one parent
+ * or the other, alternating between the cycles the parents define; and</li>
+ * <li>edge recombination (ERX), which builds a tour out of the edges (adjacent pairs,
+ * wrapping around) of both parents, preferring shared edges and then the cities with
+ * fewest remaining options. It's usually the best of these for tours.</li>
+ * </ul>
+ * The array operators, uniform and k-point crossover, work on any {@code int[]}.
+ * <p>
+ * The operators keep whatever working space they need in per-thread scratch buffers,
+ * so once a thread has warmed up to a genome size they allocate nothing; only the
+ * state managers allocate, and only the child, which they can also breed into a
+ * recycled array (see {@link RecyclingStateManager}). All operators acquired herein are
+ * thread-safe.
+ * @author David Schmidt
+ */
+public class Crossovers
+{
+	/**
+	 * Builds a tour from the parents' edges.
+	 */
+	private static final class EdgeRecombination implements Crossover<int[ ]>
+	{
+		// The most neighbors a city can have across two tours.
+		private static final int MAXIMUM_NEIGHBORS = 4;
+
+
+		private static void addEdge( int[ ] neighbors, int[ ] counts, int city, int other )
+		{
+			int base = city * MAXIMUM_NEIGHBORS;
+			for ( int index = 0; index < counts[ city ]; index++ )
+				{
+				int neighbor = neighbors[ base + index ];
+				if ( neighbor == other )
+					{
+					// Both parents have it; mark it shared.
+					neighbors[ base + index ] = ~other;
+					return;
+					}
+				if ( neighbor == ~other )
+					return;
+				}
+
+			neighbors[ base + counts[ city ]++ ] = other;
+
+		} // addEdge
+
+
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			int n = mother.length;
+			if ( n < 3 )
+				{
+				System.arraycopy( mother, 0, child, 0, n );
+				return;
+				}
+
+			Scratch scratch = SCRATCH.get( );
+			int[ ] neighbors = scratch.buffer( 0, n * MAXIMUM_NEIGHBORS );
+			int[ ] counts = scratch.buffer( 1, n );
+			int[ ] unused = scratch.buffer( 2, n );
+			int[ ] unusedPositions = scratch.buffer( 3, n );
+
+			Arrays.fill( counts, 0, n, 0 );
+			for ( int index = 0; index < n; index++ )
+				{
+				int next = ( index + 1 < n ) ? index + 1 : 0;
+				addEdge( neighbors, counts, mother[ index ], mother[ next ] );
+				addEdge( neighbors, counts, mother[ next ], mother[ index ] );
+				addEdge( neighbors, counts, father[ index ], father[ next ] );
+				addEdge( neighbors, counts, father[ next ], father[ index ] );
+				unused[ index ] = index;
+				unusedPositions[ index ] = index;
+				}
+
+			int unusedCount = n;
+			int current = mother[ 0 ];
+			for ( int position = 0; ; position++ )
+				{
+				child[ position ] = current;
+
+				int last = unused[ --unusedCount ];
+				unused[ unusedPositions[ current ] ] = last;
+				unusedPositions[ last ] = unusedPositions[ current ];
+
+				// Nobody can go to the current city any more. Its own neighbors are all
+				// unused, since used cities were removed from every list as they went.
+				int base = current * MAXIMUM_NEIGHBORS;
+				for ( int index = 0; index < counts[ current ]; index++ )
+					removeEdge( neighbors, counts, decode( neighbors[ base + index ] ), current );
+
+				if ( position == n - 1 )
+					break;
+
+				// Take a shared edge if there is one; otherwise, go to the neighbor with
+				// the fewest options left, so as not to strand it. Failing that, jump.
+				int next = -1;
+				int fewest = Integer.MAX_VALUE;
+				int ties = 0;
+				for ( int index = 0; index < counts[ current ]; index++ )
+					{
+					int neighbor = neighbors[ base + index ];
+					if ( neighbor < 0 )
+						{
+						next = ~neighbor;
+						break;
+						}
+
+					int options = counts[ neighbor ];
+					if ( options < fewest )
+						{
+						fewest = options;
+						next = neighbor;
+						ties = 1;
+						}
+					else if ( options == fewest && random.nextInt( ++ties ) == 0 )
+						next = neighbor;
+					}
+
+				current = ( next >= 0 ) ? next : unused[ random.nextInt( unusedCount ) ];
+				}
+
+		} // cross
+
+
+		private static int decode( int neighbor )
+		{
+			return ( neighbor < 0 ) ? ~neighbor : neighbor;
+
+		} // decode
+
+
+		private static void removeEdge( int[ ] neighbors, int[ ] counts, int city, int other )
+		{
+			int base = city * MAXIMUM_NEIGHBORS;
+			for ( int index = 0; index < counts[ city ]; index++ )
+				if ( decode( neighbors[ base + index ] ) == other )
+					{
+					neighbors[ base + index ] = neighbors[ base + --counts[ city ] ];
+					return;
+					}
+
+		} // removeEdge
+
+	} // EdgeRecombination
+
+	/**
+	 * Adapts a Crossover on {@code int[]} genomes into a StateManager for them.
+	 */
+	private static final class IntArrayStateManager implements RecyclingStateManager<int[ ]>,
+			RandomSourceAware
+	{
+		// Data members.
+		private final Crossover<int[ ]> fieldCrossover;
+		private final int fieldLength;
+		// The values are in [0, range), or a permutation if the range is 0.
+		private final int fieldValueRange;
+		private RandomSource fieldRandomSource;
+
+
+		public IntArrayStateManager( Crossover<int[ ]> crossover, int length, int valueRange )
+		{
+			if ( length < 1 || valueRange < 0 )
+				throw new IllegalArgumentException(
+						"The length must be positive and the value range mustn't be negative." );
+
+			fieldCrossover = crossover;
+			fieldLength = length;
+			fieldValueRange = valueRange;
+
+		} // IntArrayStateManager
+
+
+		@Override
+		public int[ ] randomize( )
+		{
+			RandomGenerator random = RandomSource.generatorOf( fieldRandomSource );
+			int[ ] genome = new int[ fieldLength ];
+
+			if ( fieldValueRange > 0 )
+				{
+				for ( int index = 0; index < fieldLength; index++ )
+					genome[ index ] = random.nextInt( fieldValueRange );
+				return genome;
+				}
+
+			// Inside-out Fisher-Yates.
+			for ( int index = 0; index < fieldLength; index++ )
+				{
+				int swap = random.nextInt( index + 1 );
+				genome[ index ] = genome[ swap ];
+				genome[ swap ] = index;
+				}
+
+			return genome;
+
+		} // randomize
+
+
+		@Override
+		public int[ ] reproduce( int[ ] mother, int[ ] father )
+		{
+			int[ ] child = new int[ mother.length ];
+			fieldCrossover.cross( mother, father, child, RandomSource.generatorOf( fieldRandomSource ) );
+
+			return child;
+
+		} // reproduce
+
+
+		@Override
+		public void reproduceInto( int[ ] mother, int[ ] father, int[ ] target )
+		{
+			fieldCrossover.cross( mother, father, target, RandomSource.generatorOf( fieldRandomSource ) );
+
+		} // reproduceInto
+
+
+		@Override
+		public void setRandomSource( RandomSource randomSource )
+		{
+			fieldRandomSource = randomSource;
+
+		} // setRandomSource
+
+	} // IntArrayStateManager
+
+	/**
+	 * Alternates between the parents at k distinct cut points.
+	 */
+	private static final class KPointCrossover implements Crossover<int[ ]>
+	{
+		// Data members.
+		private final int fieldCutCount;
+
+
+		public KPointCrossover( int cutCount )
+		{
+			fieldCutCount = cutCount;
+
+		} // KPointCrossover
+
+
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			int n = mother.length;
+			if ( n == 0 )
+				return;
+
+			// The common single cut needs no scratch space.
+			if ( fieldCutCount == 1 )
+				{
+				int cut = random.nextInt( n );
+				System.arraycopy( mother, 0, child, 0, cut );
+				System.arraycopy( father, cut, child, cut, n - cut );
+				return;
+				}
+
+			// Choose distinct cuts in [0, n), and sort them. There are only a few.
+			Scratch scratch = SCRATCH.get( );
+			int cutCount = Math.min( fieldCutCount, n );
+			int[ ] cuts = scratch.buffer( 0, cutCount );
+			int[ ] marks = scratch.marks( n );
+			int stamp = scratch.nextStamp( );
+			for ( int index = 0; index < cutCount; index++ )
+				{
+				int cut;
+				do
+					cut = random.nextInt( n );
+				while ( marks[ cut ] == stamp );
+				marks[ cut ] = stamp;
+
+				int insert = index;
+				for ( ; insert > 0 && cuts[ insert - 1 ] > cut; insert-- )
+					cuts[ insert ] = cuts[ insert - 1 ];
+				cuts[ insert ] = cut;
+				}
+
+			int start = 0;
+			for ( int index = 0; index <= cutCount; index++ )
+				{
+				int end = ( index < cutCount ) ? cuts[ index ] : n;
+				System.arraycopy( ( index % 2 == 0 ) ? mother : father, start, child, start, end
+						- start );
+				start = end;
+				}
+
+		} // cross
+
+	} // KPointCrossover
+
+	/**
+	 * Per-thread working space for the operators. Buffers only ever grow.
+	 */
+	private static final class Scratch
+	{
+		// Data members.
+		private final int[ ][ ] fieldBuffers = new int[ 4 ][ 0 ];
+		private int[ ] fieldMarks = new int[ 0 ];
+		private int fieldStamp;
+
+
+		int[ ] buffer( int index, int length )
+		{
+			if ( fieldBuffers[ index ].length < length )
+				fieldBuffers[ index ] = new int[ length ];
+
+			return fieldBuffers[ index ];
+
+		} // buffer
+
+
+		/**
+		 * @return an array in which an element is marked if it equals the current stamp
+		 *         (see {@link #nextStamp()}), so that clearing it is free.
+		 */
+		int[ ] marks( int length )
+		{
+			if ( fieldMarks.length < length )
+				{
+				fieldMarks = new int[ length ];
+				fieldStamp = 0;
+				}
+
+			return fieldMarks;
+
+		} // marks
+
+
+		/**
+		 * Unmarks every element of the marks array.
+		 */
+		int nextStamp( )
+		{
+			if ( ++fieldStamp == 0 )
+				{
+				Arrays.fill( fieldMarks, 0 );
+				fieldStamp = 1;
+				}
+
+			return fieldStamp;
+
+		} // nextStamp
+
+	} // Scratch
+
+	// Class constants.
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial( Scratch::new );
+
+	/**
+	 * Cycle crossover.
+	 */
+	private static final Crossover<int[ ]> CYCLE = new Crossover<int[ ]>( )
+	{
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			int n = mother.length;
+			Scratch scratch = SCRATCH.get( );
+			int[ ] motherPositions = scratch.buffer( 0, n );
+			int[ ] visited = scratch.marks( n );
+			int stamp = scratch.nextStamp( );
+
+			for ( int index = 0; index < n; index++ )
+				motherPositions[ mother[ index ] ] = index;
+
+			// Each cycle of positions holds the same genes in both parents, so it may be
+			// taken whole from either.
+			boolean fromMother = random.nextBoolean( );
+			for ( int start = 0; start < n; start++ )
+				{
+				if ( visited[ start ] == stamp )
+					continue;
+
+				int[ ] parent = fromMother ? mother : father;
+				int position = start;
+				do
+					{
+					visited[ position ] = stamp;
+					child[ position ] = parent[ position ];
+					position = motherPositions[ father[ position ] ];
+					}
+				while ( position != start );
+
+				fromMother = !fromMother;
+				}
+
+		} // cross
+	};
+
+	private static final Crossover<int[ ]> EDGE_RECOMBINATION = new EdgeRecombination( );
+
+	/**
+	 * Order crossover (OX1).
+	 */
+	private static final Crossover<int[ ]> ORDER = new Crossover<int[ ]>( )
+	{
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			int n = mother.length;
+			if ( n == 0 )
+				return;
+
+			int first = random.nextInt( n );
+			int last = random.nextInt( n );
+			if ( first > last )
+				{
+				int swap = first;
+				first = last;
+				last = swap;
+				}
+
+			Scratch scratch = SCRATCH.get( );
+			int[ ] taken = scratch.marks( n );
+			int stamp = scratch.nextStamp( );
+			for ( int index = first; index <= last; index++ )
+				{
+				child[ index ] = mother[ index ];
+				taken[ mother[ index ] ] = stamp;
+				}
+
+			// Fill from after the slice, wrapping around, in the father's order from the
+			// same place.
+			int position = ( last + 1 < n ) ? last + 1 : 0;
+			int source = position;
+			for ( int count = 0; count < n; count++ )
+				{
+				int gene = father[ source ];
+				if ( ++source == n )
+					source = 0;
+				if ( taken[ gene ] == stamp )
+					continue;
+
+				child[ position ] = gene;
+				if ( ++position == n )
+					position = 0;
+				}
+
+		} // cross
+	};
+
+	/**
+	 * Partially mapped crossover.
+	 */
+	private static final Crossover<int[ ]> PARTIALLY_MAPPED = new Crossover<int[ ]>( )
+	{
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			int n = mother.length;
+			if ( n == 0 )
+				return;
+
+			int first = random.nextInt( n );
+			int last = random.nextInt( n );
+			if ( first > last )
+				{
+				int swap = first;
+				first = last;
+				last = swap;
+				}
+
+			Scratch scratch = SCRATCH.get( );
+			int[ ] fatherPositions = scratch.buffer( 0, n );
+			int[ ] taken = scratch.marks( n );
+			int stamp = scratch.nextStamp( );
+
+			System.arraycopy( father, 0, child, 0, n );
+			for ( int index = 0; index < n; index++ )
+				fatherPositions[ father[ index ] ] = index;
+			for ( int index = first; index <= last; index++ )
+				{
+				child[ index ] = mother[ index ];
+				taken[ mother[ index ] ] = stamp;
+				}
+
+			// Each of the father's slice genes that the slice displaced goes where the
+			// mapping leads outside the slice, replacing a duplicate.
+			for ( int index = first; index <= last; index++ )
+				{
+				int gene = father[ index ];
+				if ( taken[ gene ] == stamp )
+					continue;
+
+				int position = index;
+				do
+					position = fatherPositions[ mother[ position ] ];
+				while ( position >= first && position <= last );
+
+				child[ position ] = gene;
+				}
+
+		} // cross
+	};
+
+	/**
+	 * Uniform crossover.
+	 */
+	private static final Crossover<int[ ]> UNIFORM = new Crossover<int[ ]>( )
+	{
+		@Override
+		public void cross( int[ ] mother, int[ ] father, int[ ] child, RandomGenerator random )
+		{
+			long bits = 0;
+			for ( int index = 0; index < mother.length; index++ )
+				{
+				if ( ( index & 63 ) == 0 )
+					bits = random.nextLong( );
+
+				child[ index ] = ( ( bits & 1 ) != 0 ) ? mother[ index ] : father[ index ];
+				bits >>>= 1;
+				}
+
+		} // cross
+	};
+
+
+	/**
+	 * @return a cycle crossover (CX) for permutations. Which parent supplies the first
+	 *         cycle is random.
+	 */
+	public static Crossover<int[ ]> getCycleCrossover( )
+	{
+		return CYCLE;
+
+	} // getCycleCrossover
+
+
+	/**
+	 * @return an edge recombination (ERX) for permutations representing cyclic tours.
+	 */
+	public static Crossover<int[ ]> getEdgeRecombination( )
+	{
+		return EDGE_RECOMBINATION;
+
+	} // getEdgeRecombination
+
+
+	/**
+	 * Creates and returns a StateManager for {@code int[]} genomes of fixed length whose
+	 * values are in {@code [0, valueRange)}, which reproduces with the given Crossover.
+	 * @param crossover an array Crossover, such as {@link #getUniformCrossover()}.
+	 * @param length an int indicating the length of the genomes.
+	 * @param valueRange a positive int bounding the values of the genes.
+	 * @throws IllegalArgumentException if the length or value range isn't positive.
+	 */
+	public static StateManager<int[ ]> getIntArrayStateManager( Crossover<int[ ]> crossover,
+			int length, int valueRange )
+			throws IllegalArgumentException
+	{
+		if ( valueRange < 1 )
+			throw new IllegalArgumentException( "The value range must be positive." );
+
+		return new IntArrayStateManager( crossover, length, valueRange );
+
+	} // getIntArrayStateManager
+
+
+	/**
+	 * @param cutCount a positive int indicating how many cut points to use. The child
+	 *            takes the genes before the first cut from the mother, and alternates
+	 *            parents at each cut. With a single cut, this is classic one-point
+	 *            crossover.
+	 * @return a k-point crossover for any {@code int[]} genomes.
+	 * @throws IllegalArgumentException if the cut count isn't positive.
+	 */
+	public static Crossover<int[ ]> getKPointCrossover( int cutCount )
+			throws IllegalArgumentException
+	{
+		if ( cutCount < 1 )
+			throw new IllegalArgumentException( "There must be at least one cut." );
+
+		return new KPointCrossover( cutCount );
+
+	} // getKPointCrossover
+
+
+	/**
+	 * @return an order crossover (OX) for permutations.
+	 */
+	public static Crossover<int[ ]> getOrderCrossover( )
+	{
+		return ORDER;
+
+	} // getOrderCrossover
+
+
+	/**
+	 * @return a partially mapped crossover (PMX) for permutations.
+	 */
+	public static Crossover<int[ ]> getPartiallyMappedCrossover( )
+	{
+		return PARTIALLY_MAPPED;
+
+	} // getPartiallyMappedCrossover
+
+
+	/**
+	 * Creates and returns a StateManager for permutations of {@code 0 .. length - 1},
+	 * which randomizes with uniform shuffles and reproduces with the given Crossover.
+	 * @param crossover a permutation Crossover, such as {@link #getEdgeRecombination()}.
+	 * @param length an int indicating the length of the permutations.
+	 * @throws IllegalArgumentException if the length isn't positive.
+	 */
+	public static StateManager<int[ ]> getPermutationStateManager( Crossover<int[ ]> crossover,
+			int length )
+			throws IllegalArgumentException
+	{
+		return new IntArrayStateManager( crossover, length, 0 );
+
+	} // getPermutationStateManager
+
+
+	/**
+	 * @return a uniform crossover for any {@code int[]} genomes, which takes each gene
+	 *         from either parent with equal probability.
+	 */
+	public static Crossover<int[ ]> getUniformCrossover( )
+	{
+		return UNIFORM;
+
+	} // getUniformCrossover
+
+}
@@ -0,0 +1,429 @@
+/*
+ * DifferentialEvolution.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.random.RandomGenerator;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Mutator;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * DifferentialEvolution implements Storn and Price's differential evolution for
+ * continuous problems whose states are {@code double[ ]} vectors. Each generation, every
+ * member ("target") of the population gets a trial vector: a mutant built from scaled
+ * differences between other members, crossed over with the target binomially. A trial
+ * replaces its target if it's at least as fit. Two mutation variants are provided:
+ * {@link Rand1Bin} ({@code DE/rand/1/bin}), which explores well, and
+ * {@link CurrentToBest1Bin} ({@code DE/current-to-best/1/bin}), which converges faster.
+ * <p>
+ * The scale factor {@code F} and crossover rate {@code CR} are taken from the
+ * {@code BiasSource} at the start of each generation ({@link #BIAS_KEY_SCALE_FACTOR},
+ * {@link #BIAS_KEY_CROSSOVER_RATE}), so they may be fixed or scheduled. If
+ * {@link #CONTEXT_KEY_SELF_ADAPTIVE} is set, they're adapted per member instead, as in
+ * Brest et al.'s jDE: each trial usually inherits its target's {@code F} and {@code CR},
+ * but one time in ten draws a new one, and the values travel with the trial if it
+ * survives. The biases then only supply the initial values.
+ * <p>
+ * Trials are built and evaluated in batches shared out among all evolving threads (see
+ * {@link AbstractGenerationalAlgorithm}), with one call per batch to the bulk
+ * {@link AbstractFitnessEvaluator#fitness(Object[])}. All vectors are preallocated:
+ * trials are built in place, and when one survives it simply trades places with its
+ * target, whose array becomes a trial buffer for the next generation. Listeners must
+ * therefore copy any member they want to keep, since its array will be reused (though
+ * never while it's the search's best result, as long as the solution listener is called
+ * synchronously). The kernels are written as simple loops over whole arrays so that the
+ * JIT can vectorize them.
+ * <p>
+ * The population size is taken from the population's generation size, and the initial
+ * members are generated with the {@code StateManager}; the population is otherwise
+ * unused, as are the {@code Selector} and {@code Mutator}.
+ * <p>
+ * DifferentialEvolution is thread safe.
+ * @author David Schmidt
+ */
+public abstract class DifferentialEvolution extends AbstractGenerationalAlgorithm<double[ ]>
+{
+	/**
+	 * {@code DE/current-to-best/1/bin}: each mutant is its target, moved towards the best
+	 * member and by one scaled difference.
+	 */
+	public static class CurrentToBest1Bin extends DifferentialEvolution
+	{
+
+		public CurrentToBest1Bin( SearchContext<double[ ]> searchContext,
+				Selector<double[ ]> selector, Mutator<double[ ]> mutator )
+		{
+			super( searchContext );
+
+		} // CurrentToBest1Bin
+
+
+		@Override
+		protected void mutant( double[ ] mutant, int target, double scaleFactor, RandomGenerator random )
+		{
+			int firstIndex = pickOther( random, target, -1, -1 );
+			int secondIndex = pickOther( random, target, firstIndex, -1 );
+
+			double[ ] current = getMember( target );
+			double[ ] best = getMember( getBestIndex( ) );
+			double[ ] first = getMember( firstIndex );
+			double[ ] second = getMember( secondIndex );
+
+			for ( int index = 0; index < mutant.length; index++ )
+				mutant[ index ] = current[ index ] + scaleFactor
+						* ( best[ index ] - current[ index ] + first[ index ] - second[ index ] );
+
+		} // mutant
+
+	} // CurrentToBest1Bin
+
+	/**
+	 * {@code DE/rand/1/bin}: each mutant is a random member plus the scaled difference of
+	 * two others.
+	 */
+	public static class Rand1Bin extends DifferentialEvolution
+	{
+
+		public Rand1Bin( SearchContext<double[ ]> searchContext, Selector<double[ ]> selector,
+				Mutator<double[ ]> mutator )
+		{
+			super( searchContext );
+
+		} // Rand1Bin
+
+
+		@Override
+		protected void mutant( double[ ] mutant, int target, double scaleFactor, RandomGenerator random )
+		{
+			int base = pickOther( random, target, -1, -1 );
+			int first = pickOther( random, target, base, -1 );
+			int second = pickOther( random, target, base, first );
+
+			double[ ] baseVector = getMember( base );
+			double[ ] firstVector = getMember( first );
+			double[ ] secondVector = getMember( second );
+
+			for ( int index = 0; index < mutant.length; index++ )
+				mutant[ index ] = baseVector[ index ] + scaleFactor
+						* ( firstVector[ index ] - secondVector[ index ] );
+
+		} // mutant
+
+	} // Rand1Bin
+
+	// Class constants.
+	/**
+	 * Bias key for the scale factor {@code F}, usually between 0.4 and 1.
+	 */
+	public static final String BIAS_KEY_SCALE_FACTOR = DifferentialEvolution.class.getName( )
+			+ ".scaleFactor";
+
+	/**
+	 * Bias key for the crossover rate {@code CR}, between 0 and 1: the probability of
+	 * each element of a trial coming from the mutant rather than the target.
+	 */
+	public static final String BIAS_KEY_CROSSOVER_RATE = DifferentialEvolution.class.getName( )
+			+ ".crossoverRate";
+
+	/**
+	 * Context map key for a {@code Boolean} indicating whether to adapt {@code F} and
+	 * {@code CR} per member, jDE-style. Defaults to {@code false}.
+	 */
+	public static final String CONTEXT_KEY_SELF_ADAPTIVE = DifferentialEvolution.class
+			.getName( ) + ".selfAdaptive";
+
+	/**
+	 * Context map key for an {@code Integer} number of trials to build and evaluate per
+	 * batch. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public static final String CONTEXT_KEY_BATCH_SIZE = DifferentialEvolution.class.getName( )
+			+ ".batchSize";
+
+	public static final int DEFAULT_BATCH_SIZE = 16;
+
+	// jDE's parameters, as published.
+	private static final double ADAPTATION_RATE = 0.1;
+	private static final double MINIMUM_SCALE_FACTOR = 0.1;
+	private static final double SCALE_FACTOR_RANGE = 0.9;
+
+	// Data members.
+	private final AbstractFitnessEvaluator<double[ ]> fieldFitnessEvaluator;
+	private final boolean fieldSelfAdaptive;
+	private final int fieldSize;
+	private final int fieldDimension;
+	private final int fieldBatchSize;
+	private final int fieldBatchCount;
+
+	// The population and its trials, indexed by member. Trial buffers are swapped with
+	// the members they replace.
+	private final double[ ][ ] fieldMembers;
+	private final int[ ] fieldFitness;
+	private final double[ ] fieldScaleFactors;
+	private final double[ ] fieldCrossoverRates;
+	private final double[ ][ ] fieldTrials;
+	private final int[ ] fieldTrialFitness;
+	private final double[ ] fieldTrialScaleFactors;
+	private final double[ ] fieldTrialCrossoverRates;
+	private final double[ ][ ][ ] fieldBatches;
+
+	// Written only by completeGeneration (or the constructor).
+	private double fieldScaleFactor;
+	private double fieldCrossoverRate;
+	private int fieldBestIndex;
+
+
+	protected DifferentialEvolution( SearchContext<double[ ]> searchContext )
+	{
+		super( searchContext );
+
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+		fieldSelfAdaptive = Boolean.TRUE.equals( searchContext.getContextMap( ).get(
+				CONTEXT_KEY_SELF_ADAPTIVE ) );
+		fieldSize = searchContext.getPopulation( ).getGenerationSize( );
+		fieldBatchSize = searchContext.getContextInt( CONTEXT_KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+
+		if ( fieldSize < 4 )
+			throw new IllegalArgumentException( "Differential evolution needs at least 4 members." );
+		if ( fieldBatchSize < 1 )
+			throw new IllegalArgumentException( "The batch size must be positive." );
+
+		readBiases( );
+
+		// Generate the initial population and a trial buffer for each member.
+		StateManager<double[ ]> stateManager = searchContext.getStateManager( );
+		fieldMembers = new double[ fieldSize ][ ];
+		fieldFitness = new int[ fieldSize ];
+		fieldScaleFactors = new double[ fieldSize ];
+		fieldCrossoverRates = new double[ fieldSize ];
+		for ( int index = 0; index < fieldSize; index++ )
+			{
+			fieldMembers[ index ] = stateManager.randomize( );
+			fieldFitness[ index ] = fieldFitnessEvaluator.fitness( fieldMembers[ index ] );
+			fieldScaleFactors[ index ] = fieldScaleFactor;
+			fieldCrossoverRates[ index ] = fieldCrossoverRate;
+			}
+		fieldDimension = fieldMembers[ 0 ].length;
+		findBest( );
+
+		fieldTrials = new double[ fieldSize ][ fieldDimension ];
+		fieldTrialFitness = new int[ fieldSize ];
+		fieldTrialScaleFactors = new double[ fieldSize ];
+		fieldTrialCrossoverRates = new double[ fieldSize ];
+
+		fieldBatchCount = ( fieldSize + fieldBatchSize - 1 ) / fieldBatchSize;
+		fieldBatches = new double[ fieldBatchCount ][ ][ ];
+		for ( int batch = 0; batch < fieldBatchCount; batch++ )
+			fieldBatches[ batch ] = new double[ Math.min( fieldBatchSize, fieldSize - batch
+					* fieldBatchSize ) ][ ];
+
+	} // DifferentialEvolution
+
+
+	/**
+	 * Replaces each member with its trial if the trial is at least as fit.
+	 */
+	@Override
+	protected void completeGeneration( )
+	{
+		double[ ] bestResult = getSearchContext( ).getBestResult( );
+
+		for ( int index = 0; index < fieldSize; index++ )
+			{
+			if ( fieldFitnessEvaluator.compareFitness( fieldTrialFitness[ index ],
+					fieldFitness[ index ] ) < 0 )
+				continue;
+
+			// Trade places, unless the member is the best result, which mustn't change
+			// under anyone's feet.
+			double[ ] replaced = fieldMembers[ index ];
+			fieldMembers[ index ] = fieldTrials[ index ];
+			fieldTrials[ index ] = ( replaced != bestResult ) ? replaced
+					: new double[ fieldDimension ];
+			fieldFitness[ index ] = fieldTrialFitness[ index ];
+			fieldScaleFactors[ index ] = fieldTrialScaleFactors[ index ];
+			fieldCrossoverRates[ index ] = fieldTrialCrossoverRates[ index ];
+
+			notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, fieldMembers[ index ],
+					fieldFitness[ index ] );
+			}
+
+		findBest( );
+		readBiases( );
+
+	} // completeGeneration
+
+
+	/**
+	 * Builds a trial in place: elements come from the mutant with probability
+	 * {@code crossoverRate}, and from the target otherwise, with at least one element
+	 * always from the mutant.
+	 */
+	private static void crossover( double[ ] trial, double[ ] target, double crossoverRate,
+			RandomGenerator random )
+	{
+		int forced = random.nextInt( trial.length );
+
+		for ( int index = 0; index < trial.length; index++ )
+			if ( index != forced && random.nextDouble( ) >= crossoverRate )
+				trial[ index ] = target[ index ];
+
+	} // crossover
+
+
+	// Must only be called where members aren't changing.
+	private void findBest( )
+	{
+		int best = 0;
+		for ( int index = 1; index < fieldSize; index++ )
+			if ( fieldFitnessEvaluator.compareFitness( fieldFitness[ index ], fieldFitness[ best ] ) > 0 )
+				best = index;
+
+		fieldBestIndex = best;
+
+	} // findBest
+
+
+	@Override
+	protected int getBatchCount( )
+	{
+		return fieldBatchCount;
+
+	} // getBatchCount
+
+
+	/**
+	 * @return an {@code int} indicating the index of the fittest member as of the start of
+	 *         the current generation.
+	 */
+	protected int getBestIndex( )
+	{
+		return fieldBestIndex;
+
+	} // getBestIndex
+
+
+	/**
+	 * @return an {@code int} indicating the number of elements in each vector.
+	 */
+	public int getDimension( )
+	{
+		return fieldDimension;
+
+	} // getDimension
+
+
+	/**
+	 * @return the member at the given index. Members don't change while trials are being
+	 *         built, but must not be modified.
+	 */
+	protected double[ ] getMember( int index )
+	{
+		return fieldMembers[ index ];
+
+	} // getMember
+
+
+	/**
+	 * @return an {@code int} indicating the number of members in the population.
+	 */
+	public int getSize( )
+	{
+		return fieldSize;
+
+	} // getSize
+
+
+	public boolean isSelfAdaptive( )
+	{
+		return fieldSelfAdaptive;
+
+	} // isSelfAdaptive
+
+
+	/**
+	 * Builds the mutant vector for a target, in place.
+	 * @param mutant a {@code double[ ]} to overwrite with the mutant.
+	 * @param target an {@code int} indicating the index of the target member.
+	 * @param scaleFactor a {@code double} indicating the scale factor {@code F} to use.
+	 * @param random the Random to use.
+	 */
+	protected abstract void mutant( double[ ] mutant, int target, double scaleFactor,
+			RandomGenerator random );
+
+
+	/**
+	 * @return an {@code int} indicating the index of a random member other than the ones
+	 *         given (which may be {@code -1} for none).
+	 */
+	protected int pickOther( RandomGenerator random, int first, int second, int third )
+	{
+		int index;
+		do
+			{
+			index = random.nextInt( fieldSize );
+			}
+		while ( index == first || index == second || index == third );
+
+		return index;
+
+	} // pickOther
+
+
+	/**
+	 * Builds and bulk-evaluates one batch of trials.
+	 */
+	@Override
+	protected void processBatch( int batch )
+	{
+		RandomGenerator random = getSearchContext( ).getGenerator( );
+		double[ ][ ] states = fieldBatches[ batch ];
+		int offset = batch * fieldBatchSize;
+
+		for ( int slot = 0; slot < states.length; slot++ )
+			{
+			int index = offset + slot;
+			double scaleFactor = fieldScaleFactor;
+			double crossoverRate = fieldCrossoverRate;
+
+			if ( fieldSelfAdaptive )
+				{
+				scaleFactor = ( random.nextDouble( ) < ADAPTATION_RATE ) ? MINIMUM_SCALE_FACTOR
+						+ random.nextDouble( ) * SCALE_FACTOR_RANGE : fieldScaleFactors[ index ];
+				crossoverRate = ( random.nextDouble( ) < ADAPTATION_RATE ) ? random.nextDouble( )
+						: fieldCrossoverRates[ index ];
+				}
+			fieldTrialScaleFactors[ index ] = scaleFactor;
+			fieldTrialCrossoverRates[ index ] = crossoverRate;
+
+			double[ ] trial = fieldTrials[ index ];
+			mutant( trial, index, scaleFactor, random );
+			crossover( trial, fieldMembers[ index ], crossoverRate, random );
+			states[ slot ] = trial;
+			}
+
+		Integer[ ] fitnesses = fieldFitnessEvaluator.fitness( states );
+		for ( int slot = 0; slot < states.length; slot++ )
+			{
+			fieldTrialFitness[ offset + slot ] = fitnesses[ slot ];
+			states[ slot ] = null;
+			}
+
+	} // processBatch
+
+
+	private void readBiases( )
+	{
+		fieldScaleFactor = getSearchContext( ).getBias( BIAS_KEY_SCALE_FACTOR );
+		fieldCrossoverRate = getSearchContext( ).getBias( BIAS_KEY_CROSSOVER_RATE );
+
+	} // readBiases
+
+}
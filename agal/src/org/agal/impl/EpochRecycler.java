@@ -0,0 +1,200 @@
+/*
+ * EpochRecycler.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EpochRecycler implements safe reuse of the states a shared population evicts, for
+ * {@link org.agal.core.RecyclingPopulation}s, with a form of epoch-based reclamation.
+ * A global epoch counter advances every few evictions. A thread records the epoch when
+ * it first touches the population's members ({@link #enter()}, called on every sample
+ * and sow) and clears it when it lets go of them all ({@link #exit()}). An evicted state
+ * is kept, tagged with the epoch of its eviction, by the thread which evicted it
+ * ({@link #retire(Object)}), until that epoch is older than the entry epoch of every
+ * other thread still holding members. Any thread which could have picked the state up
+ * before its eviction has then let go of it, and no thread can pick it up afterward, so
+ * the evicting thread may overwrite it ({@link #reclaim()}).
+ * <p>
+ * None of this involves locks. Entering and exiting are a volatile read and write of the
+ * thread's own record; retiring reads the global epoch, and advances it once in every
+ * {@link #ADVANCE_INTERVAL} retirements. Reclaiming scans the other threads' records
+ * only when the oldest retired state isn't already known to be safe.
+ * <p>
+ * Each thread keeps up to {@link #CAPACITY} retired states; beyond that, the oldest are
+ * left to the garbage collector. A thread which is descheduled while holding members
+ * holds up every other thread's reclamation meanwhile, so reuse works best with no more
+ * threads than cores; one which stops while holding members keeps the others from
+ * reclaiming anything again. Neither ever makes reuse unsafe.
+ * <p>
+ * EpochRecycler is thread safe.
+ * @author David Schmidt
+ */
+public class EpochRecycler<S>
+{
+	/**
+	 * A thread's record, and the states it has retired.
+	 */
+	private static final class Participant
+	{
+		// The epoch at which the thread began holding members, or OFFLINE.
+		private volatile long fieldEntryEpoch = OFFLINE;
+
+		// The rest is only used by the thread itself. The retired states are in a ring,
+		// oldest first, with the epoch and period in which each was retired.
+		private final Object[ ] fieldStates = new Object[ CAPACITY ];
+		private final long[ ] fieldEpochs = new long[ CAPACITY ];
+		private final long[ ] fieldPeriods = new long[ CAPACITY ];
+		private int fieldHead;
+		private int fieldCount;
+
+		// The number of times the thread has exited.
+		private long fieldPeriod;
+		private int fieldRetireCount;
+
+		// States retired before this epoch were safe at the last scan.
+		private long fieldSafeEpoch;
+
+	} // Participant
+
+	// Class constants.
+	/**
+	 * The number of retired states each thread keeps for reuse.
+	 */
+	public static final int CAPACITY = 64;
+
+	/**
+	 * The number of states each thread retires per advance of the global epoch.
+	 */
+	public static final int ADVANCE_INTERVAL = 8;
+
+	private static final long OFFLINE = Long.MAX_VALUE;
+
+	// Data members.
+	private final AtomicLong fieldEpoch = new AtomicLong( 0 );
+	private final List<Participant> fieldParticipants = new CopyOnWriteArrayList<>( );
+	private final ThreadLocal<Participant> fieldParticipant = ThreadLocal
+			.withInitial( this::register );
+
+
+	/**
+	 * Marks the calling thread as holding members, if it isn't already. It must be
+	 * called before the thread reads any member from the population.
+	 */
+	public void enter( )
+	{
+		Participant participant = fieldParticipant.get( );
+		if ( participant.fieldEntryEpoch == OFFLINE )
+			participant.fieldEntryEpoch = fieldEpoch.get( );
+
+	} // enter
+
+
+	/**
+	 * Marks the calling thread as holding no members.
+	 */
+	public void exit( )
+	{
+		Participant participant = fieldParticipant.get( );
+		participant.fieldEntryEpoch = OFFLINE;
+		participant.fieldPeriod++;
+
+	} // exit
+
+
+	/**
+	 * @return a state retired by the calling thread which no thread can still be using, or
+	 *         {@code null} if there's none yet.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public S reclaim( )
+	{
+		Participant participant = fieldParticipant.get( );
+		if ( participant.fieldCount == 0 )
+			return null;
+
+		// States are retired in order, so if the oldest isn't safe, none are. The thread
+		// itself might still hold one it retired since it last exited.
+		int head = participant.fieldHead;
+		long epoch = participant.fieldEpochs[ head ];
+		if ( participant.fieldPeriods[ head ] == participant.fieldPeriod )
+			return null;
+		if ( epoch >= participant.fieldSafeEpoch )
+			{
+			participant.fieldSafeEpoch = scan( participant );
+			if ( epoch >= participant.fieldSafeEpoch )
+				return null;
+			}
+
+		S state = ( S ) participant.fieldStates[ head ];
+		participant.fieldStates[ head ] = null;
+		participant.fieldHead = ( head + 1 ) % CAPACITY;
+		participant.fieldCount--;
+
+		return state;
+
+	} // reclaim
+
+
+	private Participant register( )
+	{
+		Participant participant = new Participant( );
+		fieldParticipants.add( participant );
+
+		return participant;
+
+	} // register
+
+
+	/**
+	 * Hands a state which the calling thread has just removed from the population over
+	 * for reuse, once it's safe.
+	 */
+	public void retire( S state )
+	{
+		Participant participant = fieldParticipant.get( );
+		long epoch = fieldEpoch.get( );
+		if ( ++participant.fieldRetireCount % ADVANCE_INTERVAL == 0 )
+			fieldEpoch.incrementAndGet( );
+
+		// When full, let the oldest go.
+		if ( participant.fieldCount == CAPACITY )
+			{
+			participant.fieldStates[ participant.fieldHead ] = null;
+			participant.fieldHead = ( participant.fieldHead + 1 ) % CAPACITY;
+			participant.fieldCount--;
+			}
+
+		int tail = ( participant.fieldHead + participant.fieldCount ) % CAPACITY;
+		participant.fieldStates[ tail ] = state;
+		participant.fieldEpochs[ tail ] = epoch;
+		participant.fieldPeriods[ tail ] = participant.fieldPeriod;
+		participant.fieldCount++;
+
+	} // retire
+
+
+	/**
+	 * @return an epoch before which every retired state is safe to reuse, as far as the
+	 *         other threads are concerned.
+	 */
+	private long scan( Participant self )
+	{
+		// States retired after this point have at least the current epoch, so capping the
+		// result at it keeps them from being judged by a scan which came before them.
+		long safeEpoch = fieldEpoch.get( );
+		for ( Participant participant : fieldParticipants )
+			if ( participant != self )
+				safeEpoch = Math.min( safeEpoch, participant.fieldEntryEpoch );
+
+		return safeEpoch;
+
+	} // scan
+
+}
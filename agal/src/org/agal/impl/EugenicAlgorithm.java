@@ -7,16 +7,24 @@
 package org.agal.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.agal.core.AbstractFitnessEvaluator;
 import org.agal.core.EvolutionAlgorithm;
+import org.agal.core.EvolutionEventBus;
 import org.agal.core.EvolutionListener;
 import org.agal.core.Mutator;
 import org.agal.core.Population;
+import org.agal.core.RandomBuffer;
+import org.agal.core.RecyclingPopulation;
+import org.agal.core.RecyclingStateManager;
 import org.agal.core.SearchContext;
 import org.agal.core.Selector;
 import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
 
 /**
  * EugenicAlgorithm is a custom "Genetic Algorithm" implementation leveraging a fully
@@ -33,22 +41,126 @@ import org.agal.core.StateManager;
  * terms, it makes far more sense to use the term Eugenics. Perhaps it will catch on in
  * spite of its negative connotations, and in time even rebrand the term as having more to
  * do with obscure computer science and less to do with the holocaust.
+ * <p>
+ * Rather than a single reproduction and mutation, an EugenicAlgorithm may be given a
+ * portfolio of each, with {@link #CONTEXT_KEY_REPRODUCERS} and
+ * {@link #CONTEXT_KEY_MUTATORS}, and will then choose among them adaptively (see
+ * {@link OperatorPortfolio}). Each child is tagged with the reproducer and mutator which
+ * made it, and they're credited when it's evaluated on being sown, with a reward of its
+ * fitness improvement (after any local search) over the better of its parents, or 0 if
+ * it's no better. Sown members' fitness is recorded, so parents are rarely evaluated
+ * again, and is passed on to listeners with {@code EVENT_MEMBER_ADDED}, so that those
+ * which would otherwise evaluate each new member (like a
+ * {@link FitnessThresholdStopCondition}) needn't.
+ * <p>
+ * With {@link #CONTEXT_KEY_RECYCLING}, children are bred into the storage of evicted
+ * members rather than newly allocated ones, when the population is a
+ * {@link RecyclingPopulation} and the reproducing StateManager is a
+ * {@link RecyclingStateManager}. Each evolving thread releases the members it holds after
+ * sowing each child; the search's best result is never reused. Listeners mustn't keep
+ * members after their events (so asynchronous listeners can't be used), since those
+ * members may be overwritten. Subclasses which drive breeding on threads of their own
+ * don't recycle unless they enable and release as {@link #evolve()} does.
  * @author David Schmidt
  */
 public class EugenicAlgorithm<S> implements EvolutionAlgorithm
 {
+	/**
+	 * What's known of a member when operators are chosen adaptively: its fitness, once
+	 * it's been sown, or, while it's still a child, the operators which made it and the
+	 * fitness of its better parent. Records are immutable, so they can be shared without
+	 * locking.
+	 */
+	private static final class MemberRecord<S>
+	{
+		// Data members.
+		final S fieldMember;
+		final int fieldFitness;
+
+		// Both -1 once the member has been sown.
+		final int fieldReproducer;
+		final int fieldMutator;
+		final int fieldParentFitness;
+
+
+		MemberRecord( S member, int fitness, int reproducer, int mutator, int parentFitness )
+		{
+			fieldMember = member;
+			fieldFitness = fitness;
+			fieldReproducer = reproducer;
+			fieldMutator = mutator;
+			fieldParentFitness = parentFitness;
+
+		} // MemberRecord
+
+
+		boolean isSown( )
+		{
+			return fieldReproducer < 0;
+
+		} // isSown
+
+	} // MemberRecord
+
+	// Class constants.
+	/**
+	 * Context map key for a {@code List<StateManager<S>>} of StateManagers whose
+	 * {@code reproduce} methods are to be chosen among adaptively, in place of the
+	 * search's own. Optional; if only the mutators are given, the search's StateManager
+	 * is used alone.
+	 */
+	public static final String CONTEXT_KEY_REPRODUCERS = EugenicAlgorithm.class.getName( )
+			+ ".reproducers";
+
+	/**
+	 * Context map key for a {@code List<Mutator<S>>} of Mutators to be chosen among
+	 * adaptively, in place of the one given to the constructor. Optional; if only the
+	 * reproducers are given, that Mutator is used alone.
+	 */
+	public static final String CONTEXT_KEY_MUTATORS = EugenicAlgorithm.class.getName( )
+			+ ".mutators";
+
+	/**
+	 * Context map key for the {@code OperatorPortfolio.Policy} with which to adapt the
+	 * portfolios. Defaults to {@code ADAPTIVE_PURSUIT}.
+	 */
+	public static final String CONTEXT_KEY_OPERATOR_POLICY = EugenicAlgorithm.class.getName( )
+			+ ".operatorPolicy";
+
+	/**
+	 * Context map key for a {@code Boolean} indicating whether to breed children into
+	 * evicted members' storage, where the population and StateManager support it.
+	 * Defaults to {@code false}.
+	 */
+	public static final String CONTEXT_KEY_RECYCLING = EugenicAlgorithm.class.getName( )
+			+ ".recycling";
+
+	// Member records per member of a generation. Records are kept in a lossy table
+	// indexed by identity hash; one lost to a collision costs an evaluation or a credit.
+	private static final int RECORDS_PER_MEMBER = 4;
+	private static final int MINIMUM_RECORDS = 64;
+
 	// Data members.
-	private final CopyOnWriteArrayList<EvolutionListener> fieldListeners = new CopyOnWriteArrayList<>( );
+	private final EvolutionEventBus<S> fieldEventBus = new EvolutionEventBus<>( );
 	private final StateManager<S> fieldStateManager;
 	private final SearchContext<S> fieldSearchContext;
 	private final Population<S> fieldPopulation;
 	private final Selector<S> fieldSelector;
 	private final Mutator<S> fieldMutator;
 
+	// All null unless operators are chosen adaptively.
+	private final OperatorPortfolio<StateManager<S>> fieldReproducers;
+	private final OperatorPortfolio<Mutator<S>> fieldMutators;
+	private final AtomicReferenceArray<MemberRecord<S>> fieldRecords;
+
+	// Null unless recycling.
+	private final RecyclingPopulation<S> fieldRecyclingPopulation;
+
 
 	/**
 	 * EugenicAlgorithm constructor.
 	 */
+	@SuppressWarnings( "unchecked" )
 	public EugenicAlgorithm( SearchContext<S> searchContext, Selector<S> selector,
 			Mutator<S> mutator )
 	{
@@ -59,49 +171,132 @@ public class EugenicAlgorithm<S> implements EvolutionAlgorithm
 		fieldStateManager = searchContext.getStateManager( );
 		fieldPopulation = searchContext.getPopulation( );
 
+		Map<String, Object> contextMap = searchContext.getContextMap( );
+		List<StateManager<S>> reproducers = ( List<StateManager<S>> ) contextMap
+				.get( CONTEXT_KEY_REPRODUCERS );
+		List<Mutator<S>> mutators = ( List<Mutator<S>> ) contextMap.get( CONTEXT_KEY_MUTATORS );
+		if ( reproducers != null || mutators != null )
+			{
+			OperatorPortfolio.Policy policy = ( OperatorPortfolio.Policy ) contextMap
+					.get( CONTEXT_KEY_OPERATOR_POLICY );
+			if ( policy == null )
+				policy = OperatorPortfolio.Policy.ADAPTIVE_PURSUIT;
+
+			fieldReproducers = new OperatorPortfolio<>( ( reproducers != null ) ? reproducers
+					: Collections.singletonList( fieldStateManager ), policy );
+			fieldMutators = new OperatorPortfolio<>( ( mutators != null ) ? mutators
+					: Collections.singletonList( mutator ), policy );
+
+			int records = Integer.highestOneBit( Math.max( MINIMUM_RECORDS - 1,
+					RECORDS_PER_MEMBER * fieldPopulation.getGenerationSize( ) - 1 ) ) << 1;
+			fieldRecords = new AtomicReferenceArray<>( records );
+			}
+		else
+			{
+			fieldReproducers = null;
+			fieldMutators = null;
+			fieldRecords = null;
+			}
+
+		if ( Boolean.TRUE.equals( contextMap.get( CONTEXT_KEY_RECYCLING ) )
+				&& fieldPopulation instanceof RecyclingPopulation )
+			fieldRecyclingPopulation = ( RecyclingPopulation<S> ) fieldPopulation;
+		else
+			fieldRecyclingPopulation = null;
+
 	} // EugenicAlgorithm
 
 
 	/**
-	 * Breeds the given collection of parents, applies any desired mutations to the
-	 * offspring, and populates the given children collection with the results. The number
-	 * of children to produce is up to the implementation; the default produces only one
-	 * child. The details of "reproducing" and mutating children are handled by the
-	 * StateManager.
+	 * Breeds the given collection of parents, applies any desired mutations and local
+	 * search to the offspring, and populates the given children collection with the
+	 * results. The number of children to produce is up to the implementation; the
+	 * default produces only one child. The details of "reproducing" and mutating
+	 * children are handled by the StateManager.
 	 * @param parents a {@code List<S>} of parent states to be merged into children.
 	 * @param children a {@code List<S>} of finalized child states to be added to the
 	 *            population.
 	 */
 	protected void breed( List<S> parents, List<S> children )
 	{
+		if ( fieldReproducers != null )
+			{
+			breedAdaptively( parents, children );
+			return;
+			}
+
 		// Reproduce once.
-		S child = fieldStateManager.reproduce( parents.get( 0 ), parents.get( 1 ) );
+		S child = reproduce( fieldStateManager, parents.get( 0 ), parents.get( 1 ) );
 
 		// Mutate sometimes, according to the mutator's wishes.
 		for ( int mutationCount = fieldMutator.mutateCount( child ); mutationCount > 0; mutationCount-- )
 			fieldMutator.mutate( child );
 
+		// Polish it, if the search is memetic.
+		fieldSearchContext.improve( child );
+
 		// Return only the final result.
 		children.add( child );
 
 	} // breed
 
 
+	/**
+	 * Breeds one child with operators chosen from the portfolios, and tags it with them,
+	 * to be credited with its improvement once it's sown.
+	 */
+	private void breedAdaptively( List<S> parents, List<S> children )
+	{
+		RandomBuffer random = fieldSearchContext.getRandomBuffer( );
+		S mother = parents.get( 0 );
+		S father = parents.get( 1 );
+
+		// Look the parents up before reproducing, which may overwrite a recycled member.
+		AbstractFitnessEvaluator<S> evaluator = fieldSearchContext.getFitnessEvaluator( );
+		int motherFitness = getFitness( mother );
+		int fatherFitness = getFitness( father );
+		int parentFitness = ( evaluator.compareFitness( motherFitness, fatherFitness ) >= 0 )
+				? motherFitness : fatherFitness;
+
+		int reproducer = fieldReproducers.select( random );
+		S child = reproduce( fieldReproducers.get( reproducer ), mother, father );
+
+		int mutator = fieldMutators.select( random );
+		Mutator<S> mutation = fieldMutators.get( mutator );
+		for ( int mutationCount = mutation.mutateCount( child ); mutationCount > 0; mutationCount-- )
+			mutation.mutate( child );
+
+		fieldRecords.set( getRecordIndex( child ), new MemberRecord<>( child, 0, reproducer,
+				mutator, parentFitness ) );
+
+		fieldSearchContext.improve( child );
+
+		children.add( child );
+
+	} // breedAdaptively
+
+
 	/**
 	 * Begins working in the given environment to solve the problem.
 	 */
 	@Override
 	public void evolve( )
 	{
-		notifyListeners( EvolutionListener.EVENT_ID_BEGIN_EVOLUTION, null );
+		notifyListeners( TypedEvolutionListener.EVENT_BEGIN_EVOLUTION );
+
+		// Every evolving thread turns it on before it samples anything, so none holds a
+		// member the population doesn't know about.
+		if ( fieldRecyclingPopulation != null )
+			fieldRecyclingPopulation.enableRecycling( );
 
 		// Offspring collection.
 		List<S> children = new ArrayList<>( );
 		List<S> parents = new ArrayList<>( );
 
 		// Allow interruption to cancel the thread. The problem manager will automatically
-		// terminate us when that happens.
-		while ( !Thread.interrupted( ) )
+		// terminate us when that happens. A managed search may also ask us to stop at a
+		// checkpoint after any child.
+		evolution: while ( !Thread.interrupted( ) )
 			{
 			for ( int index = 0; index < fieldPopulation.getGenerationSize( ); index++ )
 				{
@@ -113,37 +308,173 @@ public class EugenicAlgorithm<S> implements EvolutionAlgorithm
 
 				// Release offspring into wild.
 				for ( S child : children )
-					{
-					fieldPopulation.sow( child );
-					notifyListeners( EvolutionListener.EVENT_ID_MEMBER_ADDED_TO_POPULATION, child );
-					}
+					sowChild( child );
+
+				// We're done with the parents and the children.
+				if ( fieldRecyclingPopulation != null )
+					fieldRecyclingPopulation.release( );
 
 				parents.clear( );
 				children.clear( );
+
+				if ( !fieldSearchContext.checkpoint( ) )
+					break evolution;
 				}
 
 			fieldPopulation.nextGeneration( );
-			notifyListeners( EvolutionListener.EVENT_ID_NEW_GENERATION, null );
+			notifyListeners( TypedEvolutionListener.EVENT_NEW_GENERATION );
 			}
 
-		notifyListeners( EvolutionListener.EVENT_ID_END_EVOLUTION, null );
+		notifyListeners( TypedEvolutionListener.EVENT_END_EVOLUTION );
 
 	} // run
 
 
+	/**
+	 * @return the recorded fitness of the given member, evaluating (and recording) it if
+	 *         there's no record of it.
+	 */
+	private int getFitness( S member )
+	{
+		int index = getRecordIndex( member );
+		MemberRecord<S> record = fieldRecords.get( index );
+		if ( record != null && record.fieldMember == member && record.isSown( ) )
+			return record.fieldFitness;
+
+		int fitness = fieldSearchContext.getFitnessEvaluator( ).fitness( member );
+		fieldRecords.set( index, new MemberRecord<>( member, fitness, -1, -1, 0 ) );
+
+		return fitness;
+
+	} // getFitness
+
+
+	/**
+	 * @return the portfolio of Mutators being chosen among, or {@code null} if operators
+	 *         aren't chosen adaptively.
+	 */
+	public OperatorPortfolio<Mutator<S>> getMutatorPortfolio( )
+	{
+		return fieldMutators;
+
+	} // getMutatorPortfolio
+
+
+	private int getRecordIndex( S member )
+	{
+		return System.identityHashCode( member ) & ( fieldRecords.length( ) - 1 );
+
+	} // getRecordIndex
+
+
+	/**
+	 * @return the portfolio of reproducing StateManagers being chosen among, or
+	 *         {@code null} if operators aren't chosen adaptively.
+	 */
+	public OperatorPortfolio<StateManager<S>> getReproducerPortfolio( )
+	{
+		return fieldReproducers;
+
+	} // getReproducerPortfolio
+
+
+	protected void notifyListeners( int eventType )
+	{
+		fieldEventBus.publish( eventType );
+
+	} // notifyListeners
+
+
+	/**
+	 * Publishes an event concerning a member whose fitness isn't known.
+	 */
+	protected void notifyListeners( int eventType, S member )
+	{
+		fieldEventBus.publish( eventType, member );
+
+	} // notifyListeners
+
+
+	protected void notifyListeners( int eventType, S member, int fitness )
+	{
+		fieldEventBus.publish( eventType, member, fitness );
+
+	} // notifyListeners
+
+
+	/**
+	 * Publishes an event by its String id. Subclasses should prefer the typed forms,
+	 * which don't need to look the id up.
+	 */
 	protected void notifyListeners( String eventId, Object eventObject )
 	{
-		for ( EvolutionListener listener : fieldListeners )
-			listener.onEvent( eventId, eventObject );
+		fieldEventBus.publish( eventId, eventObject );
 
 	} // notifyListeners
 
 
+	/**
+	 * Reproduces with the given StateManager, into an evicted member if recycling.
+	 */
+	private S reproduce( StateManager<S> stateManager, S mother, S father )
+	{
+		if ( fieldRecyclingPopulation != null && stateManager instanceof RecyclingStateManager )
+			{
+			S target = fieldRecyclingPopulation.recycle( );
+
+			// The best result is kept; anything else is ours.
+			if ( target != null && target != fieldSearchContext.getBestResult( ) )
+				{
+				( ( RecyclingStateManager<S> ) stateManager ).reproduceInto( mother, father, target );
+				return target;
+				}
+			}
+
+		return stateManager.reproduce( mother, father );
+
+	} // reproduce
+
+
 	@Override
 	public void registerListener( EvolutionListener listener )
 	{
-		fieldListeners.add( listener );
+		fieldEventBus.register( listener );
 
 	} // registerListener
 
+
+	/**
+	 * Adds a child to the population and tells the listeners. When operators are chosen
+	 * adaptively, the child is evaluated here, the operators it's tagged with are
+	 * credited, and its fitness is recorded and passed on to the listeners.
+	 */
+	protected void sowChild( S child )
+	{
+		if ( fieldRecords == null )
+			{
+			fieldPopulation.sow( child );
+			notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, child );
+			return;
+			}
+
+		AbstractFitnessEvaluator<S> evaluator = fieldSearchContext.getFitnessEvaluator( );
+		int fitness = evaluator.fitness( child );
+
+		int index = getRecordIndex( child );
+		MemberRecord<S> tag = fieldRecords.get( index );
+		if ( tag != null && tag.fieldMember == child && !tag.isSown( ) )
+			{
+			double reward = 0;
+			if ( evaluator.compareFitness( fitness, tag.fieldParentFitness ) > 0 )
+				reward = Math.abs( ( double ) fitness - tag.fieldParentFitness );
+			fieldReproducers.credit( tag.fieldReproducer, reward );
+			fieldMutators.credit( tag.fieldMutator, reward );
+			}
+		fieldRecords.set( index, new MemberRecord<>( child, fitness, -1, -1, 0 ) );
+
+		fieldPopulation.sow( child );
+		notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, child, fitness );
+
+	} // sowChild
+
 }
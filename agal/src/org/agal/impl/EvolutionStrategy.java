@@ -0,0 +1,267 @@
+/*
+ * EvolutionStrategy.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.lang.reflect.Array;
+import java.util.random.RandomGenerator;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Mutator;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * EvolutionStrategy implements the classic {@code (mu+lambda)} and {@code (mu,lambda)}
+ * evolution strategies. Each generation, {@code lambda} offspring are bred from
+ * {@code mu} parents chosen uniformly at random, mutated with the configured
+ * {@link Mutator}, and evaluated; the {@code mu} best are then kept by truncation
+ * selection. The "plus" variant ({@link Plus}) lets parents compete with their offspring
+ * for survival, while the "comma" variant ({@link Comma}) keeps only offspring, which
+ * requires {@code lambda >= mu}.
+ * <p>
+ * Offspring are bred in batches, which are shared out among all evolving threads (see
+ * {@link AbstractGenerationalAlgorithm}). Each batch is evaluated with a single call to
+ * the bulk {@link AbstractFitnessEvaluator#fitness(Object[])}, so evaluators which
+ * override it will receive {@code batchSize} states at a time. Survivors are chosen with
+ * {@link TruncationSelection} rather than a full sort.
+ * <p>
+ * The strategy is configured through the {@code SearchContext}'s context map before the
+ * algorithm is created. {@code mu} is taken from the population's generation size;
+ * {@link #CONTEXT_KEY_OFFSPRING_COUNT} and {@link #CONTEXT_KEY_BATCH_SIZE} are optional.
+ * The parents are generated with the {@code StateManager} rather than taken from the
+ * population, and the population is otherwise unused, as is the {@code Selector}.
+ * Continuous problems may use {@link SelfAdaptiveVectors} for self-adaptive step sizes.
+ * <p>
+ * EvolutionStrategy is thread safe.
+ * @author David Schmidt
+ */
+public abstract class EvolutionStrategy<S> extends AbstractGenerationalAlgorithm<S>
+{
+	/**
+	 * The {@code (mu,lambda)} strategy. Parents live for exactly one generation.
+	 */
+	public static class Comma<S> extends EvolutionStrategy<S>
+	{
+
+		public Comma( SearchContext<S> searchContext, Selector<S> selector, Mutator<S> mutator )
+		{
+			super( searchContext, mutator, false );
+
+		} // Comma
+
+	} // Comma
+
+	/**
+	 * The {@code (mu+lambda)} strategy. Parents survive for as long as no offspring beats
+	 * them.
+	 */
+	public static class Plus<S> extends EvolutionStrategy<S>
+	{
+
+		public Plus( SearchContext<S> searchContext, Selector<S> selector, Mutator<S> mutator )
+		{
+			super( searchContext, mutator, true );
+
+		} // Plus
+
+	} // Plus
+
+	// Class constants.
+	/**
+	 * Context map key for an {@code Integer} {@code lambda}, the number of offspring bred
+	 * per generation. Defaults to {@code 7 * mu}, the customary ratio.
+	 */
+	public static final String CONTEXT_KEY_OFFSPRING_COUNT = EvolutionStrategy.class.getName( )
+			+ ".offspringCount";
+
+	/**
+	 * Context map key for an {@code Integer} number of offspring to breed and evaluate
+	 * per batch. Smaller batches balance uneven evaluation costs better; larger batches
+	 * reduce coordination and give bulk fitness evaluators more to work with. Defaults to
+	 * {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public static final String CONTEXT_KEY_BATCH_SIZE = EvolutionStrategy.class.getName( )
+			+ ".batchSize";
+
+	public static final int DEFAULT_BATCH_SIZE = 16;
+
+	// Data members.
+	private final boolean fieldPlusSelection;
+	private final int fieldMu;
+	private final int fieldLambda;
+	private final int fieldBatchSize;
+	private final int fieldBatchCount;
+	private final StateManager<S> fieldStateManager;
+	private final AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
+	private final Mutator<S> fieldMutator;
+
+	/**
+	 * Parents occupy {@code [0, mu)} and offspring occupy {@code [mu, mu + lambda)}, so
+	 * that plus selection can consider both without copying.
+	 */
+	private final S[ ] fieldPool;
+	private final int[ ] fieldPoolFitness;
+	private final S[ ][ ] fieldBatches;
+
+	// Replacement scratch space; only touched by completeGeneration.
+	private final int[ ] fieldIndices;
+	private final S[ ] fieldSurvivors;
+	private final int[ ] fieldSurvivorFitness;
+
+
+	@SuppressWarnings( "unchecked" )
+	protected EvolutionStrategy( SearchContext<S> searchContext, Mutator<S> mutator,
+			boolean plusSelection )
+	{
+		super( searchContext );
+
+		fieldPlusSelection = plusSelection;
+		fieldMutator = mutator;
+		fieldStateManager = searchContext.getStateManager( );
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+
+		fieldMu = searchContext.getPopulation( ).getGenerationSize( );
+		fieldLambda = searchContext.getContextInt( CONTEXT_KEY_OFFSPRING_COUNT, 7 * fieldMu );
+		fieldBatchSize = searchContext.getContextInt( CONTEXT_KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE );
+
+		if ( fieldMu < 1 || fieldLambda < 1 || fieldBatchSize < 1 )
+			throw new IllegalArgumentException( "mu, lambda, and the batch size must be positive." );
+		if ( !plusSelection && fieldLambda < fieldMu )
+			throw new IllegalArgumentException( "A (mu,lambda) strategy requires lambda >= mu." );
+
+		// Generate the initial parents. Bulk fitness evaluators may need arrays of the
+		// real state type, so we take it from the first state we see.
+		S first = fieldStateManager.randomize( );
+		Class<?> stateClass = first.getClass( );
+
+		fieldPool = ( S[ ] ) Array.newInstance( stateClass, fieldMu + fieldLambda );
+		fieldPoolFitness = new int[ fieldMu + fieldLambda ];
+		fieldPool[ 0 ] = first;
+		for ( int index = 1; index < fieldMu; index++ )
+			fieldPool[ index ] = fieldStateManager.randomize( );
+		for ( int index = 0; index < fieldMu; index++ )
+			fieldPoolFitness[ index ] = fieldFitnessEvaluator.fitness( fieldPool[ index ] );
+
+		fieldBatchCount = ( fieldLambda + fieldBatchSize - 1 ) / fieldBatchSize;
+		fieldBatches = ( S[ ][ ] ) Array.newInstance( stateClass, fieldBatchCount, 0 );
+		for ( int batch = 0; batch < fieldBatchCount; batch++ )
+			fieldBatches[ batch ] = ( S[ ] ) Array.newInstance( stateClass,
+					Math.min( fieldBatchSize, fieldLambda - batch * fieldBatchSize ) );
+
+		fieldIndices = new int[ fieldMu + fieldLambda ];
+		fieldSurvivors = ( S[ ] ) Array.newInstance( stateClass, fieldMu );
+		fieldSurvivorFitness = new int[ fieldMu ];
+
+	} // EvolutionStrategy
+
+
+	/**
+	 * Selects the {@code mu} survivors by truncation and installs them as the parents of
+	 * the next generation.
+	 */
+	@Override
+	protected void completeGeneration( )
+	{
+		// Comma selection only considers offspring.
+		int first = fieldPlusSelection ? 0 : fieldMu;
+		int length = fieldMu + fieldLambda - first;
+
+		for ( int index = 0; index < length; index++ )
+			fieldIndices[ index ] = first + index;
+
+		TruncationSelection.selectBest( fieldPoolFitness, fieldIndices, length, fieldMu,
+				fieldFitnessEvaluator );
+
+		// Survivors may come from the parent slots they're about to overwrite, so stage
+		// them first.
+		for ( int index = 0; index < fieldMu; index++ )
+			{
+			fieldSurvivors[ index ] = fieldPool[ fieldIndices[ index ] ];
+			fieldSurvivorFitness[ index ] = fieldPoolFitness[ fieldIndices[ index ] ];
+			}
+
+		System.arraycopy( fieldSurvivors, 0, fieldPool, 0, fieldMu );
+		System.arraycopy( fieldSurvivorFitness, 0, fieldPoolFitness, 0, fieldMu );
+
+	} // completeGeneration
+
+
+	@Override
+	protected int getBatchCount( )
+	{
+		return fieldBatchCount;
+
+	} // getBatchCount
+
+
+	/**
+	 * @return an {@code int} indicating the number of offspring ({@code lambda}) bred per
+	 *         generation.
+	 */
+	public int getOffspringCount( )
+	{
+		return fieldLambda;
+
+	} // getOffspringCount
+
+
+	/**
+	 * @return an {@code int} indicating the number of parents ({@code mu}) kept per
+	 *         generation.
+	 */
+	public int getParentCount( )
+	{
+		return fieldMu;
+
+	} // getParentCount
+
+
+	public boolean isPlusSelection( )
+	{
+		return fieldPlusSelection;
+
+	} // isPlusSelection
+
+
+	/**
+	 * Breeds, mutates, and bulk-evaluates one batch of offspring.
+	 */
+	@Override
+	protected void processBatch( int batch )
+	{
+		RandomGenerator random = getSearchContext( ).getGenerator( );
+		S[ ] states = fieldBatches[ batch ];
+
+		for ( int index = 0; index < states.length; index++ )
+			{
+			S mother = fieldPool[ random.nextInt( fieldMu ) ];
+			S father = fieldPool[ random.nextInt( fieldMu ) ];
+			S child = fieldStateManager.reproduce( mother, father );
+
+			for ( int mutationCount = fieldMutator.mutateCount( child ); mutationCount > 0; mutationCount-- )
+				fieldMutator.mutate( child );
+			getSearchContext( ).improve( child );
+
+			states[ index ] = child;
+			}
+
+		Integer[ ] fitnesses = fieldFitnessEvaluator.fitness( states );
+
+		int offset = fieldMu + batch * fieldBatchSize;
+		for ( int index = 0; index < states.length; index++ )
+			{
+			fieldPool[ offset + index ] = states[ index ];
+			fieldPoolFitness[ offset + index ] = fitnesses[ index ];
+			notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, states[ index ],
+					fieldPoolFitness[ offset + index ] );
+			}
+
+	} // processBatch
+
+}
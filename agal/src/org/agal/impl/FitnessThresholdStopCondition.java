@@ -7,16 +7,18 @@
 package org.agal.impl;
 
 import org.agal.core.AbstractFitnessEvaluator;
-import org.agal.core.EvolutionListener;
 import org.agal.core.StopCondition;
+import org.agal.core.TypedEvolutionListener;
 
 /**
  * FitnessThresholdStopCondition will stop evolution only once the population has found an
  * element which surpasses the given fitness threshold. (In other words, it waits for an
- * adequate solution to be found.)
+ * adequate solution to be found.) Where the algorithm reports the fitness of new members,
+ * it's used as is; otherwise each new member is evaluated.
  * @author Dave
  */
-public class FitnessThresholdStopCondition<S> extends StopCondition implements EvolutionListener
+public class FitnessThresholdStopCondition<S> extends StopCondition implements
+		TypedEvolutionListener<S>
 {
 	// Data members.
 	private AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
@@ -36,17 +38,22 @@ public class FitnessThresholdStopCondition<S> extends StopCondition implements E
 
 
 	@Override
-	@SuppressWarnings( "unchecked" )
-	public void onEvent( String eventId, Object eventObject )
+	public int getEventMask( )
 	{
-		if ( EvolutionListener.EVENT_ID_MEMBER_ADDED_TO_POPULATION.equals( eventId ) )
-			{
-			// LAM - Is it safe to assume the things listeners will listen to will always
-			// use this properly? How can we class-verify this with only a type parameter?
-			if ( fieldFitnessEvaluator.getFitnessComparator( ).compare(
-					fieldFitnessEvaluator.fitness( ( S ) eventObject ), fieldFitnessThreshold ) >= 0 )
-				stopEvolution( );
-			}
+		return EVENT_MEMBER_ADDED;
+
+	} // getEventMask
+
+
+	@Override
+	public void onEvent( int eventType, S member, int fitness, boolean fitnessKnown )
+	{
+		if ( !fitnessKnown )
+			fitness = fieldFitnessEvaluator.fitness( member );
+
+		if ( fieldFitnessEvaluator.getFitnessComparator( ).compare( fitness,
+				fieldFitnessThreshold ) >= 0 )
+			stopEvolution( );
 
 	} // onEvent
 
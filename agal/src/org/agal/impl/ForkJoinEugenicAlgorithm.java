@@ -0,0 +1,506 @@
+/*
+ * ForkJoinEugenicAlgorithm.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.EvolutionAlgorithm;
+import org.agal.core.EvolutionEventBus;
+import org.agal.core.EvolutionListener;
+import org.agal.core.Mutator;
+import org.agal.core.Population;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * ForkJoinEugenicAlgorithm is a strictly generational counterpart to
+ * {@link EugenicAlgorithm} which runs on a {@code ForkJoinPool}. Each generation is
+ * processed in two parallel phases separated by a hard generation boundary:
+ * <ol>
+ * <li><b>Breeding:</b> the offspring slots are split recursively among the pool's
+ * workers. Each slot's child is selected, reproduced, mutated, and evaluated by whichever
+ * worker reaches it, and idle workers steal unprocessed halves from busy ones, so uneven
+ * evaluation costs balance out automatically.</li>
+ * <li><b>Replacement:</b> the offspring replace the parents, except that the
+ * {@link #CONTEXT_KEY_ELITE_COUNT} best parents take the places of the worst offspring if
+ * they are better. This is also split recursively, and listeners are notified of each
+ * new member from within it.</li>
+ * </ol>
+ * Since generations never overlap, {@link #getGenerationCount()} is exact.
+ * <p>
+ * Parents are selected by the configured {@link Selector} from a view of the current
+ * generation, which is created with the {@code StateManager} at the population's
+ * generation size rather than taken from the population itself. The search's
+ * {@code Population} is otherwise unused.
+ * <p>
+ * Each offspring slot is bred from a random stream of its own, so a seeded search
+ * produces the same results regardless of parallelism or granularity.
+ * <p>
+ * All parallelism comes from the pool, whose size is given by
+ * {@link #CONTEXT_KEY_PARALLELISM}. Only one thread may drive the algorithm; when used
+ * with an {@code EvolutionControlThread}, it should be given a single worker thread. Any
+ * additional threads calling {@link #evolve()} return immediately. An interrupt is
+ * honored at the next generation boundary, as are the requests of an
+ * {@code EvolutionSearch}; resizing such a search has no effect on the pool.
+ * <p>
+ * ForkJoinEugenicAlgorithm is thread safe.
+ * @author David Schmidt
+ */
+public class ForkJoinEugenicAlgorithm<S> implements EvolutionAlgorithm
+{
+	/**
+	 * Breeds and evaluates the offspring in slots {@code [fieldStart, fieldEnd)}.
+	 */
+	private class BreedTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final int fieldStart;
+		private final int fieldEnd;
+
+
+		public BreedTask( int start, int end )
+		{
+			fieldStart = start;
+			fieldEnd = end;
+
+		} // BreedTask
+
+
+		@Override
+		protected void compute( )
+		{
+			if ( fieldEnd - fieldStart > fieldGranularity )
+				{
+				int middle = ( fieldStart + fieldEnd ) >>> 1;
+				invokeAll( new BreedTask( fieldStart, middle ), new BreedTask( middle, fieldEnd ) );
+				return;
+				}
+
+			List<S> parents = new ArrayList<>( 2 );
+			int generation = fieldGenerationCount;
+			for ( int index = fieldStart; index < fieldEnd; index++ )
+				{
+				// Each slot gets its own stream, so seeded runs don't depend on how the
+				// slots were split up.
+				fieldSearchContext.selectRandomStream( generation, index );
+				fieldSelector.selectParents( fieldCurrentView, parents );
+
+				S child = fieldStateManager.reproduce( parents.get( 0 ), parents.get( 1 ) );
+				for ( int mutationCount = fieldMutator.mutateCount( child ); mutationCount > 0; mutationCount-- )
+					fieldMutator.mutate( child );
+				fieldSearchContext.improve( child );
+
+				fieldOffspring[ index ] = child;
+				fieldOffspringFitness[ index ] = fieldFitnessEvaluator.fitness( child );
+				parents.clear( );
+				}
+
+		} // compute
+
+	} // BreedTask
+
+	/**
+	 * A read-only Population over the current generation, for the Selector's benefit.
+	 */
+	private class CurrentGenerationView implements Population<S>
+	{
+
+		@Override
+		public void destroy( )
+		{
+			// Nothing to do.
+
+		} // destroy
+
+
+		@Override
+		public int getGenerationCount( )
+		{
+			return ForkJoinEugenicAlgorithm.this.getGenerationCount( );
+
+		} // getGenerationCount
+
+
+		@Override
+		public int getGenerationSize( )
+		{
+			return fieldCurrent.length;
+
+		} // getGenerationSize
+
+
+		@Override
+		public void initialize( AbstractFitnessEvaluator<S> fitnessEvaluator,
+				StateManager<S> stateManager, int populationSize )
+		{
+			throw new UnsupportedOperationException( "The current generation is read-only." );
+
+		} // initialize
+
+
+		@Override
+		public void nextGeneration( )
+		{
+			throw new UnsupportedOperationException( "The current generation is read-only." );
+
+		} // nextGeneration
+
+
+		@Override
+		public S reap( )
+		{
+			return sample( );
+
+		} // reap
+
+
+		@Override
+		public S sample( )
+		{
+			return fieldCurrent[ fieldSearchContext.getGenerator( ).nextInt( fieldCurrent.length ) ];
+
+		} // sample
+
+
+		@Override
+		public int size( )
+		{
+			return fieldCurrent.length;
+
+		} // size
+
+
+		@Override
+		public void sow( S member )
+		{
+			throw new UnsupportedOperationException( "The current generation is read-only." );
+
+		} // sow
+
+	} // CurrentGenerationView
+
+	/**
+	 * Evaluates the initial generation in slots {@code [fieldStart, fieldEnd)}.
+	 */
+	private class EvaluateTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final int fieldStart;
+		private final int fieldEnd;
+
+
+		public EvaluateTask( int start, int end )
+		{
+			fieldStart = start;
+			fieldEnd = end;
+
+		} // EvaluateTask
+
+
+		@Override
+		protected void compute( )
+		{
+			if ( fieldEnd - fieldStart > fieldGranularity )
+				{
+				int middle = ( fieldStart + fieldEnd ) >>> 1;
+				invokeAll( new EvaluateTask( fieldStart, middle ), new EvaluateTask( middle,
+						fieldEnd ) );
+				return;
+				}
+
+			for ( int index = fieldStart; index < fieldEnd; index++ )
+				fieldCurrentFitness[ index ] = fieldFitnessEvaluator.fitness( fieldCurrent[ index ] );
+
+		} // compute
+
+	} // EvaluateTask
+
+	/**
+	 * Moves elites into the offspring buffer and announces the new members in slots
+	 * {@code [fieldStart, fieldEnd)}.
+	 */
+	private class ReplaceTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final int fieldStart;
+		private final int fieldEnd;
+
+
+		public ReplaceTask( int start, int end )
+		{
+			fieldStart = start;
+			fieldEnd = end;
+
+		} // ReplaceTask
+
+
+		@Override
+		protected void compute( )
+		{
+			if ( fieldEnd - fieldStart > fieldGranularity )
+				{
+				int middle = ( fieldStart + fieldEnd ) >>> 1;
+				invokeAll( new ReplaceTask( fieldStart, middle ), new ReplaceTask( middle, fieldEnd ) );
+				return;
+				}
+
+			for ( int index = fieldStart; index < fieldEnd; index++ )
+				{
+				int eliteSource = fieldEliteSources[ index ];
+				if ( eliteSource >= 0 )
+					{
+					fieldOffspring[ index ] = fieldCurrent[ eliteSource ];
+					fieldOffspringFitness[ index ] = fieldCurrentFitness[ eliteSource ];
+					fieldEliteSources[ index ] = -1;
+					}
+				else
+					{
+					notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED,
+							fieldOffspring[ index ], fieldOffspringFitness[ index ] );
+					}
+				}
+
+		} // compute
+
+	} // ReplaceTask
+
+	// Class constants.
+	/**
+	 * Context map key for an {@code Integer} number of pool workers. Defaults to the
+	 * number of available processors.
+	 */
+	public static final String CONTEXT_KEY_PARALLELISM = ForkJoinEugenicAlgorithm.class
+			.getName( ) + ".parallelism";
+
+	/**
+	 * Context map key for an {@code Integer} number of the best parents which survive
+	 * into each new generation. Defaults to {@code 1}.
+	 */
+	public static final String CONTEXT_KEY_ELITE_COUNT = ForkJoinEugenicAlgorithm.class
+			.getName( ) + ".eliteCount";
+
+	/**
+	 * Context map key for an {@code Integer} number of slots below which tasks stop
+	 * splitting. Defaults to roughly eight leaf tasks per worker, which leaves enough
+	 * spare tasks to steal without drowning in task overhead.
+	 */
+	public static final String CONTEXT_KEY_GRANULARITY = ForkJoinEugenicAlgorithm.class
+			.getName( ) + ".granularity";
+
+	// Data members.
+	private final EvolutionEventBus<S> fieldEventBus = new EvolutionEventBus<>( );
+	private final AtomicBoolean fieldDriven = new AtomicBoolean( false );
+	private final SearchContext<S> fieldSearchContext;
+	private final StateManager<S> fieldStateManager;
+	private final AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
+	private final Selector<S> fieldSelector;
+	private final Mutator<S> fieldMutator;
+	private final Population<S> fieldCurrentView = new CurrentGenerationView( );
+	private final int fieldParallelism;
+	private final int fieldEliteCount;
+	private final int fieldGranularity;
+	private volatile int fieldGenerationCount = 0;
+	private volatile boolean fieldEvaluated = false;
+
+	// Double-buffered generations. Swapped only between phases.
+	private S[ ] fieldCurrent;
+	private int[ ] fieldCurrentFitness;
+	private S[ ] fieldOffspring;
+	private int[ ] fieldOffspringFitness;
+
+	// Replacement scratch space.
+	private final int[ ] fieldParentIndices;
+	private final int[ ] fieldOffspringIndices;
+	private final int[ ] fieldEliteSources;
+
+
+	/**
+	 * ForkJoinEugenicAlgorithm constructor.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public ForkJoinEugenicAlgorithm( SearchContext<S> searchContext, Selector<S> selector,
+			Mutator<S> mutator )
+	{
+		fieldSearchContext = searchContext;
+		fieldSelector = selector;
+		fieldMutator = mutator;
+		fieldStateManager = searchContext.getStateManager( );
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+
+		int size = searchContext.getPopulation( ).getGenerationSize( );
+		fieldParallelism = searchContext.getContextInt( CONTEXT_KEY_PARALLELISM, Runtime
+				.getRuntime( ).availableProcessors( ) );
+		fieldEliteCount = Math.min( size, searchContext.getContextInt( CONTEXT_KEY_ELITE_COUNT, 1 ) );
+		fieldGranularity = Math.max( 1, searchContext.getContextInt( CONTEXT_KEY_GRANULARITY,
+				size / ( 8 * fieldParallelism ) ) );
+
+		// Bulk fitness evaluators may need arrays of the real state type, so we take it
+		// from the first state we see.
+		S first = fieldStateManager.randomize( );
+		Class<?> stateClass = first.getClass( );
+
+		fieldCurrent = ( S[ ] ) Array.newInstance( stateClass, size );
+		fieldOffspring = ( S[ ] ) Array.newInstance( stateClass, size );
+		fieldCurrentFitness = new int[ size ];
+		fieldOffspringFitness = new int[ size ];
+
+		fieldCurrent[ 0 ] = first;
+		for ( int index = 1; index < size; index++ )
+			fieldCurrent[ index ] = fieldStateManager.randomize( );
+
+		fieldParentIndices = new int[ size ];
+		fieldOffspringIndices = new int[ size ];
+		fieldEliteSources = new int[ size ];
+		Arrays.fill( fieldEliteSources, -1 );
+
+	} // ForkJoinEugenicAlgorithm
+
+
+	/**
+	 * Decides which of the worst offspring slots will be taken over by elite parents.
+	 * Runs sequentially between the two parallel phases; it's {@code O(n)}.
+	 */
+	private void chooseElites( )
+	{
+		int size = fieldCurrent.length;
+
+		for ( int index = 0; index < size; index++ )
+			{
+			fieldParentIndices[ index ] = index;
+			fieldOffspringIndices[ index ] = index;
+			}
+
+		TruncationSelection.selectBest( fieldCurrentFitness, fieldParentIndices, size,
+				fieldEliteCount, fieldFitnessEvaluator );
+		TruncationSelection.selectWorst( fieldOffspringFitness, fieldOffspringIndices, size,
+				fieldEliteCount, fieldFitnessEvaluator );
+
+		// Pair elites with the worst offspring, but only where the elite is actually
+		// better. Neither group is ordered, so pairing is arbitrary but that's fine;
+		// either way the best of both make it through.
+		for ( int index = 0; index < fieldEliteCount; index++ )
+			{
+			int parent = fieldParentIndices[ index ];
+			int child = fieldOffspringIndices[ index ];
+
+			if ( fieldFitnessEvaluator.compareFitness( fieldCurrentFitness[ parent ],
+					fieldOffspringFitness[ child ] ) > 0 )
+				fieldEliteSources[ child ] = parent;
+			}
+
+	} // chooseElites
+
+
+	/**
+	 * Drives generations on a private {@code ForkJoinPool} until interrupted. Only one
+	 * thread may drive the algorithm at a time; others return immediately.
+	 */
+	@Override
+	public void evolve( )
+	{
+		if ( !fieldDriven.compareAndSet( false, true ) )
+			return;
+
+		notifyListeners( TypedEvolutionListener.EVENT_BEGIN_EVOLUTION );
+
+		ForkJoinPool pool = new ForkJoinPool( fieldParallelism );
+		try
+			{
+			if ( !fieldEvaluated )
+				{
+				pool.invoke( new EvaluateTask( 0, fieldCurrent.length ) );
+				fieldEvaluated = true;
+				}
+
+			// Allow interruption (or a managed search) to cancel the thread. A generation
+			// in progress is always completed first.
+			while ( !Thread.interrupted( ) && fieldSearchContext.checkpoint( ) )
+				{
+				pool.invoke( new BreedTask( 0, fieldCurrent.length ) );
+
+				if ( fieldEliteCount > 0 )
+					chooseElites( );
+
+				pool.invoke( new ReplaceTask( 0, fieldCurrent.length ) );
+
+				swapGenerations( );
+				fieldGenerationCount++;
+
+				notifyListeners( TypedEvolutionListener.EVENT_NEW_GENERATION );
+				}
+			}
+		finally
+			{
+			pool.shutdown( );
+			fieldDriven.set( false );
+			}
+
+		notifyListeners( TypedEvolutionListener.EVENT_END_EVOLUTION );
+
+	} // evolve
+
+
+	/**
+	 * @return an {@code int} indicating the number of generations completed so far.
+	 */
+	public int getGenerationCount( )
+	{
+		return fieldGenerationCount;
+
+	} // getGenerationCount
+
+
+	protected void notifyListeners( int eventType )
+	{
+		fieldEventBus.publish( eventType );
+
+	} // notifyListeners
+
+
+	protected void notifyListeners( int eventType, S member, int fitness )
+	{
+		fieldEventBus.publish( eventType, member, fitness );
+
+	} // notifyListeners
+
+
+	@Override
+	public void registerListener( EvolutionListener listener )
+	{
+		fieldEventBus.register( listener );
+
+	} // registerListener
+
+
+	private void swapGenerations( )
+	{
+		S[ ] states = fieldCurrent;
+		fieldCurrent = fieldOffspring;
+		fieldOffspring = states;
+
+		int[ ] fitnesses = fieldCurrentFitness;
+		fieldCurrentFitness = fieldOffspringFitness;
+		fieldOffspringFitness = fitnesses;
+
+	} // swapGenerations
+
+}
@@ -0,0 +1,316 @@
+/*
+ * IntSequence.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+
+/**
+ * IntSequence is a variable-length genome of {@code int}s, such as a list of
+ * instructions or a schedule. It's stored in an {@code int[ ]} with room to spare, which
+ * grows by half again whenever it fills, so a run of insertions costs amortized constant
+ * time per element; every structural change moves the elements after it with a single
+ * {@code System.arraycopy}, and nothing is boxed. Operators for it, including the
+ * structural mutations which change its length, are supplied by {@link IntSequences}.
+ * <p>
+ * The backing array is exposed directly for efficiency (see {@link #getValues()}); only
+ * the first {@link #getLength()} elements are part of the sequence.
+ * <p>
+ * Operators provided by this library only modify freshly reproduced children, never a
+ * state which may already be shared with other threads; custom operators should do the
+ * same.
+ * @author David Schmidt
+ */
+public final class IntSequence
+{
+	// Class constants.
+	private static final int MINIMUM_CAPACITY = 8;
+
+	// Data members.
+	private int[ ] fieldValues;
+	private int fieldLength;
+
+
+	/**
+	 * Constructs an empty IntSequence.
+	 * @param capacity an int indicating the number of elements to make room for.
+	 */
+	public IntSequence( int capacity )
+	{
+		fieldValues = new int[ Math.max( capacity, MINIMUM_CAPACITY ) ];
+
+	} // IntSequence
+
+
+	/**
+	 * Constructs an IntSequence holding a copy of the given values.
+	 */
+	public IntSequence( int[ ] values )
+	{
+		this( values.length );
+
+		System.arraycopy( values, 0, fieldValues, 0, values.length );
+		fieldLength = values.length;
+
+	} // IntSequence
+
+
+	/**
+	 * Appends part of an array.
+	 */
+	public void append( int[ ] values, int offset, int count )
+	{
+		insert( fieldLength, values, offset, count );
+
+	} // append
+
+
+	private void checkRange( int offset, int count )
+	{
+		if ( offset < 0 || count < 0 || offset > fieldLength - count )
+			throw new IndexOutOfBoundsException( "Range " + offset + " + " + count + " of "
+					+ fieldLength );
+
+	} // checkRange
+
+
+	/**
+	 * Empties the sequence, keeping its capacity.
+	 */
+	public void clear( )
+	{
+		fieldLength = 0;
+
+	} // clear
+
+
+	/**
+	 * Inserts a copy of part of this sequence at the given index, which may lie within
+	 * the part copied.
+	 * @param offset the index of the first element to copy.
+	 * @param count the number of elements to copy.
+	 * @param index the index at which the copy is to start.
+	 */
+	public void duplicate( int offset, int count, int index )
+	{
+		checkRange( offset, count );
+		checkRange( index, 0 );
+
+		openGap( index, count );
+
+		// Whatever of the source followed the gap has moved along past it.
+		if ( offset >= index )
+			System.arraycopy( fieldValues, offset + count, fieldValues, index, count );
+		else if ( offset + count <= index )
+			System.arraycopy( fieldValues, offset, fieldValues, index, count );
+		else
+			{
+			int before = index - offset;
+			System.arraycopy( fieldValues, offset, fieldValues, index, before );
+			System.arraycopy( fieldValues, index + count, fieldValues, index + before, count
+					- before );
+			}
+
+	} // duplicate
+
+
+	/**
+	 * Makes sure the sequence can grow to the given length without reallocating.
+	 */
+	public void ensureCapacity( int capacity )
+	{
+		if ( capacity > fieldValues.length )
+			fieldValues = Arrays.copyOf( fieldValues, Math.max( capacity, fieldValues.length
+					+ ( fieldValues.length >> 1 ) ) );
+
+	} // ensureCapacity
+
+
+	@Override
+	public boolean equals( Object other )
+	{
+		if ( !( other instanceof IntSequence ) )
+			return false;
+
+		IntSequence sequence = ( IntSequence ) other;
+		return Arrays.equals( fieldValues, 0, fieldLength, sequence.fieldValues, 0,
+				sequence.fieldLength );
+
+	} // equals
+
+
+	public int get( int index )
+	{
+		checkRange( index, 1 );
+		return fieldValues[ index ];
+
+	} // get
+
+
+	public int getLength( )
+	{
+		return fieldLength;
+
+	} // getLength
+
+
+	/**
+	 * @return the backing array, whose first {@link #getLength()} elements are the
+	 *         sequence. It's replaced whenever the sequence outgrows it.
+	 */
+	public int[ ] getValues( )
+	{
+		return fieldValues;
+
+	} // getValues
+
+
+	@Override
+	public int hashCode( )
+	{
+		int hash = 1;
+		for ( int index = 0; index < fieldLength; index++ )
+			hash = 31 * hash + fieldValues[ index ];
+
+		return hash;
+
+	} // hashCode
+
+
+	/**
+	 * Inserts part of an array at the given index.
+	 */
+	public void insert( int index, int[ ] values, int offset, int count )
+	{
+		checkRange( index, 0 );
+		if ( offset < 0 || count < 0 || offset > values.length - count )
+			throw new IndexOutOfBoundsException( "Range " + offset + " + " + count + " of "
+					+ values.length );
+
+		openGap( index, count );
+		System.arraycopy( values, offset, fieldValues, index, count );
+
+	} // insert
+
+
+	/**
+	 * Moves part of the sequence to another place in it, without allocating.
+	 * @param offset the index of the first element to move.
+	 * @param count the number of elements to move.
+	 * @param index the index at which the moved part is to start, once it's been taken
+	 *            out; in {@code [0, length - count]}.
+	 */
+	public void move( int offset, int count, int index )
+	{
+		checkRange( offset, count );
+		checkRange( index, count );
+
+		// Moving a part is rotating the span from where it is to where it goes, which
+		// three reversals do in place.
+		if ( index < offset )
+			rotate( index, offset, offset + count );
+		else if ( index > offset )
+			rotate( offset, offset + count, index + count );
+
+	} // move
+
+
+	/**
+	 * Makes room for the given number of elements at the given index, leaving them
+	 * unspecified.
+	 */
+	private void openGap( int index, int count )
+	{
+		ensureCapacity( fieldLength + count );
+		System.arraycopy( fieldValues, index, fieldValues, index + count, fieldLength - index );
+		fieldLength += count;
+
+	} // openGap
+
+
+	/**
+	 * Removes part of the sequence.
+	 */
+	public void remove( int offset, int count )
+	{
+		checkRange( offset, count );
+
+		System.arraycopy( fieldValues, offset + count, fieldValues, offset, fieldLength
+				- offset - count );
+		fieldLength -= count;
+
+	} // remove
+
+
+	/**
+	 * Reverses part of the sequence.
+	 */
+	public void reverse( int offset, int count )
+	{
+		checkRange( offset, count );
+
+		for ( int low = offset, high = offset + count - 1; low < high; low++, high-- )
+			{
+			int swap = fieldValues[ low ];
+			fieldValues[ low ] = fieldValues[ high ];
+			fieldValues[ high ] = swap;
+			}
+
+	} // reverse
+
+
+	/**
+	 * Swaps the spans {@code [start, middle)} and {@code [middle, end)}.
+	 */
+	private void rotate( int start, int middle, int end )
+	{
+		reverse( start, middle - start );
+		reverse( middle, end - middle );
+		reverse( start, end - start );
+
+	} // rotate
+
+
+	public void set( int index, int value )
+	{
+		checkRange( index, 1 );
+		fieldValues[ index ] = value;
+
+	} // set
+
+
+	/**
+	 * Sets the length of the sequence. Elements added at the end are unspecified.
+	 */
+	public void setLength( int length )
+	{
+		if ( length < 0 )
+			throw new IllegalArgumentException( "The length mustn't be negative." );
+
+		ensureCapacity( length );
+		fieldLength = length;
+
+	} // setLength
+
+
+	/**
+	 * @return a new array holding the sequence.
+	 */
+	public int[ ] toArray( )
+	{
+		return Arrays.copyOf( fieldValues, fieldLength );
+
+	} // toArray
+
+
+	@Override
+	public String toString( )
+	{
+		return Arrays.toString( toArray( ) );
+
+	} // toString
+
+}
@@ -0,0 +1,589 @@
+/*
+ * IntSequences.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.random.RandomGenerator;
+
+import org.agal.core.Crossover;
+import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.RecyclingStateManager;
+import org.agal.core.SearchContext;
+import org.agal.core.StateManager;
+
+/**
+ * IntSequences is a static utility class which provides the standard operators for
+ * variable-length {@link IntSequence} genomes. The structural mutators each make one
+ * change per {@code mutate} call, to a random segment of up to a given number of
+ * elements, and mutate as often as {@link AbstractBiasedMutator} says:
+ * <ul>
+ * <li>insertion adds a segment of random values;</li>
+ * <li>deletion removes a segment;</li>
+ * <li>duplication inserts a copy of a segment at a random place;</li>
+ * <li>inversion reverses a segment in place; and</li>
+ * <li>translocation moves a segment to a random place, in place.</li>
+ * </ul>
+ * Insertion, deletion, and duplication keep sequences within the lengths they're given,
+ * doing nothing when a change would leave them. There's also a point mutator, which
+ * sets random elements to random values. Several of these are best combined through an
+ * {@code EugenicAlgorithm}'s adaptive mutator portfolio.
+ * <p>
+ * The crossovers take the length of the child into account: cut-and-splice joins the
+ * head of the mother to the tail of the father at independent cut points, so the child's
+ * length may differ from both, while homologous one-point crossover cuts the father at
+ * the same relative position as the mother, keeping the child's length between theirs.
+ * Both size the child themselves, ignoring the length it comes in with.
+ * <p>
+ * All operators acquired herein are thread-safe.
+ * @author David Schmidt
+ */
+public class IntSequences
+{
+	/**
+	 * Joins the mother's head to the father's tail at independent cuts.
+	 */
+	private static final class CutAndSpliceCrossover implements Crossover<IntSequence>
+	{
+		// Data members.
+		private final int fieldMaximumLength;
+
+
+		public CutAndSpliceCrossover( int maximumLength )
+		{
+			fieldMaximumLength = maximumLength;
+
+		} // CutAndSpliceCrossover
+
+
+		@Override
+		public void cross( IntSequence mother, IntSequence father, IntSequence child,
+				RandomGenerator random )
+		{
+			int motherCut = random.nextInt( mother.getLength( ) + 1 );
+			int fatherCut = random.nextInt( father.getLength( ) + 1 );
+
+			splice( mother, motherCut, father, fatherCut, child, fieldMaximumLength );
+
+		} // cross
+
+	} // CutAndSpliceCrossover
+
+	/**
+	 * Removes a segment.
+	 */
+	private static final class DeletionMutator extends SegmentMutator
+	{
+		// Data members.
+		private final int fieldMinimumLength;
+
+
+		public DeletionMutator( SearchContext<IntSequence> searchContext,
+				int maximumSegmentLength, int minimumLength )
+		{
+			super( searchContext, maximumSegmentLength );
+
+			fieldMinimumLength = minimumLength;
+
+		} // DeletionMutator
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			int count = segmentLength( random, state.getLength( ) - fieldMinimumLength );
+			if ( count == 0 )
+				return;
+
+			state.remove( random.nextInt( state.getLength( ) - count + 1 ), count );
+
+		} // mutate
+
+	} // DeletionMutator
+
+	/**
+	 * Inserts a copy of a segment at a random place.
+	 */
+	private static final class DuplicationMutator extends SegmentMutator
+	{
+		// Data members.
+		private final int fieldMaximumLength;
+
+
+		public DuplicationMutator( SearchContext<IntSequence> searchContext,
+				int maximumSegmentLength, int maximumLength )
+		{
+			super( searchContext, maximumSegmentLength );
+
+			fieldMaximumLength = maximumLength;
+
+		} // DuplicationMutator
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			int length = state.getLength( );
+			int count = segmentLength( random, Math.min( length, fieldMaximumLength - length ) );
+			if ( count == 0 )
+				return;
+
+			state.duplicate( random.nextInt( length - count + 1 ), count, random
+					.nextInt( length + 1 ) );
+
+		} // mutate
+
+	} // DuplicationMutator
+
+	/**
+	 * Cuts the father at the mother's relative cut point.
+	 */
+	private static final class HomologousCrossover implements Crossover<IntSequence>
+	{
+		@Override
+		public void cross( IntSequence mother, IntSequence father, IntSequence child,
+				RandomGenerator random )
+		{
+			int motherLength = mother.getLength( );
+			int motherCut = random.nextInt( motherLength + 1 );
+			int fatherCut = ( motherLength == 0 ) ? 0 : ( int ) ( ( long ) motherCut
+					* father.getLength( ) / motherLength );
+
+			splice( mother, motherCut, father, fatherCut, child, Integer.MAX_VALUE );
+
+		} // cross
+
+	} // HomologousCrossover
+
+	/**
+	 * Inserts a segment of random values.
+	 */
+	private static final class InsertionMutator extends SegmentMutator
+	{
+		// Data members.
+		private final int fieldValueRange;
+		private final int fieldMaximumLength;
+
+
+		public InsertionMutator( SearchContext<IntSequence> searchContext, int valueRange,
+				int maximumSegmentLength, int maximumLength )
+		{
+			super( searchContext, maximumSegmentLength );
+
+			fieldValueRange = valueRange;
+			fieldMaximumLength = maximumLength;
+
+		} // InsertionMutator
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			int length = state.getLength( );
+			int count = segmentLength( random, fieldMaximumLength - length );
+			if ( count == 0 )
+				return;
+
+			// Lengthen, shift the tail along, and fill the gap.
+			int index = random.nextInt( length + 1 );
+			state.setLength( length + count );
+			int[ ] values = state.getValues( );
+			System.arraycopy( values, index, values, index + count, length - index );
+			for ( int position = index; position < index + count; position++ )
+				values[ position ] = random.nextInt( fieldValueRange );
+
+		} // mutate
+
+	} // InsertionMutator
+
+	/**
+	 * Adapts a Crossover on IntSequences into a StateManager for them.
+	 */
+	private static final class IntSequenceStateManager implements
+			RecyclingStateManager<IntSequence>, RandomSourceAware
+	{
+		// Data members.
+		private final Crossover<IntSequence> fieldCrossover;
+		private final int fieldMinimumLength;
+		private final int fieldMaximumLength;
+		private final int fieldValueRange;
+		private RandomSource fieldRandomSource;
+
+
+		public IntSequenceStateManager( Crossover<IntSequence> crossover, int minimumLength,
+				int maximumLength, int valueRange )
+		{
+			if ( minimumLength < 0 || maximumLength < minimumLength || valueRange < 1 )
+				throw new IllegalArgumentException(
+						"The lengths must be in order, and the value range must be positive." );
+
+			fieldCrossover = crossover;
+			fieldMinimumLength = minimumLength;
+			fieldMaximumLength = maximumLength;
+			fieldValueRange = valueRange;
+
+		} // IntSequenceStateManager
+
+
+		@Override
+		public IntSequence randomize( )
+		{
+			RandomGenerator random = RandomSource.generatorOf( fieldRandomSource );
+			int length = fieldMinimumLength
+					+ random.nextInt( fieldMaximumLength - fieldMinimumLength + 1 );
+			IntSequence state = new IntSequence( length );
+			state.setLength( length );
+
+			int[ ] values = state.getValues( );
+			for ( int index = 0; index < length; index++ )
+				values[ index ] = random.nextInt( fieldValueRange );
+
+			return state;
+
+		} // randomize
+
+
+		@Override
+		public IntSequence reproduce( IntSequence mother, IntSequence father )
+		{
+			IntSequence child = new IntSequence( Math.max( mother.getLength( ), father
+					.getLength( ) ) );
+			fieldCrossover.cross( mother, father, child, RandomSource.generatorOf( fieldRandomSource ) );
+
+			return child;
+
+		} // reproduce
+
+
+		@Override
+		public void reproduceInto( IntSequence mother, IntSequence father, IntSequence target )
+		{
+			fieldCrossover.cross( mother, father, target, RandomSource.generatorOf( fieldRandomSource ) );
+
+		} // reproduceInto
+
+
+		@Override
+		public void setRandomSource( RandomSource randomSource )
+		{
+			fieldRandomSource = randomSource;
+
+		} // setRandomSource
+
+	} // IntSequenceStateManager
+
+	/**
+	 * Reverses a segment.
+	 */
+	private static final class InversionMutator extends SegmentMutator
+	{
+		public InversionMutator( SearchContext<IntSequence> searchContext,
+				int maximumSegmentLength )
+		{
+			super( searchContext, maximumSegmentLength );
+
+		} // InversionMutator
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			int length = state.getLength( );
+			int count = segmentLength( random, length );
+			if ( count < 2 )
+				return;
+
+			state.reverse( random.nextInt( length - count + 1 ), count );
+
+		} // mutate
+
+	} // InversionMutator
+
+	/**
+	 * Sets random elements to random values.
+	 */
+	private static final class PointMutator extends AbstractPointMutator<IntSequence>
+	{
+		// Data members.
+		private final int fieldValueRange;
+
+
+		public PointMutator( SearchContext<IntSequence> searchContext, int valueRange )
+		{
+			super( searchContext );
+
+			fieldValueRange = valueRange;
+
+		} // PointMutator
+
+
+		@Override
+		protected int getLength( IntSequence state )
+		{
+			return state.getLength( );
+
+		} // getLength
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			// There's nothing to mutate in an empty sequence.
+			if ( state.getLength( ) > 0 )
+				super.mutate( state );
+
+		} // mutate
+
+
+		@Override
+		protected void updatePoint( IntSequence state, int position )
+		{
+			updatePoint( state, position, getSearchContext( ).getRandomBuffer( ) );
+
+		} // updatePoint
+
+
+		@Override
+		protected void updatePoint( IntSequence state, int position, RandomBuffer random )
+		{
+			state.getValues( )[ position ] = random.nextInt( fieldValueRange );
+
+		} // updatePoint
+
+	} // PointMutator
+
+	/**
+	 * A base for the structural mutators, which change segments of random length.
+	 */
+	private static abstract class SegmentMutator extends AbstractBiasedMutator<IntSequence>
+	{
+		// Data members.
+		private final int fieldMaximumSegmentLength;
+
+
+		public SegmentMutator( SearchContext<IntSequence> searchContext,
+				int maximumSegmentLength )
+		{
+			super( searchContext );
+
+			if ( maximumSegmentLength < 1 )
+				throw new IllegalArgumentException( "The maximum segment length must be positive." );
+
+			fieldMaximumSegmentLength = maximumSegmentLength;
+
+		} // SegmentMutator
+
+
+		/**
+		 * @return a segment length in {@code [1, min(maximum segment length, limit)]}, or
+		 *         0 if the limit is below 1.
+		 */
+		protected final int segmentLength( RandomBuffer random, int limit )
+		{
+			int maximum = Math.min( fieldMaximumSegmentLength, limit );
+			return ( maximum < 1 ) ? 0 : 1 + random.nextInt( maximum );
+
+		} // segmentLength
+
+	} // SegmentMutator
+
+	/**
+	 * Moves a segment to a random place.
+	 */
+	private static final class TranslocationMutator extends SegmentMutator
+	{
+		public TranslocationMutator( SearchContext<IntSequence> searchContext,
+				int maximumSegmentLength )
+		{
+			super( searchContext, maximumSegmentLength );
+
+		} // TranslocationMutator
+
+
+		@Override
+		public void mutate( IntSequence state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			int length = state.getLength( );
+			int count = segmentLength( random, length - 1 );
+			if ( count == 0 )
+				return;
+
+			state.move( random.nextInt( length - count + 1 ), count, random.nextInt( length
+					- count + 1 ) );
+
+		} // mutate
+
+	} // TranslocationMutator
+
+	// Class constants.
+	private static final Crossover<IntSequence> HOMOLOGOUS = new HomologousCrossover( );
+
+
+	/**
+	 * @param maximumLength an int capping the length of the children, which are cut short
+	 *            if need be. Without a cap, repeated crossover tends to bloat.
+	 * @return a cut-and-splice crossover, which joins the head of the mother to the tail
+	 *         of the father, cutting each at an independently random point.
+	 */
+	public static Crossover<IntSequence> getCutAndSpliceCrossover( int maximumLength )
+	{
+		return new CutAndSpliceCrossover( maximumLength );
+
+	} // getCutAndSpliceCrossover
+
+
+	/**
+	 * Creates and returns a Mutator which removes a random segment of a sequence.
+	 * @param searchContext the SearchContext in use.
+	 * @param maximumSegmentLength a positive int indicating the longest segment to remove.
+	 * @param minimumLength an int below which sequences aren't shortened.
+	 */
+	public static Mutator<IntSequence> getDeletionMutator(
+			SearchContext<IntSequence> searchContext, int maximumSegmentLength,
+			int minimumLength )
+	{
+		return new DeletionMutator( searchContext, maximumSegmentLength, minimumLength );
+
+	} // getDeletionMutator
+
+
+	/**
+	 * Creates and returns a Mutator which inserts a copy of a random segment of a sequence
+	 * at a random place in it.
+	 * @param searchContext the SearchContext in use.
+	 * @param maximumSegmentLength a positive int indicating the longest segment to copy.
+	 * @param maximumLength an int beyond which sequences aren't lengthened.
+	 */
+	public static Mutator<IntSequence> getDuplicationMutator(
+			SearchContext<IntSequence> searchContext, int maximumSegmentLength,
+			int maximumLength )
+	{
+		return new DuplicationMutator( searchContext, maximumSegmentLength, maximumLength );
+
+	} // getDuplicationMutator
+
+
+	/**
+	 * @return a homologous one-point crossover, which cuts the father at the same relative
+	 *         position as the mother, so the child's length is between the parents'.
+	 */
+	public static Crossover<IntSequence> getHomologousCrossover( )
+	{
+		return HOMOLOGOUS;
+
+	} // getHomologousCrossover
+
+
+	/**
+	 * Creates and returns a Mutator which inserts a segment of random values in
+	 * {@code [0, valueRange)} at a random place in a sequence.
+	 * @param searchContext the SearchContext in use.
+	 * @param valueRange a positive int bounding the values inserted.
+	 * @param maximumSegmentLength a positive int indicating the longest segment to insert.
+	 * @param maximumLength an int beyond which sequences aren't lengthened.
+	 */
+	public static Mutator<IntSequence> getInsertionMutator(
+			SearchContext<IntSequence> searchContext, int valueRange, int maximumSegmentLength,
+			int maximumLength )
+	{
+		if ( valueRange < 1 )
+			throw new IllegalArgumentException( "The value range must be positive." );
+
+		return new InsertionMutator( searchContext, valueRange, maximumSegmentLength,
+				maximumLength );
+
+	} // getInsertionMutator
+
+
+	/**
+	 * Creates and returns a Mutator which reverses a random segment of a sequence.
+	 * @param searchContext the SearchContext in use.
+	 * @param maximumSegmentLength a positive int indicating the longest segment to reverse.
+	 */
+	public static Mutator<IntSequence> getInversionMutator(
+			SearchContext<IntSequence> searchContext, int maximumSegmentLength )
+	{
+		return new InversionMutator( searchContext, maximumSegmentLength );
+
+	} // getInversionMutator
+
+
+	/**
+	 * Creates and returns a point Mutator for sequences, which sets a random element to a
+	 * random value in {@code [0, valueRange)} per mutation, as the array mutators in
+	 * {@link PointMutators} do.
+	 * @param searchContext the SearchContext in use.
+	 * @param valueRange a positive int bounding the values.
+	 */
+	public static Mutator<IntSequence> getPointMutator( SearchContext<IntSequence> searchContext,
+			int valueRange )
+	{
+		if ( valueRange < 1 )
+			throw new IllegalArgumentException( "The value range must be positive." );
+
+		return new PointMutator( searchContext, valueRange );
+
+	} // getPointMutator
+
+
+	/**
+	 * Creates and returns a StateManager for IntSequences, which randomizes them with
+	 * uniform lengths and values, and reproduces with the given Crossover.
+	 * @param crossover an IntSequence Crossover, such as {@link #getHomologousCrossover()}.
+	 * @param minimumLength the shortest random sequence.
+	 * @param maximumLength the longest random sequence.
+	 * @param valueRange a positive int bounding the random values.
+	 * @throws IllegalArgumentException if the lengths are out of order or negative, or the
+	 *             value range isn't positive.
+	 */
+	public static StateManager<IntSequence> getStateManager( Crossover<IntSequence> crossover,
+			int minimumLength, int maximumLength, int valueRange )
+			throws IllegalArgumentException
+	{
+		return new IntSequenceStateManager( crossover, minimumLength, maximumLength, valueRange );
+
+	} // getStateManager
+
+
+	/**
+	 * Creates and returns a Mutator which moves a random segment of a sequence to a
+	 * random place in it.
+	 * @param searchContext the SearchContext in use.
+	 * @param maximumSegmentLength a positive int indicating the longest segment to move.
+	 */
+	public static Mutator<IntSequence> getTranslocationMutator(
+			SearchContext<IntSequence> searchContext, int maximumSegmentLength )
+	{
+		return new TranslocationMutator( searchContext, maximumSegmentLength );
+
+	} // getTranslocationMutator
+
+
+	/**
+	 * Fills the child with the mother's elements before her cut followed by the father's
+	 * from his, up to the maximum length.
+	 */
+	private static void splice( IntSequence mother, int motherCut, IntSequence father,
+			int fatherCut, IntSequence child, int maximumLength )
+	{
+		int head = Math.min( motherCut, maximumLength );
+		int tail = Math.min( father.getLength( ) - fatherCut, maximumLength - head );
+
+		child.setLength( head + tail );
+		int[ ] values = child.getValues( );
+		System.arraycopy( mother.getValues( ), 0, values, 0, head );
+		System.arraycopy( father.getValues( ), fatherCut, values, head, tail );
+
+	} // splice
+
+}
@@ -0,0 +1,351 @@
+/*
+ * OperatorPortfolio.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.agal.core.RandomBuffer;
+
+/**
+ * OperatorPortfolio is a set of interchangeable operators of type {@code T} (such as
+ * reproducing {@code StateManager}s or {@code Mutator}s), one of which is chosen at random
+ * for each use, with probabilities adapted to how well each has been doing. This is
+ * adaptive operator selection: whoever applies an operator reports back the reward it
+ * earned (usually the child's fitness improvement over its parents) with
+ * {@link #credit(int, double)}, and a bandit {@link Policy} turns each operator's
+ * estimated quality (an exponential moving average of its mean reward) into the
+ * probability of choosing it. Every operator keeps at least a small probability, so that
+ * one which becomes useful later in the search is noticed.
+ * <p>
+ * The bookkeeping is built to scale with the number of threads. Uses and rewards are
+ * accumulated in striped counters ({@code LongAdder} and {@code DoubleAdder}), so
+ * crediting never contends, and the probabilities are recomputed only after each thread
+ * has given {@link #UPDATE_INTERVAL} credits, by whichever thread wins the right to;
+ * others carry on with the probabilities already published. Choosing an operator reads a
+ * single volatile snapshot. Since the counters are folded in while other threads add to
+ * them, a credit can occasionally be counted an update early or late; the estimates are
+ * only approximate anyway.
+ * <p>
+ * Because the updates happen whenever threads reach them, a search using an adaptive
+ * portfolio is only reproducible with a single thread.
+ * <p>
+ * OperatorPortfolio is thread safe.
+ * @author David Schmidt
+ */
+public class OperatorPortfolio<T>
+{
+	/**
+	 * The bandit policies for turning the operators' qualities into probabilities. With
+	 * {@code K} operators, each has a probability of at least {@code 0.2 / K}.
+	 * <ul>
+	 * <li>Probability matching gives each operator a probability, beyond the minimum, in
+	 * proportion to its quality.</li>
+	 * <li>Adaptive pursuit (Thierens) moves the probabilities part way toward giving the
+	 * best operator all the rest, so it reacts quickly when another operator takes the
+	 * lead, without swinging wildly on noise.</li>
+	 * <li>The UCB1 upper confidence bound gives the rest to the operator whose quality
+	 * (scaled to the best operator's) plus {@code sqrt(2 ln N / n)} is highest, where
+	 * {@code n} is the number of times it's been credited and {@code N} is the number of
+	 * credits in all, so that rarely tried operators get another chance.</li>
+	 * </ul>
+	 */
+	public enum Policy
+	{
+		PROBABILITY_MATCHING, ADAPTIVE_PURSUIT, UPPER_CONFIDENCE_BOUND;
+
+	} // Policy
+
+	// Class constants.
+	/**
+	 * The number of credits each thread gives between updates of the probabilities.
+	 */
+	public static final int UPDATE_INTERVAL = 64;
+
+	// The share of the probability spread evenly over every operator.
+	private static final double MINIMUM_SHARE = 0.2;
+
+	// The weight of the latest rewards in the quality estimates.
+	private static final double ADAPTATION_RATE = 0.3;
+
+	// How far adaptive pursuit moves toward the best operator per update.
+	private static final double PURSUIT_RATE = 0.3;
+
+	// Data members.
+	private final List<T> fieldOperators;
+	private final Policy fieldPolicy;
+	private final double fieldMinimumProbability;
+	private final LongAdder[ ] fieldUses;
+	private final LongAdder[ ] fieldCredits;
+	private final DoubleAdder[ ] fieldRewards;
+	private final ThreadLocal<int[ ]> fieldCountdown = ThreadLocal
+			.withInitial( ( ) -> new int[ ] { UPDATE_INTERVAL } );
+
+	// Written only by the thread holding fieldUpdating.
+	private final AtomicBoolean fieldUpdating = new AtomicBoolean( false );
+	private final double[ ] fieldQualities;
+	private final long[ ] fieldCreditTotals;
+	private final double[ ] fieldProbabilities;
+
+	// A fresh array of the cumulative probabilities is published on each update.
+	private volatile double[ ] fieldCumulative;
+
+
+	/**
+	 * OperatorPortfolio constructor. Every operator starts out equally likely.
+	 * @param operators a non-empty {@code List} of operators, which is copied.
+	 * @param policy the Policy with which to adapt the probabilities.
+	 * @throws IllegalArgumentException if there are no operators.
+	 */
+	public OperatorPortfolio( List<? extends T> operators, Policy policy )
+	{
+		if ( operators.isEmpty( ) )
+			throw new IllegalArgumentException( "There must be at least one operator." );
+
+		fieldOperators = Collections.unmodifiableList( new ArrayList<T>( operators ) );
+		fieldPolicy = policy;
+
+		int count = fieldOperators.size( );
+		fieldMinimumProbability = MINIMUM_SHARE / count;
+		fieldUses = new LongAdder[ count ];
+		fieldCredits = new LongAdder[ count ];
+		fieldRewards = new DoubleAdder[ count ];
+		for ( int index = 0; index < count; index++ )
+			{
+			fieldUses[ index ] = new LongAdder( );
+			fieldCredits[ index ] = new LongAdder( );
+			fieldRewards[ index ] = new DoubleAdder( );
+			}
+
+		fieldQualities = new double[ count ];
+		fieldCreditTotals = new long[ count ];
+		fieldProbabilities = new double[ count ];
+		Arrays.fill( fieldProbabilities, 1.0 / count );
+		publish( );
+
+	} // OperatorPortfolio
+
+
+	/**
+	 * Moves every probability toward the minimum, except the given operator's, which moves
+	 * toward the rest.
+	 */
+	private void concentrate( int best, double rate )
+	{
+		double maximum = 1 - ( fieldProbabilities.length - 1 ) * fieldMinimumProbability;
+		for ( int index = 0; index < fieldProbabilities.length; index++ )
+			{
+			double target = ( index == best ) ? maximum : fieldMinimumProbability;
+			fieldProbabilities[ index ] += rate * ( target - fieldProbabilities[ index ] );
+			}
+
+	} // concentrate
+
+
+	/**
+	 * Credits an operator with the reward earned by one use of it. Rewards should not be
+	 * negative; a use which did no good earns 0.
+	 * @param index the index of the operator, as returned by {@link #select(RandomBuffer)}.
+	 * @param reward a {@code double} indicating the reward.
+	 */
+	public void credit( int index, double reward )
+	{
+		fieldRewards[ index ].add( reward );
+		fieldCredits[ index ].increment( );
+
+		int[ ] countdown = fieldCountdown.get( );
+		if ( --countdown[ 0 ] <= 0 )
+			{
+			countdown[ 0 ] = UPDATE_INTERVAL;
+			update( );
+			}
+
+	} // credit
+
+
+	public T get( int index )
+	{
+		return fieldOperators.get( index );
+
+	} // get
+
+
+	public int getOperatorCount( )
+	{
+		return fieldOperators.size( );
+
+	} // getOperatorCount
+
+
+	public List<T> getOperators( )
+	{
+		return fieldOperators;
+
+	} // getOperators
+
+
+	public Policy getPolicy( )
+	{
+		return fieldPolicy;
+
+	} // getPolicy
+
+
+	/**
+	 * @return the probability with which the given operator is currently chosen.
+	 */
+	public double getProbability( int index )
+	{
+		double[ ] cumulative = fieldCumulative;
+		return cumulative[ index ] - ( ( index > 0 ) ? cumulative[ index - 1 ] : 0 );
+
+	} // getProbability
+
+
+	/**
+	 * @return the number of times the given operator has been chosen.
+	 */
+	public long getUseCount( int index )
+	{
+		return fieldUses[ index ].sum( );
+
+	} // getUseCount
+
+
+	private void publish( )
+	{
+		double[ ] cumulative = new double[ fieldProbabilities.length ];
+		double total = 0;
+		for ( int index = 0; index < cumulative.length; index++ )
+			{
+			total += fieldProbabilities[ index ];
+			cumulative[ index ] = total;
+			}
+
+		fieldCumulative = cumulative;
+
+	} // publish
+
+
+	/**
+	 * Chooses an operator according to the current probabilities. If there's only one,
+	 * no random number is drawn.
+	 * @param random the calling thread's RandomBuffer.
+	 * @return the index of the chosen operator.
+	 */
+	public int select( RandomBuffer random )
+	{
+		int index = 0;
+
+		double[ ] cumulative = fieldCumulative;
+		if ( cumulative.length > 1 )
+			{
+			// Scaled by the total, in case rounding left it a little short of 1.
+			double draw = random.nextDouble( ) * cumulative[ cumulative.length - 1 ];
+			while ( index < cumulative.length - 1 && draw >= cumulative[ index ] )
+				index++;
+			}
+
+		fieldUses[ index ].increment( );
+
+		return index;
+
+	} // select
+
+
+	/**
+	 * Folds the new credits into the qualities and recomputes the probabilities, unless
+	 * another thread is already doing so.
+	 */
+	private void update( )
+	{
+		if ( !fieldUpdating.compareAndSet( false, true ) )
+			return;
+
+		try
+			{
+			int count = fieldQualities.length;
+			int best = 0;
+			double bestQuality = 0;
+			double totalQuality = 0;
+			long totalCredits = 0;
+			for ( int index = 0; index < count; index++ )
+				{
+				long credits = fieldCredits[ index ].sumThenReset( );
+				double rewards = fieldRewards[ index ].sumThenReset( );
+				if ( credits > 0 )
+					{
+					fieldQualities[ index ] += ADAPTATION_RATE
+							* ( rewards / credits - fieldQualities[ index ] );
+					fieldCreditTotals[ index ] += credits;
+					}
+
+				totalQuality += fieldQualities[ index ];
+				totalCredits += fieldCreditTotals[ index ];
+				if ( fieldQualities[ index ] > bestQuality )
+					{
+					best = index;
+					bestQuality = fieldQualities[ index ];
+					}
+				}
+
+			switch ( fieldPolicy )
+				{
+				case PROBABILITY_MATCHING:
+					if ( totalQuality > 0 )
+						{
+						double spread = 1 - count * fieldMinimumProbability;
+						for ( int index = 0; index < count; index++ )
+							fieldProbabilities[ index ] = fieldMinimumProbability + spread
+									* fieldQualities[ index ] / totalQuality;
+						}
+					break;
+
+				case ADAPTIVE_PURSUIT:
+					// With nothing to go on yet, there's no best to pursue.
+					if ( bestQuality > 0 )
+						concentrate( best, PURSUIT_RATE );
+					break;
+
+				case UPPER_CONFIDENCE_BOUND:
+					double bestBound = Double.NEGATIVE_INFINITY;
+					for ( int index = 0; index < count; index++ )
+						{
+						// Untried operators come first.
+						double bound = Double.POSITIVE_INFINITY;
+						if ( fieldCreditTotals[ index ] > 0 )
+							{
+							double quality = ( bestQuality > 0 ) ? fieldQualities[ index ]
+									/ bestQuality : 0;
+							bound = quality + Math.sqrt( 2 * Math.log( totalCredits )
+									/ fieldCreditTotals[ index ] );
+							}
+						if ( bound > bestBound )
+							{
+							best = index;
+							bestBound = bound;
+							}
+						}
+					concentrate( best, 1 );
+					break;
+				}
+
+			publish( );
+			}
+		finally
+			{
+			fieldUpdating.set( false );
+			}
+
+	} // update
+
+}
@@ -0,0 +1,306 @@
+/*
+ * ParallelTempering.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Mutator;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * ParallelTempering implements parallel tempering (replica exchange Monte Carlo), a
+ * parallel form of simulated annealing, on the same problem definitions as the genetic
+ * algorithms. A ladder of replicas is kept, each at its own temperature. Every generation,
+ * each replica takes a sweep of Metropolis steps: a proposal is made by reproducing the
+ * replica with itself, which must yield an independent copy, and mutating it with the
+ * configured {@code Mutator}; it's accepted if it's no worse, or otherwise with
+ * probability {@code exp(-delta / temperature)}, where {@code delta} is the fitness lost.
+ * Hot replicas roam the landscape while cold ones descend into basins; at the end of the
+ * generation, neighboring replicas exchange states with the usual Metropolis criterion,
+ * so that good states found at high temperatures trickle down to be refined.
+ * <p>
+ * Each replica's sweep is one batch of the generation (see
+ * {@link AbstractGenerationalAlgorithm}), so the replicas are shared out among however
+ * many threads are evolving, with each replica being run by one thread at a time. The
+ * exchanges are made by whichever thread finishes the generation's last sweep, while no
+ * replica is running, so they need no locking.
+ * <p>
+ * The temperature ladder is geometric, from {@link #BIAS_KEY_MIN_TEMPERATURE} to
+ * {@link #BIAS_KEY_MAX_TEMPERATURE}, both in fitness units. They're read from the
+ * {@code BiasSource} every generation, so any schedule may be supplied: fixed biases for
+ * classic parallel tempering, or decaying or {@link FluctuatingBiasSource} biases to
+ * anneal the whole ladder. The number of replicas and the length of each sweep are set
+ * through the context map; the population and {@code Selector} are unused, and the
+ * initial replicas are generated with the {@code StateManager}.
+ * <p>
+ * Listeners are told of each replica's best state whenever a sweep improves on it.
+ * <p>
+ * ParallelTempering is thread safe.
+ * @author David Schmidt
+ */
+public class ParallelTempering<S> extends AbstractGenerationalAlgorithm<S>
+{
+	// Class constants.
+	/**
+	 * Bias key for the temperature of the coldest replica. Must be positive.
+	 */
+	public static final String BIAS_KEY_MIN_TEMPERATURE = ParallelTempering.class.getName( )
+			+ ".minTemperature";
+
+	/**
+	 * Bias key for the temperature of the hottest replica. A good choice lets it accept
+	 * most of the moves it proposes.
+	 */
+	public static final String BIAS_KEY_MAX_TEMPERATURE = ParallelTempering.class.getName( )
+			+ ".maxTemperature";
+
+	/**
+	 * Context map key for an {@code Integer} number of replicas (temperatures). Defaults
+	 * to {@link #DEFAULT_REPLICA_COUNT}.
+	 */
+	public static final String CONTEXT_KEY_REPLICA_COUNT = ParallelTempering.class.getName( )
+			+ ".replicaCount";
+
+	/**
+	 * Context map key for an {@code Integer} number of Metropolis steps each replica takes
+	 * between exchanges. Defaults to {@link #DEFAULT_SWEEP_LENGTH}.
+	 */
+	public static final String CONTEXT_KEY_SWEEP_LENGTH = ParallelTempering.class.getName( )
+			+ ".sweepLength";
+
+	public static final int DEFAULT_REPLICA_COUNT = 8;
+	public static final int DEFAULT_SWEEP_LENGTH = 100;
+
+	// Data members.
+	private final StateManager<S> fieldStateManager;
+	private final AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
+	private final Mutator<S> fieldMutator;
+	private final int fieldReplicaCount;
+	private final int fieldSweepLength;
+
+	// Each replica's state and fitness, and its best, indexed by temperature (coldest
+	// first). States are swapped between temperatures by exchanges.
+	private final S[ ] fieldReplicas;
+	private final int[ ] fieldFitness;
+	private final S[ ] fieldBest;
+	private final int[ ] fieldBestFitness;
+	private final double[ ] fieldTemperatures;
+
+	// Exchanges attempted (high 32 bits) and accepted (low 32 bits), for monitoring.
+	private final AtomicLong fieldExchanges = new AtomicLong( 0 );
+
+
+	@SuppressWarnings( "unchecked" )
+	public ParallelTempering( SearchContext<S> searchContext, Selector<S> selector,
+			Mutator<S> mutator )
+	{
+		super( searchContext );
+
+		fieldStateManager = searchContext.getStateManager( );
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+		fieldMutator = mutator;
+		fieldReplicaCount = searchContext.getContextInt( CONTEXT_KEY_REPLICA_COUNT,
+				DEFAULT_REPLICA_COUNT );
+		fieldSweepLength = searchContext.getContextInt( CONTEXT_KEY_SWEEP_LENGTH,
+				DEFAULT_SWEEP_LENGTH );
+
+		if ( fieldReplicaCount < 1 || fieldSweepLength < 1 )
+			throw new IllegalArgumentException(
+					"The replica count and sweep length must be positive." );
+
+		fieldReplicas = ( S[ ] ) new Object[ fieldReplicaCount ];
+		fieldFitness = new int[ fieldReplicaCount ];
+		fieldBest = ( S[ ] ) new Object[ fieldReplicaCount ];
+		fieldBestFitness = new int[ fieldReplicaCount ];
+		fieldTemperatures = new double[ fieldReplicaCount ];
+
+		for ( int replica = 0; replica < fieldReplicaCount; replica++ )
+			{
+			fieldReplicas[ replica ] = fieldStateManager.randomize( );
+			fieldFitness[ replica ] = fieldFitnessEvaluator.fitness( fieldReplicas[ replica ] );
+			fieldBest[ replica ] = fieldReplicas[ replica ];
+			fieldBestFitness[ replica ] = fieldFitness[ replica ];
+			}
+
+		readTemperatures( );
+
+	} // ParallelTempering
+
+
+	/**
+	 * @return a {@code double} indicating how much fitter {@code first} is than
+	 *         {@code second} (negative if it's less fit).
+	 */
+	private double advantage( int first, int second )
+	{
+		double difference = ( double ) first - second;
+
+		return ( fieldFitnessEvaluator.compareFitness( 1, 0 ) > 0 ) ? difference : -difference;
+
+	} // advantage
+
+
+	/**
+	 * Exchanges states between neighboring temperatures, then reads the temperatures for
+	 * the next generation.
+	 */
+	@Override
+	protected void completeGeneration( )
+	{
+		RandomGenerator random = getSearchContext( ).getGenerator( );
+
+		// Alternate between even and odd pairs, so every pair gets its turn and no state
+		// moves more than one rung per generation.
+		for ( int colder = getGenerationCount( ) % 2; colder + 1 < fieldReplicaCount; colder += 2 )
+			{
+			int hotter = colder + 1;
+
+			// Swapping is accepted with probability exp((1/Tc - 1/Th)(Ec - Eh)), where
+			// energy is fitness lost, so it's certain if the hotter replica is fitter.
+			double energyGap = advantage( fieldFitness[ hotter ], fieldFitness[ colder ] );
+			double exponent = ( 1 / fieldTemperatures[ colder ] - 1 / fieldTemperatures[ hotter ] )
+					* energyGap;
+
+			boolean accepted = exponent >= 0 || random.nextDouble( ) < Math.exp( exponent );
+			fieldExchanges.addAndGet( accepted ? ( 1L << 32 ) + 1 : 1L << 32 );
+			if ( !accepted )
+				continue;
+
+			S state = fieldReplicas[ colder ];
+			fieldReplicas[ colder ] = fieldReplicas[ hotter ];
+			fieldReplicas[ hotter ] = state;
+
+			int fitness = fieldFitness[ colder ];
+			fieldFitness[ colder ] = fieldFitness[ hotter ];
+			fieldFitness[ hotter ] = fitness;
+			}
+
+		readTemperatures( );
+
+	} // completeGeneration
+
+
+	@Override
+	protected int getBatchCount( )
+	{
+		return fieldReplicaCount;
+
+	} // getBatchCount
+
+
+	/**
+	 * @return a {@code double} indicating the fraction of attempted exchanges which have
+	 *         been accepted so far. Rates far below about 0.2 suggest that the
+	 *         temperatures are too far apart for the number of replicas.
+	 */
+	public double getExchangeRate( )
+	{
+		long exchanges = fieldExchanges.get( );
+		long attempted = exchanges >>> 32;
+
+		return ( attempted > 0 ) ? ( double ) ( exchanges & 0xFFFFFFFFL ) / attempted : 0;
+
+	} // getExchangeRate
+
+
+	public int getReplicaCount( )
+	{
+		return fieldReplicaCount;
+
+	} // getReplicaCount
+
+
+	public int getSweepLength( )
+	{
+		return fieldSweepLength;
+
+	} // getSweepLength
+
+
+	/**
+	 * @return a {@code double} indicating the temperature of the given replica, as of the
+	 *         start of the current generation. Replica {@code 0} is the coldest.
+	 */
+	public double getTemperature( int replica )
+	{
+		return fieldTemperatures[ replica ];
+
+	} // getTemperature
+
+
+	/**
+	 * Takes one replica's sweep of Metropolis steps.
+	 */
+	@Override
+	protected void processBatch( int batch )
+	{
+		RandomGenerator random = getSearchContext( ).getGenerator( );
+		double temperature = fieldTemperatures[ batch ];
+		S current = fieldReplicas[ batch ];
+		int currentFitness = fieldFitness[ batch ];
+		boolean improved = false;
+
+		for ( int step = 0; step < fieldSweepLength; step++ )
+			{
+			S proposal = fieldStateManager.reproduce( current, current );
+			int mutationCount = Math.max( 1, fieldMutator.mutateCount( proposal ) );
+			for ( ; mutationCount > 0; mutationCount-- )
+				fieldMutator.mutate( proposal );
+			int proposalFitness = fieldFitnessEvaluator.fitness( proposal );
+
+			double loss = advantage( currentFitness, proposalFitness );
+			if ( loss > 0 && random.nextDouble( ) >= Math.exp( -loss / temperature ) )
+				continue;
+
+			current = proposal;
+			currentFitness = proposalFitness;
+
+			if ( fieldFitnessEvaluator.compareFitness( currentFitness, fieldBestFitness[ batch ] ) > 0 )
+				{
+				fieldBest[ batch ] = current;
+				fieldBestFitness[ batch ] = currentFitness;
+				improved = true;
+				}
+			}
+
+		fieldReplicas[ batch ] = current;
+		fieldFitness[ batch ] = currentFitness;
+
+		if ( improved )
+			notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, fieldBest[ batch ],
+					fieldBestFitness[ batch ] );
+
+	} // processBatch
+
+
+	// Must only be called where no replica is running.
+	private void readTemperatures( )
+	{
+		double minimum = Math.max( getSearchContext( ).getBias( BIAS_KEY_MIN_TEMPERATURE ),
+				Double.MIN_NORMAL );
+		double maximum = Math.max( getSearchContext( ).getBias( BIAS_KEY_MAX_TEMPERATURE ),
+				minimum );
+
+		if ( fieldReplicaCount == 1 )
+			{
+			fieldTemperatures[ 0 ] = minimum;
+			return;
+			}
+
+		double ratio = Math.pow( maximum / minimum, 1.0 / ( fieldReplicaCount - 1 ) );
+		double temperature = minimum;
+		for ( int replica = 0; replica < fieldReplicaCount; replica++, temperature *= ratio )
+			fieldTemperatures[ replica ] = temperature;
+
+	} // readTemperatures
+
+}
@@ -0,0 +1,641 @@
+/*
+ * PipelinedEugenicAlgorithm.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.EvolutionAlgorithm;
+import org.agal.core.EvolutionEventBus;
+import org.agal.core.EvolutionListener;
+import org.agal.core.Mutator;
+import org.agal.core.Population;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.StateManager;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * PipelinedEugenicAlgorithm is a staged execution mode of {@link EugenicAlgorithm}.
+ * Rather than having every thread select, reproduce, mutate, evaluate, and sow each child
+ * in turn (so that cheap steps wait on expensive ones), each {@link Stage} runs on a
+ * worker set of its own, sized to its cost. Stages hand children on to the next in
+ * batches through {@link BoundedConcurrentQueue}s; when a stage falls behind, its input
+ * queue fills and the stages before it are held back. Throughput is then limited only by
+ * the slowest stage, which is easy to spot with {@link #getQueueDepth(Stage)}: its input
+ * queue is full while the one after it is empty.
+ * <p>
+ * The selection stage runs on the threads which call {@link #evolve()}, so its size is
+ * the number of workers given to the {@code EvolutionControlThread} or
+ * {@code EvolutionSearch}; a managed search may pause or resize it as usual, and
+ * checkpoints are taken between batches. The other stages are started by the first
+ * thread to begin evolving and sized with {@link Stage#getContextKey()}. When the last
+ * evolving thread stops, it waits for the batches in flight to be sown (so no evaluations
+ * are lost) and then stops the stages. A second interrupt abandons them.
+ * <p>
+ * The evaluation stage passes each batch to the bulk
+ * {@link AbstractFitnessEvaluator#fitness(Object[])}. The fitness values are passed on
+ * to listeners with each new member, but since the {@code Population} API takes states
+ * rather than fitness values, the pipeline relies on states which are expensive to
+ * evaluate caching their own fitness, so that they aren't evaluated again when sown.
+ * <p>
+ * PipelinedEugenicAlgorithm is thread safe, but the Population must tolerate concurrent
+ * sampling and sowing (as {@link ArraySharedMixedGenPopulation} does).
+ * @author David Schmidt
+ */
+public class PipelinedEugenicAlgorithm<S> implements EvolutionAlgorithm
+{
+	/**
+	 * The stages of the pipeline, in order.
+	 */
+	public enum Stage
+	{
+		SELECTION, REPRODUCTION, MUTATION, EVALUATION, REPLACEMENT;
+
+		/**
+		 * @return the context map key for an {@code Integer} number of worker threads
+		 *         for this stage. Defaults to {@code 1}, except for evaluation, which
+		 *         defaults to the number of available processors less the other stages.
+		 *         Ignored for selection, which runs on the evolving threads.
+		 */
+		public String getContextKey( )
+		{
+			return PipelinedEugenicAlgorithm.class.getName( ) + ".threads."
+					+ name( ).toLowerCase( );
+
+		} // getContextKey
+
+	} // Stage
+
+	/**
+	 * A batch of children in flight, along with their parents. Batches are recycled.
+	 */
+	private class Batch
+	{
+		// Data members.
+		final S[ ] fieldMothers;
+		final S[ ] fieldFathers;
+		final S[ ] fieldChildren;
+		final int[ ] fieldFitnesses;
+
+
+		@SuppressWarnings( "unchecked" )
+		Batch( )
+		{
+			fieldMothers = ( S[ ] ) new Object[ fieldBatchSize ];
+			fieldFathers = ( S[ ] ) new Object[ fieldBatchSize ];
+			fieldChildren = ( S[ ] ) Array.newInstance( fieldStateClass, fieldBatchSize );
+			fieldFitnesses = new int[ fieldBatchSize ];
+
+		} // Batch
+
+
+		/**
+		 * Drops the batch's references, so it can be reused after a failure part of the
+		 * way through.
+		 */
+		void clear( )
+		{
+			Arrays.fill( fieldMothers, null );
+			Arrays.fill( fieldFathers, null );
+			Arrays.fill( fieldChildren, null );
+
+		} // clear
+
+	} // Batch
+
+	/**
+	 * Runs one stage: takes batches from its input queue, processes them, and hands them
+	 * on, until interrupted. A batch which fails is recorded and dropped (back onto the
+	 * free list), and the worker carries on, so that the rest of the pipeline can drain.
+	 */
+	private class StageWorker implements Runnable
+	{
+		// Data members.
+		private final Stage fieldStage;
+
+
+		StageWorker( Stage stage )
+		{
+			fieldStage = stage;
+
+		} // StageWorker
+
+
+		@Override
+		public void run( )
+		{
+			BoundedConcurrentQueue<Batch> input = fieldQueues[ fieldStage.ordinal( ) ];
+			BoundedConcurrentQueue<Batch> output = ( fieldStage == Stage.REPLACEMENT ) ? fieldFreeBatches
+					: fieldQueues[ fieldStage.ordinal( ) + 1 ];
+
+			try
+				{
+				while ( true )
+					{
+					Batch batch = take( input );
+					try
+						{
+						process( fieldStage, batch );
+						}
+					catch ( RuntimeException exception )
+						{
+						fieldFailure.compareAndSet( null, exception );
+						batch.clear( );
+						fieldFreeBatches.offer( batch );
+						fieldBatchesInFlight.decrementAndGet( );
+						continue;
+						}
+					fieldProcessedCounts.addAndGet( fieldStage.ordinal( ), fieldBatchSize );
+
+					if ( fieldStage == Stage.REPLACEMENT )
+						{
+						// If the free list is full, there are more batches about than
+						// we need; let this one go.
+						output.offer( batch );
+						fieldBatchesInFlight.decrementAndGet( );
+						}
+					else
+						{
+						put( output, batch );
+						}
+					}
+				}
+			catch ( InterruptedException exception )
+				{
+				// The pipeline is being shut down.
+				}
+
+		} // run
+
+	} // StageWorker
+
+	// Class constants.
+	/**
+	 * Context map key for an {@code Integer} number of children per batch. Larger batches
+	 * mean less coordination between stages and more work for bulk fitness evaluators,
+	 * but more children in flight. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public static final String CONTEXT_KEY_BATCH_SIZE = PipelinedEugenicAlgorithm.class
+			.getName( ) + ".batchSize";
+
+	/**
+	 * Context map key for an {@code Integer} number of batches each stage's input queue
+	 * may hold before the stage before it is held back. Defaults to
+	 * {@link #DEFAULT_QUEUE_CAPACITY}; it's rounded up to a power of two.
+	 */
+	public static final String CONTEXT_KEY_QUEUE_CAPACITY = PipelinedEugenicAlgorithm.class
+			.getName( ) + ".queueCapacity";
+
+	public static final int DEFAULT_BATCH_SIZE = 8;
+	public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+	// How long an idle or held back worker sleeps between looks at its queue, once it's
+	// done yielding.
+	private static final int YIELD_LIMIT = 64;
+	private static final long PARK_NANOS = 50000;
+
+	// Data members.
+	private final EvolutionEventBus<S> fieldEventBus = new EvolutionEventBus<>( );
+	private final SearchContext<S> fieldSearchContext;
+	private final Population<S> fieldPopulation;
+	private final Selector<S> fieldSelector;
+	private final Mutator<S> fieldMutator;
+	private final StateManager<S> fieldStateManager;
+	private final AbstractFitnessEvaluator<S> fieldFitnessEvaluator;
+	private final Class<?> fieldStateClass;
+	private final int fieldBatchSize;
+	private final int[ ] fieldThreadCounts = new int[ Stage.values( ).length ];
+
+	/**
+	 * The input queue of each stage, by ordinal. Selection has none; it takes empty
+	 * batches from the free list.
+	 */
+	private final BoundedConcurrentQueue<Batch>[ ] fieldQueues;
+	private final BoundedConcurrentQueue<Batch> fieldFreeBatches;
+
+	private final AtomicLongArray fieldProcessedCounts = new AtomicLongArray(
+			Stage.values( ).length );
+	private final AtomicInteger fieldBatchesInFlight = new AtomicInteger( 0 );
+	private final AtomicLong fieldChildCount = new AtomicLong( 0 );
+
+	// The first exception thrown by a stage worker, rethrown when the stages stop.
+	private final AtomicReference<RuntimeException> fieldFailure = new AtomicReference<>( );
+
+	// Guarded by fieldLifecycleLock.
+	private final Object fieldLifecycleLock = new Object( );
+	private final List<Thread> fieldStageThreads = new ArrayList<>( );
+	private int fieldDriverCount = 0;
+
+
+	/**
+	 * PipelinedEugenicAlgorithm constructor.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public PipelinedEugenicAlgorithm( SearchContext<S> searchContext, Selector<S> selector,
+			Mutator<S> mutator )
+	{
+		fieldSearchContext = searchContext;
+		fieldSelector = selector;
+		fieldMutator = mutator;
+		fieldPopulation = searchContext.getPopulation( );
+		fieldStateManager = searchContext.getStateManager( );
+		fieldFitnessEvaluator = searchContext.getFitnessEvaluator( );
+
+		// Bulk fitness evaluators may need arrays of the real state type.
+		fieldStateClass = fieldPopulation.sample( ).getClass( );
+
+		fieldBatchSize = Math.max( 1, searchContext.getContextInt( CONTEXT_KEY_BATCH_SIZE,
+				DEFAULT_BATCH_SIZE ) );
+		int queueCapacity = Math.max( 1, searchContext.getContextInt(
+				CONTEXT_KEY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY ) );
+
+		int evaluationThreads = Math.max( 1, Runtime.getRuntime( ).availableProcessors( ) - 3 );
+		for ( Stage stage : Stage.values( ) )
+			{
+			int defaultCount = ( stage == Stage.EVALUATION ) ? evaluationThreads : 1;
+			fieldThreadCounts[ stage.ordinal( ) ] = Math.max( 1, searchContext.getContextInt(
+					stage.getContextKey( ), defaultCount ) );
+			}
+
+		fieldQueues = new BoundedConcurrentQueue[ Stage.values( ).length ];
+		for ( Stage stage : Stage.values( ) )
+			if ( stage != Stage.SELECTION )
+				fieldQueues[ stage.ordinal( ) ] = new BoundedConcurrentQueue<>( queueCapacity );
+
+		// Enough to recycle every batch the queues and stage threads can hold, plus a
+		// margin for the selection threads, whose number we can't know.
+		int stageThreads = 0;
+		for ( int count : fieldThreadCounts )
+			stageThreads += count;
+		fieldFreeBatches = new BoundedConcurrentQueue<>( ( Stage.values( ).length - 1 )
+				* queueCapacity + stageThreads + 64 );
+
+	} // PipelinedEugenicAlgorithm
+
+
+	/**
+	 * Selects parents for batches of children and feeds them into the pipeline until
+	 * interrupted or stopped by a managed search, or until a stage fails. The last thread
+	 * to leave drains the pipeline and shuts it down.
+	 * @throws RuntimeException if selection fails on this thread, or (for the last thread
+	 *             to leave) the first exception thrown by any other stage.
+	 */
+	@Override
+	public void evolve( )
+	{
+		synchronized ( fieldLifecycleLock )
+			{
+			if ( fieldDriverCount++ == 0 )
+				startStages( );
+			}
+
+		notifyListeners( TypedEvolutionListener.EVENT_BEGIN_EVOLUTION );
+
+		try
+			{
+			while ( fieldFailure.get( ) == null && !Thread.interrupted( )
+					&& fieldSearchContext.checkpoint( ) )
+				{
+				Batch batch = fieldFreeBatches.poll( );
+				if ( batch == null )
+					batch = new Batch( );
+
+				try
+					{
+					process( Stage.SELECTION, batch );
+					}
+				catch ( RuntimeException exception )
+					{
+					batch.clear( );
+					fieldFreeBatches.offer( batch );
+					throw exception;
+					}
+				fieldProcessedCounts.addAndGet( Stage.SELECTION.ordinal( ), fieldBatchSize );
+
+				fieldBatchesInFlight.incrementAndGet( );
+				try
+					{
+					put( fieldQueues[ Stage.REPRODUCTION.ordinal( ) ], batch );
+					}
+				catch ( InterruptedException exception )
+					{
+					// Only selection has been done on this batch, so just drop it.
+					fieldBatchesInFlight.decrementAndGet( );
+					throw exception;
+					}
+				}
+			}
+		catch ( InterruptedException exception )
+			{
+			// Time to stop.
+			}
+		finally
+			{
+			try
+				{
+				synchronized ( fieldLifecycleLock )
+					{
+					if ( --fieldDriverCount == 0 )
+						stopStages( );
+					}
+				}
+			finally
+				{
+				notifyListeners( TypedEvolutionListener.EVENT_END_EVOLUTION );
+				}
+			}
+
+	} // evolve
+
+
+	/**
+	 * @return an {@code int} indicating the number of batches which have entered the
+	 *         pipeline and have yet to be sown.
+	 */
+	public int getBatchesInFlight( )
+	{
+		return fieldBatchesInFlight.get( );
+
+	} // getBatchesInFlight
+
+
+	/**
+	 * @return a {@code long} indicating the number of children sown so far.
+	 */
+	public long getChildCount( )
+	{
+		return fieldChildCount.get( );
+
+	} // getChildCount
+
+
+	/**
+	 * @return a {@code long} indicating the number of children the given stage has
+	 *         finished with so far (in whole batches). Sampling this over time gives each
+	 *         stage's throughput.
+	 */
+	public long getProcessedCount( Stage stage )
+	{
+		return fieldProcessedCounts.get( stage.ordinal( ) );
+
+	} // getProcessedCount
+
+
+	/**
+	 * @return an {@code int} indicating the number of batches waiting in the given
+	 *         stage's input queue, or {@code 0} for selection. A queue which stays full
+	 *         is in front of the bottleneck.
+	 */
+	public int getQueueDepth( Stage stage )
+	{
+		BoundedConcurrentQueue<Batch> queue = fieldQueues[ stage.ordinal( ) ];
+
+		return ( queue == null ) ? 0 : queue.size( );
+
+	} // getQueueDepth
+
+
+	/**
+	 * @return an {@code int} indicating the number of batches each stage's input queue
+	 *         can hold.
+	 */
+	public int getQueueCapacity( )
+	{
+		return fieldQueues[ Stage.REPRODUCTION.ordinal( ) ].getCapacity( );
+
+	} // getQueueCapacity
+
+
+	/**
+	 * @return an {@code int} indicating the number of worker threads the given stage
+	 *         runs on, or {@code 0} for selection.
+	 */
+	public int getThreadCount( Stage stage )
+	{
+		return ( stage == Stage.SELECTION ) ? 0 : fieldThreadCounts[ stage.ordinal( ) ];
+
+	} // getThreadCount
+
+
+	protected void notifyListeners( int eventType )
+	{
+		fieldEventBus.publish( eventType );
+
+	} // notifyListeners
+
+
+	protected void notifyListeners( int eventType, S member, int fitness )
+	{
+		fieldEventBus.publish( eventType, member, fitness );
+
+	} // notifyListeners
+
+
+	private void process( Stage stage, Batch batch )
+	{
+		switch ( stage )
+			{
+			case SELECTION:
+				List<S> parents = new ArrayList<>( 2 );
+				for ( int index = 0; index < fieldBatchSize; index++ )
+					{
+					fieldSelector.selectParents( fieldPopulation, parents );
+					batch.fieldMothers[ index ] = parents.get( 0 );
+					batch.fieldFathers[ index ] = parents.get( 1 );
+					parents.clear( );
+					}
+				break;
+
+			case REPRODUCTION:
+				for ( int index = 0; index < fieldBatchSize; index++ )
+					{
+					batch.fieldChildren[ index ] = fieldStateManager.reproduce(
+							batch.fieldMothers[ index ], batch.fieldFathers[ index ] );
+					batch.fieldMothers[ index ] = null;
+					batch.fieldFathers[ index ] = null;
+					}
+				break;
+
+			case MUTATION:
+				for ( S child : batch.fieldChildren )
+					{
+					for ( int mutationCount = fieldMutator.mutateCount( child ); mutationCount > 0; mutationCount-- )
+						fieldMutator.mutate( child );
+					fieldSearchContext.improve( child );
+					}
+				break;
+
+			case EVALUATION:
+				Integer[ ] fitnesses = fieldFitnessEvaluator.fitness( batch.fieldChildren );
+				for ( int index = 0; index < fieldBatchSize; index++ )
+					batch.fieldFitnesses[ index ] = fitnesses[ index ];
+				break;
+
+			case REPLACEMENT:
+				for ( int index = 0; index < fieldBatchSize; index++ )
+					{
+					S child = batch.fieldChildren[ index ];
+					batch.fieldChildren[ index ] = null;
+
+					fieldPopulation.sow( child );
+					notifyListeners( TypedEvolutionListener.EVENT_MEMBER_ADDED, child,
+							batch.fieldFitnesses[ index ] );
+
+					if ( fieldChildCount.incrementAndGet( ) % fieldPopulation.getGenerationSize( ) == 0 )
+						{
+						fieldPopulation.nextGeneration( );
+						notifyListeners( TypedEvolutionListener.EVENT_NEW_GENERATION );
+						}
+					}
+				break;
+			}
+
+	} // process
+
+
+	/**
+	 * Adds a batch to a queue, waiting for room if it's full.
+	 */
+	private static <E> void put( BoundedConcurrentQueue<E> queue, E element )
+			throws InterruptedException
+	{
+		for ( int attempt = 0; !queue.offer( element ); attempt++ )
+			waitForQueue( attempt );
+
+	} // put
+
+
+	@Override
+	public void registerListener( EvolutionListener listener )
+	{
+		fieldEventBus.register( listener );
+
+	} // registerListener
+
+
+	// Must hold fieldLifecycleLock.
+	private void startStages( )
+	{
+		for ( Stage stage : Stage.values( ) )
+			{
+			if ( stage == Stage.SELECTION )
+				continue;
+
+			for ( int index = 0; index < fieldThreadCounts[ stage.ordinal( ) ]; index++ )
+				{
+				Thread thread = new Thread( new StageWorker( stage ), "Pipeline-"
+						+ stage.name( ).toLowerCase( ) + "-" + index );
+				thread.setDaemon( true );
+				fieldStageThreads.add( thread );
+				thread.start( );
+				}
+			}
+
+	} // startStages
+
+
+	/**
+	 * Drains and stops the stage workers. Must hold fieldLifecycleLock.
+	 * @throws RuntimeException the first exception thrown by a stage worker since the
+	 *             stages were started, if any.
+	 */
+	private void stopStages( ) throws RuntimeException
+	{
+		// Let the batches in flight finish, unless we're interrupted again.
+		boolean abandoned = false;
+		while ( fieldBatchesInFlight.get( ) > 0 )
+			{
+			LockSupport.parkNanos( PARK_NANOS );
+			if ( Thread.interrupted( ) )
+				{
+				abandoned = true;
+				break;
+				}
+			}
+
+		for ( Thread thread : fieldStageThreads )
+			thread.interrupt( );
+
+		boolean interrupted = false;
+		for ( Thread thread : fieldStageThreads )
+			{
+			while ( thread.isAlive( ) )
+				{
+				try
+					{
+					thread.join( );
+					}
+				catch ( InterruptedException exception )
+					{
+					interrupted = true;
+					}
+				}
+			}
+		fieldStageThreads.clear( );
+
+		// Throw away anything abandoned so a later run starts clean.
+		if ( abandoned )
+			{
+			for ( BoundedConcurrentQueue<Batch> queue : fieldQueues )
+				if ( queue != null )
+					while ( queue.poll( ) != null )
+						; // Just emptying.
+			fieldBatchesInFlight.set( 0 );
+			}
+
+		if ( interrupted )
+			Thread.currentThread( ).interrupt( );
+
+		RuntimeException failure = fieldFailure.getAndSet( null );
+		if ( failure != null )
+			throw failure;
+
+	} // stopStages
+
+
+	/**
+	 * Removes a batch from a queue, waiting for one if it's empty.
+	 */
+	private static <E> E take( BoundedConcurrentQueue<E> queue )
+			throws InterruptedException
+	{
+		E element;
+		for ( int attempt = 0; ( element = queue.poll( ) ) == null; attempt++ )
+			waitForQueue( attempt );
+
+		return element;
+
+	} // take
+
+
+	/**
+	 * Backs off while a queue is full or empty: yields for a while, then sleeps briefly,
+	 * so that idle stages cost next to nothing.
+	 */
+	private static void waitForQueue( int attempt )
+			throws InterruptedException
+	{
+		if ( attempt < YIELD_LIMIT )
+			Thread.yield( );
+		else
+			LockSupport.parkNanos( PARK_NANOS );
+
+		if ( Thread.interrupted( ) )
+			throw new InterruptedException( );
+
+	} // waitForQueue
+
+}
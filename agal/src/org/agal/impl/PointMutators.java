@@ -6,9 +6,8 @@
  */
 package org.agal.impl;
 
-import java.util.Random;
-
 import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
 import org.agal.core.SearchContext;
 
 /**
@@ -16,7 +15,14 @@ import org.agal.core.SearchContext;
  * {@link Mutator} implementations designed for primitive array state types. The mutators
  * it provides are of the "point" mutation variety; namely, to {@code mutate} they will
  * use the contextual {@code Random} to generate a new value to replace a single array
- * element.
+ * element. The values are drawn from the thread's {@link RandomBuffer}, so they are
+ * generated in bulk, and with the semantics of the {@code Random} methods named below.
+ * Each type also has a per-locus variant, which mutates every element independently with
+ * a given probability at a cost proportional to the number of elements mutated (see
+ * {@link AbstractPointMutator}); it's the better choice for long genomes. For
+ * {@code double[]} and {@code int[]} there are also creep mutators, which nudge values
+ * by a bounded step instead of replacing them. Each mutator is specialized for its array
+ * type, so the hot path uses no reflection.
  * <p>
  * Unless otherwise noted, all Mutators acquired herein will be both thread-safe and
  * descendants of the {@link AbstractPointMutator}. Clients should familiarize themselves
@@ -26,57 +32,143 @@ import org.agal.core.SearchContext;
  */
 public class PointMutators
 {
-	private static class BooleanArrayPointMutator extends AbstractPointMutator<boolean[ ]>
+	/**
+	 * Hands the mutators below the buffer which {@code mutate} already fetched, so that
+	 * updating a point costs no lookups.
+	 */
+	private static abstract class BufferedPointMutator<S> extends AbstractPointMutator<S>
+	{
+
+		protected BufferedPointMutator( SearchContext<S> searchContext, boolean perLocus )
+		{
+			super( searchContext, perLocus );
+
+		} // BufferedPointMutator
+
+
+		@Override
+		protected final void updatePoint( S state, int position )
+		{
+			updatePoint( state, position, getSearchContext( ).getRandomBuffer( ) );
+
+		} // updatePoint
+
+
+		@Override
+		protected abstract void updatePoint( S state, int position, RandomBuffer random );
+
+	} // BufferedPointMutator
+
+	// Array point mutator classes.
+	private static final class BooleanArrayPointMutator extends BufferedPointMutator<boolean[ ]>
 	{
 
-		public BooleanArrayPointMutator( SearchContext<boolean[ ]> searchContext )
+		public BooleanArrayPointMutator( SearchContext<boolean[ ]> searchContext, boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 		} // BooleanArrayPointMutator
 
 
 		@Override
-		protected void updatePoint( boolean[ ] state, int position )
+		protected int getLength( boolean[ ] state )
+		{
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( boolean[ ] state, int position, RandomBuffer random )
 		{
-			state[ position ] = getSearchContext( ).getRandom( ).nextBoolean( );
+			state[ position ] = random.nextBoolean( );
 
 		} // updatePoint
 
 	} // BooleanArrayPointMutator
 
-	// Array point mutator classes.
-	private static class ByteArrayPointMutator extends AbstractPointMutator<byte[ ]>
+	private static final class ByteArrayPointMutator extends BufferedPointMutator<byte[ ]>
 	{
 
-		public ByteArrayPointMutator( SearchContext<byte[ ]> searchContext )
+		public ByteArrayPointMutator( SearchContext<byte[ ]> searchContext, boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 		} // ByteArrayPointMutator
 
 
 		@Override
-		protected void updatePoint( byte[ ] state, int position )
+		protected int getLength( byte[ ] state )
+		{
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( byte[ ] state, int position, RandomBuffer random )
 		{
-			Random random = getSearchContext( ).getRandom( );
-			byte[ ] buf = new byte[ 1 ];
-			random.nextBytes( buf );
-			state[ position ] = buf[ 0 ];
+			state[ position ] = random.nextByte( );
 
 		} // updatePoint
 
 	} // ByteArrayPointMutator
 
-	private static class DoubleArrayPointMutator extends AbstractPointMutator<double[ ]>
+	/**
+	 * Nudges a value by a Gaussian step, clamping it to a range.
+	 */
+	private static final class DoubleArrayCreepMutator extends BufferedPointMutator<double[ ]>
+	{
+		// Data members.
+		private final double fieldStepSize;
+		private final double fieldMinimum;
+		private final double fieldMaximum;
+
+
+		public DoubleArrayCreepMutator( SearchContext<double[ ]> searchContext, double stepSize,
+				double minimum, double maximum, boolean perLocus )
+		{
+			super( searchContext, perLocus );
+
+			if ( !( stepSize > 0 ) || !( minimum <= maximum ) )
+				throw new IllegalArgumentException(
+						"The step size must be positive and the range must not be empty." );
+
+			fieldStepSize = stepSize;
+			fieldMinimum = minimum;
+			fieldMaximum = maximum;
+
+		} // DoubleArrayCreepMutator
+
+
+		@Override
+		protected int getLength( double[ ] state )
+		{
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( double[ ] state, int position, RandomBuffer random )
+		{
+			double value = state[ position ] + fieldStepSize * random.nextGaussian( );
+			state[ position ] = Math.min( Math.max( value, fieldMinimum ), fieldMaximum );
+
+		} // updatePoint
+
+	} // DoubleArrayCreepMutator
+
+	private static final class DoubleArrayPointMutator extends BufferedPointMutator<double[ ]>
 	{
 		// Use the nextGaussian function of Random or the nextDouble function?
 		private final boolean fieldGaussian;
 
 
-		public DoubleArrayPointMutator( SearchContext<double[ ]> searchContext, boolean gaussian )
+		public DoubleArrayPointMutator( SearchContext<double[ ]> searchContext, boolean gaussian,
+				boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 			fieldGaussian = gaussian;
 
@@ -84,10 +176,16 @@ public class PointMutators
 
 
 		@Override
-		protected void updatePoint( double[ ] state, int position )
+		protected int getLength( double[ ] state )
 		{
-			Random random = getSearchContext( ).getRandom( );
+			return state.length;
+
+		} // getLength
 
+
+		@Override
+		protected void updatePoint( double[ ] state, int position, RandomBuffer random )
+		{
 			if ( fieldGaussian )
 				state[ position ] = random.nextGaussian( );
 			else
@@ -97,34 +195,94 @@ public class PointMutators
 
 	} // DoubleArrayPointMutator
 
-	private static class FloatArrayPointMutator extends AbstractPointMutator<float[ ]>
+	private static final class FloatArrayPointMutator extends BufferedPointMutator<float[ ]>
 	{
 
-		public FloatArrayPointMutator( SearchContext<float[ ]> searchContext )
+		public FloatArrayPointMutator( SearchContext<float[ ]> searchContext, boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 		} // FloatArrayPointMutator
 
 
 		@Override
-		protected void updatePoint( float[ ] state, int position )
+		protected int getLength( float[ ] state )
 		{
-			state[ position ] = getSearchContext( ).getRandom( ).nextFloat( );
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( float[ ] state, int position, RandomBuffer random )
+		{
+			state[ position ] = random.nextFloat( );
 
 		} // updatePoint
 
 	} // FloatArrayPointMutator
 
-	private static class IntArrayPointMutator extends AbstractPointMutator<int[ ]>
+	/**
+	 * Nudges a value by a uniform, nonzero step of at most a given size, clamping it to a
+	 * range.
+	 */
+	private static final class IntArrayCreepMutator extends BufferedPointMutator<int[ ]>
+	{
+		// Data members.
+		private final int fieldStepSize;
+		private final int fieldMinimum;
+		private final int fieldMaximum;
+
+
+		public IntArrayCreepMutator( SearchContext<int[ ]> searchContext, int stepSize,
+				int minimum, int maximum, boolean perLocus )
+		{
+			super( searchContext, perLocus );
+
+			if ( stepSize < 1 || stepSize > Integer.MAX_VALUE / 2 || minimum > maximum )
+				throw new IllegalArgumentException(
+						"The step size must be positive and the range must not be empty." );
+
+			fieldStepSize = stepSize;
+			fieldMinimum = minimum;
+			fieldMaximum = maximum;
+
+		} // IntArrayCreepMutator
+
+
+		@Override
+		protected int getLength( int[ ] state )
+		{
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( int[ ] state, int position, RandomBuffer random )
+		{
+			// A step in [-size, -1] or [1, size].
+			int step = random.nextInt( 2 * fieldStepSize ) - fieldStepSize;
+			if ( step >= 0 )
+				step++;
+
+			long value = ( long ) state[ position ] + step;
+			state[ position ] = ( int ) Math.min( Math.max( value, fieldMinimum ), fieldMaximum );
+
+		} // updatePoint
+
+	} // IntArrayCreepMutator
+
+	private static final class IntArrayPointMutator extends BufferedPointMutator<int[ ]>
 	{
-		// An optional modulo on the random values for range limitation.
-		private final Integer fieldValueRange;
+		// An optional modulo on the random values for range limitation; 0 if there's none.
+		private final int fieldValueRange;
 
 
-		public IntArrayPointMutator( SearchContext<int[ ]> searchContext, Integer valueRange )
+		public IntArrayPointMutator( SearchContext<int[ ]> searchContext, int valueRange,
+				boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 			fieldValueRange = valueRange;
 
@@ -132,11 +290,17 @@ public class PointMutators
 
 
 		@Override
-		protected void updatePoint( int[ ] state, int position )
+		protected int getLength( int[ ] state )
 		{
-			Random random = getSearchContext( ).getRandom( );
+			return state.length;
+
+		} // getLength
 
-			if ( fieldValueRange != null )
+
+		@Override
+		protected void updatePoint( int[ ] state, int position, RandomBuffer random )
+		{
+			if ( fieldValueRange != 0 )
 				state[ position ] = random.nextInt( fieldValueRange );
 			else
 				state[ position ] = random.nextInt( );
@@ -145,26 +309,51 @@ public class PointMutators
 
 	} // IntArrayPointMutator
 
-	private static class LongArrayPointMutator extends AbstractPointMutator<long[ ]>
+	private static final class LongArrayPointMutator extends BufferedPointMutator<long[ ]>
 	{
 
-		public LongArrayPointMutator( SearchContext<long[ ]> searchContext )
+		public LongArrayPointMutator( SearchContext<long[ ]> searchContext, boolean perLocus )
 		{
-			super( searchContext );
+			super( searchContext, perLocus );
 
 		} // LongArrayPointMutator
 
 
 		@Override
-		protected void updatePoint( long[ ] state, int position )
+		protected int getLength( long[ ] state )
+		{
+			return state.length;
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( long[ ] state, int position, RandomBuffer random )
 		{
-			state[ position ] = getSearchContext( ).getRandom( ).nextLong( );
+			state[ position ] = random.nextLong( );
 
 		} // updatePoint
 
 	} // LongArrayPointMutator
 
 
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextBoolean()}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @return a {@code Mutator<boolean[]>} which may be used to mutate {@code boolean[]}
+	 *         states.
+	 */
+	public static Mutator<boolean[ ]> getBooleanArrayLocusMutator(
+			SearchContext<boolean[ ]> searchContext )
+	{
+		return new BooleanArrayPointMutator( searchContext, true );
+
+	} // getBooleanArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
 	 * {@code Random.nextBoolean()}.
@@ -176,15 +365,31 @@ public class PointMutators
 	public static Mutator<boolean[ ]> getBooleanArrayMutator(
 			SearchContext<boolean[ ]> searchContext )
 	{
-		return new BooleanArrayPointMutator( searchContext );
+		return new BooleanArrayPointMutator( searchContext, false );
 
 	} // getBooleanArrayMutator
 
 
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using a single random byte as the new value.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @return a {@code Mutator<byte[]>} which may be used to mutate {@code byte[]}
+	 *         states.
+	 */
+	public static Mutator<byte[ ]> getByteArrayLocusMutator(
+			SearchContext<byte[ ]> searchContext )
+	{
+		return new ByteArrayPointMutator( searchContext, true );
+
+	} // getByteArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
-	 * {@code Random.nextBytes( buf )}, where {@code buf} is a 1-byte array whose only
-	 * value is used as the new point value.
+	 * a single random byte as the new point value.
 	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
 	 *            bias values, etc.
 	 * @return a {@code Mutator<byte[]>} which may be used to mutate {@code byte[]}
@@ -192,11 +397,62 @@ public class PointMutators
 	 */
 	public static Mutator<byte[ ]> getByteArrayMutator( SearchContext<byte[ ]> searchContext )
 	{
-		return new ByteArrayPointMutator( searchContext );
+		return new ByteArrayPointMutator( searchContext, false );
 
 	} // getByteArrayMutator
 
 
+	/**
+	 * Creates and returns a Mutator to perform Gaussian creep mutations, which nudge a
+	 * value by {@code stepSize * Random.nextGaussian()} and clamp it to a range, rather
+	 * than replacing it. Creep suits real-valued genomes, where small changes are more
+	 * likely to be improvements than arbitrary ones.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @param stepSize a positive double indicating the standard deviation of a step.
+	 * @param minimum a double indicating the lowest value allowed; may be
+	 *            {@code Double.NEGATIVE_INFINITY}.
+	 * @param maximum a double indicating the highest value allowed; may be
+	 *            {@code Double.POSITIVE_INFINITY}.
+	 * @param perLocus a boolean indicating whether to mutate each element independently
+	 *            with the probability
+	 *            {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE}, rather than
+	 *            mutating a number of random positions.
+	 * @return a {@code Mutator<double[]>} which may be used to mutate {@code double[]}
+	 *         states.
+	 * @throws IllegalArgumentException if the step size isn't positive or the range is
+	 *             empty.
+	 */
+	public static Mutator<double[ ]> getDoubleArrayCreepMutator(
+			SearchContext<double[ ]> searchContext, double stepSize, double minimum,
+			double maximum, boolean perLocus )
+			throws IllegalArgumentException
+	{
+		return new DoubleArrayCreepMutator( searchContext, stepSize, minimum, maximum, perLocus );
+
+	} // getDoubleArrayCreepMutator
+
+
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextDouble()} or {@code Random.nextGaussian()}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @param gaussian a boolean indicating whether gaussian-distributed {@code double}
+	 *            values should be generated through the use of
+	 *            {@code Random.nextGaussian()}.
+	 * @return a {@code Mutator<double[]>} which may be used to mutate {@code double[]}
+	 *         states.
+	 */
+	public static Mutator<double[ ]> getDoubleArrayLocusMutator(
+			SearchContext<double[ ]> searchContext, boolean gaussian )
+	{
+		return new DoubleArrayPointMutator( searchContext, gaussian, true );
+
+	} // getDoubleArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
 	 * {@code Random.nextDouble()} or {@code Random.nextGaussian()}.
@@ -211,11 +467,28 @@ public class PointMutators
 	public static Mutator<double[ ]> getDoubleArrayMutator( SearchContext<double[ ]> searchContext,
 			boolean gaussian )
 	{
-		return new DoubleArrayPointMutator( searchContext, gaussian );
+		return new DoubleArrayPointMutator( searchContext, gaussian, false );
 
 	} // getDoubleArrayMutator
 
 
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextFloat()}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @return a {@code Mutator<float[]>} which may be used to mutate {@code float[]}
+	 *         states.
+	 */
+	public static Mutator<float[ ]> getFloatArrayLocusMutator(
+			SearchContext<float[ ]> searchContext )
+	{
+		return new FloatArrayPointMutator( searchContext, true );
+
+	} // getFloatArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
 	 * {@code Random.nextFloat()}.
@@ -226,11 +499,73 @@ public class PointMutators
 	 */
 	public static Mutator<float[ ]> getFloatArrayMutator( SearchContext<float[ ]> searchContext )
 	{
-		return new FloatArrayPointMutator( searchContext );
+		return new FloatArrayPointMutator( searchContext, false );
 
 	} // getFloatArrayMutator
 
 
+	/**
+	 * Creates and returns a Mutator to perform creep mutations on integers, which nudge a
+	 * value up or down by a uniformly chosen step of 1 to {@code stepSize} and clamp it
+	 * to a range, rather than replacing it.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @param stepSize a positive int indicating the largest step.
+	 * @param minimum an int indicating the lowest value allowed.
+	 * @param maximum an int indicating the highest value allowed.
+	 * @param perLocus a boolean indicating whether to mutate each element independently
+	 *            with the probability
+	 *            {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE}, rather than
+	 *            mutating a number of random positions.
+	 * @return a {@code Mutator<int[]>} which may be used to mutate {@code int[]} states.
+	 * @throws IllegalArgumentException if the step size isn't positive or the range is
+	 *             empty.
+	 */
+	public static Mutator<int[ ]> getIntArrayCreepMutator( SearchContext<int[ ]> searchContext,
+			int stepSize, int minimum, int maximum, boolean perLocus )
+			throws IllegalArgumentException
+	{
+		return new IntArrayCreepMutator( searchContext, stepSize, minimum, maximum, perLocus );
+
+	} // getIntArrayCreepMutator
+
+
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextInt()}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @return a {@code Mutator<int[]>} which may be used to mutate {@code int[]}
+	 *         states.
+	 */
+	public static Mutator<int[ ]> getIntArrayLocusMutator(
+			SearchContext<int[ ]> searchContext )
+	{
+		return new IntArrayPointMutator( searchContext, 0, true );
+
+	} // getIntArrayLocusMutator
+
+
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextInt( range )}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @param range an int specifying the modulo value to pass to the Random to limit the
+	 *            range of values produced.
+	 * @return a {@code Mutator<int[]>} which may be used to mutate {@code int[]}
+	 *         states.
+	 */
+	public static Mutator<int[ ]> getIntArrayLocusMutator(
+			SearchContext<int[ ]> searchContext, int range )
+	{
+		return new IntArrayPointMutator( searchContext, range, true );
+
+	} // getIntArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
 	 * {@code Random.nextInt()}.
@@ -240,7 +575,7 @@ public class PointMutators
 	 */
 	public static Mutator<int[ ]> getIntArrayMutator( SearchContext<int[ ]> searchContext )
 	{
-		return new IntArrayPointMutator( searchContext, null );
+		return new IntArrayPointMutator( searchContext, 0, false );
 
 	} // getIntArrayMutator
 
@@ -256,11 +591,28 @@ public class PointMutators
 	 */
 	public static Mutator<int[ ]> getIntArrayMutator( SearchContext<int[ ]> searchContext, int range )
 	{
-		return new IntArrayPointMutator( searchContext, range );
+		return new IntArrayPointMutator( searchContext, range, false );
 
 	} // getIntArrayMutator
 
 
+	/**
+	 * Creates and returns a per-locus Mutator which mutates each element independently
+	 * with the probability {@link AbstractPointMutator#BIAS_KEY_LOCUS_MUTATION_RATE},
+	 * using {@code Random.nextLong()}.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances,
+	 *            bias values, etc.
+	 * @return a {@code Mutator<long[]>} which may be used to mutate {@code long[]}
+	 *         states.
+	 */
+	public static Mutator<long[ ]> getLongArrayLocusMutator(
+			SearchContext<long[ ]> searchContext )
+	{
+		return new LongArrayPointMutator( searchContext, true );
+
+	} // getLongArrayLocusMutator
+
+
 	/**
 	 * Creates and returns a Mutator to perform point mutations using
 	 * {@code Random.nextLong()}.
@@ -271,7 +623,7 @@ public class PointMutators
 	 */
 	public static Mutator<long[ ]> getLongArrayMutator( SearchContext<long[ ]> searchContext )
 	{
-		return new LongArrayPointMutator( searchContext );
+		return new LongArrayPointMutator( searchContext, false );
 
 	} // getLongArrayMutator
 
@@ -0,0 +1,275 @@
+/*
+ * PrimitiveSet.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * PrimitiveSet is the vocabulary of {@link ProgramTree}s: the functions their internal
+ * nodes apply, and the terminals at their leaves, which are either input variables or
+ * constants. Each primitive is identified by an {@code int} code, which is what trees
+ * store: the functions come first, then the variables, then the constants.
+ * <p>
+ * Every function is total over the {@code double}s, so that any tree can be evaluated:
+ * division by (nearly) zero gives 1, the logarithm is of the absolute value and gives 0
+ * at 0, the square root is of the absolute value, and the exponent is capped short of
+ * overflow. The tree evaluators all share these definitions.
+ * <p>
+ * PrimitiveSet is immutable, and therefore thread safe.
+ * @author David Schmidt
+ */
+public final class PrimitiveSet
+{
+	/**
+	 * The functions available to programs.
+	 */
+	public enum Function
+	{
+		ADD( 2 ), SUBTRACT( 2 ), MULTIPLY( 2 ), DIVIDE( 2 ), NEGATE( 1 ), SINE( 1 ),
+		COSINE( 1 ), EXPONENT( 1 ), LOGARITHM( 1 ), SQUARE_ROOT( 1 );
+
+		// Data members.
+		private final int fieldArity;
+
+
+		private Function( int arity )
+		{
+			fieldArity = arity;
+
+		} // Function
+
+
+		public int getArity( )
+		{
+			return fieldArity;
+
+		} // getArity
+
+	} // Function
+
+	// Class constants.
+	private static final double DIVISION_THRESHOLD = 1e-9;
+	private static final double EXPONENT_LIMIT = 700;
+
+	// Data members.
+	private final Function[ ] fieldFunctions;
+	private final int fieldVariableCount;
+	private final double[ ] fieldConstants;
+	private final int[ ] fieldArities;
+
+
+	/**
+	 * PrimitiveSet constructor.
+	 * @param variableCount a positive int indicating the number of input variables.
+	 * @param constants a {@code double[ ]} of the constants programs may use, which is
+	 *            copied; it may be empty.
+	 * @param functions the (non-empty) Functions programs may use.
+	 * @throws IllegalArgumentException if there are no variables or no functions.
+	 */
+	public PrimitiveSet( int variableCount, double[ ] constants, Function... functions )
+			throws IllegalArgumentException
+	{
+		if ( variableCount < 1 || functions.length == 0 )
+			throw new IllegalArgumentException(
+					"There must be at least one variable and one function." );
+
+		fieldFunctions = functions.clone( );
+		fieldVariableCount = variableCount;
+		fieldConstants = constants.clone( );
+
+		fieldArities = new int[ fieldFunctions.length + variableCount + fieldConstants.length ];
+		for ( int code = 0; code < fieldFunctions.length; code++ )
+			fieldArities[ code ] = fieldFunctions[ code ].getArity( );
+
+	} // PrimitiveSet
+
+
+	static double divide( double dividend, double divisor )
+	{
+		return ( Math.abs( divisor ) < DIVISION_THRESHOLD ) ? 1 : dividend / divisor;
+
+	} // divide
+
+
+	static double exponent( double value )
+	{
+		return Math.exp( Math.min( value, EXPONENT_LIMIT ) );
+
+	} // exponent
+
+
+	public int getArity( int code )
+	{
+		return fieldArities[ code ];
+
+	} // getArity
+
+
+	/**
+	 * @return the number of primitives, so that codes lie in {@code [0, count)}.
+	 */
+	public int getCodeCount( )
+	{
+		return fieldArities.length;
+
+	} // getCodeCount
+
+
+	/**
+	 * @return the value of the given constant code.
+	 */
+	public double getConstant( int code )
+	{
+		return fieldConstants[ code - fieldFunctions.length - fieldVariableCount ];
+
+	} // getConstant
+
+
+	/**
+	 * @return the Function of the given function code.
+	 */
+	public Function getFunction( int code )
+	{
+		return fieldFunctions[ code ];
+
+	} // getFunction
+
+
+	public int getFunctionCount( )
+	{
+		return fieldFunctions.length;
+
+	} // getFunctionCount
+
+
+	/**
+	 * @return the index of the input variable of the given variable code.
+	 */
+	public int getVariable( int code )
+	{
+		return code - fieldFunctions.length;
+
+	} // getVariable
+
+
+	public int getVariableCount( )
+	{
+		return fieldVariableCount;
+
+	} // getVariableCount
+
+
+	public boolean isConstant( int code )
+	{
+		return code >= fieldFunctions.length + fieldVariableCount;
+
+	} // isConstant
+
+
+	public boolean isFunction( int code )
+	{
+		return code < fieldFunctions.length;
+
+	} // isFunction
+
+
+	public boolean isVariable( int code )
+	{
+		return code >= fieldFunctions.length && code < fieldFunctions.length
+				+ fieldVariableCount;
+
+	} // isVariable
+
+
+	static double logarithm( double value )
+	{
+		return ( value == 0 ) ? 0 : Math.log( Math.abs( value ) );
+
+	} // logarithm
+
+
+	/**
+	 * @param random a function returning a random int below its argument.
+	 * @return a random function code.
+	 */
+	public int randomFunction( IntUnaryOperator random )
+	{
+		return random.applyAsInt( fieldFunctions.length );
+
+	} // randomFunction
+
+
+	/**
+	 * @param random a function returning a random int below its argument.
+	 * @return a random primitive code of the given arity, or {@code -1} if there's none.
+	 */
+	public int randomOfArity( IntUnaryOperator random, int arity )
+	{
+		// Terminals are contiguous; functions of the arity are counted out.
+		if ( arity == 0 )
+			return randomTerminal( random );
+
+		int count = 0;
+		for ( int code = 0; code < fieldFunctions.length; code++ )
+			if ( fieldArities[ code ] == arity )
+				count++;
+		if ( count == 0 )
+			return -1;
+
+		int choice = random.applyAsInt( count );
+		for ( int code = 0;; code++ )
+			if ( fieldArities[ code ] == arity && choice-- == 0 )
+				return code;
+
+	} // randomOfArity
+
+
+	/**
+	 * @param random a function returning a random int below its argument.
+	 * @return a random terminal (variable or constant) code.
+	 */
+	public int randomTerminal( IntUnaryOperator random )
+	{
+		return fieldFunctions.length
+				+ random.applyAsInt( fieldVariableCount + fieldConstants.length );
+
+	} // randomTerminal
+
+
+	static double squareRoot( double value )
+	{
+		return Math.sqrt( Math.abs( value ) );
+
+	} // squareRoot
+
+
+	@Override
+	public String toString( )
+	{
+		return Arrays.toString( fieldFunctions ) + " x" + fieldVariableCount + " "
+				+ Arrays.toString( fieldConstants );
+
+	} // toString
+
+
+	/**
+	 * @return a short name for the given primitive code: the function's name in lower
+	 *         case, {@code x}<i>n</i> for a variable, or the value of a constant.
+	 */
+	public String toString( int code )
+	{
+		if ( isFunction( code ) )
+			return fieldFunctions[ code ].name( ).toLowerCase( );
+		if ( isVariable( code ) )
+			return "x" + getVariable( code );
+
+		return Double.toString( getConstant( code ) );
+
+	} // toString
+
+}
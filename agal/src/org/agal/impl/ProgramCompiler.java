@@ -0,0 +1,489 @@
+/*
+ * ProgramCompiler.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ProgramCompiler compiles {@link ProgramTree}s into JVM bytecode, for trees which are
+ * evaluated often enough to pay for it. Each tree becomes a hidden class with a single
+ * static method, which loops over the rows and evaluates the tree's expression for each,
+ * straight-line: a variable loads from its column, a constant is loaded from the constant
+ * pool, and a function is its arithmetic instruction, or a static call for the others
+ * (which the JIT inlines). Once the JVM has compiled the method, a row costs what a
+ * hand-written expression would, with no dispatch on the nodes at all, and no stack in
+ * memory. Until then (for the first hundred or so evaluations of the tree, depending on
+ * the number of rows) it runs in the JVM's own interpreter, which is slower than
+ * {@link ProgramInterpreter}; compiling is worth it only for trees which will be
+ * evaluated many times.
+ * <p>
+ * Hidden classes can be unloaded as soon as they're unreachable, so the classes of trees
+ * which have died cost nothing. Each tree keeps its compiled handle until it's changed.
+ * <p>
+ * Trees longer than {@link #MAXIMUM_LENGTH} nodes can't be compiled, since their methods
+ * might not fit within the JVM's limits; {@link #evaluate(ProgramTree, double[][], int,
+ * double[])} interprets them instead.
+ * <p>
+ * The data are in columns, as for the interpreter: {@code columns[ v ][ r ]} is the value
+ * of variable {@code v} in row {@code r}.
+ * <p>
+ * ProgramCompiler is thread safe. A tree compiled by two threads at once is compiled
+ * twice, to the same effect.
+ * @author David Schmidt
+ */
+public class ProgramCompiler
+{
+	/**
+	 * The constant pool of a class being written.
+	 */
+	private static final class ConstantPool
+	{
+		// Data members.
+		private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream( );
+		private final DataOutputStream fieldOutput = new DataOutputStream( fieldBytes );
+		private final Map<String, Integer> fieldIndices = new HashMap<>( );
+		private int fieldCount = 1;
+
+
+		public int classReference( String name ) throws IOException
+		{
+			int nameIndex = utf8( name );
+			Integer index = fieldIndices.get( "Class " + name );
+			if ( index == null )
+				{
+				fieldOutput.writeByte( CONSTANT_CLASS );
+				fieldOutput.writeShort( nameIndex );
+				index = put( "Class " + name, 1 );
+				}
+
+			return index;
+
+		} // classReference
+
+
+		public int doubleConstant( double value ) throws IOException
+		{
+			String key = "Double " + Double.doubleToRawLongBits( value );
+			Integer index = fieldIndices.get( key );
+			if ( index == null )
+				{
+				fieldOutput.writeByte( CONSTANT_DOUBLE );
+				fieldOutput.writeDouble( value );
+
+				// Doubles take two entries.
+				index = put( key, 2 );
+				}
+
+			return index;
+
+		} // doubleConstant
+
+
+		public int methodReference( String owner, String name, String descriptor )
+				throws IOException
+		{
+			int classIndex = classReference( owner );
+			int nameIndex = utf8( name );
+			int descriptorIndex = utf8( descriptor );
+			String key = "Method " + owner + "." + name + descriptor;
+			Integer index = fieldIndices.get( key );
+			if ( index == null )
+				{
+				fieldOutput.writeByte( CONSTANT_NAME_AND_TYPE );
+				fieldOutput.writeShort( nameIndex );
+				fieldOutput.writeShort( descriptorIndex );
+				int nameAndTypeIndex = put( "NameAndType " + key, 1 );
+
+				fieldOutput.writeByte( CONSTANT_METHODREF );
+				fieldOutput.writeShort( classIndex );
+				fieldOutput.writeShort( nameAndTypeIndex );
+				index = put( key, 1 );
+				}
+
+			return index;
+
+		} // methodReference
+
+
+		private int put( String key, int size )
+		{
+			int index = fieldCount;
+			fieldIndices.put( key, index );
+			fieldCount += size;
+
+			return index;
+
+		} // put
+
+
+		public int utf8( String value ) throws IOException
+		{
+			Integer index = fieldIndices.get( "Utf8 " + value );
+			if ( index == null )
+				{
+				fieldOutput.writeByte( CONSTANT_UTF8 );
+				fieldOutput.writeUTF( value );
+				index = put( "Utf8 " + value, 1 );
+				}
+
+			return index;
+
+		} // utf8
+
+
+		public void write( DataOutputStream output ) throws IOException
+		{
+			output.writeShort( fieldCount );
+			fieldBytes.writeTo( output );
+
+		} // write
+
+	} // ConstantPool
+
+	// Class constants.
+	/**
+	 * The number of nodes in the longest tree which can be compiled.
+	 */
+	public static final int MAXIMUM_LENGTH = 4096;
+
+	private static final MethodType PROGRAM_TYPE = MethodType.methodType( void.class,
+			double[ ][ ].class, int.class, double[ ].class );
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup( );
+
+	private static final String CLASS_NAME = ProgramCompiler.class.getPackageName( )
+			.replace( '.', '/' ) + "/CompiledProgram";
+	private static final String PRIMITIVES_NAME = PrimitiveSet.class.getName( ).replace(
+			'.', '/' );
+	private static final String METHOD_NAME = "evaluate";
+
+	// The class file format, in the version of Java 8.
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int MAJOR_VERSION = 52;
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int DCONST_0 = 0x0E;
+	private static final int DCONST_1 = 0x0F;
+	private static final int LDC2_W = 0x14;
+	private static final int ILOAD_1 = 0x1B;
+	private static final int ILOAD_3 = 0x1D;
+	private static final int ALOAD_0 = 0x2A;
+	private static final int ALOAD_2 = 0x2C;
+	private static final int DALOAD = 0x31;
+	private static final int AALOAD = 0x32;
+	private static final int ISTORE_3 = 0x3E;
+	private static final int DASTORE = 0x52;
+	private static final int DADD = 0x63;
+	private static final int DSUB = 0x67;
+	private static final int DMUL = 0x6B;
+	private static final int DNEG = 0x77;
+	private static final int IINC = 0x84;
+	private static final int IF_ICMPGE = 0xA2;
+	private static final int GOTO = 0xA7;
+	private static final int RETURN = 0xB1;
+	private static final int INVOKESTATIC = 0xB8;
+
+	private static final int SAME_FRAME_EXTENDED = 251;
+	private static final int APPEND_ONE_FRAME = 252;
+	private static final int ITEM_INTEGER = 1;
+
+
+	/**
+	 * Compiles a tree, or returns the handle it was already compiled to.
+	 * @param tree a ProgramTree.
+	 * @return a {@code MethodHandle} of type {@code (double[ ][ ], int, double[ ])void},
+	 *         which evaluates the tree over the given number of rows of the given columns
+	 *         into the given results, as {@link #evaluate(ProgramTree, double[][], int,
+	 *         double[])} does.
+	 * @throws IllegalArgumentException if the tree is longer than {@link #MAXIMUM_LENGTH}.
+	 */
+	public static MethodHandle compile( ProgramTree tree ) throws IllegalArgumentException
+	{
+		MethodHandle compiled = tree.getCompiled( );
+		if ( compiled != null )
+			return compiled;
+
+		if ( tree.getLength( ) > MAXIMUM_LENGTH )
+			throw new IllegalArgumentException( "The tree is too long to compile." );
+
+		try
+			{
+			MethodHandles.Lookup program = LOOKUP.defineHiddenClass( writeClass( tree ), true );
+			compiled = program.findStatic( program.lookupClass( ), METHOD_NAME, PROGRAM_TYPE );
+			}
+		catch ( IOException | ReflectiveOperationException exception )
+			{
+			// The class is written in memory, and always defines the method.
+			throw new IllegalStateException( exception );
+			}
+
+		tree.setCompiled( compiled );
+
+		return compiled;
+
+	} // compile
+
+
+	/**
+	 * Writes the instructions which push the value of the subtree at the given index.
+	 * @param depth an {@code int[ ]} holding the number of values on the stack, and the
+	 *            greatest number there have been, which are updated.
+	 * @return the end of the subtree.
+	 */
+	private static int emit( PrimitiveSet primitives, int[ ] nodes, int index,
+			DataOutputStream code, ConstantPool constants, int[ ] depth ) throws IOException
+	{
+		int node = nodes[ index++ ];
+		int arity = primitives.getArity( node );
+		if ( arity == 0 )
+			depth[ 1 ] = Math.max( depth[ 1 ], ++depth[ 0 ] );
+
+		if ( primitives.isVariable( node ) )
+			{
+			code.writeByte( ALOAD_0 );
+			int variable = primitives.getVariable( node );
+			if ( variable <= 5 )
+				code.writeByte( ICONST_0 + variable );
+			else if ( variable <= Byte.MAX_VALUE )
+				{
+				code.writeByte( BIPUSH );
+				code.writeByte( variable );
+				}
+			else
+				{
+				code.writeByte( SIPUSH );
+				code.writeShort( variable );
+				}
+			code.writeByte( AALOAD );
+			code.writeByte( ILOAD_3 );
+			code.writeByte( DALOAD );
+			return index;
+			}
+
+		if ( primitives.isConstant( node ) )
+			{
+			double value = primitives.getConstant( node );
+			long bits = Double.doubleToRawLongBits( value );
+			if ( bits == Double.doubleToRawLongBits( 0.0 ) )
+				code.writeByte( DCONST_0 );
+			else if ( bits == Double.doubleToRawLongBits( 1.0 ) )
+				code.writeByte( DCONST_1 );
+			else
+				{
+				code.writeByte( LDC2_W );
+				code.writeShort( constants.doubleConstant( value ) );
+				}
+			return index;
+			}
+
+		// The arguments are pushed in order, then the function is applied to them.
+		for ( int argument = 0; argument < arity; argument++ )
+			index = emit( primitives, nodes, index, code, constants, depth );
+		depth[ 0 ] -= arity - 1;
+
+		switch ( primitives.getFunction( node ) )
+			{
+			case ADD:
+				code.writeByte( DADD );
+				break;
+
+			case SUBTRACT:
+				code.writeByte( DSUB );
+				break;
+
+			case MULTIPLY:
+				code.writeByte( DMUL );
+				break;
+
+			case NEGATE:
+				code.writeByte( DNEG );
+				break;
+
+			case DIVIDE:
+				emitCall( PRIMITIVES_NAME, "divide", "(DD)D", code, constants );
+				break;
+
+			case SINE:
+				emitCall( "java/lang/Math", "sin", "(D)D", code, constants );
+				break;
+
+			case COSINE:
+				emitCall( "java/lang/Math", "cos", "(D)D", code, constants );
+				break;
+
+			case EXPONENT:
+				emitCall( PRIMITIVES_NAME, "exponent", "(D)D", code, constants );
+				break;
+
+			case LOGARITHM:
+				emitCall( PRIMITIVES_NAME, "logarithm", "(D)D", code, constants );
+				break;
+
+			case SQUARE_ROOT:
+				emitCall( PRIMITIVES_NAME, "squareRoot", "(D)D", code, constants );
+				break;
+			}
+
+		return index;
+
+	} // emit
+
+
+	private static void emitCall( String owner, String name, String descriptor,
+			DataOutputStream code, ConstantPool constants ) throws IOException
+	{
+		code.writeByte( INVOKESTATIC );
+		code.writeShort( constants.methodReference( owner, name, descriptor ) );
+
+	} // emitCall
+
+
+	/**
+	 * Evaluates a tree over the first {@code rowCount} rows of the columns, compiling it
+	 * first if it hasn't been, or interpreting it if it's too long to compile.
+	 * @param tree the ProgramTree to evaluate.
+	 * @param columns a {@code double[ ][ ]} holding a column of values for each variable.
+	 * @param rowCount the number of rows to evaluate.
+	 * @param results a {@code double[ ]} to receive the result for each row.
+	 */
+	public static void evaluate( ProgramTree tree, double[ ][ ] columns, int rowCount,
+			double[ ] results )
+	{
+		if ( tree.getLength( ) > MAXIMUM_LENGTH )
+			{
+			ProgramInterpreter.evaluate( tree, columns, rowCount, results );
+			return;
+			}
+
+		MethodHandle compiled = compile( tree );
+
+		try
+			{
+			compiled.invokeExact( columns, rowCount, results );
+			}
+		catch ( RuntimeException | Error exception )
+			{
+			throw exception;
+			}
+		catch ( Throwable throwable )
+			{
+			// The compiled method doesn't throw checked exceptions, so this can't happen.
+			throw new IllegalStateException( throwable );
+			}
+
+	} // evaluate
+
+
+	/**
+	 * @return the bytes of a class whose static method evaluates the tree, as
+	 *         {@code static void evaluate( double[ ][ ] columns, int rowCount,
+	 *         double[ ] results )}.
+	 */
+	private static byte[ ] writeClass( ProgramTree tree ) throws IOException
+	{
+		PrimitiveSet primitives = tree.getPrimitives( );
+		ConstantPool constants = new ConstantPool( );
+		int thisClass = constants.classReference( CLASS_NAME );
+		int superClass = constants.classReference( "java/lang/Object" );
+		int methodName = constants.utf8( METHOD_NAME );
+		int methodDescriptor = constants.utf8( PROGRAM_TYPE.toMethodDescriptorString( ) );
+		int codeName = constants.utf8( "Code" );
+		int stackMapName = constants.utf8( "StackMapTable" );
+
+		// for ( int row = 0; row < rowCount; row++ ) results[ row ] = <tree>;
+		ByteArrayOutputStream codeBytes = new ByteArrayOutputStream( );
+		DataOutputStream code = new DataOutputStream( codeBytes );
+		code.writeByte( ICONST_0 );
+		code.writeByte( ISTORE_3 );
+		int loop = codeBytes.size( );
+		code.writeByte( ILOAD_3 );
+		code.writeByte( ILOAD_1 );
+		int exitBranch = codeBytes.size( );
+		code.writeByte( IF_ICMPGE );
+		code.writeShort( 0 );
+		code.writeByte( ALOAD_2 );
+		code.writeByte( ILOAD_3 );
+		int[ ] depth = new int[ 2 ];
+		emit( primitives, tree.getNodes( ), 0, code, constants, depth );
+		code.writeByte( DASTORE );
+		code.writeByte( IINC );
+		code.writeByte( 3 );
+		code.writeByte( 1 );
+		code.writeByte( GOTO );
+		code.writeShort( loop - codeBytes.size( ) + 1 );
+		int exit = codeBytes.size( );
+		code.writeByte( RETURN );
+
+		byte[ ] instructions = codeBytes.toByteArray( );
+		instructions[ exitBranch + 1 ] = ( byte ) ( ( exit - exitBranch ) >> 8 );
+		instructions[ exitBranch + 2 ] = ( byte ) ( exit - exitBranch );
+
+		// The frames at the loop, where the row has been added, and at the exit.
+		ByteArrayOutputStream frameBytes = new ByteArrayOutputStream( );
+		DataOutputStream frames = new DataOutputStream( frameBytes );
+		frames.writeShort( 2 );
+		frames.writeByte( APPEND_ONE_FRAME );
+		frames.writeShort( loop );
+		frames.writeByte( ITEM_INTEGER );
+		frames.writeByte( SAME_FRAME_EXTENDED );
+		frames.writeShort( exit - loop - 1 );
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream( );
+		DataOutputStream output = new DataOutputStream( classBytes );
+		output.writeInt( MAGIC );
+		output.writeShort( 0 );
+		output.writeShort( MAJOR_VERSION );
+		constants.write( output );
+		output.writeShort( ACC_PUBLIC | ACC_FINAL | ACC_SUPER );
+		output.writeShort( thisClass );
+		output.writeShort( superClass );
+		output.writeShort( 0 );
+		output.writeShort( 0 );
+
+		output.writeShort( 1 );
+		output.writeShort( ACC_PUBLIC | ACC_STATIC );
+		output.writeShort( methodName );
+		output.writeShort( methodDescriptor );
+		output.writeShort( 1 );
+		output.writeShort( codeName );
+		output.writeInt( 12 + instructions.length + 6 + frameBytes.size( ) );
+		output.writeShort( 2 + 2 * depth[ 1 ] );
+		output.writeShort( 4 );
+		output.writeInt( instructions.length );
+		output.write( instructions );
+		output.writeShort( 0 );
+		output.writeShort( 1 );
+		output.writeShort( stackMapName );
+		output.writeInt( frameBytes.size( ) );
+		frameBytes.writeTo( output );
+
+		output.writeShort( 0 );
+
+		return classBytes.toByteArray( );
+
+	} // writeClass
+
+}
@@ -0,0 +1,175 @@
+/*
+ * ProgramInterpreter.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Arrays;
+
+/**
+ * ProgramInterpreter evaluates {@link ProgramTree}s with a stack machine which works on
+ * a block of rows at a time, rather than one. Each stack slot holds
+ * {@link #BLOCK_SIZE} values, one for each row in the block; a variable pushes a slice of
+ * its column, a constant a run of itself, and a function replaces its arguments with its
+ * results, in one tight loop over the block. The cost of decoding each node is thus
+ * spread over the whole block, and the loops are simple enough for the JIT to unroll and
+ * vectorize.
+ * <p>
+ * Since a tree is in prefix order, it's run from the end back to the start, which leaves
+ * a function's first argument on top of the stack when the function is reached.
+ * <p>
+ * Interpreting needs no preparation, so it suits trees which will only be evaluated once
+ * or twice; those evaluated more often may be compiled instead (see
+ * {@link ProgramCompiler}).
+ * <p>
+ * The data are in columns: {@code columns[ v ][ r ]} is the value of variable {@code v}
+ * in row {@code r}.
+ * <p>
+ * ProgramInterpreter is thread safe; each thread has a stack of its own.
+ * @author David Schmidt
+ */
+public class ProgramInterpreter
+{
+	// Class constants.
+	/**
+	 * The number of rows evaluated together.
+	 */
+	public static final int BLOCK_SIZE = 256;
+
+	private static final ThreadLocal<double[ ][ ]> STACK = ThreadLocal
+			.withInitial( ( ) -> new double[ 0 ][ ] );
+
+
+	/**
+	 * Evaluates a tree over the first {@code rowCount} rows of the columns.
+	 * @param tree the ProgramTree to evaluate.
+	 * @param columns a {@code double[ ][ ]} holding a column of values for each variable.
+	 * @param rowCount the number of rows to evaluate.
+	 * @param results a {@code double[ ]} to receive the result for each row.
+	 */
+	public static void evaluate( ProgramTree tree, double[ ][ ] columns, int rowCount,
+			double[ ] results )
+	{
+		PrimitiveSet primitives = tree.getPrimitives( );
+		int[ ] nodes = tree.getNodes( );
+		int length = tree.getLength( );
+		double[ ][ ] stack = getStack( primitives, nodes, length );
+
+		for ( int start = 0; start < rowCount; start += BLOCK_SIZE )
+			{
+			int count = Math.min( BLOCK_SIZE, rowCount - start );
+			int top = 0;
+
+			for ( int index = length - 1; index >= 0; index-- )
+				{
+				int code = nodes[ index ];
+				if ( primitives.isVariable( code ) )
+					{
+					System.arraycopy( columns[ primitives.getVariable( code ) ], start,
+							stack[ top++ ], 0, count );
+					continue;
+					}
+				if ( primitives.isConstant( code ) )
+					{
+					Arrays.fill( stack[ top++ ], 0, count, primitives.getConstant( code ) );
+					continue;
+					}
+
+				// Binary functions leave their result in the second argument's slot.
+				double[ ] first = stack[ top - 1 ];
+				double[ ] second = ( top > 1 ) ? stack[ top - 2 ] : null;
+				switch ( primitives.getFunction( code ) )
+					{
+					case ADD:
+						for ( int row = 0; row < count; row++ )
+							second[ row ] = first[ row ] + second[ row ];
+						top--;
+						break;
+
+					case SUBTRACT:
+						for ( int row = 0; row < count; row++ )
+							second[ row ] = first[ row ] - second[ row ];
+						top--;
+						break;
+
+					case MULTIPLY:
+						for ( int row = 0; row < count; row++ )
+							second[ row ] = first[ row ] * second[ row ];
+						top--;
+						break;
+
+					case DIVIDE:
+						for ( int row = 0; row < count; row++ )
+							second[ row ] = PrimitiveSet.divide( first[ row ], second[ row ] );
+						top--;
+						break;
+
+					case NEGATE:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = -first[ row ];
+						break;
+
+					case SINE:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = Math.sin( first[ row ] );
+						break;
+
+					case COSINE:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = Math.cos( first[ row ] );
+						break;
+
+					case EXPONENT:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = PrimitiveSet.exponent( first[ row ] );
+						break;
+
+					case LOGARITHM:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = PrimitiveSet.logarithm( first[ row ] );
+						break;
+
+					case SQUARE_ROOT:
+						for ( int row = 0; row < count; row++ )
+							first[ row ] = PrimitiveSet.squareRoot( first[ row ] );
+						break;
+					}
+				}
+
+			System.arraycopy( stack[ 0 ], 0, results, start, count );
+			}
+
+	} // evaluate
+
+
+	/**
+	 * @return the calling thread's stack, grown if need be to hold as many slots as the
+	 *         tree needs.
+	 */
+	private static double[ ][ ] getStack( PrimitiveSet primitives, int[ ] nodes, int length )
+	{
+		int depth = 0;
+		int maximumDepth = 0;
+		for ( int index = length - 1; index >= 0; index-- )
+			{
+			depth += 1 - primitives.getArity( nodes[ index ] );
+			maximumDepth = Math.max( maximumDepth, depth );
+			}
+
+		double[ ][ ] stack = STACK.get( );
+		if ( stack.length < maximumDepth )
+			{
+			int oldLength = stack.length;
+			stack = Arrays.copyOf( stack, Math.max( maximumDepth, 2 * oldLength ) );
+			for ( int slot = oldLength; slot < stack.length; slot++ )
+				stack[ slot ] = new double[ BLOCK_SIZE ];
+			STACK.set( stack );
+			}
+
+		return stack;
+
+	} // getStack
+
+}
@@ -0,0 +1,365 @@
+/*
+ * ProgramTree.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+/**
+ * ProgramTree is the genome of tree-based genetic programming: an expression over the
+ * primitives of a {@link PrimitiveSet}. Rather than as linked nodes, the tree is stored
+ * as the primitives' codes in prefix order, one {@code int} per node, in an array with
+ * room to spare. Every subtree is then a contiguous run of the array, whose end is found
+ * by counting arities, so that crossover and mutation are a matter of copying runs, and
+ * evaluation walks the array without chasing pointers.
+ * <p>
+ * The tree also keeps what its evaluators have made of it: a count of the rows it's been
+ * evaluated over, and its compiled form, once there is one (see {@link ProgramCompiler}).
+ * Both are discarded whenever it changes.
+ * <p>
+ * Operators provided by {@link ProgramTrees} only modify freshly reproduced children,
+ * never a tree which may already be shared with other threads; custom operators should do
+ * the same.
+ * @author David Schmidt
+ */
+public final class ProgramTree
+{
+	// Data members.
+	private final PrimitiveSet fieldPrimitives;
+	private int[ ] fieldNodes;
+	private int fieldLength;
+
+	// Evaluation state, which is racy but only advisory.
+	private long fieldEvaluatedRows;
+	private volatile MethodHandle fieldCompiled;
+
+
+	/**
+	 * Constructs an empty ProgramTree, which must be filled before it's evaluated.
+	 * @param primitives the PrimitiveSet whose codes the tree holds.
+	 * @param capacity an int indicating the number of nodes to make room for.
+	 */
+	public ProgramTree( PrimitiveSet primitives, int capacity )
+	{
+		fieldPrimitives = primitives;
+		fieldNodes = new int[ Math.max( capacity, 1 ) ];
+
+	} // ProgramTree
+
+
+	/**
+	 * Constructs a ProgramTree holding a copy of the given prefix-order codes.
+	 * @throws IllegalArgumentException if the codes aren't exactly one tree.
+	 */
+	public ProgramTree( PrimitiveSet primitives, int[ ] nodes )
+			throws IllegalArgumentException
+	{
+		this( primitives, nodes.length );
+
+		if ( nodes.length == 0
+				|| subtreeEnd( primitives, nodes, 0, nodes.length ) != nodes.length )
+			throw new IllegalArgumentException( "The nodes must form exactly one tree." );
+
+		System.arraycopy( nodes, 0, fieldNodes, 0, nodes.length );
+		fieldLength = nodes.length;
+
+	} // ProgramTree
+
+
+	/**
+	 * Makes this tree a copy of another.
+	 */
+	public void copy( ProgramTree source )
+	{
+		// An empty splice.
+		splice( source, 0, 0, source, 0, 0 );
+
+	} // copy
+
+
+	/**
+	 * Counts an evaluation of the tree over the given number of rows.
+	 * @return the number of rows over which the tree has been evaluated since it last
+	 *         changed, including these.
+	 */
+	long countRows( int rowCount )
+	{
+		return fieldEvaluatedRows += rowCount;
+
+	} // countRows
+
+
+	@Override
+	public boolean equals( Object other )
+	{
+		if ( !( other instanceof ProgramTree ) )
+			return false;
+
+		ProgramTree tree = ( ProgramTree ) other;
+		return fieldPrimitives == tree.fieldPrimitives
+				&& Arrays.equals( fieldNodes, 0, fieldLength, tree.fieldNodes, 0,
+						tree.fieldLength );
+
+	} // equals
+
+
+	MethodHandle getCompiled( )
+	{
+		return fieldCompiled;
+
+	} // getCompiled
+
+
+	/**
+	 * @return the depth of the tree, where a lone terminal has depth 0.
+	 */
+	public int getDepth( )
+	{
+		// Each node's children are pending until they've been seen; the depth of a node
+		// is the number of nodes still waiting on children when it's reached.
+		int[ ] pending = new int[ fieldLength + 1 ];
+		int top = 0;
+		int depth = 0;
+		pending[ 0 ] = 1;
+		for ( int index = 0; index < fieldLength; index++ )
+			{
+			while ( pending[ top ] == 0 )
+				top--;
+			pending[ top ]--;
+			depth = Math.max( depth, top );
+
+			int arity = fieldPrimitives.getArity( fieldNodes[ index ] );
+			if ( arity > 0 )
+				pending[ ++top ] = arity;
+			}
+
+		return depth;
+
+	} // getDepth
+
+
+	/**
+	 * @return the number of nodes in the tree.
+	 */
+	public int getLength( )
+	{
+		return fieldLength;
+
+	} // getLength
+
+
+	/**
+	 * @return the depth of the node at the given index, where the root has depth 0.
+	 */
+	public int getNodeDepth( int index )
+	{
+		if ( index < 0 || index >= fieldLength )
+			throw new IndexOutOfBoundsException( "Node " + index + " of " + fieldLength );
+
+		// As in getDepth, but stopping at the node.
+		int[ ] pending = new int[ index + 2 ];
+		int top = 0;
+		pending[ 0 ] = 1;
+		for ( int position = 0;; position++ )
+			{
+			while ( pending[ top ] == 0 )
+				top--;
+			if ( position == index )
+				return top;
+			pending[ top ]--;
+
+			int arity = fieldPrimitives.getArity( fieldNodes[ position ] );
+			if ( arity > 0 )
+				pending[ ++top ] = arity;
+			}
+
+	} // getNodeDepth
+
+
+	/**
+	 * @return the backing array, whose first {@link #getLength()} elements are the codes
+	 *         of the tree's nodes in prefix order. It's replaced whenever the tree outgrows
+	 *         it.
+	 */
+	public int[ ] getNodes( )
+	{
+		return fieldNodes;
+
+	} // getNodes
+
+
+	public PrimitiveSet getPrimitives( )
+	{
+		return fieldPrimitives;
+
+	} // getPrimitives
+
+
+	/**
+	 * @return the index just past the end of the subtree rooted at the given index.
+	 */
+	public int getSubtreeEnd( int index )
+	{
+		if ( index < 0 || index >= fieldLength )
+			throw new IndexOutOfBoundsException( "Node " + index + " of " + fieldLength );
+
+		return subtreeEnd( fieldPrimitives, fieldNodes, index, fieldLength );
+
+	} // getSubtreeEnd
+
+
+	@Override
+	public int hashCode( )
+	{
+		int hash = 1;
+		for ( int index = 0; index < fieldLength; index++ )
+			hash = 31 * hash + fieldNodes[ index ];
+
+		return hash;
+
+	} // hashCode
+
+
+	/**
+	 * Forgets what the evaluators made of the tree, since it's changed.
+	 */
+	private void invalidate( )
+	{
+		fieldEvaluatedRows = 0;
+		fieldCompiled = null;
+
+	} // invalidate
+
+
+	/**
+	 * Replaces the node at the given index with another primitive of the same arity.
+	 * @throws IllegalArgumentException if the arities differ.
+	 */
+	public void replace( int index, int code ) throws IllegalArgumentException
+	{
+		if ( index < 0 || index >= fieldLength )
+			throw new IndexOutOfBoundsException( "Node " + index + " of " + fieldLength );
+		if ( fieldPrimitives.getArity( code ) != fieldPrimitives.getArity( fieldNodes[ index ] ) )
+			throw new IllegalArgumentException(
+					"A node can only be replaced by one of the same arity." );
+
+		fieldNodes[ index ] = code;
+		invalidate( );
+
+	} // replace
+
+
+	void setCompiled( MethodHandle compiled )
+	{
+		fieldCompiled = compiled;
+
+	} // setCompiled
+
+
+	/**
+	 * Makes this tree a copy of the recipient with the subtree at
+	 * {@code [start, end)} replaced by the donor's subtree at
+	 * {@code [donorStart, donorEnd)}. Either may be this tree itself.
+	 * @param recipient the ProgramTree to copy.
+	 * @param start the index of the root of the subtree to replace.
+	 * @param end the end of the subtree to replace, as from {@link #getSubtreeEnd(int)}.
+	 * @param donor the ProgramTree to take the replacement from.
+	 * @param donorStart the index of the root of the replacement.
+	 * @param donorEnd the end of the replacement.
+	 */
+	public void splice( ProgramTree recipient, int start, int end, ProgramTree donor,
+			int donorStart, int donorEnd )
+	{
+		splice( recipient, start, end, donor.fieldNodes, donorStart, donorEnd );
+
+	} // splice
+
+
+	/**
+	 * As {@link #splice(ProgramTree, int, int, ProgramTree, int, int)}, but with the
+	 * replacement taken from an array of codes.
+	 */
+	public void splice( ProgramTree recipient, int start, int end, int[ ] donorNodes,
+			int donorStart, int donorEnd )
+	{
+		int[ ] nodes = recipient.fieldNodes;
+		int length = recipient.fieldLength;
+		int graft = donorEnd - donorStart;
+		int newLength = length - ( end - start ) + graft;
+
+		// Build into a fresh array if the old one is too small or is one of the sources,
+		// so nothing is overwritten before it's read.
+		int[ ] target = fieldNodes;
+		if ( target.length < newLength || ( recipient != this && donorNodes == target ) )
+			target = new int[ Math.max( newLength, target.length + ( target.length >> 1 ) ) ];
+		else if ( recipient == this && donorNodes == target && graft > 0 )
+			target = new int[ target.length ];
+
+		if ( target != nodes )
+			System.arraycopy( nodes, 0, target, 0, start );
+		System.arraycopy( nodes, end, target, start + graft, length - end );
+		System.arraycopy( donorNodes, donorStart, target, start, graft );
+
+		fieldNodes = target;
+		fieldLength = newLength;
+		invalidate( );
+
+	} // splice
+
+
+	/**
+	 * @return the index just past the end of the subtree rooted at the given index of the
+	 *         given prefix-order codes, or {@code -1} if they run out at {@code limit}
+	 *         first.
+	 */
+	static int subtreeEnd( PrimitiveSet primitives, int[ ] nodes, int index, int limit )
+	{
+		int needed = 1;
+		while ( needed > 0 && index < limit )
+			needed += primitives.getArity( nodes[ index++ ] ) - 1;
+
+		return ( needed > 0 ) ? -1 : index;
+
+	} // subtreeEnd
+
+
+	/**
+	 * @return the tree as an s-expression, such as {@code (add x0 (sine 2.0))}.
+	 */
+	@Override
+	public String toString( )
+	{
+		StringBuilder builder = new StringBuilder( );
+		int[ ] pending = new int[ fieldLength + 1 ];
+		int top = 0;
+		for ( int index = 0; index < fieldLength; index++ )
+			{
+			if ( index > 0 )
+				builder.append( ' ' );
+
+			int code = fieldNodes[ index ];
+			int arity = fieldPrimitives.getArity( code );
+			if ( arity > 0 )
+				{
+				builder.append( '(' ).append( fieldPrimitives.toString( code ) );
+				pending[ ++top ] = arity;
+				continue;
+				}
+
+			builder.append( fieldPrimitives.toString( code ) );
+			while ( top > 0 && --pending[ top ] == 0 )
+				{
+				builder.append( ')' );
+				top--;
+				}
+			}
+
+		return builder.toString( );
+
+	} // toString
+
+}
@@ -0,0 +1,545 @@
+/*
+ * ProgramTrees.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.function.IntUnaryOperator;
+import java.util.random.RandomGenerator;
+
+import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Crossover;
+import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.RecyclingStateManager;
+import org.agal.core.SearchContext;
+import org.agal.core.StateManager;
+
+/**
+ * ProgramTrees is a static utility class which provides the standard operators of
+ * tree-based genetic programming for {@link ProgramTree} genomes:
+ * <ul>
+ * <li>a StateManager which creates trees by ramped half-and-half, that is, half full and
+ * half grown, with depths spread over a range;</li>
+ * <li>subtree crossover, which replaces a random subtree of the mother with a random
+ * subtree of the father;</li>
+ * <li>subtree mutation, which replaces a random subtree with a newly grown one; and</li>
+ * <li>point mutation, which replaces random nodes with other primitives of the same
+ * arity.</li>
+ * </ul>
+ * As is usual, the crossover and subtree mutation pick a function node nine times in ten,
+ * so that they don't mostly swap leaves, and bound the depth and size of the trees they
+ * make, so that the trees don't bloat without limit. Each is a matter of copying runs of
+ * the trees' prefix-order arrays.
+ * <p>
+ * Trees are evaluated over columns of data (see {@link #getColumns(double[][])}) in one
+ * of three ways, as an {@link Evaluation}: by the {@link ProgramInterpreter}, by the
+ * {@link ProgramCompiler}, or tiered, interpreting each tree until it has been evaluated
+ * over {@link #COMPILE_THRESHOLD} rows in all and compiling it from then on. A compiled
+ * tree runs about twice as fast as an interpreted one, but only once the JVM has compiled
+ * it in turn; what with that and defining its class, compiling a tree only pays for
+ * itself after some millions of rows. Tiered evaluation therefore spends compilation on
+ * the trees which are evaluated over large data sets, or which survive long enough to be
+ * evaluated again and again, such as the parents chosen repeatedly by selection. The
+ * regression evaluator, which scores a tree by its error against a target column, uses
+ * any of them.
+ * <p>
+ * All operators acquired herein are thread-safe.
+ * @author David Schmidt
+ */
+public class ProgramTrees
+{
+	/**
+	 * The ways of evaluating a tree.
+	 */
+	public enum Evaluation
+	{
+		INTERPRETED, COMPILED, TIERED;
+
+	} // Evaluation
+
+	/**
+	 * Replaces random nodes with primitives of the same arity.
+	 */
+	private static final class PointMutator extends AbstractPointMutator<ProgramTree>
+	{
+		public PointMutator( SearchContext<ProgramTree> searchContext )
+		{
+			super( searchContext );
+
+		} // PointMutator
+
+
+		@Override
+		protected int getLength( ProgramTree state )
+		{
+			return state.getLength( );
+
+		} // getLength
+
+
+		@Override
+		protected void updatePoint( ProgramTree state, int position )
+		{
+			updatePoint( state, position, getSearchContext( ).getRandomBuffer( ) );
+
+		} // updatePoint
+
+
+		@Override
+		protected void updatePoint( ProgramTree state, int position, RandomBuffer random )
+		{
+			PrimitiveSet primitives = state.getPrimitives( );
+			int code = primitives.randomOfArity( random::nextInt, primitives.getArity( state
+					.getNodes( )[ position ] ) );
+			if ( code >= 0 )
+				state.replace( position, code );
+
+		} // updatePoint
+
+	} // PointMutator
+
+	/**
+	 * Creates trees by ramped half-and-half, and reproduces with a Crossover.
+	 */
+	private static final class ProgramTreeStateManager implements
+			RecyclingStateManager<ProgramTree>, RandomSourceAware
+	{
+		// Data members.
+		private final PrimitiveSet fieldPrimitives;
+		private final Crossover<ProgramTree> fieldCrossover;
+		private final int fieldMinimumDepth;
+		private final int fieldMaximumDepth;
+		private RandomSource fieldRandomSource;
+
+
+		public ProgramTreeStateManager( PrimitiveSet primitives,
+				Crossover<ProgramTree> crossover, int minimumDepth, int maximumDepth )
+		{
+			if ( minimumDepth < 0 || maximumDepth < minimumDepth )
+				throw new IllegalArgumentException( "The depths must be in order." );
+
+			fieldPrimitives = primitives;
+			fieldCrossover = crossover;
+			fieldMinimumDepth = minimumDepth;
+			fieldMaximumDepth = maximumDepth;
+
+		} // ProgramTreeStateManager
+
+
+		@Override
+		public ProgramTree randomize( )
+		{
+			RandomGenerator random = RandomSource.generatorOf( fieldRandomSource );
+			int depth = fieldMinimumDepth
+					+ random.nextInt( fieldMaximumDepth - fieldMinimumDepth + 1 );
+
+			IntSequence buffer = SCRATCH.get( );
+			buffer.clear( );
+			generate( fieldPrimitives, random::nextInt, depth, random.nextBoolean( ), buffer );
+
+			return new ProgramTree( fieldPrimitives, buffer.toArray( ) );
+
+		} // randomize
+
+
+		@Override
+		public ProgramTree reproduce( ProgramTree mother, ProgramTree father )
+		{
+			ProgramTree child = new ProgramTree( fieldPrimitives, Math.max( mother.getLength( ),
+					father.getLength( ) ) );
+			fieldCrossover.cross( mother, father, child, RandomSource.generatorOf( fieldRandomSource ) );
+
+			return child;
+
+		} // reproduce
+
+
+		@Override
+		public void reproduceInto( ProgramTree mother, ProgramTree father, ProgramTree target )
+		{
+			fieldCrossover.cross( mother, father, target, RandomSource.generatorOf( fieldRandomSource ) );
+
+		} // reproduceInto
+
+
+		@Override
+		public void setRandomSource( RandomSource randomSource )
+		{
+			fieldRandomSource = randomSource;
+
+		} // setRandomSource
+
+	} // ProgramTreeStateManager
+
+	/**
+	 * Scores trees by their root mean squared error against a target column.
+	 */
+	private static final class RegressionEvaluator extends
+			AbstractFitnessEvaluator<ProgramTree>
+	{
+		// Data members.
+		private final double[ ][ ] fieldColumns;
+		private final double[ ] fieldTargets;
+		private final Evaluation fieldEvaluation;
+		private final ThreadLocal<double[ ]> fieldResults;
+
+
+		public RegressionEvaluator( double[ ][ ] columns, double[ ] targets,
+				Evaluation evaluation )
+		{
+			super( true );
+
+			fieldColumns = columns;
+			fieldTargets = targets;
+			fieldEvaluation = evaluation;
+			fieldResults = ThreadLocal.withInitial( ( ) -> new double[ targets.length ] );
+
+		} // RegressionEvaluator
+
+
+		@Override
+		public Integer fitness( ProgramTree state )
+		{
+			double[ ] results = fieldResults.get( );
+			evaluate( state, fieldColumns, fieldTargets.length, results, fieldEvaluation );
+
+			double sum = 0;
+			for ( int row = 0; row < results.length; row++ )
+				{
+				double error = results[ row ] - fieldTargets[ row ];
+				sum += error * error;
+				}
+
+			// Anything not finite or too large to count is as bad as can be.
+			double scaled = Math.sqrt( sum / results.length ) * ERROR_SCALE;
+			return ( scaled < Integer.MAX_VALUE ) ? ( int ) Math.round( scaled )
+					: Integer.MAX_VALUE;
+
+		} // fitness
+
+	} // RegressionEvaluator
+
+	/**
+	 * Swaps a random subtree of the mother for one of the father.
+	 */
+	private static final class SubtreeCrossover implements Crossover<ProgramTree>
+	{
+		// Data members.
+		private final int fieldMaximumDepth;
+		private final int fieldMaximumLength;
+
+
+		public SubtreeCrossover( int maximumDepth, int maximumLength )
+		{
+			fieldMaximumDepth = maximumDepth;
+			fieldMaximumLength = maximumLength;
+
+		} // SubtreeCrossover
+
+		@Override
+		public void cross( ProgramTree mother, ProgramTree father, ProgramTree child,
+				RandomGenerator random )
+		{
+			IntUnaryOperator bound = random::nextInt;
+
+			for ( int attempt = 0; attempt < ATTEMPTS; attempt++ )
+				{
+				int start = chooseNode( mother, bound );
+				int end = mother.getSubtreeEnd( start );
+				int donorStart = chooseNode( father, bound );
+				int donorEnd = father.getSubtreeEnd( donorStart );
+				int length = mother.getLength( ) - ( end - start ) + ( donorEnd - donorStart );
+				if ( length > fieldMaximumLength )
+					continue;
+
+				child.splice( mother, start, end, father, donorStart, donorEnd );
+				if ( child.getDepth( ) <= fieldMaximumDepth )
+					return;
+				}
+
+			// Give up and clone the mother.
+			child.copy( mother );
+
+		} // cross
+
+	} // SubtreeCrossover
+
+	/**
+	 * Replaces a random subtree with a newly grown one.
+	 */
+	private static final class SubtreeMutator extends AbstractBiasedMutator<ProgramTree>
+	{
+		// Data members.
+		private final int fieldMutationDepth;
+		private final int fieldMaximumDepth;
+		private final int fieldMaximumLength;
+
+
+		public SubtreeMutator( SearchContext<ProgramTree> searchContext, int mutationDepth,
+				int maximumDepth, int maximumLength )
+		{
+			super( searchContext );
+
+			fieldMutationDepth = mutationDepth;
+			fieldMaximumDepth = maximumDepth;
+			fieldMaximumLength = maximumLength;
+
+		} // SubtreeMutator
+
+
+		@Override
+		public void mutate( ProgramTree state )
+		{
+			RandomBuffer random = getSearchContext( ).getRandomBuffer( );
+			IntUnaryOperator bound = random::nextInt;
+			IntSequence buffer = SCRATCH.get( );
+
+			for ( int attempt = 0; attempt < ATTEMPTS; attempt++ )
+				{
+				// The new subtree may be as deep as the room left below its root allows.
+				int start = chooseNode( state, bound );
+				int end = state.getSubtreeEnd( start );
+				int depth = Math.min( fieldMutationDepth, fieldMaximumDepth
+						- state.getNodeDepth( start ) );
+				if ( depth < 0 )
+					continue;
+
+				buffer.clear( );
+				generate( state.getPrimitives( ), bound, depth, false, buffer );
+				int length = state.getLength( ) - ( end - start ) + buffer.getLength( );
+				if ( length > fieldMaximumLength )
+					continue;
+
+				state.splice( state, start, end, buffer.getValues( ), 0, buffer.getLength( ) );
+				return;
+				}
+
+		} // mutate
+
+	} // SubtreeMutator
+
+	// Class constants.
+	/**
+	 * The number of rows, in all, over which tiered evaluation interprets a tree before
+	 * compiling it.
+	 */
+	public static final long COMPILE_THRESHOLD = 1 << 22;
+
+	/**
+	 * The regression evaluator's fitness is the root mean squared error, in units of
+	 * {@code 1 / ERROR_SCALE}.
+	 */
+	public static final double ERROR_SCALE = 1e6;
+
+	// The number of tries at a crossover or mutation within the bounds.
+	private static final int ATTEMPTS = 8;
+
+	// Of every ten nodes chosen, the number which are functions, given any.
+	private static final int FUNCTION_CHOICES = 9;
+
+	private static final ThreadLocal<IntSequence> SCRATCH = ThreadLocal
+			.withInitial( ( ) -> new IntSequence( 64 ) );
+
+
+	/**
+	 * @return the index of a random node of the tree, which is a function node
+	 *         {@link #FUNCTION_CHOICES} times in ten, if there are any.
+	 */
+	private static int chooseNode( ProgramTree tree, IntUnaryOperator random )
+	{
+		PrimitiveSet primitives = tree.getPrimitives( );
+		int[ ] nodes = tree.getNodes( );
+		int length = tree.getLength( );
+
+		boolean function = random.applyAsInt( 10 ) < FUNCTION_CHOICES;
+		int count = 0;
+		for ( int index = 0; index < length; index++ )
+			if ( primitives.isFunction( nodes[ index ] ) == function )
+				count++;
+		if ( count == 0 )
+			return random.applyAsInt( length );
+
+		int choice = random.applyAsInt( count );
+		for ( int index = 0;; index++ )
+			if ( primitives.isFunction( nodes[ index ] ) == function && choice-- == 0 )
+				return index;
+
+	} // chooseNode
+
+
+	/**
+	 * Evaluates a tree over the first {@code rowCount} rows of the columns.
+	 * @param tree the ProgramTree to evaluate.
+	 * @param columns a {@code double[ ][ ]} holding a column of values for each variable.
+	 * @param rowCount the number of rows to evaluate.
+	 * @param results a {@code double[ ]} to receive the result for each row.
+	 * @param evaluation the Evaluation to evaluate it by.
+	 */
+	public static void evaluate( ProgramTree tree, double[ ][ ] columns, int rowCount,
+			double[ ] results, Evaluation evaluation )
+	{
+		switch ( evaluation )
+			{
+			case INTERPRETED:
+				ProgramInterpreter.evaluate( tree, columns, rowCount, results );
+				break;
+
+			case COMPILED:
+				ProgramCompiler.evaluate( tree, columns, rowCount, results );
+				break;
+
+			case TIERED:
+				if ( tree.getCompiled( ) != null
+						|| tree.countRows( rowCount ) > COMPILE_THRESHOLD )
+					ProgramCompiler.evaluate( tree, columns, rowCount, results );
+				else
+					ProgramInterpreter.evaluate( tree, columns, rowCount, results );
+				break;
+			}
+
+	} // evaluate
+
+
+	/**
+	 * Appends a random tree to the buffer: one whose every branch reaches the depth if
+	 * full, or else one grown by choosing among all primitives until the depth is reached.
+	 */
+	private static void generate( PrimitiveSet primitives, IntUnaryOperator random,
+			int depth, boolean full, IntSequence buffer )
+	{
+		int code;
+		if ( depth == 0 )
+			code = primitives.randomTerminal( random );
+		else if ( full )
+			code = primitives.randomFunction( random );
+		else
+			code = random.applyAsInt( primitives.getCodeCount( ) );
+
+		int length = buffer.getLength( );
+		buffer.setLength( length + 1 );
+		buffer.getValues( )[ length ] = code;
+
+		for ( int child = primitives.getArity( code ); child > 0; child-- )
+			generate( primitives, random, depth - 1, full, buffer );
+
+	} // generate
+
+
+	/**
+	 * Transposes a table of rows into the columns which tree evaluation takes.
+	 * @param rows a {@code double[ ][ ]} holding a row of values, one for each variable,
+	 *            for each case.
+	 * @return a {@code double[ ][ ]} holding a column of values, one for each case, for
+	 *         each variable.
+	 */
+	public static double[ ][ ] getColumns( double[ ][ ] rows )
+	{
+		int variableCount = ( rows.length == 0 ) ? 0 : rows[ 0 ].length;
+		double[ ][ ] columns = new double[ variableCount ][ rows.length ];
+		for ( int row = 0; row < rows.length; row++ )
+			for ( int variable = 0; variable < variableCount; variable++ )
+				columns[ variable ][ row ] = rows[ row ][ variable ];
+
+		return columns;
+
+	} // getColumns
+
+
+	/**
+	 * Creates and returns a point Mutator for trees, which replaces a random node with a
+	 * random primitive of the same arity per mutation, as the array mutators in
+	 * {@link PointMutators} do.
+	 * @param searchContext the SearchContext in use.
+	 */
+	public static Mutator<ProgramTree> getPointMutator( SearchContext<ProgramTree> searchContext )
+	{
+		return new PointMutator( searchContext );
+
+	} // getPointMutator
+
+
+	/**
+	 * Creates and returns a fitness evaluator for symbolic regression, which scores a tree
+	 * by the root mean squared error of its results against the targets, in units of
+	 * {@code 1 / }{@link #ERROR_SCALE}; lower is better. Errors too large to count, or not
+	 * finite, score {@code Integer.MAX_VALUE}.
+	 * @param columns a {@code double[ ][ ]} holding a column of values for each variable,
+	 *            as from {@link #getColumns(double[][])}. It's used as is, not copied.
+	 * @param targets a {@code double[ ]} of the desired result for each row.
+	 * @param evaluation the Evaluation to evaluate the trees by.
+	 * @throws IllegalArgumentException if there are no targets, or a column is shorter
+	 *             than the targets.
+	 */
+	public static AbstractFitnessEvaluator<ProgramTree> getRegressionEvaluator(
+			double[ ][ ] columns, double[ ] targets, Evaluation evaluation )
+			throws IllegalArgumentException
+	{
+		if ( targets.length == 0 )
+			throw new IllegalArgumentException( "There must be at least one target." );
+		for ( double[ ] column : columns )
+			if ( column.length < targets.length )
+				throw new IllegalArgumentException(
+						"Every column must have a value for each target." );
+
+		return new RegressionEvaluator( columns, targets, evaluation );
+
+	} // getRegressionEvaluator
+
+
+	/**
+	 * Creates and returns a StateManager for ProgramTrees, which creates random trees by
+	 * ramped half-and-half and reproduces with the given Crossover.
+	 * @param primitives the PrimitiveSet the trees are made of.
+	 * @param crossover a ProgramTree Crossover, such as
+	 *            {@link #getSubtreeCrossover(int, int)}.
+	 * @param minimumDepth the depth of the shallowest random tree.
+	 * @param maximumDepth the depth of the deepest random tree.
+	 * @throws IllegalArgumentException if the depths are out of order or negative.
+	 */
+	public static StateManager<ProgramTree> getStateManager( PrimitiveSet primitives,
+			Crossover<ProgramTree> crossover, int minimumDepth, int maximumDepth )
+			throws IllegalArgumentException
+	{
+		return new ProgramTreeStateManager( primitives, crossover, minimumDepth, maximumDepth );
+
+	} // getStateManager
+
+
+	/**
+	 * Creates and returns a subtree crossover, which makes the child a copy of the mother
+	 * with a random subtree replaced by a random subtree of the father. If a few tries
+	 * can't produce a child within the bounds, the child is a copy of the mother. The
+	 * child is sized by the crossover, whatever its length beforehand.
+	 * @param maximumDepth the depth of the deepest child allowed.
+	 * @param maximumLength the number of nodes in the largest child allowed.
+	 */
+	public static Crossover<ProgramTree> getSubtreeCrossover( int maximumDepth,
+			int maximumLength )
+	{
+		return new SubtreeCrossover( maximumDepth, maximumLength );
+
+	} // getSubtreeCrossover
+
+
+	/**
+	 * Creates and returns a Mutator which replaces a random subtree with a newly grown
+	 * one. If a few tries can't produce a tree within the bounds, the tree is left as is.
+	 * @param searchContext the SearchContext in use.
+	 * @param mutationDepth the depth of the deepest subtree to grow.
+	 * @param maximumDepth the depth of the deepest tree allowed.
+	 * @param maximumLength the number of nodes in the largest tree allowed.
+	 */
+	public static Mutator<ProgramTree> getSubtreeMutator(
+			SearchContext<ProgramTree> searchContext, int mutationDepth, int maximumDepth,
+			int maximumLength )
+	{
+		return new SubtreeMutator( searchContext, mutationDepth, maximumDepth, maximumLength );
+
+	} // getSubtreeMutator
+
+}
@@ -0,0 +1,133 @@
+/*
+ * SeededRandomSource.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.agal.core.RandomSource;
+
+/**
+ * SeededRandomSource is a deterministic RandomSource which derives every random stream
+ * it hands out from a single master seed. Like {@link ThreadLocalRandomSource}, it keeps
+ * a separate Random for each thread, but it reseeds that Random whenever the thread
+ * selects the stream for a unit of work (see {@link #selectStream(long, long)}), so that
+ * each unit's random numbers depend only on the master seed, its generation, and its
+ * unit number. Algorithms which divide each generation into units independently of the
+ * number of threads (such as {@link EvolutionStrategy} and
+ * {@link ForkJoinEugenicAlgorithm}) therefore produce bit-identical results for a given
+ * seed with any number of threads, provided fitness evaluation is deterministic.
+ * <p>
+ * Threads which draw random numbers without selecting a stream are given one of their
+ * own, derived from the order in which they first asked. That is only deterministic if
+ * there's a single such thread, so steady-state algorithms like {@link EugenicAlgorithm},
+ * whose workers race on a shared population anyway, are only reproducible with one
+ * worker.
+ * <p>
+ * The Random class must be fully reset by {@code setSeed}, as {@code java.util.Random}
+ * and its usual subclasses are; {@code SecureRandom} is not suitable. SeededRandomSource
+ * is normally installed by {@code EvolutionConfiguration.setSeed(long)} rather than
+ * configured directly.
+ * <p>
+ * SeededRandomSource is thread safe.
+ * @author David Schmidt
+ */
+public class SeededRandomSource extends RandomSource
+{
+	// Class constants.
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// Generation number for the streams of threads which never select one.
+	private static final long THREAD_STREAMS = Long.MIN_VALUE;
+
+	// Data members.
+	private final long fieldSeed;
+	private final AtomicLong fieldThreadCount = new AtomicLong( 0 );
+	private final ThreadLocal<Random> fieldRandom = new ThreadLocal<Random>( );
+
+
+	/**
+	 * SeededRandomSource constructor.
+	 * @param randomClass a Class subclassing {@code java.util.Random}, as for
+	 *            {@link RandomSource#RandomSource(Class)}.
+	 * @param seed a {@code long} master seed from which all streams are derived.
+	 */
+	public SeededRandomSource( Class<? extends Random> randomClass, long seed )
+			throws IllegalArgumentException
+	{
+		super( randomClass );
+
+		fieldSeed = seed;
+
+	} // SeededRandomSource
+
+
+	@Override
+	public Random getRandom( )
+	{
+		Random random = fieldRandom.get( );
+
+		if ( random == null )
+			{
+			random = newRandom( );
+			random.setSeed( streamSeed( THREAD_STREAMS, fieldThreadCount.getAndIncrement( ) ) );
+			fieldRandom.set( random );
+			}
+
+		return random;
+
+	} // getRandom
+
+
+	public long getSeed( )
+	{
+		return fieldSeed;
+
+	} // getSeed
+
+
+	/**
+	 * SplitMix64's finalizer; a cheap bijective scramble with good avalanche.
+	 */
+	private static long mix( long value )
+	{
+		value = ( value ^ ( value >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+		value = ( value ^ ( value >>> 27 ) ) * 0x94D049BB133111EBL;
+		return value ^ ( value >>> 31 );
+
+	} // mix
+
+
+	/**
+	 * Reseeds the calling thread's Random with the stream for the given unit of work.
+	 */
+	@Override
+	public void selectStream( long generation, long unit )
+	{
+		Random random = fieldRandom.get( );
+
+		// Don't go through getRandom; that would use up a thread stream.
+		if ( random == null )
+			{
+			random = newRandom( );
+			fieldRandom.set( random );
+			}
+
+		// Note that setSeed also discards any cached Gaussian.
+		random.setSeed( streamSeed( generation, unit ) );
+		discardRandomBuffer( );
+
+	} // selectStream
+
+
+	private long streamSeed( long generation, long unit )
+	{
+		return mix( mix( fieldSeed + generation * GOLDEN_GAMMA ) + unit * GOLDEN_GAMMA );
+
+	} // streamSeed
+
+}
@@ -0,0 +1,65 @@
+/*
+ * SelfAdaptiveVector.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+/**
+ * SelfAdaptiveVector is a {@code double[ ]} genome paired with one mutation step size
+ * per element, as used by self-adaptive evolution strategies. The step sizes are
+ * themselves inherited and mutated along with the values, so that the search learns its
+ * own mutation strengths. Operators for this state type are supplied by
+ * {@link SelfAdaptiveVectors}.
+ * <p>
+ * Both arrays are exposed directly for efficiency. Operators provided by this library only
+ * modify freshly reproduced children, never a state which may already be shared with
+ * other threads; custom operators should do the same.
+ * @author David Schmidt
+ */
+public class SelfAdaptiveVector
+{
+	// Data members.
+	private final double[ ] fieldValues;
+	private final double[ ] fieldStepSizes;
+
+
+	/**
+	 * SelfAdaptiveVector constructor. The arrays are used directly, not copied.
+	 * @param values a {@code double[ ]} containing the object values being optimized.
+	 * @param stepSizes a {@code double[ ]} of the same length containing the standard
+	 *            deviation of the mutation applied to each value.
+	 */
+	public SelfAdaptiveVector( double[ ] values, double[ ] stepSizes )
+	{
+		if ( values.length != stepSizes.length )
+			throw new IllegalArgumentException( "Values and step sizes must be the same length." );
+
+		fieldValues = values;
+		fieldStepSizes = stepSizes;
+
+	} // SelfAdaptiveVector
+
+
+	public int getDimension( )
+	{
+		return fieldValues.length;
+
+	} // getDimension
+
+
+	public double[ ] getStepSizes( )
+	{
+		return fieldStepSizes;
+
+	} // getStepSizes
+
+
+	public double[ ] getValues( )
+	{
+		return fieldValues;
+
+	} // getValues
+
+}
@@ -0,0 +1,202 @@
+/*
+ * SelfAdaptiveVectors.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Random;
+
+import org.agal.core.Mutator;
+import org.agal.core.RandomBuffer;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
+import org.agal.core.SearchContext;
+import org.agal.core.StateManager;
+
+/**
+ * SelfAdaptiveVectors is a static utility class which provides the standard
+ * self-adaptive evolution strategy operators for {@link SelfAdaptiveVector} states:
+ * <ul>
+ * <li>a {@link StateManager} which generates uniformly random vectors within bounds and
+ * reproduces with discrete recombination of the values and intermediate (averaged)
+ * recombination of the step sizes, and</li>
+ * <li>a {@link Mutator} which applies Schwefel's log-normal step size update before
+ * perturbing each value by a Gaussian with its new step size.</li>
+ * </ul>
+ * These are designed for use with {@link EvolutionStrategy}, but work with any
+ * algorithm. All operators acquired herein are thread-safe.
+ * @author David Schmidt
+ */
+public class SelfAdaptiveVectors
+{
+	private static class SelfAdaptiveMutator implements Mutator<SelfAdaptiveVector>
+	{
+		// Data members.
+		private final SearchContext<SelfAdaptiveVector> fieldSearchContext;
+		private final double fieldMinimumStepSize;
+
+
+		public SelfAdaptiveMutator( SearchContext<SelfAdaptiveVector> searchContext,
+				double minimumStepSize )
+		{
+			fieldSearchContext = searchContext;
+			fieldMinimumStepSize = minimumStepSize;
+
+		} // SelfAdaptiveMutator
+
+
+		@Override
+		public void mutate( SelfAdaptiveVector state )
+		{
+			RandomBuffer random = fieldSearchContext.getRandomBuffer( );
+			double[ ] values = state.getValues( );
+			double[ ] stepSizes = state.getStepSizes( );
+			int dimension = values.length;
+
+			// Global and per-coordinate learning rates, as recommended by Schwefel.
+			double globalRate = 1.0 / Math.sqrt( 2.0 * dimension );
+			double localRate = 1.0 / Math.sqrt( 2.0 * Math.sqrt( dimension ) );
+			double globalStep = globalRate * random.nextGaussian( );
+
+			for ( int index = 0; index < dimension; index++ )
+				{
+				double stepSize = stepSizes[ index ]
+						* Math.exp( globalStep + localRate * random.nextGaussian( ) );
+				stepSize = Math.max( stepSize, fieldMinimumStepSize );
+
+				stepSizes[ index ] = stepSize;
+				values[ index ] += stepSize * random.nextGaussian( );
+				}
+
+		} // mutate
+
+
+		/**
+		 * Self-adaptation relies on every child being mutated exactly once, since the
+		 * step sizes already control the mutation strength.
+		 */
+		@Override
+		public int mutateCount( SelfAdaptiveVector state )
+		{
+			return 1;
+
+		} // mutateCount
+
+	} // SelfAdaptiveMutator
+
+	private static class SelfAdaptiveStateManager implements StateManager<SelfAdaptiveVector>,
+			RandomSourceAware
+	{
+		// Data members.
+		private final int fieldDimension;
+		private final double fieldMinimumValue;
+		private final double fieldMaximumValue;
+		private final double fieldInitialStepSize;
+		private RandomSource fieldRandomSource;
+
+
+		public SelfAdaptiveStateManager( int dimension, double minimumValue, double maximumValue,
+				double initialStepSize )
+		{
+			fieldDimension = dimension;
+			fieldMinimumValue = minimumValue;
+			fieldMaximumValue = maximumValue;
+			fieldInitialStepSize = initialStepSize;
+
+		} // SelfAdaptiveStateManager
+
+
+		@Override
+		public SelfAdaptiveVector randomize( )
+		{
+			Random random = RandomSource.randomOf( fieldRandomSource );
+			double[ ] values = new double[ fieldDimension ];
+			double[ ] stepSizes = new double[ fieldDimension ];
+			double range = fieldMaximumValue - fieldMinimumValue;
+
+			for ( int index = 0; index < fieldDimension; index++ )
+				{
+				values[ index ] = fieldMinimumValue + random.nextDouble( ) * range;
+				stepSizes[ index ] = fieldInitialStepSize;
+				}
+
+			return new SelfAdaptiveVector( values, stepSizes );
+
+		} // randomize
+
+
+		@Override
+		public SelfAdaptiveVector reproduce( SelfAdaptiveVector mother, SelfAdaptiveVector father )
+		{
+			Random random = RandomSource.randomOf( fieldRandomSource );
+			double[ ] momValues = mother.getValues( );
+			double[ ] dadValues = father.getValues( );
+			double[ ] momSteps = mother.getStepSizes( );
+			double[ ] dadSteps = father.getStepSizes( );
+			double[ ] values = new double[ fieldDimension ];
+			double[ ] stepSizes = new double[ fieldDimension ];
+
+			for ( int index = 0; index < fieldDimension; index++ )
+				{
+				values[ index ] = random.nextBoolean( ) ? momValues[ index ] : dadValues[ index ];
+				stepSizes[ index ] = 0.5 * ( momSteps[ index ] + dadSteps[ index ] );
+				}
+
+			return new SelfAdaptiveVector( values, stepSizes );
+
+		} // reproduce
+
+
+		@Override
+		public void setRandomSource( RandomSource randomSource )
+		{
+			fieldRandomSource = randomSource;
+
+		} // setRandomSource
+
+	} // SelfAdaptiveStateManager
+
+
+	private SelfAdaptiveVectors( )
+	{
+	} // SelfAdaptiveVectors
+
+
+	/**
+	 * Creates and returns a self-adaptive Mutator.
+	 * @param searchContext the SearchContext in use. Used to obtain Random instances.
+	 * @param minimumStepSize a {@code double} below which step sizes are not allowed to
+	 *            shrink, to keep the search from stalling prematurely.
+	 * @return a {@code Mutator<SelfAdaptiveVector>} which mutates both the step sizes and
+	 *         the values of a state.
+	 */
+	public static Mutator<SelfAdaptiveVector> getMutator(
+			SearchContext<SelfAdaptiveVector> searchContext, double minimumStepSize )
+	{
+		return new SelfAdaptiveMutator( searchContext, minimumStepSize );
+
+	} // getMutator
+
+
+	/**
+	 * Creates and returns a StateManager for self-adaptive vectors.
+	 * @param dimension an {@code int} indicating the number of values in each state.
+	 * @param minimumValue a {@code double} lower bound for randomly generated values.
+	 * @param maximumValue a {@code double} upper bound for randomly generated values.
+	 *            Mutation may take values outside of these bounds; fitness functions
+	 *            should penalize them if that matters.
+	 * @param initialStepSize a {@code double} step size given to every element of a
+	 *            randomly generated state.
+	 * @return a {@code StateManager<SelfAdaptiveVector>}.
+	 */
+	public static StateManager<SelfAdaptiveVector> getStateManager( int dimension,
+			double minimumValue, double maximumValue, double initialStepSize )
+	{
+		return new SelfAdaptiveStateManager( dimension, minimumValue, maximumValue,
+				initialStepSize );
+
+	} // getStateManager
+
+}
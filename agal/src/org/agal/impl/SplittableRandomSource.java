@@ -0,0 +1,214 @@
+/*
+ * SplittableRandomSource.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+import org.agal.core.RandomSource;
+
+/**
+ * SplittableRandomSource is a RandomSource built on the JDK's splittable generators, such
+ * as the LXM family ({@code L64X128MixRandom} by default) or {@code SplittableRandom}.
+ * Unlike {@code java.util.Random}, which updates a shared seed with a CAS on every call,
+ * these are unsynchronized, faster, and statistically stronger. Each thread is given its
+ * own generator, split from a root generator the first time it asks, so every worker
+ * draws from a statistically independent stream without any contention.
+ * <p>
+ * Hot paths should use {@link #getGenerator()}, which returns the thread's generator
+ * itself. {@link #getRandom()} returns a {@code Random} facade over the same generator
+ * for code which needs one; the facade can't be reseeded. The Random class given to the
+ * constructor is not used.
+ * <p>
+ * SplittableRandomSource is not deterministic; seeded searches use
+ * {@link SeededRandomSource} instead.
+ * <p>
+ * SplittableRandomSource is thread safe.
+ * @author David Schmidt
+ */
+public class SplittableRandomSource extends RandomSource
+{
+	/**
+	 * A Random which draws from a RandomGenerator.
+	 */
+	private static class GeneratorRandom extends Random
+	{
+		private static final long serialVersionUID = 1L;
+
+		// Data members.
+		private final SplittableGenerator fieldGenerator;
+
+
+		GeneratorRandom( SplittableGenerator generator )
+		{
+			fieldGenerator = generator;
+
+		} // GeneratorRandom
+
+
+		@Override
+		protected int next( int bits )
+		{
+			return ( int ) ( fieldGenerator.nextLong( ) >>> ( 64 - bits ) );
+
+		} // next
+
+
+		@Override
+		public boolean nextBoolean( )
+		{
+			return fieldGenerator.nextBoolean( );
+
+		} // nextBoolean
+
+
+		@Override
+		public double nextDouble( )
+		{
+			return fieldGenerator.nextDouble( );
+
+		} // nextDouble
+
+
+		@Override
+		public float nextFloat( )
+		{
+			return fieldGenerator.nextFloat( );
+
+		} // nextFloat
+
+
+		@Override
+		public double nextGaussian( )
+		{
+			return fieldGenerator.nextGaussian( );
+
+		} // nextGaussian
+
+
+		@Override
+		public int nextInt( )
+		{
+			return fieldGenerator.nextInt( );
+
+		} // nextInt
+
+
+		@Override
+		public int nextInt( int bound )
+		{
+			return fieldGenerator.nextInt( bound );
+
+		} // nextInt
+
+
+		@Override
+		public long nextLong( )
+		{
+			return fieldGenerator.nextLong( );
+
+		} // nextLong
+
+
+		@Override
+		public void setSeed( long seed )
+		{
+			// Random's constructor calls this before we have a generator.
+			if ( fieldGenerator != null )
+				throw new UnsupportedOperationException( "Split generators can't be reseeded." );
+
+		} // setSeed
+
+	} // GeneratorRandom
+
+	// Class constants.
+	/**
+	 * The algorithm used by default; the JDK's recommended general-purpose generator.
+	 */
+	public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+
+	// Data members.
+	private final SplittableGenerator fieldRoot;
+	private final ThreadLocal<GeneratorRandom> fieldRandom = new ThreadLocal<GeneratorRandom>( );
+
+
+	/**
+	 * Constructs a SplittableRandomSource using the {@link #DEFAULT_ALGORITHM}, with the
+	 * constructor signature required by {@code EvolutionConfiguration}.
+	 * @param randomClass ignored.
+	 */
+	public SplittableRandomSource( Class<? extends Random> randomClass )
+	{
+		this( DEFAULT_ALGORITHM );
+
+	} // SplittableRandomSource
+
+
+	/**
+	 * SplittableRandomSource constructor.
+	 * @param algorithm a String naming a splittable {@code RandomGenerator} algorithm,
+	 *            such as {@code "L64X128MixRandom"}, {@code "L128X256MixRandom"}, or
+	 *            {@code "SplittableRandom"}.
+	 * @throws IllegalArgumentException if the algorithm isn't available or isn't
+	 *             splittable.
+	 */
+	public SplittableRandomSource( String algorithm )
+			throws IllegalArgumentException
+	{
+		super( null );
+
+		fieldRoot = SplittableGenerator.of( algorithm );
+
+	} // SplittableRandomSource
+
+
+	/**
+	 * @return the calling thread's own generator.
+	 */
+	@Override
+	public RandomGenerator getGenerator( )
+	{
+		return getThreadRandom( ).fieldGenerator;
+
+	} // getGenerator
+
+
+	/**
+	 * @return a {@code Random} facade over the calling thread's own generator.
+	 */
+	@Override
+	public Random getRandom( )
+	{
+		return getThreadRandom( );
+
+	} // getRandom
+
+
+	private GeneratorRandom getThreadRandom( )
+	{
+		GeneratorRandom random = fieldRandom.get( );
+
+		if ( random == null )
+			{
+			// Splitting advances the root, so threads take turns. It only happens once
+			// per thread.
+			SplittableGenerator generator;
+			synchronized ( fieldRoot )
+				{
+				generator = fieldRoot.split( );
+				}
+
+			random = new GeneratorRandom( generator );
+			fieldRandom.set( random );
+			}
+
+		return random;
+
+	} // getThreadRandom
+
+}
@@ -6,17 +6,19 @@
  */
 package org.agal.impl;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import org.agal.core.AbstractFitnessEvaluator;
 import org.agal.core.Population;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
 import org.agal.core.StateManager;
 
 /**
  * StupidSTPopulation is a stupid single-threaded (non-threadsafe) population.
  * @author Dave
  */
-public class StupidSTPopulation<S> implements Population<S>
+public class StupidSTPopulation<S> implements Population<S>, RandomSourceAware
 {
 	// Data members.
 	private int fieldSize;
@@ -24,6 +26,7 @@ public class StupidSTPopulation<S> implements Population<S>
 	private Object[ ] fieldNextGeneration;
 	private int fieldCurrentElementIndex = 0;
 	private int fieldGenerationCount = 0;
+	private RandomSource fieldRandomSource;
 
 
 	/**
@@ -104,11 +107,20 @@ public class StupidSTPopulation<S> implements Population<S>
 	@SuppressWarnings( "unchecked" )
 	public S sample( )
 	{
-		return ( S ) fieldCurrentGeneration[ ThreadLocalRandom.current( ).nextInt( fieldSize ) ];
+		int index = RandomSource.generatorOf( fieldRandomSource ).nextInt( fieldSize );
+		return ( S ) fieldCurrentGeneration[ index ];
 
 	} // sample
 
 
+	@Override
+	public void setRandomSource( RandomSource randomSource )
+	{
+		fieldRandomSource = randomSource;
+
+	} // setRandomSource
+
+
 	@Override
 	public int size( )
 	{
@@ -8,23 +8,33 @@ package org.agal.impl;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.agal.core.EvolutionListener;
 import org.agal.core.StopCondition;
+import org.agal.core.TypedEvolutionListener;
 
 /**
  * TimedStopCondition is a simple StopCondition that will trigger termination of the
  * evolution process once an allotted amount of time has elapsed. It listens to the
- * evolutionary process for signals on when to begin timing.
+ * evolutionary process for signals on when to begin timing: the clock starts when the
+ * first worker begins evolving, and is paused once the last worker has finished (so
+ * workers coming and going in a resized search don't disturb it). If workers resume
+ * after a pause, the clock picks up where it left off.
  * @author Dave
  */
-public class TimedStopCondition extends StopCondition implements EvolutionListener
+public class TimedStopCondition extends StopCondition implements
+		TypedEvolutionListener<Object>
 {
 	private class StopTask extends TimerTask
 	{
 		@Override
 		public void run( )
 		{
+			synchronized ( fieldClockLock )
+				{
+				fieldExpired = true;
+				}
+
 			TimedStopCondition.this.stopEvolution( );
 
 			fieldTimer.cancel( );
@@ -36,6 +46,14 @@ public class TimedStopCondition extends StopCondition implements EvolutionListen
 	// Data members.
 	private long fieldTimeToWaitMillis;
 	private Timer fieldTimer;
+	private final AtomicInteger fieldActiveWorkers = new AtomicInteger( 0 );
+
+	// Clock state, guarded by its own lock rather than this object's, which
+	// stopEvolution() holds while the search stops and its workers report in.
+	private final Object fieldClockLock = new Object( );
+	private StopTask fieldPendingTask;
+	private long fieldStartedMillis;
+	private boolean fieldExpired;
 
 
 	/**
@@ -52,6 +70,9 @@ public class TimedStopCondition extends StopCondition implements EvolutionListen
 	} // TimedStopCondition
 
 
+	/**
+	 * Permanently shuts down the timer. The condition can't be used afterwards.
+	 */
 	public void cancel( )
 	{
 		fieldTimer.cancel( );
@@ -60,14 +81,67 @@ public class TimedStopCondition extends StopCondition implements EvolutionListen
 
 
 	@Override
-	public void onEvent( String eventId, Object eventObject )
+	public int getEventMask( )
 	{
-		if ( EvolutionListener.EVENT_ID_BEGIN_EVOLUTION.equals( eventId ) )
-			fieldTimer.schedule( new StopTask( ), fieldTimeToWaitMillis );
+		return EVENT_BEGIN_EVOLUTION | EVENT_END_EVOLUTION;
+
+	} // getEventMask
 
-		if ( eventId == EvolutionListener.EVENT_ID_END_EVOLUTION )
-			cancel( );
+
+	@Override
+	public void onEvent( int eventType, Object member, int fitness, boolean fitnessKnown )
+	{
+		if ( eventType == EVENT_BEGIN_EVOLUTION )
+			{
+			if ( fieldActiveWorkers.incrementAndGet( ) == 1 )
+				startClock( );
+			}
+		else
+			{
+			if ( fieldActiveWorkers.decrementAndGet( ) == 0 )
+				pauseClock( );
+			}
 
 	} // onEvent
 
+
+	/**
+	 * Cancels the pending StopTask, if any, and deducts the time it waited from the time
+	 * left. The Timer itself is kept, so that the clock can be started again.
+	 */
+	private void pauseClock( )
+	{
+		synchronized ( fieldClockLock )
+			{
+			if ( fieldPendingTask == null || fieldActiveWorkers.get( ) > 0 )
+				return;
+
+			if ( fieldPendingTask.cancel( ) )
+				fieldTimeToWaitMillis = Math.max( 0, fieldTimeToWaitMillis
+						- ( System.currentTimeMillis( ) - fieldStartedMillis ) );
+			fieldPendingTask = null;
+			}
+
+	} // pauseClock
+
+
+	/**
+	 * Schedules a StopTask for the time left, unless one is already pending or the time
+	 * has already run out (in which case the Timer is gone).
+	 */
+	private void startClock( )
+	{
+		synchronized ( fieldClockLock )
+			{
+			if ( fieldPendingTask != null || fieldExpired
+					|| fieldActiveWorkers.get( ) == 0 )
+				return;
+
+			fieldPendingTask = new StopTask( );
+			fieldStartedMillis = System.currentTimeMillis( );
+			fieldTimer.schedule( fieldPendingTask, fieldTimeToWaitMillis );
+			}
+
+	} // startClock
+
 }
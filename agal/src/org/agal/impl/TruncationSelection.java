@@ -0,0 +1,131 @@
+/*
+ * TruncationSelection.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import org.agal.core.AbstractFitnessEvaluator;
+
+/**
+ * TruncationSelection is a static utility class which finds the {@code k} most (or
+ * least) fit of {@code n} candidates without fully sorting them. It uses a quickselect
+ * (Hoare) partition over an array of candidate indices, comparing the candidates' cached
+ * {@code int} fitness values, which runs in expected {@code O(n)} time rather than the
+ * {@code O(n log n)} of a sort. The selected candidates are left in no particular order.
+ * <p>
+ * TruncationSelection allocates nothing, so callers may reuse their index arrays across
+ * generations.
+ * @author David Schmidt
+ */
+public class TruncationSelection
+{
+
+	private TruncationSelection( )
+	{
+	} // TruncationSelection
+
+
+	private static int medianOfThree( AbstractFitnessEvaluator<?> evaluator, int direction,
+			int first, int second, int third )
+	{
+		if ( direction * evaluator.compareFitness( first, second ) > 0 )
+			{
+			if ( direction * evaluator.compareFitness( second, third ) > 0 )
+				return second;
+			return ( direction * evaluator.compareFitness( first, third ) > 0 ) ? third : first;
+			}
+
+		if ( direction * evaluator.compareFitness( first, third ) > 0 )
+			return first;
+		return ( direction * evaluator.compareFitness( second, third ) > 0 ) ? third : second;
+
+	} // medianOfThree
+
+
+	private static void partition( int[ ] fitnesses, int[ ] indices, int length, int count,
+			AbstractFitnessEvaluator<?> evaluator, int direction )
+	{
+		// Nothing to partition.
+		if ( count <= 0 || count >= length )
+			return;
+
+		int target = count - 1;
+		int left = 0;
+		int right = length - 1;
+
+		while ( right > left )
+			{
+			int pivot = medianOfThree( evaluator, direction, fitnesses[ indices[ left ] ],
+					fitnesses[ indices[ ( left + right ) >>> 1 ] ], fitnesses[ indices[ right ] ] );
+
+			// Hoare partition: preferred values to the left, the rest to the right. Equal
+			// values stop both scans, which keeps runs of ties balanced.
+			int low = left;
+			int high = right;
+			while ( low <= high )
+				{
+				while ( direction * evaluator.compareFitness( fitnesses[ indices[ low ] ], pivot ) > 0 )
+					low++;
+				while ( direction * evaluator.compareFitness( pivot, fitnesses[ indices[ high ] ] ) > 0 )
+					high--;
+
+				if ( low <= high )
+					{
+					int swap = indices[ low ];
+					indices[ low ] = indices[ high ];
+					indices[ high ] = swap;
+					low++;
+					high--;
+					}
+				}
+
+			// Only keep partitioning the side containing the target position.
+			if ( target <= high )
+				right = high;
+			else if ( target >= low )
+				left = low;
+			else
+				break;
+			}
+
+	} // partition
+
+
+	/**
+	 * Rearranges the first {@code length} entries of {@code indices} so that the first
+	 * {@code count} of them refer to the most fit candidates. Ties are broken
+	 * arbitrarily.
+	 * @param fitnesses an {@code int[ ]} containing the fitness of each candidate,
+	 *            indexed by the values in {@code indices}.
+	 * @param indices an {@code int[ ]} of candidate indices into {@code fitnesses}, which
+	 *            will be reordered in place.
+	 * @param length an {@code int} indicating how many entries of {@code indices} are in
+	 *            use.
+	 * @param count an {@code int} indicating how many of the best candidates to move to
+	 *            the front of {@code indices}.
+	 * @param evaluator an AbstractFitnessEvaluator defining which fitness values are
+	 *            better.
+	 */
+	public static void selectBest( int[ ] fitnesses, int[ ] indices, int length, int count,
+			AbstractFitnessEvaluator<?> evaluator )
+	{
+		partition( fitnesses, indices, length, count, evaluator, 1 );
+
+	} // selectBest
+
+
+	/**
+	 * Rearranges the first {@code length} entries of {@code indices} so that the first
+	 * {@code count} of them refer to the <i>least</i> fit candidates. Useful for choosing
+	 * which members to replace. Parameters are as for {@code selectBest}.
+	 */
+	public static void selectWorst( int[ ] fitnesses, int[ ] indices, int length, int count,
+			AbstractFitnessEvaluator<?> evaluator )
+	{
+		partition( fitnesses, indices, length, count, evaluator, -1 );
+
+	} // selectWorst
+
+}
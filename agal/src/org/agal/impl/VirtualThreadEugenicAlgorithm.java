@@ -0,0 +1,237 @@
+/*
+ * VirtualThreadEugenicAlgorithm.java
+ * 
+ * Created on Oct 18, 2026
+ * 
+ */
+package org.agal.impl;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.agal.core.Mutator;
+import org.agal.core.Population;
+import org.agal.core.SearchContext;
+import org.agal.core.Selector;
+import org.agal.core.TypedEvolutionListener;
+
+/**
+ * VirtualThreadEugenicAlgorithm is an execution mode of {@link EugenicAlgorithm} for
+ * searches whose fitness evaluation blocks, such as those which consult a simulator
+ * process or a database. Rather than breeding on a handful of worker threads, it starts
+ * one virtual thread per child in flight, so that the number of concurrent evaluations
+ * is bounded only by {@link #CONTEXT_KEY_MAX_IN_FLIGHT} (enforced by a semaphore) rather
+ * than by the number of cores. Each task selects, breeds, evaluates, and sows a single
+ * child.
+ * <p>
+ * Virtual threads require Java 21. On older runtimes, a cached pool of ordinary daemon
+ * threads is used instead, which behaves the same but costs a platform thread per child
+ * in flight; {@link #isUsingVirtualThreads()} reports which is in use.
+ * <p>
+ * Only one thread may drive the algorithm; when used with an
+ * {@code EvolutionControlThread}, it should be given a single worker thread. Any
+ * additional threads calling {@link #evolve()} return immediately. When the driver is
+ * interrupted, it stops starting new children and waits for those in flight to be sown,
+ * so no finished evaluations are lost. A second interrupt abandons them. When paused by
+ * an {@code EvolutionSearch}, the driver likewise parks while the children in flight
+ * finish.
+ * <p>
+ * Since every task runs on a fresh thread, a {@code RandomSource} which keeps one Random
+ * per thread (like {@link ThreadLocalRandomSource}) will create one per child. This is
+ * negligible next to blocking evaluations, which are what this class is for.
+ * <p>
+ * VirtualThreadEugenicAlgorithm is thread safe.
+ * @author David Schmidt
+ */
+public class VirtualThreadEugenicAlgorithm<S> extends EugenicAlgorithm<S>
+{
+	// Class constants.
+	/**
+	 * Context map key for an {@code Integer} maximum number of children to breed and
+	 * evaluate concurrently. Defaults to {@link #DEFAULT_MAX_IN_FLIGHT}.
+	 */
+	public static final String CONTEXT_KEY_MAX_IN_FLIGHT = VirtualThreadEugenicAlgorithm.class
+			.getName( ) + ".maxInFlight";
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+	// Looked up reflectively so we still run on runtimes without virtual threads.
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR;
+	static
+		{
+		Method method = null;
+		try
+			{
+			method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+			}
+		catch ( NoSuchMethodException exception )
+			{
+			// Pre-21 runtime; we'll fall back to platform threads.
+			}
+		NEW_VIRTUAL_THREAD_EXECUTOR = method;
+		}
+
+	// Data members.
+	private final AtomicBoolean fieldDriven = new AtomicBoolean( false );
+	private final AtomicLong fieldChildCount = new AtomicLong( 0 );
+	private final SearchContext<S> fieldSearchContext;
+	private final Population<S> fieldPopulation;
+	private final Selector<S> fieldSelector;
+	private final Semaphore fieldInFlight;
+	private final Runnable fieldBreedTask = new Runnable( )
+	{
+		@Override
+		public void run( )
+		{
+			try
+				{
+				breedOne( );
+				}
+			finally
+				{
+				fieldInFlight.release( );
+				}
+
+		} // run
+
+	}; // fieldBreedTask
+
+
+	/**
+	 * VirtualThreadEugenicAlgorithm constructor.
+	 */
+	public VirtualThreadEugenicAlgorithm( SearchContext<S> searchContext, Selector<S> selector,
+			Mutator<S> mutator )
+	{
+		super( searchContext, selector, mutator );
+
+		fieldSearchContext = searchContext;
+		fieldSelector = selector;
+		fieldPopulation = searchContext.getPopulation( );
+		fieldInFlight = new Semaphore( Math.max( 1, searchContext.getContextInt(
+				CONTEXT_KEY_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT ) ) );
+
+	} // VirtualThreadEugenicAlgorithm
+
+
+	/**
+	 * Selects, breeds, and sows a single child, then advances the generation if this
+	 * child completed one.
+	 */
+	private void breedOne( )
+	{
+		List<S> parents = new ArrayList<>( 2 );
+		List<S> children = new ArrayList<>( 1 );
+
+		fieldSelector.selectParents( fieldPopulation, parents );
+		breed( parents, children );
+
+		for ( S child : children )
+			{
+			sowChild( child );
+
+			if ( fieldChildCount.incrementAndGet( ) % fieldPopulation.getGenerationSize( ) == 0 )
+				{
+				fieldPopulation.nextGeneration( );
+				notifyListeners( TypedEvolutionListener.EVENT_NEW_GENERATION );
+				}
+			}
+
+	} // breedOne
+
+
+	/**
+	 * Starts children until interrupted, never allowing more than the configured number
+	 * in flight, then waits for the last of them to finish.
+	 */
+	@Override
+	public void evolve( )
+	{
+		if ( !fieldDriven.compareAndSet( false, true ) )
+			return;
+
+		notifyListeners( TypedEvolutionListener.EVENT_BEGIN_EVOLUTION );
+
+		ExecutorService executor = newTaskExecutor( );
+		try
+			{
+			while ( !Thread.interrupted( ) && fieldSearchContext.checkpoint( ) )
+				{
+				fieldInFlight.acquire( );
+				executor.execute( fieldBreedTask );
+				}
+			}
+		catch ( InterruptedException exception )
+			{
+			// Time to stop; fall through and drain.
+			}
+		finally
+			{
+			executor.shutdown( );
+			try
+				{
+				executor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+				}
+			catch ( InterruptedException exception )
+				{
+				// The caller won't wait for the stragglers, so don't make them.
+				executor.shutdownNow( );
+				}
+			fieldDriven.set( false );
+			}
+
+		notifyListeners( TypedEvolutionListener.EVENT_END_EVOLUTION );
+
+	} // evolve
+
+
+	/**
+	 * @return a {@code boolean} indicating whether children are bred on virtual threads,
+	 *         or {@code false} if the runtime doesn't support them and platform threads
+	 *         are used instead.
+	 */
+	public static boolean isUsingVirtualThreads( )
+	{
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+
+	} // isUsingVirtualThreads
+
+
+	private static ExecutorService newTaskExecutor( )
+	{
+		if ( NEW_VIRTUAL_THREAD_EXECUTOR != null )
+			{
+			try
+				{
+				return ( ExecutorService ) NEW_VIRTUAL_THREAD_EXECUTOR.invoke( null );
+				}
+			catch ( Exception exception )
+				{
+				throw new RuntimeException( "Couldn't create a virtual thread executor!", exception );
+				}
+			}
+
+		return Executors.newCachedThreadPool( new ThreadFactory( )
+		{
+			@Override
+			public Thread newThread( Runnable runnable )
+			{
+				Thread thread = new Thread( runnable );
+				thread.setDaemon( true );
+				return thread;
+
+			} // newThread
+
+		} );
+
+	} // newTaskExecutor
+
+}
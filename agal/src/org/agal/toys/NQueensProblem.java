@@ -12,8 +12,10 @@ import java.util.Arrays;
 import java.util.Random;
 
 import org.agal.core.EvolutionConfiguration;
-import org.agal.core.EvolutionControlThread;
+import org.agal.core.EvolutionSearch;
+import org.agal.core.RandomBuffer;
 import org.agal.core.SearchContext;
+import org.agal.core.WorkerCountController;
 import org.agal.impl.AbstractBiasedMutator;
 import org.agal.impl.ArraySharedMixedGenPopulation;
 import org.agal.impl.EugenicAlgorithm;
@@ -54,7 +56,7 @@ public class NQueensProblem
 		@Override
 		public void mutate( NQueensProblem state )
 		{
-			Random rand = getSearchContext( ).getRandom( );
+			RandomBuffer rand = getSearchContext( ).getRandomBuffer( );
 
 			int point = rand.nextInt( state.getPositions( ).length );
 			int newValue = rand.nextInt( state.getPositions( ).length );
@@ -129,7 +131,8 @@ public class NQueensProblem
 		boolean CLONE = false;
 		double GOAL_FITNESS = 1;
 		boolean OUTPUT_BOARD = false;
-		int THREAD_COUNT = Runtime.getRuntime( ).availableProcessors( ) + 1;
+		int THREAD_COUNT = 0; // 0 for adaptive.
+		double LOCAL_SEARCH_RATE = 0; // 0 for none.
 
 		try
 			{
@@ -144,6 +147,7 @@ public class NQueensProblem
 			GOAL_FITNESS = Double.parseDouble( args[ 8 ] );
 			OUTPUT_BOARD = Boolean.parseBoolean( args[ 9 ] );
 			THREAD_COUNT = Integer.parseInt( args[ 10 ] );
+			LOCAL_SEARCH_RATE = Double.parseDouble( args[ 11 ] );
 			}
 		catch ( Exception ignored )
 			{
@@ -161,6 +165,8 @@ public class NQueensProblem
 		config.setSelectorClass( TournamentSelector.class );
 		config.setPopulationClass( ArraySharedMixedGenPopulation.class );
 		config.setPopulationSize( POPULATION_SIZE );
+		if ( LOCAL_SEARCH_RATE > 0 )
+			config.setLocalSearch( sm, LOCAL_SEARCH_RATE );
 		if ( MUTATION_FLUX )
 			config.setDefaultBiasSource( new FluctuatingBiasSource( MUTATION_FLUX_WAVELENGTH, 0,
 					MUTATION_RATE, MUTATION_FLUX_COMPRESSION_POWER ) );
@@ -173,15 +179,19 @@ public class NQueensProblem
 
 		config.setMutator( new NQMutator( searchContext ) );
 
-		EvolutionControlThread controlThread = new EvolutionControlThread<>( searchContext,
-				THREAD_COUNT,
+		EvolutionSearch<NQueensProblem> search = new EvolutionSearch<>( searchContext,
 				new FitnessThresholdStopCondition<NQueensProblem>( sm, goalConflicts ),
 				new TimedStopCondition( MAX_TIME_MILLIS ) );
+		WorkerCountController controller = ( THREAD_COUNT > 0 ) ? null
+				: new WorkerCountController( search );
 
 		long millis = System.currentTimeMillis( );
 
-		controlThread.start( );
-		controlThread.join( );
+		if ( controller != null )
+			controller.start( );
+		else
+			search.start( THREAD_COUNT );
+		search.awaitTermination( );
 
 		millis = System.currentTimeMillis( ) - millis;
 
@@ -211,6 +221,9 @@ public class NQueensProblem
 		double statesPerMs = gensPerMs * POPULATION_SIZE;
 		System.out.println( "Performance: " + df.format( gensPerMs ) + " gens/ms; "
 				+ df.format( statesPerMs ) + " states/ms" );
+		if ( controller != null )
+			System.out.println( "Workers: " + controller.getBestWorkerCount( ) + " (states/s by workers: "
+					+ controller.getThroughputCurve( ) + ")" );
 
 	} // main
 
@@ -8,22 +8,32 @@ package org.agal.toys;
 
 import java.util.Arrays;
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Crossover;
+import org.agal.core.LocalSearch;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
 import org.agal.core.StateManager;
+import org.agal.impl.Crossovers;
 
 /**
- * NQueensStateManager is a StateManager implementation for the NQueensProblem.
+ * NQueensStateManager is a StateManager implementation for the NQueensProblem. It doubles
+ * as a min-conflicts LocalSearch for memetic searches.
  * @author David Schmidt
  */
 public class NQueensStateManager extends AbstractFitnessEvaluator<NQueensProblem> implements
-		StateManager<NQueensProblem>
+		StateManager<NQueensProblem>, LocalSearch<NQueensProblem>, RandomSourceAware
 {
+	// Class constants.
+	private static final Crossover<int[ ]> CROSSOVER = Crossovers.getKPointCrossover( 1 );
+
 	// Data members.
 	private final int fieldBoardSize;
 	private final long fieldMaxConflicts;
 	private final boolean fieldCloneReproduction;
+	private RandomSource fieldRandomSource;
 
 
 	/**
@@ -67,25 +77,86 @@ public class NQueensStateManager extends AbstractFitnessEvaluator<NQueensProblem
 	} // getMaxConflicts
 
 
+	/**
+	 * Improves a board by min-conflicts: repeatedly moves a random conflicted Queen to
+	 * the least conflicted row in its column, breaking ties randomly. Each row considered
+	 * counts as one evaluation.
+	 */
 	@Override
-	public NQueensProblem randomize( )
+	public void improve( NQueensProblem state, RandomGenerator random, int maxEvaluations,
+			long deadline )
 	{
-		return new NQueensProblem( ThreadLocalRandom.current( ), fieldBoardSize );
-
-	} // randomize
+		int[ ] positions = state.getPositions( );
+		int n = positions.length;
+
+		// Queens per row and per diagonal, as in NQueensProblem.
+		int[ ] rowCounts = new int[ n ];
+		int[ ] risingCounts = new int[ 2 * n - 1 ];
+		int[ ] fallingCounts = new int[ 2 * n - 1 ];
+		for ( int column = 0; column < n; column++ )
+			{
+			rowCounts[ positions[ column ] ]++;
+			risingCounts[ positions[ column ] + column ]++;
+			fallingCounts[ positions[ column ] - column + n - 1 ]++;
+			}
+
+		for ( int evaluations = 0; evaluations < maxEvaluations; evaluations += n )
+			{
+			// Find a conflicted Queen, starting from a random column.
+			int start = random.nextInt( n );
+			int column = -1;
+			for ( int offset = 0; offset < n && column < 0; offset++ )
+				{
+				int candidate = ( start + offset ) % n;
+				int row = positions[ candidate ];
+				if ( rowCounts[ row ] + risingCounts[ row + candidate ]
+						+ fallingCounts[ row - candidate + n - 1 ] > 3 )
+					column = candidate;
+				}
+
+			if ( column < 0 || System.nanoTime( ) >= deadline )
+				break;
+
+			// Pick it up and put it down on the best row.
+			int row = positions[ column ];
+			rowCounts[ row ]--;
+			risingCounts[ row + column ]--;
+			fallingCounts[ row - column + n - 1 ]--;
+
+			int bestRow = row;
+			int bestConflicts = Integer.MAX_VALUE;
+			int ties = 0;
+			for ( int candidate = 0; candidate < n; candidate++ )
+				{
+				int conflicts = rowCounts[ candidate ] + risingCounts[ candidate + column ]
+						+ fallingCounts[ candidate - column + n - 1 ];
+				if ( conflicts < bestConflicts )
+					{
+					bestConflicts = conflicts;
+					bestRow = candidate;
+					ties = 1;
+					}
+				else if ( conflicts == bestConflicts && random.nextInt( ++ties ) == 0 )
+					{
+					bestRow = candidate;
+					}
+				}
+
+			positions[ column ] = bestRow;
+			rowCounts[ bestRow ]++;
+			risingCounts[ bestRow + column ]++;
+			fallingCounts[ bestRow - column + n - 1 ]++;
+			}
+
+	} // improve
 
 
-	private NQueensProblem randomMeshReproduce( NQueensProblem mother, NQueensProblem father )
+	@Override
+	public NQueensProblem randomize( )
 	{
-		int[ ] momGenes = mother.getPositions( );
-		int[ ] dadGenes = father.getPositions( );
-		int[ ] childGenes = new int[ fieldBoardSize ];
-		Random rand = ThreadLocalRandom.current( );
-		for ( int i = 0; i < fieldBoardSize; i++ )
-			childGenes[ i ] = ( rand.nextBoolean( ) ? momGenes[ i ] : dadGenes[ i ] );
-		return new NQueensProblem( childGenes );
+		return new NQueensProblem( RandomSource.randomOf( fieldRandomSource ), fieldBoardSize );
 
-	} // randomMeshReproduce
+	} // randomize
 
 
 	@Override
@@ -97,19 +168,12 @@ public class NQueensStateManager extends AbstractFitnessEvaluator<NQueensProblem
 	} // reproduce
 
 
-	private NQueensProblem shuffleReproduce( NQueensProblem mother, NQueensProblem father )
+	@Override
+	public void setRandomSource( RandomSource randomSource )
 	{
-		Random rand = new Random( );
-		int[ ] momGenes = mother.getPositions( );
-		int[ ] dadGenes = father.getPositions( );
-		int[ ] childGenes = new int[ fieldBoardSize ];
-
-		for ( int i = 0; i < fieldBoardSize; i++ )
-			childGenes[ i ] = ( rand.nextBoolean( ) ? momGenes[ i ] : dadGenes[ i ] );
-
-		return new NQueensProblem( childGenes );
+		fieldRandomSource = randomSource;
 
-	} // shuffleReproduce
+	} // setRandomSource
 
 
 	private NQueensProblem singleCrossoverReproduce( NQueensProblem mother, NQueensProblem father )
@@ -119,13 +183,9 @@ public class NQueensStateManager extends AbstractFitnessEvaluator<NQueensProblem
 		// representation; the first "half" of one parent's state and the second "half" of
 		// the other's are taken and combined in their original order to form the child's
 		// chromosome. (This method is crap.)
-		int[ ] momGenes = mother.getPositions( );
-		int[ ] dadGenes = father.getPositions( );
-		int crossoverPoint = ThreadLocalRandom.current( ).nextInt( fieldBoardSize );
 		int[ ] childGenes = new int[ fieldBoardSize ];
-		System.arraycopy( momGenes, 0, childGenes, 0, crossoverPoint );
-		System.arraycopy( dadGenes, crossoverPoint, childGenes, crossoverPoint, fieldBoardSize
-				- crossoverPoint );
+		CROSSOVER.cross( mother.getPositions( ), father.getPositions( ), childGenes,
+				RandomSource.randomOf( fieldRandomSource ) );
 
 		return new NQueensProblem( childGenes );
 
@@ -134,7 +194,7 @@ public class NQueensStateManager extends AbstractFitnessEvaluator<NQueensProblem
 
 	private NQueensProblem singlePointMutation( NQueensProblem original )
 	{
-		Random rand = ThreadLocalRandom.current( );
+		Random rand = RandomSource.randomOf( fieldRandomSource );
 		int[ ] chromosome = Arrays.copyOf( original.getPositions( ), fieldBoardSize );
 
 		chromosome[ rand.nextInt( fieldBoardSize ) ] = rand.nextInt( fieldBoardSize );
@@ -21,22 +21,28 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.imageio.ImageIO;
 
 import org.agal.core.AbstractFitnessEvaluator;
+import org.agal.core.Crossover;
 import org.agal.core.EvolutionConfiguration;
-import org.agal.core.EvolutionControlThread;
+import org.agal.core.EvolutionSearch;
+import org.agal.core.LocalSearch;
+import org.agal.core.RandomSource;
+import org.agal.core.RandomSourceAware;
 import org.agal.core.SearchContext;
 import org.agal.core.StateManager;
+import org.agal.core.WorkerCountController;
 import org.agal.impl.ArraySharedMixedGenPopulation;
+import org.agal.impl.Crossovers;
 import org.agal.impl.EugenicAlgorithm;
 import org.agal.impl.FixedBiasSource;
 import org.agal.impl.FluctuatingBiasSource;
@@ -46,12 +52,48 @@ import org.agal.impl.TournamentSelector;
 import org.agal.toys.TravellingSalesmanStateManager.StateWrapper;
 
 /**
- * TravellingSalesmanStateManager
+ * TravellingSalesmanStateManager. It doubles as a 2-opt/Or-opt LocalSearch for memetic
+ * searches.
  * @author Dave
  */
 public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<StateWrapper>
-		implements StateManager<StateWrapper>
+		implements StateManager<StateWrapper>, LocalSearch<StateWrapper>, RandomSourceAware
 {
+	/**
+	 * Counts down a local search's budget, checking the clock only every so often.
+	 */
+	private static class MoveBudget
+	{
+		// Data members.
+		private final long fieldDeadline;
+		private int fieldRemaining;
+
+
+		MoveBudget( int maxEvaluations, long deadline )
+		{
+			fieldRemaining = maxEvaluations;
+			fieldDeadline = deadline;
+
+		} // MoveBudget
+
+
+		/**
+		 * @return {@code true} if another move may be evaluated, or {@code false} if the
+		 *         budget is spent.
+		 */
+		boolean spend( )
+		{
+			if ( fieldRemaining <= 0 )
+				return false;
+
+			if ( ( --fieldRemaining & 0xFF ) == 0 && System.nanoTime( ) >= fieldDeadline )
+				fieldRemaining = 0;
+
+			return true;
+
+		} // spend
+
+	} // MoveBudget
 
 	static class StateWrapper
 	{
@@ -63,15 +105,38 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 
 	private static final double BOUNDS_MARGIN = 1.1;
 
+	// The longest segment Or-opt will move, and the least gain worth a move.
+	private static final int OR_OPT_SEGMENT_LENGTH = 3;
+	private static final double MINIMUM_GAIN = 1e-9;
+
+	// Edge recombination preserves the most of the parents' tours.
+	private static final Crossover<int[ ]> CROSSOVER = Crossovers.getEdgeRecombination( );
+
 	// Data members.
 	private Point2D.Double[] fieldPoints;
 	private int[ ] fieldBaseState;
 	private int fieldNumberOfPoints;
 	private double fieldWidth;
 	private double fieldHeight;
+	private RandomSource fieldRandomSource;
 
 
 	public TravellingSalesmanStateManager( int numberOfPoints, double bounds )
+	{
+		this( numberOfPoints, bounds, new Random( ) );
+
+	} // TravellingSalesmanStateManager
+
+
+	/**
+	 * Constructs a TravellingSalesmanStateManager with randomly placed points.
+	 * @param numberOfPoints an {@code int} indicating the number of points to visit.
+	 * @param bounds a {@code double} indicating the width and height of the square the
+	 *            points are placed in.
+	 * @param random a Random with which to place the points. Pass a seeded Random to
+	 *            get the same problem every time.
+	 */
+	public TravellingSalesmanStateManager( int numberOfPoints, double bounds, Random random )
 	{
 		super( true );
 
@@ -81,9 +146,6 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 		fieldHeight = bounds * BOUNDS_MARGIN;
 		fieldNumberOfPoints = numberOfPoints;
 
-		// LAM - Scoped injection or something?
-		Random random = new Random( );
-
 		// Generate the points to traverse. Also double down on the loop and fill up the
 		// base state array.
 		for ( int index = 0; index < numberOfPoints; index++ )
@@ -137,8 +199,9 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 		boolean MUTATION_FLUX = false;
 		int MUTATION_FLUX_WAVELENGTH = 150;
 		int MUTATION_FLUX_SINE_POWER = 5;
-		int THREAD_COUNT = Runtime.getRuntime( ).availableProcessors( ) + 1;
+		int THREAD_COUNT = 0; // 0 for adaptive.
 		String RESULT_FILE = "bin/tsp.png";
+		double LOCAL_SEARCH_RATE = 0; // 0 for none.
 
 		try
 			{
@@ -163,6 +226,7 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 			MUTATION_FLUX_SINE_POWER = Integer.parseInt( args[ 7 ] );
 			THREAD_COUNT = Integer.parseInt( args[ 8 ] );
 			RESULT_FILE = args[ 9 ];
+			LOCAL_SEARCH_RATE = Double.parseDouble( args[ 10 ] );
 			}
 		catch ( Exception ignored )
 			{
@@ -183,6 +247,8 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 		config.setRandomClass( Random.class );
 		config.setRandomSourceClass( ThreadLocalRandomSource.class );
 		config.setSelectorClass( TournamentSelector.class );
+		if ( LOCAL_SEARCH_RATE > 0 )
+			config.setLocalSearch( sm, LOCAL_SEARCH_RATE );
 		if ( MUTATION_FLUX )
 			config.setDefaultBiasSource( new FluctuatingBiasSource( MUTATION_FLUX_WAVELENGTH, 1,
 					MUTATION_RATE, MUTATION_FLUX_SINE_POWER ) );
@@ -191,13 +257,18 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 
 		SearchContext<StateWrapper> searchContext = config.initialize( );
 
-		EvolutionControlThread controlThread = new EvolutionControlThread<>( searchContext,
-				THREAD_COUNT, new TimedStopCondition( TIME_LIMIT ) );
+		EvolutionSearch<StateWrapper> search = new EvolutionSearch<>( searchContext,
+				new TimedStopCondition( TIME_LIMIT ) );
+		WorkerCountController controller = ( THREAD_COUNT > 0 ) ? null
+				: new WorkerCountController( search );
 
 		long time = System.currentTimeMillis( );
 
-		controlThread.start( );
-		controlThread.join( );
+		if ( controller != null )
+			controller.start( );
+		else
+			search.start( THREAD_COUNT );
+		search.awaitTermination( );
 
 		time = System.currentTimeMillis( ) - time;
 
@@ -213,6 +284,9 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 		System.out.println( "Runtime: " + time + "ms, " + gens + " generations" );
 		System.out.println( "Performance: " + format.format( gensPerMs ) + " gens/ms; "
 				+ format.format( statesPerMs ) + " states/ms" );
+		if ( controller != null )
+			System.out.println( "Workers: " + controller.getBestWorkerCount( ) + " (states/s by workers: "
+					+ controller.getThroughputCurve( ) + ")" );
 
 	} // main
 
@@ -271,6 +345,13 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 	} // readTSPFile
 
 
+	private double distance( int from, int to )
+	{
+		return fieldPoints[ from ].distance( fieldPoints[ to ] );
+
+	} // distance
+
+
 	private void drawSolution( StateWrapper solution, String filename, double maxDimension )
 			throws IOException
 	{
@@ -360,14 +441,104 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 	} // fitness
 
 
+	/**
+	 * Improves a tour by 2-opt until it's 2-optimal, then by a single Or-opt move, and so
+	 * on until neither finds an improvement. Each move considered counts as one
+	 * evaluation.
+	 */
+	@Override
+	public void improve( StateWrapper state, RandomGenerator random, int maxEvaluations,
+			long deadline )
+	{
+		int[ ] tour = state.fieldChromosome;
+		if ( tour.length < OR_OPT_SEGMENT_LENGTH + 2 )
+			return;
+
+		MoveBudget budget = new MoveBudget( maxEvaluations, deadline );
+		boolean changed = twoOpt( tour, budget );
+		while ( orOpt( tour, budget ) )
+			{
+			changed = true;
+			twoOpt( tour, budget );
+			}
+
+		if ( changed )
+			state.fieldFitness = null;
+
+	} // improve
+
+
+	/**
+	 * Looks for a segment of up to {@link #OR_OPT_SEGMENT_LENGTH} cities which is shorter
+	 * to visit elsewhere in the tour (either way round), and moves the first one found.
+	 * @return {@code true} if a segment was moved.
+	 */
+	private boolean orOpt( int[ ] tour, MoveBudget budget )
+	{
+		int n = tour.length;
+		int[ ] segment = new int[ OR_OPT_SEGMENT_LENGTH ];
+
+		for ( int length = 1; length <= OR_OPT_SEGMENT_LENGTH; length++ )
+			for ( int start = 1; start + length <= n; start++ )
+				{
+				int end = start + length - 1;
+				int previous = tour[ start - 1 ];
+				int next = tour[ ( end + 1 ) % n ];
+				double removalGain = distance( previous, tour[ start ] )
+						+ distance( tour[ end ], next ) - distance( previous, next );
+
+				for ( int edge = 0; edge < n; edge++ )
+					{
+					if ( edge >= start - 1 && edge <= end )
+						continue;
+					if ( !budget.spend( ) )
+						return false;
+
+					int before = tour[ edge ];
+					int after = tour[ ( edge + 1 ) % n ];
+					double base = distance( before, after );
+					double forward = distance( before, tour[ start ] )
+							+ distance( tour[ end ], after ) - base;
+					double reversed = distance( before, tour[ end ] )
+							+ distance( tour[ start ], after ) - base;
+					if ( Math.min( forward, reversed ) >= removalGain - MINIMUM_GAIN )
+						continue;
+
+					// Lift the segment out, close the gap, and drop it in after the edge.
+					for ( int index = 0; index < length; index++ )
+						segment[ index ] = tour[ ( reversed < forward ) ? end - index
+								: start + index ];
+					int destination;
+					if ( edge > end )
+						{
+						System.arraycopy( tour, end + 1, tour, start, edge - end );
+						destination = edge - length + 1;
+						}
+					else
+						{
+						System.arraycopy( tour, edge + 1, tour, edge + 1 + length, start - edge - 1 );
+						destination = edge + 1;
+						}
+					System.arraycopy( segment, 0, tour, destination, length );
+
+					return true;
+					}
+				}
+
+		return false;
+
+	} // orOpt
+
+
 	@Override
 	public StateWrapper randomize( )
 	{
+		Random random = RandomSource.randomOf( fieldRandomSource );
 		int[ ] chromosome = Arrays.copyOf( fieldBaseState, fieldBaseState.length );
 
 		// Shuffle half the list into the whole list.
 		for ( int index = 0; index < chromosome.length / 2 + 1; index++ )
-			randomSwap( chromosome );
+			randomSwap( chromosome, random );
 
 		StateWrapper wrapper = new StateWrapper( );
 		wrapper.fieldChromosome = chromosome;
@@ -377,11 +548,8 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 	} // randomize
 
 
-	private void randomSwap( int[ ] state )
+	private void randomSwap( int[ ] state, Random random )
 	{
-		// TODO - Get this from the search context (which we don't have yet).
-		Random random = new Random( );
-
 		int swapIndex1 = random.nextInt( state.length );
 		int swapIndex2 = random.nextInt( state.length );
 		int swapValue = state[ swapIndex1 ];
@@ -394,26 +562,9 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 	@Override
 	public StateWrapper reproduce( StateWrapper mother, StateWrapper father )
 	{
-		// TODO - This seems pretty bad in practice.
-
-		int[ ] p1 = mother.fieldChromosome;
-		int[ ] p2 = father.fieldChromosome;
-
-		// We'll use every odd value from p2 and every even value from p1, with even
-		// values taking priority for conflicts.
-		ArrayDeque<Integer> queue = new ArrayDeque<>( );
-		for ( int index = 0; index < p1.length; index++ )
-			{
-			if ( p1[ index ] % 2 == 0 )
-				queue.add( p1[ index ] );
-			if ( p2[ index ] % 2 == 1 )
-				queue.add( p2[ index ] );
-			}
-
-		// Convert the queue to an array.
-		int[ ] chromosome = new int[ p1.length ];
-		for ( int index = 0; index < p1.length; index++ )
-			chromosome[ index ] = queue.remove( );
+		int[ ] chromosome = new int[ mother.fieldChromosome.length ];
+		CROSSOVER.cross( mother.fieldChromosome, father.fieldChromosome, chromosome,
+				RandomSource.randomOf( fieldRandomSource ) );
 
 		StateWrapper wrapper = new StateWrapper( );
 		wrapper.fieldChromosome = chromosome;
@@ -421,4 +572,58 @@ public class TravellingSalesmanStateManager extends AbstractFitnessEvaluator<Sta
 
 	} // reproduce
 
+
+	@Override
+	public void setRandomSource( RandomSource randomSource )
+	{
+		fieldRandomSource = randomSource;
+
+	} // setRandomSource
+
+
+	/**
+	 * Applies improving 2-opt moves (reversing the stretch of tour between two edges
+	 * whenever reconnecting them the other way is shorter) until there are none left.
+	 * @return {@code true} if the tour was changed.
+	 */
+	private boolean twoOpt( int[ ] tour, MoveBudget budget )
+	{
+		int n = tour.length;
+		boolean changed = false;
+		boolean improved = true;
+
+		while ( improved )
+			{
+			improved = false;
+			for ( int first = 0; first < n - 2; first++ )
+				for ( int second = first + 2; second < n; second++ )
+					{
+					// Those edges are adjacent.
+					if ( first == 0 && second == n - 1 )
+						continue;
+					if ( !budget.spend( ) )
+						return changed;
+
+					int a = tour[ first ];
+					int b = tour[ first + 1 ];
+					int c = tour[ second ];
+					int d = tour[ ( second + 1 ) % n ];
+					if ( distance( a, c ) + distance( b, d ) < distance( a, b ) + distance( c, d )
+							- MINIMUM_GAIN )
+						{
+						for ( int left = first + 1, right = second; left < right; left++, right-- )
+							{
+							int city = tour[ left ];
+							tour[ left ] = tour[ right ];
+							tour[ right ] = city;
+							}
+						changed = improved = true;
+						}
+					}
+			}
+
+		return changed;
+
+	} // twoOpt
+
 }